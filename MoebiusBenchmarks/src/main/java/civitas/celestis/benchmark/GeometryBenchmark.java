@@ -0,0 +1,83 @@
+package civitas.celestis.benchmark;
+
+import civitas.celestis.graphics.Face;
+import civitas.celestis.graphics.Geometry;
+import civitas.celestis.graphics.Ray;
+import civitas.celestis.math.vector.Vector3;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ray-triangle tests of {@link Geometry}.
+ * Each invocation tests the next of a fixed set of random faces and rays,
+ * about half of which intersect, so that branch prediction cannot learn the result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class GeometryBenchmark {
+    /**
+     * The number of faces and rays to cycle through. This must be a power of two.
+     */
+    private static final int SIZE = 1024;
+
+    private final Face[] faces = new Face[SIZE];
+    private final Ray[] rays = new Ray[SIZE];
+    private final Vector3[] points = new Vector3[SIZE];
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(0);
+
+        for (int i = 0; i < SIZE; i++) {
+            final Vector3 a = randomVector(random, 10);
+            final Vector3 b = randomVector(random, 10);
+            final Vector3 c = randomVector(random, 10);
+            faces[i] = new Face(a, b, c);
+
+            // Aim every other ray at the face, and the rest in a random direction
+            final Vector3 origin = randomVector(random, 50);
+            final Vector3 target = i % 2 == 0 ? faces[i].getCentroid() : randomVector(random, 50);
+            rays[i] = new Ray(origin, target.subtract(origin).normalize());
+
+            points[i] = randomVector(random, 10);
+        }
+    }
+
+    @Benchmark
+    public boolean intersects() {
+        final int i = next();
+        return Geometry.intersects(faces[i], rays[i]);
+    }
+
+    @Benchmark
+    public Vector3 intersection() {
+        final int i = next();
+        return Geometry.intersection(faces[i], rays[i]);
+    }
+
+    @Benchmark
+    public double signedVolume() {
+        final int i = next();
+        final Face face = faces[i];
+        return Geometry.signedVolume(face.getA(), face.getB(), face.getC(), points[i]);
+    }
+
+    private int next() {
+        return index = (index + 1) & (SIZE - 1);
+    }
+
+    private static Vector3 randomVector(Random random, double range) {
+        return new Vector3(
+                (random.nextDouble() * 2 - 1) * range,
+                (random.nextDouble() * 2 - 1) * range,
+                (random.nextDouble() * 2 - 1) * range
+        );
+    }
+}
@@ -0,0 +1,65 @@
+package civitas.celestis.benchmark;
+
+import civitas.celestis.graphics.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks loading the bundled {@code MCX.obj} model from disk.
+ * The model and its material library are copied out of the engine's resources into a temporary directory once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ModelLoadingBenchmark {
+    private Path directory;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("moebius-benchmark");
+        path = copyResource("models/mcx/MCX.obj").toString();
+        copyResource("models/mcx/MCX.mtl");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (final Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Model loadModel() throws IOException {
+        return Model.loadModel(path, 1);
+    }
+
+    @Benchmark
+    public Model loadPackedModel() throws IOException {
+        return Model.loadPackedModel(path, 1);
+    }
+
+    private Path copyResource(String name) throws IOException {
+        final Path target = directory.resolve(Path.of(name).getFileName());
+
+        try (final InputStream in = ModelLoadingBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            Files.copy(Objects.requireNonNull(in, "Missing resource " + name), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return target;
+    }
+}
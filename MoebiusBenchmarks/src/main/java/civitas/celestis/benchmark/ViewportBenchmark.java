@@ -0,0 +1,95 @@
+package civitas.celestis.benchmark;
+
+import civitas.celestis.graphics.BoundingVolumeHierarchy;
+import civitas.celestis.graphics.Model;
+import civitas.celestis.graphics.RenderMode;
+import civitas.celestis.graphics.Scene;
+import civitas.celestis.graphics.Viewport;
+import civitas.celestis.math.vector.Vector3;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rendering and presenting whole frames of the bundled {@code MCX.obj} model offscreen.
+ * The viewport has no render thread, so each call to {@link Viewport#paint(Graphics)} renders a frame synchronously.
+ * Level of detail is disabled, so that every frame draws the same faces.
+ * Ray-traced frames discard the samples of the previous frame, so that each frame traces exactly one sample per pixel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Djava.awt.headless=true"})
+public class ViewportBenchmark {
+    @Param({"POLYGON", "PAINTER", "RASTER", "TILED", "RAY_TRACED"})
+    public RenderMode renderMode;
+
+    @Param({"1280"})
+    public int width;
+
+    @Param({"720"})
+    public int height;
+
+    private Viewport viewport;
+    private BufferedImage image;
+    private Graphics graphics;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final Path directory = Files.createTempDirectory("moebius-benchmark");
+        final Path obj = directory.resolve("MCX.obj");
+        final Path mtl = directory.resolve("MCX.mtl");
+
+        copyResource("models/mcx/MCX.obj", obj);
+        copyResource("models/mcx/MCX.mtl", mtl);
+
+        final Model model = Model.loadPackedModel(obj.toString(), 600);
+
+        Files.delete(obj);
+        Files.delete(mtl);
+        Files.delete(directory);
+
+        // Ray tracing leaves out models whose hierarchy is still being built in the background
+        BoundingVolumeHierarchy.of(model);
+
+        viewport = new Viewport();
+        viewport.setSize(width, height);
+        viewport.renderMode = renderMode;
+        viewport.levelOfDetail = false;
+        viewport.origin = new Vector3(0, 0, -300);
+        viewport.publish(new Scene(List.of(), List.of(model)));
+
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.getGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage renderFrame() {
+        if (renderMode == RenderMode.RAY_TRACED) viewport.getRayTracer().reset();
+
+        viewport.paint(graphics);
+        return image;
+    }
+
+    private static void copyResource(String name, Path target) throws IOException {
+        try (final InputStream in = ViewportBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            Files.copy(Objects.requireNonNull(in, "Missing resource " + name), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
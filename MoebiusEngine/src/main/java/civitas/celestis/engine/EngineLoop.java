@@ -0,0 +1,242 @@
+package civitas.celestis.engine;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a simulation at a fixed tick rate, and presents frames as often as allowed in between.
+ * <p>
+ * Elapsed time is accumulated, and the simulation is ticked with a constant time step for as long as
+ * a whole tick of time has accumulated. The remainder is passed to the presenter as the fraction of
+ * the next tick which has already elapsed, so that frames can be interpolated between the last two ticks
+ * with a {@link TransformInterpolator}. The simulation therefore behaves identically at any frame rate,
+ * and frames stay smooth at frame rates above the tick rate.
+ * </p>
+ * <p>
+ * When the simulation falls behind, several ticks are run before the next frame to catch up.
+ * At most {@link #maxCatchUpTicks} ticks are run per frame, and any further backlog is dropped,
+ * so that ticks which take longer than their time step slow the simulation down instead of
+ * making every following frame run even more ticks.
+ * </p>
+ * <p>
+ * Ticks and frames run on the same thread, either the dedicated thread started by {@link #start()},
+ * or a thread which calls {@link #advance(long)} itself. The simulation and the presenter therefore
+ * never run at the same time, and need no synchronization between each other.
+ * </p>
+ */
+public class EngineLoop {
+    /**
+     * Creates a new engine loop.
+     *
+     * @param tickRate   The number of ticks per second
+     * @param simulation The simulation to tick
+     * @param presenter  The presenter to present frames with
+     * @throws IllegalArgumentException When the tick rate is not positive and finite
+     */
+    public EngineLoop(double tickRate, @Nonnull Simulation simulation, @Nonnull Presenter presenter)
+            throws IllegalArgumentException {
+        if (!(tickRate > 0) || Double.isInfinite(tickRate)) {
+            throw new IllegalArgumentException("The tick rate must be positive and finite.");
+        }
+
+        this.tickNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / tickRate));
+        this.tickSeconds = tickNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        this.simulation = simulation;
+        this.presenter = presenter;
+    }
+
+    /**
+     * The maximum number of ticks run before each frame. Time beyond this is dropped.
+     */
+    public volatile int maxCatchUpTicks = 5;
+
+    /**
+     * The maximum number of frames presented per second, or {@code 0} for no limit.
+     */
+    public volatile int maxFrameRate = 144;
+
+    private final long tickNanos;
+    private final double tickSeconds;
+    @Nonnull
+    private final Simulation simulation;
+    @Nonnull
+    private final Presenter presenter;
+
+    private long accumulator = 0;
+    private volatile long tickCount = 0;
+    private volatile long droppedTickCount = 0;
+    private volatile long frameCount = 0;
+
+    private volatile Thread loopThread = null;
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the length of each tick.
+     *
+     * @return The length of each tick in seconds
+     */
+    public double getTickSeconds() {
+        return tickSeconds;
+    }
+
+    /**
+     * Returns the number of ticks run so far.
+     *
+     * @return The number of ticks
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Returns the number of ticks which were dropped because the simulation fell too far behind.
+     *
+     * @return The number of dropped ticks
+     */
+    public long getDroppedTickCount() {
+        return droppedTickCount;
+    }
+
+    /**
+     * Returns the number of frames presented so far.
+     *
+     * @return The number of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    //
+    // Loop thread
+    //
+
+    /**
+     * Starts running the loop on a dedicated thread. This does nothing if the thread is already running.
+     */
+    public synchronized void start() {
+        if (loopThread != null) return;
+
+        loopThread = new Thread(this::loop, "Engine-Loop");
+        loopThread.setDaemon(true);
+        loopThread.start();
+    }
+
+    /**
+     * Stops the loop thread, and waits for the tick or frame in progress to finish.
+     */
+    public synchronized void stop() {
+        final Thread thread = loopThread;
+        if (thread == null) return;
+
+        loopThread = null;
+        thread.interrupt();
+
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        long last = System.nanoTime();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final long now = System.nanoTime();
+            advance(now - last);
+            last = now;
+
+            // Limit the frame rate
+            final int limit = maxFrameRate;
+            final long interval = limit > 0 ? TimeUnit.SECONDS.toNanos(1) / limit : 0;
+            final long wait = now + interval - System.nanoTime();
+
+            if (wait > 0) LockSupport.parkNanos(wait);
+            else Thread.yield();
+        }
+    }
+
+    //
+    // Stepping
+    //
+
+    /**
+     * Advances the loop by the given amount of time, running every tick which has become due, then presents a frame.
+     * This must only ever be called from one thread at a time, and must not be called while the loop thread is running.
+     *
+     * @param elapsedNanos The time elapsed since the last call in nanoseconds
+     * @return The number of ticks which were run
+     */
+    public int advance(long elapsedNanos) {
+        accumulator += Math.max(0, elapsedNanos);
+
+        final int maxTicks = maxCatchUpTicks;
+        int ticks = 0;
+
+        while (accumulator >= tickNanos) {
+            if (ticks >= maxTicks) {
+                // Drop the backlog instead of spiralling further behind
+                droppedTickCount += accumulator / tickNanos;
+                accumulator %= tickNanos;
+                break;
+            }
+
+            simulation.tick(tickSeconds);
+            accumulator -= tickNanos;
+            ticks++;
+            tickCount++;
+        }
+
+        presenter.present(accumulator / (double) tickNanos);
+        frameCount++;
+
+        return ticks;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "EngineLoop{" +
+                "tickSeconds=" + tickSeconds +
+                ", tickCount=" + tickCount +
+                ", droppedTickCount=" + droppedTickCount +
+                ", frameCount=" + frameCount +
+                '}';
+    }
+
+    //
+    // Callbacks
+    //
+
+    /**
+     * A simulation which is advanced in fixed time steps.
+     */
+    @FunctionalInterface
+    public interface Simulation {
+        /**
+         * Advances the simulation by one tick.
+         *
+         * @param seconds The length of the tick in seconds, which is the same for every tick
+         */
+        void tick(double seconds);
+    }
+
+    /**
+     * Presents frames of a simulation, such as by publishing a {@link civitas.celestis.graphics.Scene} to a viewport.
+     */
+    @FunctionalInterface
+    public interface Presenter {
+        /**
+         * Presents a frame.
+         *
+         * @param alpha The fraction of the next tick which has already elapsed, from {@code 0} inclusive
+         *              to {@code 1} exclusive, to interpolate between the last two ticks with
+         */
+        void present(double alpha);
+    }
+}
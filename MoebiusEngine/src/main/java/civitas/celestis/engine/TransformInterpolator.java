@@ -0,0 +1,216 @@
+package civitas.celestis.engine;
+
+import civitas.celestis.math.complex.Quaternion;
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.object.BaseObject;
+import jakarta.annotation.Nonnull;
+
+import java.util.*;
+
+/**
+ * Records the transforms of objects at the last two ticks, so that frames can be drawn
+ * between ticks of an {@link EngineLoop}.
+ * <p>
+ * Call {@link #capture()} at the end of every tick. The transform of an object at a frame is then
+ * interpolated from the previous tick towards the current tick by the fraction the engine loop passes
+ * to its presenter. Frames are therefore drawn up to one tick behind the simulation.
+ * Locations are interpolated linearly, and rotations by normalized linear interpolation
+ * along the shorter arc, which is indistinguishable from spherical interpolation for the
+ * rotation of a single tick.
+ * </p>
+ * <p>
+ * This class is not thread-safe. It is meant to be used from the thread which runs the engine loop.
+ * </p>
+ *
+ * @param <T> The type of object to interpolate
+ */
+public class TransformInterpolator<T extends BaseObject> {
+    /**
+     * Creates a new transform interpolator.
+     */
+    public TransformInterpolator() {
+    }
+
+    /**
+     * The number of doubles recorded per object: a location and a rotation.
+     */
+    private static final int STRIDE = 7;
+
+    private final Map<T, Integer> slots = new HashMap<>();
+    private final List<T> objects = new ArrayList<>();
+    private double[] previous = new double[16 * STRIDE];
+    private double[] current = new double[16 * STRIDE];
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the number of objects tracked by this interpolator.
+     *
+     * @return The number of objects
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    public boolean contains(@Nonnull T object) {
+        return slots.containsKey(object);
+    }
+
+    //
+    // Tracking
+    //
+
+    /**
+     * Starts tracking an object. Until the next capture, the object is drawn at its current transform.
+     *
+     * @param object The object to track
+     * @return {@code true} if the object was not already tracked
+     */
+    public boolean add(@Nonnull T object) {
+        if (slots.containsKey(object)) return false;
+
+        final int slot = objects.size();
+        if ((slot + 1) * STRIDE > current.length) {
+            previous = Arrays.copyOf(previous, current.length * 2);
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+
+        slots.put(object, slot);
+        objects.add(object);
+
+        read(object, current, slot * STRIDE);
+        System.arraycopy(current, slot * STRIDE, previous, slot * STRIDE, STRIDE);
+        return true;
+    }
+
+    /**
+     * Stops tracking an object.
+     *
+     * @param object The object to stop tracking
+     * @return {@code true} if the object was tracked
+     */
+    public boolean remove(@Nonnull T object) {
+        final Integer slot = slots.remove(object);
+        if (slot == null) return false;
+
+        // Move the last object into the freed slot
+        final int last = objects.size() - 1;
+        final T moved = objects.remove(last);
+
+        if (slot != last) {
+            objects.set(slot, moved);
+            slots.put(moved, slot);
+            System.arraycopy(previous, last * STRIDE, previous, slot * STRIDE, STRIDE);
+            System.arraycopy(current, last * STRIDE, current, slot * STRIDE, STRIDE);
+        }
+
+        return true;
+    }
+
+    /**
+     * Stops tracking every object.
+     */
+    public void clear() {
+        slots.clear();
+        objects.clear();
+    }
+
+    /**
+     * Records the transform of every tracked object. This should be called at the end of every tick.
+     */
+    public void capture() {
+        final double[] swap = previous;
+        previous = current;
+        current = swap;
+
+        for (int i = 0; i < objects.size(); i++) {
+            read(objects.get(i), current, i * STRIDE);
+        }
+    }
+
+    //
+    // Interpolation
+    //
+
+    /**
+     * Returns the location of an object between the last two captures.
+     *
+     * @param object The object to interpolate
+     * @param alpha  The fraction of the way from the previous capture to the current capture
+     * @return The interpolated location
+     * @throws IllegalArgumentException When the object is not tracked
+     */
+    @Nonnull
+    public Vector3 getLocation(@Nonnull T object, double alpha) throws IllegalArgumentException {
+        final int o = slot(object) * STRIDE;
+
+        return new Vector3(
+                lerp(previous[o], current[o], alpha),
+                lerp(previous[o + 1], current[o + 1], alpha),
+                lerp(previous[o + 2], current[o + 2], alpha)
+        );
+    }
+
+    /**
+     * Returns the rotation of an object between the last two captures.
+     *
+     * @param object The object to interpolate
+     * @param alpha  The fraction of the way from the previous capture to the current capture
+     * @return The interpolated rotation
+     * @throws IllegalArgumentException When the object is not tracked
+     */
+    @Nonnull
+    public Quaternion getRotation(@Nonnull T object, double alpha) throws IllegalArgumentException {
+        final int o = slot(object) * STRIDE + 3;
+
+        // Quaternions q and -q are the same rotation, so flip the target onto the shorter arc
+        final double dot = previous[o] * current[o] + previous[o + 1] * current[o + 1]
+                + previous[o + 2] * current[o + 2] + previous[o + 3] * current[o + 3];
+        final double sign = dot < 0 ? -1 : 1;
+
+        final double w = lerp(previous[o], current[o] * sign, alpha);
+        final double x = lerp(previous[o + 1], current[o + 1] * sign, alpha);
+        final double y = lerp(previous[o + 2], current[o + 2] * sign, alpha);
+        final double z = lerp(previous[o + 3], current[o + 3] * sign, alpha);
+        final double norm = Math.sqrt(w * w + x * x + y * y + z * z);
+
+        return norm == 0 ? Quaternion.IDENTITY : new Quaternion(w / norm, x / norm, y / norm, z / norm);
+    }
+
+    //
+    // Internals
+    //
+
+    private int slot(@Nonnull T object) throws IllegalArgumentException {
+        final Integer slot = slots.get(object);
+        if (slot == null) throw new IllegalArgumentException("The object " + object + " is not tracked.");
+        return slot;
+    }
+
+    private static void read(@Nonnull BaseObject object, @Nonnull double[] dest, int offset) {
+        final Vector3 location = object.getLocation();
+        final Quaternion rotation = object.getRotation();
+
+        dest[offset] = location.x();
+        dest[offset + 1] = location.y();
+        dest[offset + 2] = location.z();
+        dest[offset + 3] = rotation.w();
+        dest[offset + 4] = rotation.x();
+        dest[offset + 5] = rotation.y();
+        dest[offset + 6] = rotation.z();
+    }
+
+    private static double lerp(double from, double to, double alpha) {
+        return from + (to - from) * alpha;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "TransformInterpolator{" +
+                "objects=" + objects.size() +
+                '}';
+    }
+}
@@ -0,0 +1,323 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads models in the background, and keeps them in a cache bounded by memory.
+ * <p>
+ * {@link #load(Path, double)} never blocks. It returns a future which completes once the model is loaded,
+ * or immediately if the model is already cached. Loads run on a fixed number of loader threads,
+ * so streaming in many models at once cannot starve the engine loop or the render thread.
+ * Concurrent requests for the same file and scale share a single load.
+ * </p>
+ * <p>
+ * Loaded models are weighed by the approximate number of bytes their geometry occupies, and kept in
+ * a least recently used cache. When the total weight exceeds the {@link #getMemoryBudget() memory budget},
+ * the least recently used models are evicted. Models larger than the whole budget are returned, but not cached.
+ * Evicting a model only removes it from the cache, so scenes which still use it are not affected.
+ * </p>
+ * <p>
+ * This class is thread-safe. The loader threads are daemon threads, and are stopped by {@link #close()}.
+ * </p>
+ */
+public class AssetManager implements AutoCloseable {
+    /**
+     * Creates a new asset manager which loads {@link PackedModel packed models},
+     * on two threads, or on a quarter of the available processors if that is more.
+     *
+     * @param memoryBudget The maximum total weight of the cached models in bytes
+     * @throws IllegalArgumentException When the budget is negative
+     */
+    public AssetManager(long memoryBudget) throws IllegalArgumentException {
+        this(memoryBudget, Math.max(2, Runtime.getRuntime().availableProcessors() / 4), AssetManager::loadPacked);
+    }
+
+    /**
+     * Creates a new asset manager.
+     *
+     * @param memoryBudget The maximum total weight of the cached models in bytes
+     * @param threads      The number of threads to load models on
+     * @param loader       The function which loads a model from a file
+     * @throws IllegalArgumentException When the budget is negative, or the number of threads is not positive
+     */
+    public AssetManager(long memoryBudget, int threads, @Nonnull Loader loader) throws IllegalArgumentException {
+        if (memoryBudget < 0) throw new IllegalArgumentException("The memory budget must not be negative.");
+        if (threads <= 0) throw new IllegalArgumentException("The number of loader threads must be positive.");
+
+        final AtomicInteger count = new AtomicInteger();
+
+        this.memoryBudget = memoryBudget;
+        this.loader = loader;
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            final Thread thread = new Thread(task, "AssetManager-Loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads a model from a file.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Loads a model from a file.
+         *
+         * @param path  The path of the file
+         * @param scale The scale to apply to every vertex
+         * @return The loaded model
+         * @throws IOException When an I/O error occurs
+         */
+        @Nonnull
+        Model load(@Nonnull Path path, double scale) throws IOException;
+    }
+
+    @Nonnull
+    private static Model loadPacked(@Nonnull Path path, double scale) throws IOException {
+        return Model.loadPackedModel(path.toString(), scale);
+    }
+
+    //
+    // Loading
+    //
+
+    /**
+     * Returns a model, loading it in the background if it is not cached.
+     * This never blocks. If the same model is already being loaded, the pending load is shared.
+     *
+     * @param path  The path of the file to load
+     * @param scale The scale to apply to every vertex
+     * @return A future which completes with the model, or exceptionally if it could not be loaded.
+     * Completing or cancelling the future does not affect other requests for the same model.
+     */
+    @Nonnull
+    public CompletableFuture<Model> load(@Nonnull Path path, double scale) {
+        final Key key = new Key(path.toAbsolutePath().normalize(), scale);
+
+        final Model cached = getCached(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        final CompletableFuture<Model> created = new CompletableFuture<>();
+        final CompletableFuture<Model> existing = pending.putIfAbsent(key, created);
+        if (existing != null) return existing.copy();
+
+        // A load may have finished between checking the cache and registering this one
+        final Model loaded = getCached(key);
+        if (loaded != null) {
+            created.complete(loaded);
+            pending.remove(key, created);
+            return created.copy();
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    final Model model = loader.load(key.path(), key.scale());
+                    insert(key, model);
+                    created.complete(model);
+                } catch (final Throwable e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    pending.remove(key, created);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            pending.remove(key, created);
+            created.completeExceptionally(e);
+        }
+
+        return created.copy();
+    }
+
+    /**
+     * Returns a model if it is cached, without loading it. This marks the model as recently used.
+     *
+     * @param path  The path of the file
+     * @param scale The scale the model was loaded at
+     * @return The model, or {@code null} if it is not cached
+     */
+    @Nullable
+    public Model getCached(@Nonnull Path path, double scale) {
+        return getCached(new Key(path.toAbsolutePath().normalize(), scale));
+    }
+
+    /**
+     * Removes a model from the cache. A pending load of the model is not cancelled.
+     *
+     * @param path  The path of the file
+     * @param scale The scale the model was loaded at
+     */
+    public void evict(@Nonnull Path path, double scale) {
+        synchronized (cache) {
+            final Entry entry = cache.remove(new Key(path.toAbsolutePath().normalize(), scale));
+            if (entry != null) memoryUsage -= entry.weight();
+        }
+    }
+
+    /**
+     * Removes every model from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+            memoryUsage = 0;
+        }
+    }
+
+    /**
+     * Stops the loader threads. Pending loads are finished, but no new loads are accepted.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    //
+    // Memory
+    //
+
+    /**
+     * Returns the maximum total weight of the cached models.
+     *
+     * @return The memory budget in bytes
+     */
+    public long getMemoryBudget() {
+        synchronized (cache) {
+            return memoryBudget;
+        }
+    }
+
+    /**
+     * Sets the maximum total weight of the cached models, evicting models until they fit.
+     *
+     * @param memoryBudget The memory budget in bytes
+     * @throws IllegalArgumentException When the budget is negative
+     */
+    public void setMemoryBudget(long memoryBudget) throws IllegalArgumentException {
+        if (memoryBudget < 0) throw new IllegalArgumentException("The memory budget must not be negative.");
+
+        synchronized (cache) {
+            this.memoryBudget = memoryBudget;
+            evict();
+        }
+    }
+
+    /**
+     * Returns the total weight of the cached models.
+     *
+     * @return The memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        synchronized (cache) {
+            return memoryUsage;
+        }
+    }
+
+    /**
+     * Returns the number of cached models.
+     *
+     * @return The number of models in the cache
+     */
+    public int getCachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Estimates the number of bytes the geometry of a model occupies. Textures are not included.
+     *
+     * @param model The model to weigh
+     * @return The approximate size of the model in bytes
+     */
+    public static long weigh(@Nonnull Model model) {
+        if (model instanceof QuantizedModel quantized) return quantized.getByteSize();
+
+        if (model instanceof PackedModel packed) {
+            final int[] materials = packed.getMaterialIndexBuffer();
+            return 4L * (packed.getPositionBuffer().length + packed.getNormalBuffer().length
+                    + packed.getUVBuffer().length + packed.getIndexBuffer().length
+                    + (materials != null ? materials.length : 0));
+        }
+
+        if (model instanceof MappedModel mapped) {
+            return 4L * (mapped.getPositionBuffer().capacity() + mapped.getNormalBuffer().capacity()
+                    + mapped.getUVBuffer().capacity() + mapped.getIndexBuffer().capacity());
+        }
+
+        // Models of vectors and faces store an object of three doubles per vertex, and a face object per face
+        return 48L * (model.getVertexCount() + model.getUVCoordinateCount()) + 128L * model.getFaceCount();
+    }
+
+    //
+    // Internals
+    //
+
+    @Nullable
+    private Model getCached(@Nonnull Key key) {
+        synchronized (cache) {
+            final Entry entry = cache.get(key);
+            return entry != null ? entry.model() : null;
+        }
+    }
+
+    private void insert(@Nonnull Key key, @Nonnull Model model) {
+        final long weight = weigh(model);
+
+        synchronized (cache) {
+            // Caching a model larger than the budget would only flush every other model
+            if (weight > memoryBudget) return;
+
+            final Entry previous = cache.put(key, new Entry(model, weight));
+            if (previous != null) memoryUsage -= previous.weight();
+
+            memoryUsage += weight;
+            evict();
+        }
+    }
+
+    /**
+     * Evicts the least recently used models until the cache fits within the budget.
+     * This must be called while holding the lock of the cache.
+     */
+    private void evict() {
+        final Iterator<Entry> entries = cache.values().iterator();
+
+        while (memoryUsage > memoryBudget && entries.hasNext()) {
+            memoryUsage -= entries.next().weight();
+            entries.remove();
+        }
+    }
+
+    private record Key(@Nonnull Path path, double scale) {}
+
+    private record Entry(@Nonnull Model model, long weight) {}
+
+    //
+    // Variables
+    //
+
+    private final Loader loader;
+    private final ExecutorService executor;
+    private final Map<Key, CompletableFuture<Model>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The cached models in access order, from least to most recently used. Guarded by its own lock.
+     */
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBudget;
+    private long memoryUsage = 0;
+}
@@ -0,0 +1,204 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Rasterizer;
+import jakarta.annotation.Nonnull;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Renders many {@link RenderJob jobs} concurrently, such as thumbnails of models or the frames of a turntable.
+ * <p>
+ * Each job is rendered on a thread of the pool by a {@link Renderer} taken from a pool of renderers,
+ * into a frame taken from a pool of frames. Both are returned to their pools once the job is done,
+ * so after warming up, rendering jobs of the same size does not allocate buffers. Every renderer
+ * uses the settings of the {@link #getSettings() settings renderer}, and the camera of its job.
+ * </p>
+ * <p>
+ * Jobs rendered in {@link RenderMode#RAY_TRACED} first wait for the hierarchy of every model in their scene,
+ * so that no model is left out, then accumulate {@link #samples} samples per pixel.
+ * </p>
+ * <p>
+ * Frames are reused, so the result of a job is either read from the frame by a function while the job
+ * still holds it, or copied into a new image. This class is thread-safe, and does not need Swing or a display.
+ * </p>
+ */
+public class BatchRenderer {
+    /**
+     * Creates a new batch renderer which uses the common fork-join pool.
+     */
+    public BatchRenderer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new batch renderer.
+     *
+     * @param pool The pool to render jobs on
+     */
+    public BatchRenderer(@Nonnull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //
+    // Settings
+    //
+
+    /**
+     * The number of samples per pixel traced for each job in {@link RenderMode#RAY_TRACED}.
+     * Jobs in other modes are always drawn once.
+     */
+    public volatile int samples = 16;
+
+    /**
+     * Returns the renderer whose settings are copied to the renderer of every job when the job starts.
+     * Apart from its near plane, its camera is not used, and it never renders anything itself.
+     *
+     * @return The settings of this batch renderer
+     */
+    @Nonnull
+    public Renderer getSettings() {
+        return settings;
+    }
+
+    //
+    // Rendering
+    //
+
+    /**
+     * Renders a job in the background, and reads the result from the frame before the frame is reused.
+     *
+     * @param job    The job to render
+     * @param reader The function which reads the result from the rendered frame. It must not keep the frame.
+     * @param <R>    The type of the result
+     * @return A future which completes with the result of the reader
+     */
+    @Nonnull
+    public <R> CompletableFuture<R> submit(@Nonnull RenderJob job, @Nonnull Function<? super Rasterizer, ? extends R> reader) {
+        return CompletableFuture.supplyAsync(() -> render(job, reader), pool);
+    }
+
+    /**
+     * Renders a job in the background into a new image.
+     *
+     * @param job The job to render
+     * @return A future which completes with a copy of the rendered frame
+     */
+    @Nonnull
+    public CompletableFuture<BufferedImage> submit(@Nonnull RenderJob job) {
+        return submit(job, BatchRenderer::copy);
+    }
+
+    /**
+     * Renders every job concurrently, and waits for all of them to finish.
+     *
+     * @param jobs   The jobs to render
+     * @param reader The function which reads the result from each rendered frame. It must not keep the frame.
+     * @param <R>    The type of the results
+     * @return The results of the reader, in the order of the jobs
+     * @throws java.util.concurrent.CompletionException When any job or reader throws an exception
+     */
+    @Nonnull
+    public <R> List<R> renderAll(@Nonnull List<RenderJob> jobs, @Nonnull Function<? super Rasterizer, ? extends R> reader) {
+        final List<CompletableFuture<R>> futures = new ArrayList<>(jobs.size());
+        for (final RenderJob job : jobs) futures.add(submit(job, reader));
+
+        final List<R> results = new ArrayList<>(futures.size());
+        for (final CompletableFuture<R> future : futures) results.add(future.join());
+
+        return results;
+    }
+
+    /**
+     * Renders every job concurrently into new images, and waits for all of them to finish.
+     *
+     * @param jobs The jobs to render
+     * @return The rendered images, in the order of the jobs
+     * @throws java.util.concurrent.CompletionException When any job throws an exception
+     */
+    @Nonnull
+    public List<BufferedImage> renderAll(@Nonnull List<RenderJob> jobs) {
+        return renderAll(jobs, BatchRenderer::copy);
+    }
+
+    private <R> R render(@Nonnull RenderJob job, @Nonnull Function<? super Rasterizer, ? extends R> reader) {
+        final Renderer renderer = lease(renderers, Renderer::new);
+        final Rasterizer frame = lease(frames, () -> new Rasterizer(job.getWidth(), job.getHeight()));
+
+        try {
+            renderer.copySettings(settings);
+            renderer.origin = job.getOrigin();
+            renderer.angle = job.getAngle();
+            renderer.focalLength = job.getFocalLength();
+            renderer.nearPlane = settings.nearPlane;
+
+            frame.resize(job.getWidth(), job.getHeight());
+
+            if (renderer.renderMode == RenderMode.RAY_TRACED) {
+                trace(renderer, job.getScene(), frame);
+            } else {
+                renderer.render(job.getScene(), frame);
+            }
+
+            return reader.apply(frame);
+        } finally {
+            frames.offer(frame);
+            renderers.offer(renderer);
+        }
+    }
+
+    /**
+     * Builds the hierarchy of every model in a scene on the calling thread if it is not cached,
+     * then traces the scene until the configured number of samples has been accumulated.
+     */
+    private void trace(@Nonnull Renderer renderer, @Nonnull Scene scene, @Nonnull Rasterizer frame) {
+        for (final Model model : scene.getModels()) BoundingVolumeHierarchy.of(model);
+        for (final MeshInstance instance : scene.getInstances()) BoundingVolumeHierarchy.of(instance.getModel());
+
+        final RayTracer tracer = renderer.getRayTracer();
+        final int samples = Math.max(1, this.samples);
+
+        tracer.reset();
+        do {
+            renderer.render(scene, frame);
+        } while (tracer.getSampleCount() < samples);
+    }
+
+    @Nonnull
+    private static <T> T lease(@Nonnull ConcurrentLinkedQueue<T> available, @Nonnull Supplier<T> factory) {
+        final T item = available.poll();
+        return item != null ? item : factory.get();
+    }
+
+    /**
+     * Copies the pixels of a frame into a new image.
+     */
+    @Nonnull
+    private static BufferedImage copy(@Nonnull Rasterizer frame) {
+        final BufferedImage image = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_RGB);
+        final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        System.arraycopy(frame.getPixels(), 0, pixels, 0, pixels.length);
+        return image;
+    }
+
+    //
+    // Variables
+    //
+
+    private final ForkJoinPool pool;
+    private final Renderer settings = new Renderer();
+
+    /**
+     * The renderers and frames which are not in use. These only grow to the number of jobs rendered at once.
+     */
+    private final ConcurrentLinkedQueue<Renderer> renderers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Rasterizer> frames = new ConcurrentLinkedQueue<>();
+}
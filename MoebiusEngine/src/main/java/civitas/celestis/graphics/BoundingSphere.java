@@ -0,0 +1,109 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+
+/**
+ * A sphere which encloses every vertex of a model, centered on the center of the model's bounding box.
+ * <p>
+ * Spheres are cached per model with {@link #of(Model)}, and are shared by level of detail selection
+ * and occlusion culling. A sphere does not reference the model it was computed from.
+ * </p>
+ */
+public class BoundingSphere {
+    /**
+     * Computes the bounding sphere of a model, in the model's own space.
+     * The sphere of a model without vertices is a point at the origin.
+     *
+     * @param model The model to compute the bounding sphere of
+     */
+    public BoundingSphere(@Nonnull Model model) {
+        final int count = model.getVertexCount();
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        final double[] vertex = new double[3];
+
+        for (int i = 0; i < count; i++) {
+            model.getVertex(i, vertex, 0);
+            minX = Math.min(minX, vertex[0]);
+            minY = Math.min(minY, vertex[1]);
+            minZ = Math.min(minZ, vertex[2]);
+            maxX = Math.max(maxX, vertex[0]);
+            maxY = Math.max(maxY, vertex[1]);
+            maxZ = Math.max(maxZ, vertex[2]);
+        }
+
+        if (count == 0) minX = minY = minZ = maxX = maxY = maxZ = 0;
+
+        final double cx = (minX + maxX) / 2, cy = (minY + maxY) / 2, cz = (minZ + maxZ) / 2;
+
+        double radius2 = 0;
+        for (int i = 0; i < count; i++) {
+            model.getVertex(i, vertex, 0);
+
+            final double dx = vertex[0] - cx, dy = vertex[1] - cy, dz = vertex[2] - cz;
+            radius2 = Math.max(radius2, dx * dx + dy * dy + dz * dz);
+        }
+
+        this.center = new Vector3(cx, cy, cz);
+        this.radius = Math.sqrt(radius2);
+    }
+
+    //
+    // Cache
+    //
+
+    private static final ModelCache<BoundingSphere> CACHE = new ModelCache<>(BoundingSphere::new);
+
+    /**
+     * Returns the bounding sphere of a model, computing and caching it if it has not been computed yet.
+     *
+     * @param model The model
+     * @return The bounding sphere of the model
+     */
+    @Nonnull
+    public static BoundingSphere of(@Nonnull Model model) {
+        return CACHE.get(model);
+    }
+
+    //
+    // Variables
+    //
+
+    @Nonnull
+    private final Vector3 center;
+    private final double radius;
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the center of this sphere, in model space.
+     *
+     * @return The center of this sphere
+     */
+    @Nonnull
+    public Vector3 getCenter() {
+        return center;
+    }
+
+    /**
+     * Returns the radius of this sphere.
+     *
+     * @return The radius of this sphere
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "BoundingSphere{" +
+                "center=" + center +
+                ", radius=" + radius +
+                '}';
+    }
+}
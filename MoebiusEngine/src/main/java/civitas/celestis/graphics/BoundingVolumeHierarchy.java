@@ -0,0 +1,610 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.util.tuple.Tuple;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A bounding volume hierarchy over the faces of a {@link Model}.
+ * The tree is built using a binned surface area heuristic, then flattened
+ * into primitive arrays in depth-first order so that traversal does not chase object references.
+ * <p>
+ * The hierarchy copies the vertices of the model when it is built.
+ * Changes made to the model afterwards are not reflected in the hierarchy.
+ * </p>
+ */
+public class BoundingVolumeHierarchy {
+    //
+    // Constants
+    //
+
+    /**
+     * The maximum number of faces a leaf node may contain.
+     */
+    public static final int MAX_LEAF_SIZE = 8;
+
+    /**
+     * The number of bins used to evaluate split candidates along each axis.
+     */
+    public static final int BIN_COUNT = 16;
+
+    /**
+     * The relative cost of traversing a node compared to testing a face.
+     */
+    private static final double TRAVERSAL_COST = 1;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Builds a new bounding volume hierarchy from the faces of the given model.
+     *
+     * @param model The model to build the hierarchy from
+     */
+    public BoundingVolumeHierarchy(@Nonnull Model model) {
+        this(model.getFaces());
+    }
+
+    /**
+     * Builds a new bounding volume hierarchy from the given faces.
+     * The face indices reported by queries refer to indices within the provided tuple.
+     *
+     * @param faces The faces to build the hierarchy from
+     */
+    public BoundingVolumeHierarchy(@Nonnull Tuple<? extends Face> faces) {
+        final int count = faces.size();
+
+        // Gather the bounds and centroid of every face
+        final double[] vertices = new double[count * 9];
+        final double[] bounds = new double[count * 6];
+        final double[] centroids = new double[count * 3];
+
+        for (int i = 0; i < count; i++) {
+            final Face face = faces.get(i);
+            putVertex(vertices, i * 9, face.getA());
+            putVertex(vertices, i * 9 + 3, face.getB());
+            putVertex(vertices, i * 9 + 6, face.getC());
+
+            for (int axis = 0; axis < 3; axis++) {
+                final double a = vertices[i * 9 + axis];
+                final double b = vertices[i * 9 + 3 + axis];
+                final double c = vertices[i * 9 + 6 + axis];
+
+                final double min = Math.min(a, Math.min(b, c));
+                final double max = Math.max(a, Math.max(b, c));
+
+                bounds[i * 6 + axis] = min;
+                bounds[i * 6 + 3 + axis] = max;
+                centroids[i * 3 + axis] = (min + max) * 0.5;
+            }
+        }
+
+        final int[] order = new int[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+
+        // A binary tree with at least one face per leaf has at most 2n - 1 nodes
+        final int capacity = Math.max(1, 2 * count - 1);
+        this.nodeBounds = new double[capacity * 6];
+        this.nodeOffsets = new int[capacity];
+        this.nodeCounts = new int[capacity];
+
+        final Builder builder = new Builder(bounds, centroids, order);
+        builder.build(0, count);
+        this.nodeCount = Math.max(1, builder.nodes);
+
+        // Store the faces in traversal order as one vertex and two edges each
+        this.triangles = new double[count * 9];
+        this.faceIndices = order;
+
+        for (int i = 0; i < count; i++) {
+            final int src = order[i] * 9;
+            final int dst = i * 9;
+
+            for (int axis = 0; axis < 3; axis++) {
+                final double a = vertices[src + axis];
+                triangles[dst + axis] = a;
+                triangles[dst + 3 + axis] = vertices[src + 3 + axis] - a;
+                triangles[dst + 6 + axis] = vertices[src + 6 + axis] - a;
+            }
+        }
+    }
+
+    //
+    // Cache
+    //
+
+    private static final ModelCache<BoundingVolumeHierarchy> CACHE = new ModelCache<>(BoundingVolumeHierarchy::new);
+
+    /**
+     * Returns the hierarchy of a model, building and caching it if it has not been built yet.
+     * Cached hierarchies are shared, so the model must not be modified afterwards.
+     *
+     * @param model The model
+     * @return The hierarchy of the model
+     */
+    @Nonnull
+    public static BoundingVolumeHierarchy of(@Nonnull Model model) {
+        return CACHE.get(model);
+    }
+
+    /**
+     * Returns the hierarchy of a model if it has been built. Otherwise, this starts building it
+     * on the common fork-join pool, and returns {@code null} until it is done. This never blocks.
+     *
+     * @param model The model
+     * @return The hierarchy of the model, or {@code null} if it is not available yet
+     */
+    @Nullable
+    public static BoundingVolumeHierarchy getCached(@Nonnull Model model) {
+        return CACHE.getCached(model);
+    }
+
+    //
+    // Variables
+    //
+
+    /**
+     * The bounds of each node, stored as {@code minX, minY, minZ, maxX, maxY, maxZ}.
+     */
+    protected final double[] nodeBounds;
+
+    /**
+     * For leaf nodes, the index of the first face in traversal order.
+     * For interior nodes, the index of the second child. The first child always directly follows its parent.
+     */
+    protected final int[] nodeOffsets;
+
+    /**
+     * For leaf nodes, the number of faces in the leaf.
+     * For interior nodes, the negated split axis minus one.
+     */
+    protected final int[] nodeCounts;
+
+    /**
+     * The number of nodes in this hierarchy.
+     */
+    protected final int nodeCount;
+
+    /**
+     * The faces in traversal order, stored as the first vertex followed by the edges towards the second and third.
+     */
+    protected final double[] triangles;
+
+    /**
+     * Maps the traversal order of faces back to their original indices.
+     */
+    protected final int[] faceIndices;
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the number of nodes in this hierarchy.
+     *
+     * @return The number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of faces in this hierarchy.
+     *
+     * @return The number of faces
+     */
+    public int getFaceCount() {
+        return faceIndices.length;
+    }
+
+    //
+    // Queries
+    //
+
+    /**
+     * Finds the closest face the given ray intersects.
+     *
+     * @param ray The ray to trace
+     * @return The closest hit if found, {@code null} if not
+     */
+    @Nullable
+    public RayHit closestHit(@Nonnull Ray ray) {
+        return closestHit(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest face the given ray intersects within the given distance.
+     *
+     * @param ray         The ray to trace
+     * @param maxDistance The maximum distance from the ray's origin to consider
+     * @return The closest hit if found, {@code null} if not
+     */
+    @Nullable
+    public RayHit closestHit(@Nonnull Ray ray, double maxDistance) {
+        final Vector3 origin = ray.getOrigin();
+        final Vector3 direction = ray.getDirection();
+
+        final double length = Math.sqrt(direction.dot(direction));
+        if (length == 0) return null;
+
+        final HitRecord hit = new HitRecord();
+        hit.reset(maxDistance / length);
+
+        if (!closestHit(origin.x(), origin.y(), origin.z(), direction.x(), direction.y(), direction.z(), hit)) return null;
+        return new RayHit(hit.getFaceIndex(), hit.getT() * length, hit.getU(), hit.getV());
+    }
+
+    /**
+     * Checks if the given ray intersects any face.
+     *
+     * @param ray The ray to trace
+     * @return {@code true} if the ray intersects at least one face
+     */
+    public boolean anyHit(@Nonnull Ray ray) {
+        return anyHit(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Checks if the given ray intersects any face within the given distance.
+     * This terminates at the first intersection found, and is therefore
+     * cheaper than {@link #closestHit(Ray, double)} for occlusion and line-of-sight queries.
+     *
+     * @param ray         The ray to trace
+     * @param maxDistance The maximum distance from the ray's origin to consider
+     * @return {@code true} if the ray intersects at least one face within the given distance
+     */
+    public boolean anyHit(@Nonnull Ray ray, double maxDistance) {
+        final Vector3 origin = ray.getOrigin();
+        final Vector3 direction = ray.getDirection();
+
+        final double length = Math.sqrt(direction.dot(direction));
+        if (length == 0) return false;
+
+        final HitRecord hit = new HitRecord();
+        hit.reset(maxDistance / length);
+
+        return anyHit(origin.x(), origin.y(), origin.z(), direction.x(), direction.y(), direction.z(), hit);
+    }
+
+    /**
+     * Finds the closest face the given ray intersects, which is closer than the intersection already in the record.
+     * This never allocates, apart from growing the traversal stack of the record for very deep hierarchies.
+     * A record can be passed to the hierarchies of several models in a row to find the closest hit among all of them.
+     *
+     * @param ox  The X coordinate of the ray's origin
+     * @param oy  The Y coordinate of the ray's origin
+     * @param oz  The Z coordinate of the ray's origin
+     * @param dx  The X component of the ray's direction
+     * @param dy  The Y component of the ray's direction
+     * @param dz  The Z component of the ray's direction
+     * @param hit The record of the closest intersection so far
+     * @return {@code true} if a closer intersection was found and recorded
+     */
+    public boolean closestHit(double ox, double oy, double oz, double dx, double dy, double dz, @Nonnull HitRecord hit) {
+        if (faceIndices.length == 0) return false;
+
+        final double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+        boolean found = false;
+
+        int[] stack = hit.stack;
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            final int node = stack[--top];
+            if (!intersectsNode(node, ox, oy, oz, ix, iy, iz, hit.getT())) continue;
+
+            final int count = nodeCounts[node];
+
+            if (count > 0) {
+                final int first = nodeOffsets[node];
+
+                for (int i = first; i < first + count; i++) {
+                    found |= Geometry.intersectEdges(ox, oy, oz, dx, dy, dz, triangles, i * 9, i, hit);
+                }
+            } else {
+                if (top + 2 > stack.length) stack = hit.stack = Arrays.copyOf(stack, stack.length * 2);
+
+                // Visit the child on the near side of the split first
+                final int axis = -count - 1;
+                final double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+
+                if (d < 0) {
+                    stack[top++] = node + 1;
+                    stack[top++] = nodeOffsets[node];
+                } else {
+                    stack[top++] = nodeOffsets[node];
+                    stack[top++] = node + 1;
+                }
+            }
+        }
+
+        // Faces are recorded by their traversal order during the search
+        if (found) hit.set(faceIndices[hit.getFaceIndex()], hit.getT(), hit.getU(), hit.getV());
+        return found;
+    }
+
+    /**
+     * Checks if the given ray intersects any face which is closer than the intersection already in the record.
+     * The first intersection found is recorded, which is not necessarily the closest.
+     * This never allocates, apart from growing the traversal stack of the record for very deep hierarchies.
+     *
+     * @param ox  The X coordinate of the ray's origin
+     * @param oy  The Y coordinate of the ray's origin
+     * @param oz  The Z coordinate of the ray's origin
+     * @param dx  The X component of the ray's direction
+     * @param dy  The Y component of the ray's direction
+     * @param dz  The Z component of the ray's direction
+     * @param hit The record of the closest intersection so far
+     * @return {@code true} if an intersection was found and recorded
+     */
+    public boolean anyHit(double ox, double oy, double oz, double dx, double dy, double dz, @Nonnull HitRecord hit) {
+        if (faceIndices.length == 0) return false;
+
+        final double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+        int[] stack = hit.stack;
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            final int node = stack[--top];
+            if (!intersectsNode(node, ox, oy, oz, ix, iy, iz, hit.getT())) continue;
+
+            final int count = nodeCounts[node];
+
+            if (count > 0) {
+                final int first = nodeOffsets[node];
+
+                for (int i = first; i < first + count; i++) {
+                    if (Geometry.intersectEdges(ox, oy, oz, dx, dy, dz, triangles, i * 9, faceIndices[i], hit)) return true;
+                }
+            } else {
+                if (top + 2 > stack.length) stack = hit.stack = Arrays.copyOf(stack, stack.length * 2);
+
+                stack[top++] = nodeOffsets[node];
+                stack[top++] = node + 1;
+            }
+        }
+
+        return false;
+    }
+
+    //
+    // Internal
+    //
+
+    /**
+     * Performs a slab test between a ray and the bounds of a node.
+     */
+    private boolean intersectsNode(int node, double ox, double oy, double oz, double ix, double iy, double iz, double tMax) {
+        final int b = node * 6;
+
+        double t1 = (nodeBounds[b] - ox) * ix;
+        double t2 = (nodeBounds[b + 3] - ox) * ix;
+        double near = Math.min(t1, t2);
+        double far = Math.max(t1, t2);
+
+        t1 = (nodeBounds[b + 1] - oy) * iy;
+        t2 = (nodeBounds[b + 4] - oy) * iy;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+
+        t1 = (nodeBounds[b + 2] - oz) * iz;
+        t2 = (nodeBounds[b + 5] - oz) * iz;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+
+        return near <= far && far >= 0 && near <= tMax;
+    }
+
+    private static void putVertex(@Nonnull double[] dest, int offset, @Nonnull Vector3 vertex) {
+        dest[offset] = vertex.x();
+        dest[offset + 1] = vertex.y();
+        dest[offset + 2] = vertex.z();
+    }
+
+    private static double halfArea(double dx, double dy, double dz) {
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    /**
+     * Builds the flattened node arrays of the enclosing hierarchy.
+     */
+    private final class Builder {
+        private Builder(@Nonnull double[] bounds, @Nonnull double[] centroids, @Nonnull int[] order) {
+            this.bounds = bounds;
+            this.centroids = centroids;
+            this.order = order;
+        }
+
+        private final double[] bounds;
+        private final double[] centroids;
+        private final int[] order;
+
+        private final int[] binCounts = new int[BIN_COUNT];
+        private final double[] binBounds = new double[BIN_COUNT * 6];
+        private final double[] rightAreas = new double[BIN_COUNT];
+        private final int[] rightCounts = new int[BIN_COUNT];
+
+        private int nodes = 0;
+
+        /**
+         * Builds the subtree of the faces {@code order[start..end)} and returns its node index.
+         */
+        private int build(int start, int end) {
+            final int node = nodes++;
+            final int count = end - start;
+
+            // Compute the bounds of the node and of the centroids within it
+            double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+            double cMinX = minX, cMinY = minX, cMinZ = minX;
+            double cMaxX = maxX, cMaxY = maxX, cMaxZ = maxX;
+
+            for (int i = start; i < end; i++) {
+                final int b = order[i] * 6;
+                final int c = order[i] * 3;
+
+                minX = Math.min(minX, bounds[b]);
+                minY = Math.min(minY, bounds[b + 1]);
+                minZ = Math.min(minZ, bounds[b + 2]);
+                maxX = Math.max(maxX, bounds[b + 3]);
+                maxY = Math.max(maxY, bounds[b + 4]);
+                maxZ = Math.max(maxZ, bounds[b + 5]);
+
+                cMinX = Math.min(cMinX, centroids[c]);
+                cMinY = Math.min(cMinY, centroids[c + 1]);
+                cMinZ = Math.min(cMinZ, centroids[c + 2]);
+                cMaxX = Math.max(cMaxX, centroids[c]);
+                cMaxY = Math.max(cMaxY, centroids[c + 1]);
+                cMaxZ = Math.max(cMaxZ, centroids[c + 2]);
+            }
+
+            final int nb = node * 6;
+            nodeBounds[nb] = minX;
+            nodeBounds[nb + 1] = minY;
+            nodeBounds[nb + 2] = minZ;
+            nodeBounds[nb + 3] = maxX;
+            nodeBounds[nb + 4] = maxY;
+            nodeBounds[nb + 5] = maxZ;
+
+            if (count <= 2) {
+                makeLeaf(node, start, count);
+                return node;
+            }
+
+            // Evaluate binned split candidates along every axis
+            final double[] cMin = {cMinX, cMinY, cMinZ};
+            final double[] cExtent = {cMaxX - cMinX, cMaxY - cMinY, cMaxZ - cMinZ};
+
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestBin = -1;
+
+            for (int axis = 0; axis < 3; axis++) {
+                if (cExtent[axis] <= 0) continue;
+                final double scale = BIN_COUNT / cExtent[axis];
+
+                Arrays.fill(binCounts, 0);
+                for (int k = 0; k < BIN_COUNT; k++) {
+                    final int bb = k * 6;
+                    binBounds[bb] = binBounds[bb + 1] = binBounds[bb + 2] = Double.POSITIVE_INFINITY;
+                    binBounds[bb + 3] = binBounds[bb + 4] = binBounds[bb + 5] = Double.NEGATIVE_INFINITY;
+                }
+
+                for (int i = start; i < end; i++) {
+                    final int k = bin(order[i], axis, cMin[axis], scale);
+                    binCounts[k]++;
+
+                    final int b = order[i] * 6;
+                    final int bb = k * 6;
+                    for (int j = 0; j < 3; j++) {
+                        binBounds[bb + j] = Math.min(binBounds[bb + j], bounds[b + j]);
+                        binBounds[bb + 3 + j] = Math.max(binBounds[bb + 3 + j], bounds[b + 3 + j]);
+                    }
+                }
+
+                // Sweep from the right to accumulate the area and count of each right partition
+                double rx0 = Double.POSITIVE_INFINITY, ry0 = rx0, rz0 = rx0;
+                double rx1 = Double.NEGATIVE_INFINITY, ry1 = rx1, rz1 = rx1;
+                int rightCount = 0;
+
+                for (int k = BIN_COUNT - 1; k > 0; k--) {
+                    final int bb = k * 6;
+                    rightCount += binCounts[k];
+                    rx0 = Math.min(rx0, binBounds[bb]);
+                    ry0 = Math.min(ry0, binBounds[bb + 1]);
+                    rz0 = Math.min(rz0, binBounds[bb + 2]);
+                    rx1 = Math.max(rx1, binBounds[bb + 3]);
+                    ry1 = Math.max(ry1, binBounds[bb + 4]);
+                    rz1 = Math.max(rz1, binBounds[bb + 5]);
+
+                    rightCounts[k] = rightCount;
+                    rightAreas[k] = rightCount == 0 ? 0 : halfArea(rx1 - rx0, ry1 - ry0, rz1 - rz0);
+                }
+
+                // Sweep from the left and evaluate each boundary
+                double lx0 = Double.POSITIVE_INFINITY, ly0 = lx0, lz0 = lx0;
+                double lx1 = Double.NEGATIVE_INFINITY, ly1 = lx1, lz1 = lx1;
+                int leftCount = 0;
+
+                for (int k = 0; k < BIN_COUNT - 1; k++) {
+                    final int bb = k * 6;
+                    leftCount += binCounts[k];
+                    lx0 = Math.min(lx0, binBounds[bb]);
+                    ly0 = Math.min(ly0, binBounds[bb + 1]);
+                    lz0 = Math.min(lz0, binBounds[bb + 2]);
+                    lx1 = Math.max(lx1, binBounds[bb + 3]);
+                    ly1 = Math.max(ly1, binBounds[bb + 4]);
+                    lz1 = Math.max(lz1, binBounds[bb + 5]);
+
+                    if (leftCount == 0 || rightCounts[k + 1] == 0) continue;
+
+                    final double cost = leftCount * halfArea(lx1 - lx0, ly1 - ly0, lz1 - lz0)
+                            + rightCounts[k + 1] * rightAreas[k + 1];
+
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = k;
+                    }
+                }
+            }
+
+            final double area = halfArea(maxX - minX, maxY - minY, maxZ - minZ);
+            final double splitCost = area > 0 ? TRAVERSAL_COST + bestCost / area : Double.POSITIVE_INFINITY;
+
+            if (count <= MAX_LEAF_SIZE && (bestAxis < 0 || splitCost >= count)) {
+                makeLeaf(node, start, count);
+                return node;
+            }
+
+            int mid;
+
+            if (bestAxis >= 0) {
+                // Partition the faces around the chosen bin boundary
+                final double scale = BIN_COUNT / cExtent[bestAxis];
+                int i = start, j = end - 1;
+
+                while (i <= j) {
+                    if (bin(order[i], bestAxis, cMin[bestAxis], scale) <= bestBin) {
+                        i++;
+                    } else {
+                        final int swap = order[i];
+                        order[i] = order[j];
+                        order[j--] = swap;
+                    }
+                }
+
+                mid = i;
+            } else {
+                // Every centroid coincides; any split is as good as another
+                bestAxis = 0;
+                mid = start + count / 2;
+            }
+
+            if (mid == start || mid == end) mid = start + count / 2;
+
+            build(start, mid);
+            nodeOffsets[node] = build(mid, end);
+            nodeCounts[node] = -bestAxis - 1;
+
+            return node;
+        }
+
+        private int bin(int face, int axis, double min, double scale) {
+            final int k = (int) ((centroids[face * 3 + axis] - min) * scale);
+            return Math.min(BIN_COUNT - 1, Math.max(0, k));
+        }
+
+        private void makeLeaf(int node, int start, int count) {
+            nodeOffsets[node] = start;
+            nodeCounts[node] = count;
+        }
+    }
+}
@@ -6,6 +6,16 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
 public class Geometry {
+    /**
+     * The smallest ray parameter which counts as a hit in front of the ray's origin.
+     * Every triangle intersection test uses this, including the {@link PacketIntersector packet intersectors}.
+     */
+    static final double HIT_EPSILON = 1e-9;
+
+    /**
+     * Determinants below this magnitude mean the ray is parallel to the face.
+     */
+    static final double PARALLEL_EPSILON = 1e-12;
 
     //
     // Raytracing
@@ -22,38 +32,18 @@ public class Geometry {
      * @return The singed volume of the tetrahedron
      */
     public static double signedVolume(@Nonnull Vector3 a, @Nonnull Vector3 b, @Nonnull Vector3 c, @Nonnull Vector3 d) {
-        final Vector3 ab = b.subtract(a);
-        final Vector3 ac = c.subtract(a);
-        final Vector3 ad = d.subtract(a);
-
-        return (1d / 6d) * ab.cross(ac).dot(ad);
+        return signedVolume(a.x(), a.y(), a.z(), b.x(), b.y(), b.z(), c.x(), c.y(), c.z(), d.x(), d.y(), d.z());
     }
 
     /**
-     * Checks if the face and ray have an intersection.
+     * Checks if the face and ray have an intersection in front of the ray's origin.
      *
      * @param face The face to check
      * @param ray  The ray to check
      * @return {@code true} if the face and ray have an intersection
      */
     public static boolean intersects(@Nonnull Face face, @Nonnull Ray ray) {
-        final Vector3 p1 = face.a;
-        final Vector3 p2 = face.b;
-        final Vector3 p3 = face.c;
-
-        final Vector3 q1 = ray.origin;
-        final Vector3 q2 = ray.getDestination(face.getCentroid().distance2(q1));
-
-        // These must have different signs
-        final double v1 = signedVolume(q1, p1, p2, p3);
-        final double v2 = signedVolume(q2, p1, p2, p3);
-
-        // These must have the same sign
-        final double v3 = signedVolume(q1, q2, p1, p2);
-        final double v4 = signedVolume(q1, q2, p2, p3);
-        final double v5 = signedVolume(q1, q2, p3, p1);
-
-        return (v1 * v2) < 0 && (v3 * v4 * v5) >= 0;
+        return intersectionDistance(ray.origin, ray.direction, face.a, face.b, face.c) > HIT_EPSILON;
     }
 
     /**
@@ -65,46 +55,30 @@ public class Geometry {
      */
     @Nullable
     public static Vector3 intersection(@Nonnull Face face, @Nonnull Ray ray) {
-        // Obtain references to face's vertices
-        final Vector3 p1 = face.getA();
-        final Vector3 p2 = face.getB();
-        final Vector3 p3 = face.getC();
-
-        // Declare local variables
-        final Vector3 normal = face.getNormal().normalize();
-        final Vector3 rayOrigin = ray.origin;
-        final Vector3 rayDirection = ray.direction;
-
-        // Calculate determinant to check if the face and ray are parallel
-        final double determinant = rayDirection.dot(normal);
-        if (Math.abs(determinant) < 1e-6) {
-            return null; // Ray is parallel to face
-        }
-
-        // Calculate the intersection point
-        final double t = p1.subtract(rayOrigin).dot(normal) / determinant;
-        final Vector3 intersectionPoint = ray.getDestination(t);
-
-        // Calculate the barycentric coordinates of the intersection point
-        final Vector3 v0 = p2.subtract(p1);
-        final Vector3 v1 = p3.subtract(p1);
-        final Vector3 v2 = intersectionPoint.subtract(p1);
-
-        final double dot00 = v0.dot(v0);
-        final double dot01 = v0.dot(v1);
-        final double dot11 = v1.dot(v1);
-        final double dot20 = v2.dot(v0);
-        final double dot21 = v2.dot(v1);
-
-        final double invDenom = 1.0 / (dot00 * dot11 - dot01 * dot01);
-        final double u = (dot11 * dot20 - dot01 * dot21) * invDenom;
-        final double v = (dot00 * dot21 - dot01 * dot20) * invDenom;
-
-        if (u >= 0 && v >= 0 && u + v <= 1) {
-            return intersectionPoint; // Intersection point lies inside the triangle
-        }
-
-        return null; // Intersection point is outside the triangle
+        final double t = intersectionDistance(ray.origin, ray.direction, face.a, face.b, face.c);
+        return Double.isNaN(t) ? null : ray.getDestination(t);
+    }
+
+    private static double intersectionDistance(
+            @Nonnull Vector3 origin, @Nonnull Vector3 direction,
+            @Nonnull Vector3 a, @Nonnull Vector3 b, @Nonnull Vector3 c
+    ) {
+        return intersectionDistance(
+                origin.x(), origin.y(), origin.z(), direction.x(), direction.y(), direction.z(),
+                a.x(), a.y(), a.z(), b.x(), b.y(), b.z(), c.x(), c.y(), c.z()
+        );
+    }
+
+    /**
+     * Intersects every ray of the packet with every triangle of the batch, keeping the closest hit of each ray.
+     * This uses SIMD lanes when the {@code jdk.incubator.vector} module is available.
+     *
+     * @param packet    The packet of rays
+     * @param triangles The batch of triangles
+     * @see PacketIntersector#intersect(RayPacket, TriangleBatch)
+     */
+    public static void intersect(@Nonnull RayPacket packet, @Nonnull TriangleBatch triangles) {
+        PacketIntersector.getInstance().intersect(packet, triangles);
     }
 
     /**
@@ -125,6 +99,155 @@ public class Geometry {
         return incidentVector.subtract(projectionVector.multiply(2));
     }
 
+    //
+    // Primitive kernels
+    //
+
+    // These work on raw coordinates and write their results into caller-owned records, so that they never allocate.
+    // Rays are given as an origin and a direction, and distances along them as the parameter t, in multiples of the direction.
+
+    /**
+     * Returns the signed volume of the tetrahedron with the given corners.
+     * The volume is positive when {@code d} lies on the side of the triangle {@code abc}
+     * that its normal, following the right-hand rule, points towards.
+     *
+     * @return The signed volume of the tetrahedron
+     */
+    public static double signedVolume(
+            double ax, double ay, double az,
+            double bx, double by, double bz,
+            double cx, double cy, double cz,
+            double dx, double dy, double dz
+    ) {
+        final double abx = bx - ax, aby = by - ay, abz = bz - az;
+        final double acx = cx - ax, acy = cy - ay, acz = cz - az;
+        final double adx = dx - ax, ady = dy - ay, adz = dz - az;
+
+        return ((aby * acz - abz * acy) * adx + (abz * acx - abx * acz) * ady + (abx * acy - aby * acx) * adz) / 6;
+    }
+
+    /**
+     * Returns the parameter along a ray at which it passes through the triangle {@code abc},
+     * using the Moller-Trumbore algorithm. The parameter may be negative if the triangle is behind the origin.
+     *
+     * @return The parameter of the intersection, or {@link Double#NaN} if the ray misses or is parallel to the triangle
+     */
+    public static double intersectionDistance(
+            double ox, double oy, double oz,
+            double dx, double dy, double dz,
+            double ax, double ay, double az,
+            double bx, double by, double bz,
+            double cx, double cy, double cz
+    ) {
+        return intersectEdges(
+                ox, oy, oz, dx, dy, dz,
+                ax, ay, az, bx - ax, by - ay, bz - az, cx - ax, cy - ay, cz - az,
+                -1, null
+        );
+    }
+
+    /**
+     * Intersects a ray with the triangle {@code abc}. The intersection is recorded if it is in front of the origin,
+     * and closer than the intersection already in the record.
+     *
+     * @param faceIndex The index to record for the triangle
+     * @param hit       The record of the closest intersection so far
+     * @return {@code true} if the intersection was recorded
+     */
+    public static boolean intersect(
+            double ox, double oy, double oz,
+            double dx, double dy, double dz,
+            double ax, double ay, double az,
+            double bx, double by, double bz,
+            double cx, double cy, double cz,
+            int faceIndex, @Nonnull HitRecord hit
+    ) {
+        final double closest = hit.getT();
+
+        intersectEdges(
+                ox, oy, oz, dx, dy, dz,
+                ax, ay, az, bx - ax, by - ay, bz - az, cx - ax, cy - ay, cz - az,
+                faceIndex, hit
+        );
+
+        return hit.getT() != closest;
+    }
+
+    /**
+     * Intersects a ray with a triangle stored in an array as its first vertex, followed by the edges
+     * from the first vertex to the second and third, as in {@link BoundingVolumeHierarchy} and {@link TriangleBatch}.
+     * The intersection is recorded if it is in front of the origin, and closer than the intersection already in the record.
+     *
+     * @param triangles The array of triangles
+     * @param offset    The index of the triangle's first coordinate in the array
+     * @param faceIndex The index to record for the triangle
+     * @param hit       The record of the closest intersection so far
+     * @return {@code true} if the intersection was recorded
+     */
+    public static boolean intersectEdges(
+            double ox, double oy, double oz,
+            double dx, double dy, double dz,
+            @Nonnull double[] triangles, int offset,
+            int faceIndex, @Nonnull HitRecord hit
+    ) {
+        final double closest = hit.getT();
+
+        intersectEdges(
+                ox, oy, oz, dx, dy, dz,
+                triangles[offset], triangles[offset + 1], triangles[offset + 2],
+                triangles[offset + 3], triangles[offset + 4], triangles[offset + 5],
+                triangles[offset + 6], triangles[offset + 7], triangles[offset + 8],
+                faceIndex, hit
+        );
+
+        return hit.getT() != closest;
+    }
+
+    /**
+     * Intersects a ray with a triangle given as its first vertex, followed by the edges from the first vertex
+     * to the second and third, using the Moller-Trumbore algorithm. Every scalar triangle intersection test
+     * delegates to this.
+     *
+     * @param faceIndex The index to record for the triangle
+     * @param hit       The record to write the intersection to if it is in front of the origin and closer than
+     *                  the intersection already in the record, or {@code null} to only find the intersection
+     * @return The parameter of the intersection, which may be negative if the triangle is behind the origin,
+     * or {@link Double#NaN} if the ray misses or is parallel to the triangle
+     */
+    static double intersectEdges(
+            double ox, double oy, double oz,
+            double dx, double dy, double dz,
+            double ax, double ay, double az,
+            double e1x, double e1y, double e1z,
+            double e2x, double e2y, double e2z,
+            int faceIndex, @Nullable HitRecord hit
+    ) {
+        final double px = dy * e2z - dz * e2y;
+        final double py = dz * e2x - dx * e2z;
+        final double pz = dx * e2y - dy * e2x;
+
+        final double determinant = e1x * px + e1y * py + e1z * pz;
+        if (Math.abs(determinant) < PARALLEL_EPSILON) return Double.NaN;
+
+        final double inverse = 1 / determinant;
+        final double sx = ox - ax, sy = oy - ay, sz = oz - az;
+
+        final double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (u < 0 || u > 1) return Double.NaN;
+
+        final double qx = sy * e1z - sz * e1y;
+        final double qy = sz * e1x - sx * e1z;
+        final double qz = sx * e1y - sy * e1x;
+
+        final double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (v < 0 || u + v > 1) return Double.NaN;
+
+        final double t = (e2x * qx + e2y * qy + e2z * qz) * inverse;
+        if (hit != null && t > HIT_EPSILON && t < hit.getT()) hit.set(faceIndex, t, u, v);
+
+        return t;
+    }
+
     //
     // Rendering
     //
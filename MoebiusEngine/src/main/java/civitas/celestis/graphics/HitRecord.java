@@ -0,0 +1,150 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * A mutable record of the closest intersection found so far along a ray.
+ * <p>
+ * Hit records are owned by the caller and reused between queries, so that the primitive
+ * intersection kernels of {@link Geometry} and {@link BoundingVolumeHierarchy} never allocate.
+ * A query only accepts intersections closer than the current {@link #getT() parameter} of the record,
+ * so one record can be passed to several queries in a row to find the closest hit among all of them.
+ * </p>
+ * <p>
+ * Distances are given as the parameter {@code t} of the ray, which is the distance in multiples
+ * of the length of the ray's direction. For a ray with a unit direction, this is the distance itself.
+ * The barycentric coordinates follow the same convention as {@link RayHit}.
+ * </p>
+ * <p>
+ * A hit record must only be used by one thread at a time.
+ * </p>
+ */
+public class HitRecord {
+    /**
+     * Creates a new hit record with no hit and no maximum distance.
+     */
+    public HitRecord() {
+        reset();
+    }
+
+    private boolean hit;
+    private int faceIndex;
+    private double t;
+    private double u, v;
+
+    /**
+     * The traversal stack of {@link BoundingVolumeHierarchy} queries, reused between queries.
+     */
+    int[] stack = new int[64];
+
+    //
+    // Modification
+    //
+
+    /**
+     * Clears this record, accepting intersections at any distance.
+     */
+    public void reset() {
+        reset(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Clears this record, accepting intersections up to the given parameter along the ray.
+     *
+     * @param maxT The maximum parameter along the ray
+     */
+    public void reset(double maxT) {
+        this.hit = false;
+        this.faceIndex = -1;
+        this.t = maxT;
+        this.u = 0;
+        this.v = 0;
+    }
+
+    /**
+     * Records an intersection.
+     *
+     * @param faceIndex The index of the face which was hit
+     * @param t         The parameter of the intersection along the ray
+     * @param u         The barycentric weight of the face's second vertex
+     * @param v         The barycentric weight of the face's third vertex
+     */
+    public void set(int faceIndex, double t, double u, double v) {
+        this.hit = true;
+        this.faceIndex = faceIndex;
+        this.t = t;
+        this.u = u;
+        this.v = v;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Checks whether an intersection has been recorded since the last reset.
+     *
+     * @return {@code true} if an intersection has been recorded
+     */
+    public boolean isHit() {
+        return hit;
+    }
+
+    /**
+     * Returns the index of the face which was hit.
+     *
+     * @return The index of the face, or {@code -1} if nothing has been hit
+     */
+    public int getFaceIndex() {
+        return faceIndex;
+    }
+
+    /**
+     * Returns the parameter of the closest intersection along the ray. If nothing has been hit,
+     * this is the maximum parameter the record was reset to.
+     *
+     * @return The parameter along the ray
+     */
+    public double getT() {
+        return t;
+    }
+
+    /**
+     * Returns the barycentric weight of the face's second vertex.
+     *
+     * @return The U coordinate
+     */
+    public double getU() {
+        return u;
+    }
+
+    /**
+     * Returns the barycentric weight of the face's third vertex.
+     *
+     * @return The V coordinate
+     */
+    public double getV() {
+        return v;
+    }
+
+    /**
+     * Returns the barycentric weight of the face's first vertex.
+     *
+     * @return The W coordinate
+     */
+    public double getW() {
+        return 1 - u - v;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "HitRecord{" +
+                "hit=" + hit +
+                ", faceIndex=" + faceIndex +
+                ", t=" + t +
+                ", u=" + u +
+                ", v=" + v +
+                '}';
+    }
+}
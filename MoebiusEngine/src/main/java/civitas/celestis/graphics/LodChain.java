@@ -0,0 +1,201 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A chain of progressively simplified versions of a model, used to draw distant models with fewer faces.
+ * <p>
+ * Level {@code 0} is the original model, and each following level has roughly half the faces of the one
+ * before it, produced by {@link MeshSimplifier}. A level is selected so that the number of faces drawn is
+ * proportional to the area the model covers on screen, which keeps the number of triangles drawn
+ * roughly constant no matter how many models are far away. The levels of a {@link QuantizedModel} are quantized too.
+ * </p>
+ * <p>
+ * Chains are cached per model with {@link #of(Model)} and {@link #getCached(Model)}. The cache only holds
+ * weak references to models, and a chain does not reference the original model, so unused models
+ * can still be collected.
+ * </p>
+ */
+public class LodChain {
+    /**
+     * The fraction of faces each level keeps from the level before it.
+     */
+    public static final double REDUCTION = 0.5;
+
+    /**
+     * Simplification stops once a level would have fewer faces than this.
+     */
+    public static final int MIN_FACES = 64;
+
+    /**
+     * Builds a chain of simplified levels for a model. This can take a while for large models.
+     *
+     * @param model The model to simplify
+     */
+    public LodChain(@Nonnull Model model) {
+        final List<Model> levels = new ArrayList<>();
+        final List<Integer> faceCounts = new ArrayList<>();
+        faceCounts.add(model.getFaceCount());
+
+        Model previous = model;
+        while (true) {
+            final int target = (int) (previous.getFaceCount() * REDUCTION);
+            if (target < MIN_FACES) break;
+
+            final PackedModel simplified = MeshSimplifier.simplify(previous, target);
+
+            // Stop once the simplifier can no longer make meaningful progress
+            if (simplified.getFaceCount() > previous.getFaceCount() * (1 + REDUCTION) / 2) break;
+
+            // Levels of a quantized model are quantized as well, but are simplified from the full-precision level before them
+            levels.add(model instanceof QuantizedModel ? new QuantizedModel(simplified) : simplified);
+            faceCounts.add(simplified.getFaceCount());
+            previous = simplified;
+        }
+
+        this.levels = List.copyOf(levels);
+        this.faceCounts = faceCounts.stream().mapToInt(Integer::intValue).toArray();
+        this.bounds = BoundingSphere.of(model);
+    }
+
+    //
+    // Cache
+    //
+
+    private static final ModelCache<LodChain> CACHE = new ModelCache<>(LodChain::new);
+
+    /**
+     * Returns the chain of a model, building and caching it if it has not been built yet.
+     *
+     * @param model The model
+     * @return The chain of the model
+     */
+    @Nonnull
+    public static LodChain of(@Nonnull Model model) {
+        return CACHE.get(model);
+    }
+
+    /**
+     * Returns the chain of a model if it has been built. Otherwise, this starts building it
+     * on the common fork-join pool, and returns {@code null} until it is done. This never blocks.
+     *
+     * @param model The model
+     * @return The chain of the model, or {@code null} if it is not available yet
+     */
+    @Nullable
+    public static LodChain getCached(@Nonnull Model model) {
+        return CACHE.getCached(model);
+    }
+
+    //
+    // Variables
+    //
+
+    /**
+     * The simplified levels, excluding the original model.
+     */
+    @Nonnull
+    private final List<Model> levels;
+    @Nonnull
+    private final int[] faceCounts;
+    @Nonnull
+    private final BoundingSphere bounds;
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the number of levels, including the original model.
+     *
+     * @return The number of levels
+     */
+    public int getLevelCount() {
+        return faceCounts.length;
+    }
+
+    /**
+     * Returns a level of this chain.
+     *
+     * @param model The original model this chain was built from
+     * @param level The index of the level, where {@code 0} is the original model
+     * @return The model of the level
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    @Nonnull
+    public Model getLevel(@Nonnull Model model, int level) throws IndexOutOfBoundsException {
+        return level == 0 ? model : levels.get(level - 1);
+    }
+
+    /**
+     * Returns the number of faces of a level.
+     *
+     * @param level The index of the level, where {@code 0} is the original model
+     * @return The number of faces
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    public int getFaceCount(int level) throws IndexOutOfBoundsException {
+        return faceCounts[level];
+    }
+
+    /**
+     * Returns the center of the bounding sphere of the model, in model space.
+     *
+     * @return The center of the bounding sphere
+     */
+    @Nonnull
+    public Vector3 getCenter() {
+        return bounds.getCenter();
+    }
+
+    /**
+     * Returns the radius of the bounding sphere of the model.
+     *
+     * @return The radius of the bounding sphere
+     */
+    public double getRadius() {
+        return bounds.getRadius();
+    }
+
+    //
+    // Selection
+    //
+
+    /**
+     * Selects the level to draw the model at.
+     * The original model is drawn when its bounding sphere appears at least as large as the detail radius.
+     * Below that, the coarsest level with at least as many faces as the original model scaled by the
+     * ratio of the projected area to the detail area is drawn.
+     *
+     * @param projectedRadius The radius of the bounding sphere on screen, in pixels
+     * @param detailRadius    The projected radius at and above which the original model is drawn, in pixels
+     * @return The index of the level to draw
+     */
+    public int selectLevel(double projectedRadius, double detailRadius) {
+        if (!(projectedRadius < detailRadius)) return 0;
+
+        final double ratio = projectedRadius / detailRadius;
+        final double budget = faceCounts[0] * ratio * ratio;
+
+        for (int level = faceCounts.length - 1; level > 0; level--) {
+            if (faceCounts[level] >= budget) return level;
+        }
+
+        return 0;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "LodChain{" +
+                "faceCounts=" + Arrays.toString(faceCounts) +
+                ", bounds=" + bounds +
+                '}';
+    }
+}
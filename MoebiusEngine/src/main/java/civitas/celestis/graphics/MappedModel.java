@@ -0,0 +1,290 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Texture;
+import civitas.celestis.math.vector.Vector2;
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.util.array.FastArray;
+import civitas.celestis.util.array.SafeArray;
+import civitas.celestis.util.tuple.Tuple;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A model which reads its geometry directly from buffers, typically views of a memory-mapped mesh cache.
+ * The layout of the buffers is identical to that of {@link PackedModel}, but nothing is copied onto the heap.
+ * <p>
+ * {@link Vector3}, {@link Vector2} and {@link Face} instances are only created when requested,
+ * and are detached copies of the underlying data.
+ * </p>
+ *
+ * @see MeshCache
+ */
+public class MappedModel implements Model {
+    /**
+     * Creates a new mapped model. The buffers are not copied, and must not be modified afterwards.
+     *
+     * @param positions     The vertex positions, three floats per vertex
+     * @param normals       The normals, three floats per normal
+     * @param uvCoordinates The UV coordinates, two floats per coordinate
+     * @param indices       The vertex indices of each face, three indices per face
+     */
+    public MappedModel(@Nonnull FloatBuffer positions, @Nonnull FloatBuffer normals, @Nonnull FloatBuffer uvCoordinates, @Nonnull IntBuffer indices) {
+        this(positions, normals, uvCoordinates, indices, List.of(), null);
+    }
+
+    /**
+     * Creates a new mapped model with a material table. The buffers are not copied, and must not be modified afterwards.
+     *
+     * @param positions     The vertex positions, three floats per vertex
+     * @param normals       The normals, three floats per normal
+     * @param uvCoordinates The UV coordinates, two floats per coordinate
+     * @param indices       The vertex indices of each face, three indices per face
+     * @param materials     The materials of this model
+     * @param faceMaterials The index of the material of each face, or {@code -1} for none,
+     *                      or {@code null} if no face has a material
+     */
+    public MappedModel(
+            @Nonnull FloatBuffer positions,
+            @Nonnull FloatBuffer normals,
+            @Nonnull FloatBuffer uvCoordinates,
+            @Nonnull IntBuffer indices,
+            @Nonnull List<Material> materials,
+            @Nullable IntBuffer faceMaterials
+    ) {
+        this.positions = positions;
+        this.normals = normals;
+        this.uvCoordinates = uvCoordinates;
+        this.indices = indices;
+        this.materials = List.copyOf(materials);
+        this.faceMaterials = faceMaterials;
+    }
+
+    protected final FloatBuffer positions, normals, uvCoordinates;
+    protected final IntBuffer indices;
+    @Nonnull
+    protected final List<Material> materials;
+    @Nullable
+    protected final IntBuffer faceMaterials;
+
+    //
+    // Buffers
+    //
+
+    /**
+     * Returns a read-only view of the position buffer of this model.
+     *
+     * @return The vertex positions, three floats per vertex
+     */
+    @Nonnull
+    public FloatBuffer getPositionBuffer() {
+        return positions.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the normal buffer of this model.
+     *
+     * @return The normals, three floats per normal
+     */
+    @Nonnull
+    public FloatBuffer getNormalBuffer() {
+        return normals.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the UV coordinate buffer of this model.
+     *
+     * @return The UV coordinates, two floats per coordinate
+     */
+    @Nonnull
+    public FloatBuffer getUVBuffer() {
+        return uvCoordinates.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the index buffer of this model.
+     *
+     * @return The vertex indices of each face, three indices per face
+     */
+    @Nonnull
+    public IntBuffer getIndexBuffer() {
+        return indices.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the material index buffer of this model.
+     *
+     * @return The index of the material of each face, or {@code -1} for none,
+     * or {@code null} if no face has a material
+     */
+    @Nullable
+    public IntBuffer getMaterialIndexBuffer() {
+        return faceMaterials != null ? faceMaterials.asReadOnlyBuffer() : null;
+    }
+
+    //
+    // Materials
+    //
+
+    /**
+     * Returns the materials of this model.
+     *
+     * @return An unmodifiable list of materials
+     */
+    @Nonnull
+    public List<Material> getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Returns the material of a face.
+     *
+     * @param i The index of the face
+     * @return The material of the face, or {@code null} if the face has no material
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    @Nullable
+    public Material getMaterial(int i) throws IndexOutOfBoundsException {
+        if (faceMaterials == null) {
+            Objects.checkIndex(i, getFaceCount());
+            return null;
+        }
+
+        final int material = faceMaterials.get(i);
+        return material < 0 ? null : materials.get(material);
+    }
+
+    //
+    // Model
+    //
+
+    @Nonnull
+    @Override
+    public Tuple<Vector3> getVertices() {
+        final SafeArray<Vector3> vertices = new FastArray<>(getVertexCount());
+        for (int i = 0; i < vertices.size(); i++) vertices.set(i, getVertex(i));
+        return vertices.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getVertex(int i) throws IndexOutOfBoundsException {
+        return new Vector3(positions.get(i * 3), positions.get(i * 3 + 1), positions.get(i * 3 + 2));
+    }
+
+    @Override
+    public int getVertexCount() {
+        return positions.limit() / 3;
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Vector3> getNormals() {
+        final SafeArray<Vector3> result = new FastArray<>(normals.limit() / 3);
+        for (int i = 0; i < result.size(); i++) result.set(i, getNormal(i));
+        return result.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getNormal(int i) throws IndexOutOfBoundsException {
+        return new Vector3(normals.get(i * 3), normals.get(i * 3 + 1), normals.get(i * 3 + 2));
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Vector2> getUVCoordinates() {
+        final SafeArray<Vector2> result = new FastArray<>(getUVCoordinateCount());
+        for (int i = 0; i < result.size(); i++) result.set(i, getUVCoordinate(i));
+        return result.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector2 getUVCoordinate(int i) throws IndexOutOfBoundsException {
+        return new Vector2(uvCoordinates.get(i * 2), uvCoordinates.get(i * 2 + 1));
+    }
+
+    @Override
+    public int getUVCoordinateCount() {
+        return uvCoordinates.limit() / 2;
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Face> getFaces() {
+        final SafeArray<Face> faces = new FastArray<>(getFaceCount());
+        for (int i = 0; i < faces.size(); i++) faces.set(i, getFace(i));
+        return faces.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Face getFace(int i) throws IndexOutOfBoundsException {
+        final Face face = new Face(getVertex(indices.get(i * 3)), getVertex(indices.get(i * 3 + 1)), getVertex(indices.get(i * 3 + 2)));
+
+        final Material material = getMaterial(i);
+        if (material != null) face.setColor(material.getDiffuse());
+
+        return face;
+    }
+
+    @Override
+    public int getFaceCount() {
+        return indices.limit() / 3;
+    }
+
+    @Override
+    public int getFaceVertexIndex(int face, int corner) throws IndexOutOfBoundsException {
+        Objects.checkIndex(corner, 3);
+        return indices.get(face * 3 + corner);
+    }
+
+    @Override
+    public void getVertex(int i, @Nonnull double[] dest, int offset) throws IndexOutOfBoundsException {
+        dest[offset] = positions.get(i * 3 + 0);
+        dest[offset + 1] = positions.get(i * 3 + 1);
+        dest[offset + 2] = positions.get(i * 3 + 2);
+    }
+
+    @Nonnull
+    @Override
+    public Color getFaceColor(int i) throws IndexOutOfBoundsException {
+        final Material material = getMaterial(i);
+        return material != null ? material.getDiffuse() : Colors.DARK_GOLDEN_ROD;
+    }
+
+    @Nullable
+    @Override
+    public Texture getFaceTexture(int i) throws IndexOutOfBoundsException {
+        final Material material = getMaterial(i);
+        return material != null ? material.getDiffuseTexture() : null;
+    }
+
+    @Override
+    public void getFaceUV(int face, int corner, @Nonnull float[] dest, int offset) throws IndexOutOfBoundsException {
+        final int vertex = getFaceVertexIndex(face, corner);
+
+        // UV coordinates share the indices of positions, unless the model has none
+        final boolean present = vertex * 2 + 1 < uvCoordinates.limit();
+        dest[offset] = present ? uvCoordinates.get(vertex * 2) : 0;
+        dest[offset + 1] = present ? uvCoordinates.get(vertex * 2 + 1) : 0;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "MappedModel{" +
+                "vertices=" + getVertexCount() +
+                ", normals=" + normals.limit() / 3 +
+                ", uvCoordinates=" + getUVCoordinateCount() +
+                ", faces=" + getFaceCount() +
+                ", materials=" + materials.size() +
+                '}';
+    }
+}
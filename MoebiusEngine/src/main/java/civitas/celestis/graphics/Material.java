@@ -0,0 +1,148 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Texture;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+
+/**
+ * A surface material, as defined by a Wavefront MTL file.
+ *
+ * @see MtlParser
+ */
+public class Material {
+    /**
+     * Creates a new material.
+     *
+     * @param name       The name of this material
+     * @param ambient    The ambient color ({@code Ka})
+     * @param diffuse    The diffuse color ({@code Kd})
+     * @param specular   The specular color ({@code Ks})
+     * @param emissive   The emissive color ({@code Ke})
+     * @param shininess  The specular exponent ({@code Ns})
+     * @param opacity    The opacity ({@code d}), where {@code 1} is fully opaque
+     * @param diffuseMap The path of the diffuse texture ({@code map_Kd}), relative to the MTL file
+     */
+    public Material(
+            @Nonnull String name,
+            @Nonnull Color ambient,
+            @Nonnull Color diffuse,
+            @Nonnull Color specular,
+            @Nonnull Color emissive,
+            double shininess,
+            double opacity,
+            @Nullable String diffuseMap
+    ) {
+        this(name, ambient, diffuse, specular, emissive, shininess, opacity, diffuseMap, null);
+    }
+
+    /**
+     * Creates a new material with a loaded diffuse texture.
+     *
+     * @param name           The name of this material
+     * @param ambient        The ambient color ({@code Ka})
+     * @param diffuse        The diffuse color ({@code Kd})
+     * @param specular       The specular color ({@code Ks})
+     * @param emissive       The emissive color ({@code Ke})
+     * @param shininess      The specular exponent ({@code Ns})
+     * @param opacity        The opacity ({@code d}), where {@code 1} is fully opaque
+     * @param diffuseMap     The path of the diffuse texture ({@code map_Kd}), relative to the MTL file
+     * @param diffuseTexture The diffuse texture loaded from {@code diffuseMap}, or {@code null} if it was not loaded
+     */
+    public Material(
+            @Nonnull String name,
+            @Nonnull Color ambient,
+            @Nonnull Color diffuse,
+            @Nonnull Color specular,
+            @Nonnull Color emissive,
+            double shininess,
+            double opacity,
+            @Nullable String diffuseMap,
+            @Nullable Texture diffuseTexture
+    ) {
+        this.name = name;
+        this.ambient = ambient;
+        this.diffuse = diffuse;
+        this.specular = specular;
+        this.emissive = emissive;
+        this.shininess = shininess;
+        this.opacity = opacity;
+        this.diffuseMap = diffuseMap;
+        this.diffuseTexture = diffuseTexture;
+    }
+
+    @Nonnull
+    protected final String name;
+    @Nonnull
+    protected final Color ambient, diffuse, specular, emissive;
+    protected final double shininess;
+    protected final double opacity;
+    @Nullable
+    protected final String diffuseMap;
+    @Nullable
+    protected final Texture diffuseTexture;
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    @Nonnull
+    public Color getAmbient() {
+        return ambient;
+    }
+
+    @Nonnull
+    public Color getDiffuse() {
+        return diffuse;
+    }
+
+    @Nonnull
+    public Color getSpecular() {
+        return specular;
+    }
+
+    @Nonnull
+    public Color getEmissive() {
+        return emissive;
+    }
+
+    public double getShininess() {
+        return shininess;
+    }
+
+    public double getOpacity() {
+        return opacity;
+    }
+
+    /**
+     * Returns the path of the diffuse texture of this material, relative to the MTL file which defined it.
+     *
+     * @return The path of the diffuse texture, or {@code null} if this material is not textured
+     */
+    @Nullable
+    public String getDiffuseMap() {
+        return diffuseMap;
+    }
+
+    /**
+     * Returns the diffuse texture of this material, which is multiplied by the diffuse color when drawn.
+     *
+     * @return The diffuse texture, or {@code null} if this material is not textured, or its texture could not be loaded
+     */
+    @Nullable
+    public Texture getDiffuseTexture() {
+        return diffuseTexture;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "Material{" +
+                "name='" + name + '\'' +
+                ", diffuse=" + diffuse +
+                ", diffuseMap=" + diffuseMap +
+                '}';
+    }
+}
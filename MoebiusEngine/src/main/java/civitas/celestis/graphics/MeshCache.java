@@ -0,0 +1,363 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Texture;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Caches parsed OBJ models in a compact binary format which can be memory-mapped on later loads.
+ * <p>
+ * A cache file consists of a fixed-size little-endian header followed by the position, normal,
+ * UV coordinate, index and material index sections of a {@link PackedModel}, back to back, and finally
+ * the material table. The material index section is only present if the model has materials. The header records the size
+ * and modification time of the source file and the scale the model was loaded with, so that a cache
+ * is only reused for the exact same input. A CRC-32 of the sections guards against truncated or corrupted files.
+ * </p>
+ * <pre>
+ * offset  size  field
+ *      0     4  magic ("MBMS")
+ *      4     4  version
+ *      8     8  scale
+ *     16     8  source file size
+ *     24     8  source file modification time (milliseconds)
+ *     32     4  vertex count
+ *     36     4  normal count
+ *     40     4  UV coordinate count
+ *     44     4  face count
+ *     48     8  CRC-32 of every section and the material table
+ *     56     4  material count
+ *     60     4  material table size in bytes
+ * </pre>
+ * <p>
+ * Each material in the table is stored as its name, the ambient, diffuse, specular and emissive colors
+ * as three floats each, the shininess and opacity as doubles, and the diffuse map. Strings are stored as
+ * their length in UTF-8 bytes followed by the bytes, with a length of {@code -1} denoting {@code null}.
+ * Textures are not cached; they are loaded again when the cache is read, assuming that the material library
+ * lies in the same directory as the cache file.
+ * </p>
+ */
+public class MeshCache {
+    //
+    // Format
+    //
+
+    /**
+     * The magic number every cache file starts with.
+     */
+    public static final int MAGIC = 0x534D424D;
+
+    /**
+     * The version of the format written by this class. Files of any other version are ignored.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 64;
+
+    /**
+     * The extension of cache files. The path of a cache file is the path of its source file,
+     * followed by the scale the model was loaded with and this extension.
+     */
+    public static final String EXTENSION = ".mesh";
+
+    //
+    // Loading
+    //
+
+    /**
+     * Loads a model through the cache. If a valid cache file for the scale exists next to the OBJ file, it is memory-mapped.
+     * Otherwise, the OBJ file is parsed, and a cache file is written for later loads.
+     * Failing to write the cache file does not prevent the model from being returned.
+     *
+     * @param path  The path of the OBJ file to load
+     * @param scale The scale to apply to every vertex
+     * @return The loaded model
+     * @throws IOException When the OBJ file cannot be read
+     */
+    @Nonnull
+    public static Model load(@Nonnull Path path, double scale) throws IOException {
+        final Path cache = getCachePath(path, scale);
+        final BasicFileAttributes source = Files.readAttributes(path, BasicFileAttributes.class);
+
+        final MappedModel cached = read(cache, scale, source.size(), source.lastModifiedTime().toMillis());
+        if (cached != null) return cached;
+
+        final PackedModel model = new ObjParser().parse(path, scale);
+
+        try {
+            write(cache, model, scale, source.size(), source.lastModifiedTime().toMillis());
+        } catch (final IOException e) {
+            // The cache is an optimization; the parsed model is still valid
+        }
+
+        return model;
+    }
+
+    /**
+     * Returns the path of the cache file belonging to the given source file and scale.
+     * Loading the same file at different scales uses different cache files, so that they do not evict each other.
+     *
+     * @param path  The path of the source file
+     * @param scale The scale the model is loaded with
+     * @return The path of the cache file
+     */
+    @Nonnull
+    public static Path getCachePath(@Nonnull Path path, double scale) {
+        return path.resolveSibling(path.getFileName() + "@" + scale + EXTENSION);
+    }
+
+    /**
+     * Memory-maps a cache file.
+     *
+     * @param cache          The path of the cache file
+     * @param scale          The scale the model must have been written with
+     * @param sourceSize     The size the source file must have had
+     * @param sourceModified The modification time the source file must have had, in milliseconds
+     * @return The mapped model, or {@code null} if the file does not exist, is stale, or is corrupted
+     * @throws IOException When an I/O error occurs while mapping an existing file
+     */
+    @Nullable
+    public static MappedModel read(@Nonnull Path cache, double scale, long sourceSize, long sourceModified) throws IOException {
+        if (!Files.isRegularFile(cache)) return null;
+
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) return null;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) return null;
+        if (buffer.getDouble(8) != scale || buffer.getLong(16) != sourceSize || buffer.getLong(24) != sourceModified) {
+            return null;
+        }
+
+        final int vertexCount = buffer.getInt(32);
+        final int normalCount = buffer.getInt(36);
+        final int uvCount = buffer.getInt(40);
+        final int faceCount = buffer.getInt(44);
+        final int materialCount = buffer.getInt(56);
+        final int tableSize = buffer.getInt(60);
+
+        if (vertexCount < 0 || normalCount < 0 || uvCount < 0 || faceCount < 0 || materialCount < 0 || tableSize < 0) {
+            return null;
+        }
+
+        final long sections = 4L * (3L * vertexCount + 3L * normalCount + 2L * uvCount + 3L * faceCount
+                + (materialCount > 0 ? faceCount : 0));
+        final long payload = sections + tableSize;
+        if (HEADER_SIZE + payload != buffer.capacity()) return null;
+
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, (int) payload));
+        if (crc.getValue() != buffer.getLong(48)) return null;
+
+        int offset = HEADER_SIZE;
+
+        final ByteBuffer positions = section(buffer, offset, vertexCount * 3);
+        offset += vertexCount * 12;
+        final ByteBuffer normals = section(buffer, offset, normalCount * 3);
+        offset += normalCount * 12;
+        final ByteBuffer uvs = section(buffer, offset, uvCount * 2);
+        offset += uvCount * 8;
+        final ByteBuffer indices = section(buffer, offset, faceCount * 3);
+        offset += faceCount * 12;
+
+        if (materialCount == 0) {
+            return new MappedModel(positions.asFloatBuffer(), normals.asFloatBuffer(), uvs.asFloatBuffer(), indices.asIntBuffer());
+        }
+
+        final ByteBuffer faceMaterials = section(buffer, offset, faceCount);
+        offset += faceCount * 4;
+
+        final List<Material> materials = new ArrayList<>(materialCount);
+        final ByteBuffer table = buffer.slice(offset, tableSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            final Map<String, Texture> textures = new HashMap<>();
+            for (int i = 0; i < materialCount; i++) materials.add(readMaterial(table, cache, textures));
+        } catch (final BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+
+        return new MappedModel(
+                positions.asFloatBuffer(),
+                normals.asFloatBuffer(),
+                uvs.asFloatBuffer(),
+                indices.asIntBuffer(),
+                materials,
+                faceMaterials.asIntBuffer()
+        );
+    }
+
+    /**
+     * Writes a cache file. The file is written to a new temporary file in the same directory first, then moved into place,
+     * so that concurrent readers never observe a partially written file, and concurrent writers never write to the same file.
+     *
+     * @param cache          The path of the cache file
+     * @param model          The model to write
+     * @param scale          The scale the model was loaded with
+     * @param sourceSize     The size of the source file
+     * @param sourceModified The modification time of the source file, in milliseconds
+     * @throws IOException When an I/O error occurs
+     */
+    public static void write(@Nonnull Path cache, @Nonnull PackedModel model, double scale, long sourceSize, long sourceModified)
+            throws IOException {
+        final float[] positions = model.getPositionBuffer();
+        final float[] normals = model.getNormalBuffer();
+        final float[] uvs = model.getUVBuffer();
+        final int[] indices = model.getIndexBuffer();
+        final int[] faceMaterials = model.getMaterialIndexBuffer();
+        final List<Material> materials = faceMaterials != null ? model.getMaterials() : List.of();
+
+        final ByteArrayOutputStream table = new ByteArrayOutputStream();
+        for (final Material material : materials) writeMaterial(table, material);
+
+        final int sections = 4 * (positions.length + normals.length + uvs.length + indices.length
+                + (faceMaterials != null ? faceMaterials.length : 0));
+        final int payload = sections + table.size();
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.position(HEADER_SIZE);
+        buffer.asFloatBuffer().put(positions);
+        buffer.position(buffer.position() + positions.length * 4);
+        buffer.asFloatBuffer().put(normals);
+        buffer.position(buffer.position() + normals.length * 4);
+        buffer.asFloatBuffer().put(uvs);
+        buffer.position(buffer.position() + uvs.length * 4);
+        buffer.asIntBuffer().put(indices);
+        buffer.position(buffer.position() + indices.length * 4);
+
+        if (faceMaterials != null) {
+            buffer.asIntBuffer().put(faceMaterials);
+            buffer.position(buffer.position() + faceMaterials.length * 4);
+        }
+
+        buffer.put(table.toByteArray());
+
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, payload));
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putDouble(8, scale);
+        buffer.putLong(16, sourceSize);
+        buffer.putLong(24, sourceModified);
+        buffer.putInt(32, positions.length / 3);
+        buffer.putInt(36, normals.length / 3);
+        buffer.putInt(40, uvs.length / 2);
+        buffer.putInt(44, indices.length / 3);
+        buffer.putLong(48, crc.getValue());
+        buffer.putInt(56, materials.size());
+        buffer.putInt(60, table.size());
+        buffer.position(0);
+
+        final Path directory = cache.toAbsolutePath().getParent();
+        final Path temporary = Files.createTempFile(directory, cache.getFileName().toString(), ".tmp");
+
+        try {
+            try (final FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+
+            Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Only left behind if writing or moving failed
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    //
+    // Materials
+    //
+
+    @Nonnull
+    private static Material readMaterial(@Nonnull ByteBuffer table, @Nonnull Path cache, @Nonnull Map<String, Texture> textures) {
+        final String name = readString(table);
+        if (name == null) throw new IllegalArgumentException("Material name must not be null.");
+
+        final Color ambient = readColor(table);
+        final Color diffuse = readColor(table);
+        final Color specular = readColor(table);
+        final Color emissive = readColor(table);
+        final double shininess = table.getDouble();
+        final double opacity = table.getDouble();
+        final String diffuseMap = readString(table);
+
+        final Texture texture = diffuseMap == null ? null
+                : textures.computeIfAbsent(diffuseMap, map -> MtlParser.loadTexture(cache, map));
+
+        return new Material(name, ambient, diffuse, specular, emissive, shininess, opacity, diffuseMap, texture);
+    }
+
+    private static void writeMaterial(@Nonnull ByteArrayOutputStream out, @Nonnull Material material) {
+        final ByteBuffer buffer = ByteBuffer.allocate(12 * 4 + 2 * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+        writeColor(buffer, material.getAmbient());
+        writeColor(buffer, material.getDiffuse());
+        writeColor(buffer, material.getSpecular());
+        writeColor(buffer, material.getEmissive());
+        buffer.putDouble(material.getShininess());
+        buffer.putDouble(material.getOpacity());
+
+        writeString(out, material.getName());
+        out.writeBytes(buffer.array());
+        writeString(out, material.getDiffuseMap());
+    }
+
+    @Nonnull
+    private static Color readColor(@Nonnull ByteBuffer table) {
+        return new Color(table.getFloat(), table.getFloat(), table.getFloat());
+    }
+
+    private static void writeColor(@Nonnull ByteBuffer buffer, @Nonnull Color color) {
+        final float[] components = color.getRGBColorComponents(null);
+        buffer.putFloat(components[0]).putFloat(components[1]).putFloat(components[2]);
+    }
+
+    @Nullable
+    private static String readString(@Nonnull ByteBuffer table) {
+        final int length = table.getInt();
+        if (length < 0) return null;
+
+        final byte[] bytes = new byte[length];
+        table.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(@Nonnull ByteArrayOutputStream out, @Nullable String value) {
+        final byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+        final int length = bytes != null ? bytes.length : -1;
+
+        out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(length).array());
+        if (bytes != null) out.writeBytes(bytes);
+    }
+
+    @Nonnull
+    private static ByteBuffer section(@Nonnull ByteBuffer buffer, int offset, int elements) {
+        return buffer.slice(offset, elements * 4).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
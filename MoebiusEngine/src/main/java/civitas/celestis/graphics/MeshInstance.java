@@ -0,0 +1,162 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.complex.Quaternion;
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.object.BaseObject;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * A placement of a shared {@link Model} in the world.
+ * <p>
+ * Instances only store a reference to their model and a rigid transform, so any number of
+ * instances can share the geometry of one model. A vertex of the model is placed in the world by
+ * rotating it by the rotation of the instance, then translating it by the location of the instance.
+ * The transform is applied on the fly by the renderer and by ray queries; the model is never copied.
+ * </p>
+ * <p>
+ * Instances are immutable, so that they can be part of a {@link Scene}.
+ * Use {@link #of(Model, BaseObject)} to take a snapshot of the transform of an object.
+ * </p>
+ */
+public class MeshInstance {
+    /**
+     * Creates a new mesh instance.
+     *
+     * @param model    The model to place
+     * @param location The location of the model's origin in the world
+     * @param rotation The rotation of the model
+     */
+    public MeshInstance(@Nonnull Model model, @Nonnull Vector3 location, @Nonnull Quaternion rotation) {
+        this.model = model;
+        this.location = location;
+        this.rotation = rotation;
+    }
+
+    /**
+     * Creates a new mesh instance which places a model at the current location and rotation of an object.
+     *
+     * @param model  The model to place
+     * @param object The object whose transform to use
+     * @return The mesh instance
+     */
+    @Nonnull
+    public static MeshInstance of(@Nonnull Model model, @Nonnull BaseObject object) {
+        return new MeshInstance(model, object.getLocation(), object.getRotation());
+    }
+
+    @Nonnull
+    protected final Model model;
+    @Nonnull
+    protected final Vector3 location;
+    @Nonnull
+    protected final Quaternion rotation;
+
+    //
+    // Getters
+    //
+
+    @Nonnull
+    public Model getModel() {
+        return model;
+    }
+
+    @Nonnull
+    public Vector3 getLocation() {
+        return location;
+    }
+
+    @Nonnull
+    public Quaternion getRotation() {
+        return rotation;
+    }
+
+    //
+    // Transformation
+    //
+
+    /**
+     * Transforms a point from the space of the model into the world.
+     *
+     * @param point The point in model space
+     * @return The point in world space
+     */
+    @Nonnull
+    public Vector3 toWorld(@Nonnull Vector3 point) {
+        return point.rotate(rotation).add(location);
+    }
+
+    /**
+     * Transforms a point from the world into the space of the model.
+     *
+     * @param point The point in world space
+     * @return The point in model space
+     */
+    @Nonnull
+    public Vector3 toLocal(@Nonnull Vector3 point) {
+        return point.subtract(location).rotate(rotation.conjugate());
+    }
+
+    /**
+     * Transforms a ray from the world into the space of the model.
+     * Since the transform is rigid, distances along the ray are preserved.
+     *
+     * @param ray The ray in world space
+     * @return The ray in model space
+     */
+    @Nonnull
+    public Ray toLocal(@Nonnull Ray ray) {
+        return new Ray(toLocal(ray.getOrigin()), ray.getDirection().rotate(rotation.conjugate()));
+    }
+
+    //
+    // Ray queries
+    //
+
+    /**
+     * Finds the closest face of this instance hit by a ray.
+     *
+     * @param bvh The bounding volume hierarchy of this instance's model
+     * @param ray The ray in world space
+     * @return The closest hit, or {@code null} if the ray misses every face
+     */
+    @Nullable
+    public RayHit closestHit(@Nonnull BoundingVolumeHierarchy bvh, @Nonnull Ray ray) {
+        return bvh.closestHit(toLocal(ray));
+    }
+
+    /**
+     * Finds the closest face of this instance hit by a ray within a maximum distance.
+     *
+     * @param bvh         The bounding volume hierarchy of this instance's model
+     * @param ray         The ray in world space
+     * @param maxDistance The maximum distance along the ray
+     * @return The closest hit, or {@code null} if the ray misses every face within the distance
+     */
+    @Nullable
+    public RayHit closestHit(@Nonnull BoundingVolumeHierarchy bvh, @Nonnull Ray ray, double maxDistance) {
+        return bvh.closestHit(toLocal(ray), maxDistance);
+    }
+
+    /**
+     * Checks whether a ray hits any face of this instance within a maximum distance.
+     *
+     * @param bvh         The bounding volume hierarchy of this instance's model
+     * @param ray         The ray in world space
+     * @param maxDistance The maximum distance along the ray
+     * @return {@code true} if the ray hits a face within the distance
+     */
+    public boolean anyHit(@Nonnull BoundingVolumeHierarchy bvh, @Nonnull Ray ray, double maxDistance) {
+        return bvh.anyHit(toLocal(ray), maxDistance);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "MeshInstance{" +
+                "model=" + model +
+                ", location=" + location +
+                ", rotation=" + rotation +
+                '}';
+    }
+}
@@ -0,0 +1,568 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Texture;
+import civitas.celestis.math.vector.Vector2;
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Simplifies models by quadric error metric edge collapse, as described by Garland and Heckbert.
+ * <p>
+ * Every vertex accumulates the squared distance to the planes of its faces as a quadric.
+ * Edges are collapsed in order of the error of the position which minimizes the sum of the quadrics
+ * of their endpoints, until the requested number of faces remains. Open boundaries, including the
+ * seams between vertices which differ only in their UV coordinates or normals, are weighted by
+ * additional planes perpendicular to their faces, so that the silhouette and seams of a model are kept.
+ * Collapses which would flip a face are rejected.
+ * </p>
+ * <p>
+ * If the model has one normal and one UV coordinate per vertex, as produced by {@link ObjParser},
+ * the attributes of a collapsed vertex are interpolated along the collapsed edge. Otherwise, the
+ * simplified model has no normals or UV coordinates. The color and texture of each remaining face are preserved
+ * through the material table of the resulting {@link PackedModel}.
+ * </p>
+ */
+public class MeshSimplifier {
+    /**
+     * The weight of boundary planes relative to the planes of faces.
+     */
+    private static final double BOUNDARY_WEIGHT = 100;
+
+    /**
+     * Simplifies a model.
+     *
+     * @param model       The model to simplify
+     * @param targetFaces The number of faces to reduce the model to
+     * @return The simplified model, which has at most as many faces as the original,
+     * and may have more than the target if no further collapse is possible
+     */
+    @Nonnull
+    public static PackedModel simplify(@Nonnull Model model, int targetFaces) {
+        return new MeshSimplifier(model).run(Math.max(0, targetFaces));
+    }
+
+    private MeshSimplifier(@Nonnull Model model) {
+        this.model = model;
+        this.vertexCount = model.getVertexCount();
+        this.faceCount = model.getFaceCount();
+
+        this.positions = new double[vertexCount * 3];
+        for (int i = 0; i < vertexCount; i++) model.getVertex(i, positions, i * 3);
+
+        this.indices = new int[faceCount * 3];
+        for (int f = 0; f < faceCount; f++) {
+            for (int c = 0; c < 3; c++) indices[f * 3 + c] = model.getFaceVertexIndex(f, c);
+        }
+
+        // Attributes can only be carried along if they are indexed like the vertices
+        this.normals = model.getNormals().size() == vertexCount ? new double[vertexCount * 3] : null;
+        this.uvs = model.getUVCoordinateCount() == vertexCount ? new double[vertexCount * 2] : null;
+
+        for (int i = 0; i < vertexCount; i++) {
+            if (normals != null) {
+                final Vector3 n = model.getNormal(i);
+                normals[i * 3] = n.x();
+                normals[i * 3 + 1] = n.y();
+                normals[i * 3 + 2] = n.z();
+            }
+
+            if (uvs != null) {
+                final Vector2 uv = model.getUVCoordinate(i);
+                uvs[i * 2] = uv.x();
+                uvs[i * 2 + 1] = uv.y();
+            }
+        }
+
+        this.quadrics = new double[vertexCount * 10];
+        this.versions = new int[vertexCount];
+        this.faceAlive = new boolean[faceCount];
+        this.vertexFaces = new int[vertexCount][];
+        this.vertexFaceCounts = new int[vertexCount];
+    }
+
+    private final Model model;
+    private final int vertexCount, faceCount;
+
+    private final double[] positions;
+    @Nullable
+    private final double[] normals, uvs;
+    private final int[] indices;
+
+    /**
+     * The quadric of every vertex, as the ten unique coefficients of a symmetric 4x4 matrix.
+     */
+    private final double[] quadrics;
+
+    /**
+     * Incremented whenever a vertex moves, which invalidates every queued candidate involving it.
+     */
+    private final int[] versions;
+
+    private final boolean[] faceAlive;
+    private final int[][] vertexFaces;
+    private final int[] vertexFaceCounts;
+
+    private final PriorityQueue<Candidate> queue = new PriorityQueue<>();
+
+    //
+    // Simplification
+    //
+
+    @Nonnull
+    private PackedModel run(int targetFaces) {
+        buildAdjacency();
+        buildQuadrics();
+
+        for (int f = 0; f < faceCount; f++) {
+            for (int c = 0; c < 3; c++) {
+                final int a = indices[f * 3 + c];
+                final int b = indices[f * 3 + (c + 1) % 3];
+                if (a < b) push(a, b);
+            }
+        }
+
+        int remaining = 0;
+        for (final boolean alive : faceAlive) if (alive) remaining++;
+
+        while (remaining > targetFaces && !queue.isEmpty()) {
+            final Candidate candidate = queue.poll();
+            if (versions[candidate.a] != candidate.versionA || versions[candidate.b] != candidate.versionB) continue;
+            if (flips(candidate)) continue;
+
+            remaining -= collapse(candidate);
+        }
+
+        return build();
+    }
+
+    private void buildAdjacency() {
+        for (int f = 0; f < faceCount; f++) {
+            final int a = indices[f * 3], b = indices[f * 3 + 1], c = indices[f * 3 + 2];
+
+            // Degenerate faces are dropped up front
+            faceAlive[f] = a != b && b != c && c != a;
+            if (!faceAlive[f]) continue;
+
+            for (int k = 0; k < 3; k++) addFace(indices[f * 3 + k], f);
+        }
+    }
+
+    private void addFace(int vertex, int face) {
+        int[] faces = vertexFaces[vertex];
+
+        if (faces == null) {
+            faces = vertexFaces[vertex] = new int[6];
+        } else if (vertexFaceCounts[vertex] == faces.length) {
+            faces = vertexFaces[vertex] = Arrays.copyOf(faces, faces.length * 2);
+        }
+
+        faces[vertexFaceCounts[vertex]++] = face;
+    }
+
+    private void buildQuadrics() {
+        final Map<Long, Integer> edgeUses = new HashMap<>();
+
+        for (int f = 0; f < faceCount; f++) {
+            if (!faceAlive[f]) continue;
+
+            final double[] plane = plane(indices[f * 3], indices[f * 3 + 1], indices[f * 3 + 2]);
+            if (plane == null) continue;
+
+            // Weight by area, so that small faces do not dominate
+            for (int c = 0; c < 3; c++) addPlane(indices[f * 3 + c], plane, plane[4]);
+
+            for (int c = 0; c < 3; c++) {
+                edgeUses.merge(edgeKey(indices[f * 3 + c], indices[f * 3 + (c + 1) % 3]), 1, Integer::sum);
+            }
+        }
+
+        // Constrain boundary edges with planes perpendicular to their face
+        for (int f = 0; f < faceCount; f++) {
+            if (!faceAlive[f]) continue;
+
+            final double[] plane = plane(indices[f * 3], indices[f * 3 + 1], indices[f * 3 + 2]);
+            if (plane == null) continue;
+
+            for (int c = 0; c < 3; c++) {
+                final int a = indices[f * 3 + c];
+                final int b = indices[f * 3 + (c + 1) % 3];
+                if (edgeUses.get(edgeKey(a, b)) != 1) continue;
+
+                final double ex = positions[b * 3] - positions[a * 3];
+                final double ey = positions[b * 3 + 1] - positions[a * 3 + 1];
+                final double ez = positions[b * 3 + 2] - positions[a * 3 + 2];
+
+                // The normal of the boundary plane is perpendicular to both the edge and the face
+                double nx = ey * plane[2] - ez * plane[1];
+                double ny = ez * plane[0] - ex * plane[2];
+                double nz = ex * plane[1] - ey * plane[0];
+
+                final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (length == 0) continue;
+
+                nx /= length;
+                ny /= length;
+                nz /= length;
+
+                final double d = -(nx * positions[a * 3] + ny * positions[a * 3 + 1] + nz * positions[a * 3 + 2]);
+                final double[] boundary = {nx, ny, nz, d};
+                final double weight = BOUNDARY_WEIGHT * (ex * ex + ey * ey + ez * ez);
+
+                addPlane(a, boundary, weight);
+                addPlane(b, boundary, weight);
+            }
+        }
+    }
+
+    private static long edgeKey(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    /**
+     * Returns the unit normal, offset and area of the plane of a triangle, or {@code null} if it has no area.
+     */
+    @Nullable
+    private double[] plane(int a, int b, int c) {
+        final double[] p = positions;
+
+        final double e1x = p[b * 3] - p[a * 3], e1y = p[b * 3 + 1] - p[a * 3 + 1], e1z = p[b * 3 + 2] - p[a * 3 + 2];
+        final double e2x = p[c * 3] - p[a * 3], e2y = p[c * 3 + 1] - p[a * 3 + 1], e2z = p[c * 3 + 2] - p[a * 3 + 2];
+
+        double nx = e1y * e2z - e1z * e2y;
+        double ny = e1z * e2x - e1x * e2z;
+        double nz = e1x * e2y - e1y * e2x;
+
+        final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length == 0) return null;
+
+        nx /= length;
+        ny /= length;
+        nz /= length;
+
+        final double d = -(nx * p[a * 3] + ny * p[a * 3 + 1] + nz * p[a * 3 + 2]);
+        return new double[]{nx, ny, nz, d, length / 2};
+    }
+
+    private void addPlane(int vertex, @Nonnull double[] plane, double weight) {
+        final double a = plane[0], b = plane[1], c = plane[2], d = plane[3];
+        final int o = vertex * 10;
+
+        quadrics[o] += weight * a * a;
+        quadrics[o + 1] += weight * a * b;
+        quadrics[o + 2] += weight * a * c;
+        quadrics[o + 3] += weight * a * d;
+        quadrics[o + 4] += weight * b * b;
+        quadrics[o + 5] += weight * b * c;
+        quadrics[o + 6] += weight * b * d;
+        quadrics[o + 7] += weight * c * c;
+        quadrics[o + 8] += weight * c * d;
+        quadrics[o + 9] += weight * d * d;
+    }
+
+    /**
+     * Queues the collapse of an edge at the position which minimizes the combined quadric of its endpoints.
+     */
+    private void push(int a, int b) {
+        final double[] q = new double[10];
+        for (int i = 0; i < 10; i++) q[i] = quadrics[a * 10 + i] + quadrics[b * 10 + i];
+
+        final double[] p = positions;
+        final double ax = p[a * 3], ay = p[a * 3 + 1], az = p[a * 3 + 2];
+        final double bx = p[b * 3], by = p[b * 3 + 1], bz = p[b * 3 + 2];
+
+        double x, y, z, error;
+
+        // Solve the 3x3 system for the optimal position by Cramer's rule
+        final double det = q[0] * (q[4] * q[7] - q[5] * q[5])
+                - q[1] * (q[1] * q[7] - q[5] * q[2])
+                + q[2] * (q[1] * q[5] - q[4] * q[2]);
+
+        final double edge2 = (bx - ax) * (bx - ax) + (by - ay) * (by - ay) + (bz - az) * (bz - az);
+        boolean solved = false;
+        x = y = z = 0;
+
+        if (Math.abs(det) > 1e-12) {
+            final double rx = -q[3], ry = -q[6], rz = -q[8];
+
+            x = (rx * (q[4] * q[7] - q[5] * q[5]) - q[1] * (ry * q[7] - q[5] * rz) + q[2] * (ry * q[5] - q[4] * rz)) / det;
+            y = (q[0] * (ry * q[7] - q[5] * rz) - rx * (q[1] * q[7] - q[5] * q[2]) + q[2] * (q[1] * rz - ry * q[2])) / det;
+            z = (q[0] * (q[4] * rz - ry * q[5]) - q[1] * (q[1] * rz - ry * q[2]) + rx * (q[1] * q[5] - q[4] * q[2])) / det;
+
+            // Nearly singular systems can place the vertex far away; keep it close to the edge
+            final double mx = x - (ax + bx) / 2, my = y - (ay + by) / 2, mz = z - (az + bz) / 2;
+            solved = mx * mx + my * my + mz * mz <= 4 * edge2;
+        }
+
+        if (solved) {
+            error = error(q, x, y, z);
+        } else {
+            // Choose the best of the endpoints and the midpoint
+            final double ea = error(q, ax, ay, az);
+            final double eb = error(q, bx, by, bz);
+            final double em = error(q, (ax + bx) / 2, (ay + by) / 2, (az + bz) / 2);
+
+            if (ea <= eb && ea <= em) {
+                x = ax;
+                y = ay;
+                z = az;
+                error = ea;
+            } else if (eb <= em) {
+                x = bx;
+                y = by;
+                z = bz;
+                error = eb;
+            } else {
+                x = (ax + bx) / 2;
+                y = (ay + by) / 2;
+                z = (az + bz) / 2;
+                error = em;
+            }
+        }
+
+        queue.add(new Candidate(Math.max(0, error), a, b, versions[a], versions[b], x, y, z));
+    }
+
+    private static double error(@Nonnull double[] q, double x, double y, double z) {
+        return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x
+                + q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+                + q[7] * z * z + 2 * q[8] * z
+                + q[9];
+    }
+
+    /**
+     * Checks whether moving either endpoint of a candidate to its target position would flip a face.
+     */
+    private boolean flips(@Nonnull Candidate candidate) {
+        return flips(candidate.a, candidate.b, candidate) || flips(candidate.b, candidate.a, candidate);
+    }
+
+    private boolean flips(int vertex, int other, @Nonnull Candidate candidate) {
+        final int[] faces = vertexFaces[vertex];
+        final double[] p = positions;
+
+        for (int i = 0; i < vertexFaceCounts[vertex]; i++) {
+            final int f = faces[i];
+            if (!faceAlive[f]) continue;
+
+            final int a = indices[f * 3], b = indices[f * 3 + 1], c = indices[f * 3 + 2];
+            if (a == other || b == other || c == other) continue;
+
+            // Normal before the move
+            final double[] before = normal(p[a * 3], p[a * 3 + 1], p[a * 3 + 2],
+                    p[b * 3], p[b * 3 + 1], p[b * 3 + 2], p[c * 3], p[c * 3 + 1], p[c * 3 + 2]);
+
+            // Normal after the move
+            final double[] after = normal(
+                    a == vertex ? candidate.x : p[a * 3], a == vertex ? candidate.y : p[a * 3 + 1], a == vertex ? candidate.z : p[a * 3 + 2],
+                    b == vertex ? candidate.x : p[b * 3], b == vertex ? candidate.y : p[b * 3 + 1], b == vertex ? candidate.z : p[b * 3 + 2],
+                    c == vertex ? candidate.x : p[c * 3], c == vertex ? candidate.y : p[c * 3 + 1], c == vertex ? candidate.z : p[c * 3 + 2]
+            );
+
+            if (before[0] * after[0] + before[1] * after[1] + before[2] * after[2] <= 0) return true;
+        }
+
+        return false;
+    }
+
+    @Nonnull
+    private static double[] normal(double ax, double ay, double az, double bx, double by, double bz, double cx, double cy, double cz) {
+        final double e1x = bx - ax, e1y = by - ay, e1z = bz - az;
+        final double e2x = cx - ax, e2y = cy - ay, e2z = cz - az;
+
+        return new double[]{e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x};
+    }
+
+    /**
+     * Collapses the second endpoint of a candidate into the first.
+     *
+     * @return The number of faces removed
+     */
+    private int collapse(@Nonnull Candidate candidate) {
+        final int keep = candidate.a;
+        final int remove = candidate.b;
+
+        // Interpolate the attributes at the projection of the new position onto the edge
+        final double[] p = positions;
+        final double ex = p[remove * 3] - p[keep * 3], ey = p[remove * 3 + 1] - p[keep * 3 + 1], ez = p[remove * 3 + 2] - p[keep * 3 + 2];
+        final double length2 = ex * ex + ey * ey + ez * ez;
+        final double t = length2 == 0 ? 0 : Math.max(0, Math.min(1,
+                ((candidate.x - p[keep * 3]) * ex + (candidate.y - p[keep * 3 + 1]) * ey + (candidate.z - p[keep * 3 + 2]) * ez) / length2));
+
+        if (normals != null) {
+            double nx = normals[keep * 3] + (normals[remove * 3] - normals[keep * 3]) * t;
+            double ny = normals[keep * 3 + 1] + (normals[remove * 3 + 1] - normals[keep * 3 + 1]) * t;
+            double nz = normals[keep * 3 + 2] + (normals[remove * 3 + 2] - normals[keep * 3 + 2]) * t;
+
+            final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                nx /= length;
+                ny /= length;
+                nz /= length;
+            }
+
+            normals[keep * 3] = nx;
+            normals[keep * 3 + 1] = ny;
+            normals[keep * 3 + 2] = nz;
+        }
+
+        if (uvs != null) {
+            uvs[keep * 2] += (uvs[remove * 2] - uvs[keep * 2]) * t;
+            uvs[keep * 2 + 1] += (uvs[remove * 2 + 1] - uvs[keep * 2 + 1]) * t;
+        }
+
+        p[keep * 3] = candidate.x;
+        p[keep * 3 + 1] = candidate.y;
+        p[keep * 3 + 2] = candidate.z;
+
+        for (int i = 0; i < 10; i++) quadrics[keep * 10 + i] += quadrics[remove * 10 + i];
+
+        versions[keep]++;
+        versions[remove]++;
+
+        // Move the faces of the removed vertex over, dropping those which become degenerate
+        int removed = 0;
+        final int[] faces = vertexFaces[remove];
+
+        for (int i = 0; i < vertexFaceCounts[remove]; i++) {
+            final int f = faces[i];
+            if (!faceAlive[f]) continue;
+
+            final int o = f * 3;
+            if (indices[o] == keep || indices[o + 1] == keep || indices[o + 2] == keep) {
+                faceAlive[f] = false;
+                removed++;
+                continue;
+            }
+
+            for (int c = 0; c < 3; c++) if (indices[o + c] == remove) indices[o + c] = keep;
+            addFace(keep, f);
+        }
+
+        vertexFaces[remove] = null;
+        vertexFaceCounts[remove] = 0;
+
+        // Queue new candidates for every edge of the kept vertex
+        final int[] kept = vertexFaces[keep];
+        int alive = 0;
+
+        for (int i = 0; i < vertexFaceCounts[keep]; i++) {
+            final int f = kept[i];
+            if (!faceAlive[f]) continue;
+
+            // Compact the adjacency list while walking it
+            kept[alive++] = f;
+
+            for (int c = 0; c < 3; c++) {
+                final int other = indices[f * 3 + c];
+                if (other != keep) push(Math.min(keep, other), Math.max(keep, other));
+            }
+        }
+
+        vertexFaceCounts[keep] = alive;
+        return removed;
+    }
+
+    //
+    // Output
+    //
+
+    @Nonnull
+    private PackedModel build() {
+        final int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+
+        int vertices = 0, faces = 0;
+        for (int f = 0; f < faceCount; f++) {
+            if (!faceAlive[f]) continue;
+            faces++;
+
+            for (int c = 0; c < 3; c++) {
+                final int v = indices[f * 3 + c];
+                if (remap[v] == -1) remap[v] = vertices++;
+            }
+        }
+
+        final float[] outPositions = new float[vertices * 3];
+        final float[] outNormals = new float[normals != null ? vertices * 3 : 0];
+        final float[] outUVs = new float[uvs != null ? vertices * 2 : 0];
+
+        for (int v = 0; v < vertexCount; v++) {
+            final int r = remap[v];
+            if (r == -1) continue;
+
+            for (int k = 0; k < 3; k++) outPositions[r * 3 + k] = (float) positions[v * 3 + k];
+            if (normals != null) for (int k = 0; k < 3; k++) outNormals[r * 3 + k] = (float) normals[v * 3 + k];
+            if (uvs != null) for (int k = 0; k < 2; k++) outUVs[r * 2 + k] = (float) uvs[v * 2 + k];
+        }
+
+        // Carry the material of each face over, or a plain material for its color and texture if it has none
+        final List<Material> materials = new ArrayList<>();
+        final Map<Object, Integer> materialIndices = new HashMap<>();
+
+        final int[] outIndices = new int[faces * 3];
+        final int[] outMaterials = new int[faces];
+        int o = 0;
+
+        for (int f = 0; f < faceCount; f++) {
+            if (!faceAlive[f]) continue;
+
+            for (int c = 0; c < 3; c++) outIndices[o * 3 + c] = remap[indices[f * 3 + c]];
+
+            final Material material = materialOf(f);
+            final Color color = model.getFaceColor(f);
+            final Texture texture = model.getFaceTexture(f);
+            final Object key = material != null ? material : Arrays.asList(color, texture);
+
+            outMaterials[o++] = materialIndices.computeIfAbsent(key, k -> {
+                materials.add(material != null ? material : plainMaterial(color, texture));
+                return materials.size() - 1;
+            });
+        }
+
+        return new PackedModel(outPositions, outNormals, outUVs, outIndices, materials, outMaterials);
+    }
+
+    @Nullable
+    private Material materialOf(int face) {
+        if (model instanceof PackedModel packed) return packed.getMaterial(face);
+        if (model instanceof MappedModel mapped) return mapped.getMaterial(face);
+        return null;
+    }
+
+    @Nonnull
+    private static Material plainMaterial(@Nonnull Color color, @Nullable Texture texture) {
+        final String name = String.format("#%06X", color.getRGB() & 0xFFFFFF);
+        return new Material(name, Color.BLACK, color, Color.BLACK, Color.BLACK, 0, 1, null, texture);
+    }
+
+    /**
+     * A queued edge collapse.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private Candidate(double cost, int a, int b, int versionA, int versionB, double x, double y, double z) {
+            this.cost = cost;
+            this.a = a;
+            this.b = b;
+            this.versionA = versionA;
+            this.versionB = versionB;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private final double cost;
+        private final int a, b;
+        private final int versionA, versionB;
+        private final double x, y, z;
+
+        @Override
+        public int compareTo(@Nonnull Candidate other) {
+            return Double.compare(cost, other.cost);
+        }
+    }
+}
@@ -1,18 +1,73 @@
 package civitas.celestis.graphics;
 
+import civitas.celestis.graphics.render.Texture;
 import civitas.celestis.math.vector.Vector2;
 import civitas.celestis.math.vector.Vector3;
 import civitas.celestis.util.tuple.Tuple;
 import de.javagl.obj.ObjReader;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 
-import java.io.FileReader;
+import java.awt.*;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public interface Model {
     @Nonnull
     static Model loadModel(@Nonnull String path, double scale) throws IOException {
-        return new SimpleModel(ObjReader.read(new FileReader(path)), scale);
+        try (final Reader reader = Files.newBufferedReader(Path.of(path))) {
+            return new SimpleModel(ObjReader.read(reader), scale);
+        }
+    }
+
+    /**
+     * Loads a model backed by flat primitive arrays.
+     * The file is parsed in parallel by {@link ObjParser}, which triangulates every polygon instead of
+     * only reading its first three vertices, and reads the materials of the model.
+     * Faces and vertices are created on demand, and are not retained by the model.
+     *
+     * @param path  The path of the OBJ file to load
+     * @param scale The scale to apply to every vertex
+     * @return The loaded model
+     * @throws IOException When an I/O error occurs
+     * @see PackedModel
+     */
+    @Nonnull
+    static PackedModel loadPackedModel(@Nonnull String path, double scale) throws IOException {
+        return new ObjParser().parse(Path.of(path), scale);
+    }
+
+    /**
+     * Loads a model with quantized geometry, which takes a fraction of the memory of a {@link PackedModel}.
+     * The file is parsed as by {@link #loadPackedModel(String, double)}, then quantized.
+     *
+     * @param path  The path of the OBJ file to load
+     * @param scale The scale to apply to every vertex
+     * @return The loaded model
+     * @throws IOException When an I/O error occurs
+     * @see QuantizedModel
+     */
+    @Nonnull
+    static QuantizedModel loadQuantizedModel(@Nonnull String path, double scale) throws IOException {
+        return new QuantizedModel(loadPackedModel(path, scale));
+    }
+
+    /**
+     * Loads a model through the binary mesh cache.
+     * The first load parses the OBJ file and writes a cache file next to it.
+     * Later loads memory-map the cache file, so that the model is usable without parsing.
+     *
+     * @param path  The path of the OBJ file to load
+     * @param scale The scale to apply to every vertex
+     * @return The loaded model
+     * @throws IOException When an I/O error occurs
+     * @see MeshCache
+     */
+    @Nonnull
+    static Model loadCachedModel(@Nonnull String path, double scale) throws IOException {
+        return MeshCache.load(Path.of(path), scale);
     }
 
     @Nonnull
@@ -40,4 +95,72 @@ public interface Model {
     @Nonnull
     Face getFace(int i) throws IndexOutOfBoundsException;
     int getFaceCount();
+
+
+    /**
+     * Returns the index of a vertex of a face, which can be passed to {@link #getVertex(int)}.
+     * This allows vertices shared between faces to be processed once.
+     *
+     * @param face   The index of the face
+     * @param corner The corner of the face, between {@code 0} and {@code 2}
+     * @return The index of the vertex at the given corner of the face
+     * @throws IndexOutOfBoundsException When either index is out of bounds
+     */
+    int getFaceVertexIndex(int face, int corner) throws IndexOutOfBoundsException;
+
+    /**
+     * Copies the components of a vertex into an array, without creating a {@link Vector3}.
+     *
+     * @param i      The index of the vertex
+     * @param dest   The array to write the X, Y and Z components into
+     * @param offset The index of {@code dest} to write the X component at
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    default void getVertex(int i, @Nonnull double[] dest, int offset) throws IndexOutOfBoundsException {
+        final Vector3 vertex = getVertex(i);
+
+        dest[offset] = vertex.x();
+        dest[offset + 1] = vertex.y();
+        dest[offset + 2] = vertex.z();
+    }
+
+    /**
+     * Returns the color of a face, without creating a {@link Face} if the model does not retain its faces.
+     *
+     * @param i The index of the face
+     * @return The color of the face
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    @Nonnull
+    default Color getFaceColor(int i) throws IndexOutOfBoundsException {
+        return getFace(i).getColor();
+    }
+
+    /**
+     * Returns the texture of a face, which is multiplied by the {@link #getFaceColor(int) color} of the face when drawn.
+     * Models are untextured by default.
+     *
+     * @param i The index of the face
+     * @return The texture of the face, or {@code null} if the face is not textured
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    @Nullable
+    default Texture getFaceTexture(int i) throws IndexOutOfBoundsException {
+        return null;
+    }
+
+    /**
+     * Copies the UV coordinate of a corner of a face into an array, without creating a {@link Vector2}.
+     * Models without UV coordinates write zeroes.
+     *
+     * @param face   The index of the face
+     * @param corner The corner of the face, between {@code 0} and {@code 2}
+     * @param dest   The array to write the U and V coordinates into
+     * @param offset The index of {@code dest} to write the U coordinate at
+     * @throws IndexOutOfBoundsException When either index is out of bounds
+     */
+    default void getFaceUV(int face, int corner, @Nonnull float[] dest, int offset) throws IndexOutOfBoundsException {
+        dest[offset] = 0;
+        dest[offset + 1] = 0;
+    }
 }
@@ -0,0 +1,75 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * A cache of data derived from models, such as their {@link BoundingVolumeHierarchy hierarchies}
+ * or {@link LodChain chains of detail levels}. The value of each model is derived only once,
+ * even if it is requested by several threads at once.
+ * <p>
+ * The cache only holds weak references to models, so unused models can still be collected.
+ * Values must therefore not reference the model they were derived from.
+ * Cached values are shared, so models must not be modified once a value has been derived from them.
+ * </p>
+ *
+ * @param <V> The type of the derived values
+ */
+final class ModelCache<V> {
+    /**
+     * Creates a new model cache.
+     *
+     * @param factory The function which derives the value of a model
+     */
+    ModelCache(@Nonnull Function<? super Model, ? extends V> factory) {
+        this.factory = factory;
+    }
+
+    private final Function<? super Model, ? extends V> factory;
+    private final Map<Model, CompletableFuture<V>> values = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the value of a model, deriving it on the calling thread if it has not been requested yet.
+     * If another thread is already deriving it, this waits for that thread.
+     *
+     * @param model The model
+     * @return The value of the model
+     * @throws java.util.concurrent.CompletionException When deriving the value failed
+     */
+    @Nonnull
+    V get(@Nonnull Model model) {
+        final CompletableFuture<V> existing = values.get(model);
+        if (existing != null) return existing.join();
+
+        final CompletableFuture<V> created = new CompletableFuture<>();
+        final CompletableFuture<V> raced = values.putIfAbsent(model, created);
+        if (raced != null) return raced.join();
+
+        try {
+            created.complete(factory.apply(model));
+        } catch (final RuntimeException | Error e) {
+            created.completeExceptionally(e);
+        }
+
+        return created.join();
+    }
+
+    /**
+     * Returns the value of a model if it has been derived. Otherwise, this starts deriving it
+     * on the common fork-join pool, and returns {@code null} until it is done. This never blocks.
+     *
+     * @param model The model
+     * @return The value of the model, or {@code null} if it is not available yet
+     */
+    @Nullable
+    V getCached(@Nonnull Model model) {
+        final CompletableFuture<V> value = values.computeIfAbsent(model, m -> CompletableFuture.supplyAsync(() -> factory.apply(m)));
+        return value.isDone() && !value.isCompletedExceptionally() ? value.join() : null;
+    }
+}
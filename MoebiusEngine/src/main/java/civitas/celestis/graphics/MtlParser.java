@@ -0,0 +1,134 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Texture;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses Wavefront MTL material libraries.
+ * Only the properties represented by {@link Material} are read; every other statement is ignored.
+ * Diffuse textures are loaded as the library is parsed. Textures which do not exist or cannot be decoded are ignored.
+ */
+public class MtlParser {
+    /**
+     * Parses a material library.
+     *
+     * @param path The path of the MTL file
+     * @return The materials of the library by name, in the order they were defined
+     * @throws IOException When an I/O error occurs, or the file is malformed
+     */
+    @Nonnull
+    public static Map<String, Material> parse(@Nonnull Path path) throws IOException {
+        final Map<String, Material> materials = new LinkedHashMap<>();
+        final Map<String, Texture> textures = new HashMap<>();
+
+        try (final BufferedReader reader = Files.newBufferedReader(path)) {
+            Builder current = null;
+            String line;
+            int number = 0;
+
+            while ((line = reader.readLine()) != null) {
+                number++;
+
+                final int comment = line.indexOf('#');
+                if (comment >= 0) line = line.substring(0, comment);
+
+                final String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].isEmpty()) continue;
+
+                try {
+                    if (tokens[0].equals("newmtl")) {
+                        if (current != null) materials.put(current.name, current.build(path, textures));
+                        current = new Builder(line.trim().substring(6).trim());
+                        continue;
+                    }
+
+                    if (current == null) continue;
+
+                    switch (tokens[0]) {
+                        case "Ka" -> current.ambient = color(tokens);
+                        case "Kd" -> current.diffuse = color(tokens);
+                        case "Ks" -> current.specular = color(tokens);
+                        case "Ke" -> current.emissive = color(tokens);
+                        case "Ns" -> current.shininess = Double.parseDouble(tokens[1]);
+                        case "d" -> current.opacity = Double.parseDouble(tokens[1]);
+                        case "Tr" -> current.opacity = 1 - Double.parseDouble(tokens[1]);
+                        case "map_Kd" -> current.diffuseMap = tokens[tokens.length - 1];
+                    }
+                } catch (final NumberFormatException | IndexOutOfBoundsException e) {
+                    throw new IOException("Malformed statement at " + path + ":" + number + ".", e);
+                }
+            }
+
+            if (current != null) materials.put(current.name, current.build(path, textures));
+        }
+
+        return materials;
+    }
+
+    /**
+     * Loads the texture of a material.
+     *
+     * @param library    The path of the MTL file which defined the material
+     * @param diffuseMap The path of the texture, relative to the MTL file
+     * @return The texture, or {@code null} if it does not exist or cannot be decoded
+     */
+    @Nullable
+    static Texture loadTexture(@Nonnull Path library, @Nonnull String diffuseMap) {
+        try {
+            return Texture.load(library.resolveSibling(diffuseMap));
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Nonnull
+    private static Color color(@Nonnull String[] tokens) {
+        final float r = clamp(Float.parseFloat(tokens[1]));
+        final float g = tokens.length > 2 ? clamp(Float.parseFloat(tokens[2])) : r;
+        final float b = tokens.length > 3 ? clamp(Float.parseFloat(tokens[3])) : r;
+
+        return new Color(r, g, b);
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    /**
+     * Accumulates the properties of a material while its statements are read.
+     */
+    private static final class Builder {
+        private Builder(@Nonnull String name) {
+            this.name = name;
+        }
+
+        private final String name;
+        private Color ambient = Color.BLACK;
+        private Color diffuse = Color.WHITE;
+        private Color specular = Color.BLACK;
+        private Color emissive = Color.BLACK;
+        private double shininess = 0;
+        private double opacity = 1;
+        @Nullable
+        private String diffuseMap = null;
+
+        @Nonnull
+        private Material build(@Nonnull Path library, @Nonnull Map<String, Texture> textures) {
+            // Materials which share a texture share one copy of it
+            final Texture texture = diffuseMap == null ? null
+                    : textures.computeIfAbsent(diffuseMap, map -> loadTexture(library, map));
+
+            return new Material(name, ambient, diffuse, specular, emissive, shininess, opacity, diffuseMap, texture);
+        }
+    }
+}
@@ -0,0 +1,906 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses Wavefront OBJ files into {@link PackedModel}s on multiple threads.
+ * <p>
+ * The file is split into line-aligned chunks, which are memory-mapped and parsed in parallel
+ * straight into primitive buffers. Once every chunk has been parsed, each distinct
+ * {@code v/vt/vn} triple becomes one vertex of the model, so that the position, normal and
+ * UV coordinate buffers of the result share the same indices. Polygons with more than three
+ * vertices are triangulated by ear clipping, which also handles concave polygons.
+ * </p>
+ * <p>
+ * Material libraries referenced with {@code mtllib} are parsed with {@link MtlParser}, and the
+ * material selected with {@code usemtl} is recorded for every face. Libraries which do not exist are ignored.
+ * </p>
+ * <p>
+ * Like {@link Model#loadModel(String, double)}, the X and Z axes of the file are swapped,
+ * and the winding of every face is reversed so that face normals keep pointing outwards.
+ * Statements other than {@code v}, {@code vt}, {@code vn}, {@code f}, {@code usemtl} and {@code mtllib} are ignored.
+ * </p>
+ */
+public class ObjParser {
+    /**
+     * Creates a new parser which runs on the common fork-join pool.
+     */
+    public ObjParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new parser.
+     *
+     * @param pool The pool to parse chunks on
+     */
+    public ObjParser(@Nonnull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //
+    // Constants
+    //
+
+    /**
+     * The smallest chunk a file is split into, in bytes.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The largest chunk a file is split into, in bytes. Every chunk must fit into a single mapping.
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 28;
+
+    /**
+     * Marks an absent UV coordinate or normal index.
+     */
+    private static final int NONE = Integer.MIN_VALUE;
+
+    /**
+     * Powers of ten which are exactly representable as doubles, used to scale parsed mantissas.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    //
+    // Variables
+    //
+
+    @Nonnull
+    private final ForkJoinPool pool;
+
+    //
+    // Parsing
+    //
+
+    /**
+     * Parses an OBJ file.
+     *
+     * @param path  The path of the OBJ file
+     * @param scale The scale to apply to every vertex
+     * @return The parsed model
+     * @throws IOException When an I/O error occurs, or the file is malformed
+     */
+    @Nonnull
+    public PackedModel parse(@Nonnull Path path, double scale) throws IOException {
+        final Chunk[] chunks;
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            chunks = split(channel);
+            invokeAll(chunks, chunk -> chunk.parse(channel));
+        }
+
+        // Resolve chunk-relative offsets
+        int positionCount = 0, uvCount = 0, normalCount = 0, triangleCount = 0;
+        for (final Chunk chunk : chunks) {
+            chunk.positionOffset = positionCount;
+            chunk.uvOffset = uvCount;
+            chunk.normalOffset = normalCount;
+            chunk.triangleOffset = triangleCount;
+
+            positionCount += chunk.positions.size / 3;
+            uvCount += chunk.uvs.size / 2;
+            normalCount += chunk.normals.size / 3;
+            triangleCount += chunk.triangleCount;
+        }
+
+        final float[] sourcePositions = new float[positionCount * 3];
+        final float[] sourceUVs = new float[uvCount * 2];
+        final float[] sourceNormals = new float[normalCount * 3];
+
+        for (final Chunk chunk : chunks) {
+            System.arraycopy(chunk.positions.data, 0, sourcePositions, chunk.positionOffset * 3, chunk.positions.size);
+            System.arraycopy(chunk.uvs.data, 0, sourceUVs, chunk.uvOffset * 2, chunk.uvs.size);
+            System.arraycopy(chunk.normals.data, 0, sourceNormals, chunk.normalOffset * 3, chunk.normals.size);
+            chunk.resolveRelativeIndices();
+        }
+
+        // Assign a vertex to every distinct index triple
+        final VertexTable vertices = new VertexTable(sourcePositions, sourceUVs, sourceNormals, scale);
+        for (final Chunk chunk : chunks) vertices.resolve(chunk, path);
+
+        // Resolve materials
+        final List<Material> materials = new ArrayList<>();
+        final Map<String, Integer> materialIndices = new HashMap<>();
+
+        for (final Chunk chunk : chunks) {
+            for (final String library : chunk.libraries) {
+                final Path file = path.resolveSibling(library);
+                if (!Files.isRegularFile(file)) continue;
+
+                for (final Material material : MtlParser.parse(file).values()) {
+                    if (materialIndices.putIfAbsent(material.getName(), materials.size()) == null) {
+                        materials.add(material);
+                    }
+                }
+            }
+        }
+
+        int material = -1;
+        for (final Chunk chunk : chunks) {
+            chunk.initialMaterial = material;
+
+            for (int i = 0; i < chunk.materialNames.size(); i++) {
+                chunk.materialIndices.add(materialIndices.getOrDefault(chunk.materialNames.get(i), -1));
+            }
+
+            if (chunk.materialIndices.size > 0) material = chunk.materialIndices.data[chunk.materialIndices.size - 1];
+        }
+
+        // Triangulate polygons in parallel
+        final float[] positions = vertices.getPositions();
+        final int[] indices = new int[triangleCount * 3];
+        final int[] faceMaterials = materials.isEmpty() ? null : new int[triangleCount];
+
+        invokeAll(chunks, chunk -> chunk.triangulate(positions, indices, faceMaterials));
+
+        return new PackedModel(positions, vertices.getNormals(), vertices.getUVs(), indices, materials, faceMaterials);
+    }
+
+    /**
+     * Splits a file into line-aligned chunks.
+     */
+    @Nonnull
+    private Chunk[] split(@Nonnull FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final long target = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4L)));
+
+        final List<Chunk> chunks = new ArrayList<>();
+        final ByteBuffer probe = ByteBuffer.allocate(4096);
+
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + target);
+
+            // Move the end past the next line break
+            while (end < size) {
+                probe.clear();
+                final int read = channel.read(probe, end);
+                if (read <= 0) break;
+
+                int i = 0;
+                while (i < read && probe.get(i) != '\n') i++;
+
+                end += i;
+                if (i < read) {
+                    end++;
+                    break;
+                }
+            }
+
+            if (end - start > Integer.MAX_VALUE) throw new IOException("Line exceeds the maximum chunk size.");
+
+            chunks.add(new Chunk(start, (int) (end - start)));
+            start = end;
+        }
+
+        return chunks.toArray(new Chunk[0]);
+    }
+
+    private void invokeAll(@Nonnull Chunk[] chunks, @Nonnull ChunkAction action) throws IOException {
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks.length);
+
+        for (final Chunk chunk : chunks) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    action.run(chunk);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+
+        try {
+            for (final ForkJoinTask<?> task : tasks) task.join();
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        void run(@Nonnull Chunk chunk) throws IOException;
+    }
+
+    //
+    // Chunks
+    //
+
+    /**
+     * A line-aligned range of the file, and the elements parsed from it.
+     */
+    private static final class Chunk {
+        private Chunk(long start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        private final long start;
+        private final int length;
+
+        // Parsed elements, as they appear in the file
+        private final FloatList positions = new FloatList();
+        private final FloatList uvs = new FloatList();
+        private final FloatList normals = new FloatList();
+
+        /**
+         * The position, UV coordinate and normal index of every polygon corner, zero-based.
+         * Relative indices are local to this chunk until {@link #resolveRelativeIndices()} is called.
+         */
+        private final IntList corners = new IntList();
+        private final IntList relativeCorners = new IntList();
+        private final IntList polygonSizes = new IntList();
+        private int triangleCount = 0;
+
+        // Material switches, by the polygon they apply from
+        private final IntList materialPolygons = new IntList();
+        private final List<String> materialNames = new ArrayList<>();
+        private final IntList materialIndices = new IntList();
+        private final List<String> libraries = new ArrayList<>();
+
+        // Resolved after parsing
+        private int positionOffset, uvOffset, normalOffset, triangleOffset;
+        private int initialMaterial = -1;
+        private int[] cornerVertices;
+
+        // Parser state
+        private ByteBuffer buffer;
+        private int position;
+        private int lineNumber;
+
+        //
+        // Parsing
+        //
+
+        private void parse(@Nonnull FileChannel channel) throws IOException {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            buffer = mapped;
+            position = 0;
+
+            while (position < length) {
+                lineNumber++;
+                skipSpaces();
+                if (position >= length) break;
+
+                final byte first = buffer.get(position);
+                final byte second = position + 1 < length ? buffer.get(position + 1) : (byte) ' ';
+
+                if (first == 'v' && isSpace(second)) {
+                    position++;
+                    positions.add(parseFloat());
+                    positions.add(parseFloat());
+                    positions.add(parseFloat());
+                } else if (first == 'v' && second == 't') {
+                    position += 2;
+                    uvs.add(parseFloat());
+                    skipSpaces();
+                    uvs.add(atEndOfLine() ? 0 : parseFloat());
+                } else if (first == 'v' && second == 'n') {
+                    position += 2;
+                    normals.add(parseFloat());
+                    normals.add(parseFloat());
+                    normals.add(parseFloat());
+                } else if (first == 'f' && isSpace(second)) {
+                    position++;
+                    parseFace();
+                } else if (matches("usemtl")) {
+                    materialPolygons.add(polygonSizes.size);
+                    materialNames.add(readRest());
+                } else if (matches("mtllib")) {
+                    libraries.addAll(Arrays.asList(readRest().split("\\s+")));
+                }
+
+                skipLine();
+            }
+
+            buffer = null;
+        }
+
+        private void parseFace() throws IOException {
+            int size = 0;
+
+            while (true) {
+                skipSpaces();
+                if (atEndOfLine()) break;
+
+                final int slot = corners.size;
+                corners.add(parseIndex(positions.size / 3, slot));
+
+                int uv = NONE, normal = NONE;
+                if (position < length && buffer.get(position) == '/') {
+                    position++;
+                    if (position < length && buffer.get(position) != '/') uv = parseIndex(uvs.size / 2, slot + 1);
+
+                    if (position < length && buffer.get(position) == '/') {
+                        position++;
+                        normal = parseIndex(normals.size / 3, slot + 2);
+                    }
+                }
+
+                corners.add(uv);
+                corners.add(normal);
+                size++;
+            }
+
+            if (size < 3) throw malformed("Face has fewer than three vertices");
+
+            polygonSizes.add(size);
+            triangleCount += size - 2;
+        }
+
+        /**
+         * Parses a one-based index. Negative indices are relative to the given number of elements
+         * parsed by this chunk so far, and are recorded so that the chunk offset can be added later.
+         *
+         * @param localCount The number of elements of the indexed kind parsed by this chunk so far
+         * @param slot       The slot of {@link #corners} the index is stored in
+         */
+        private int parseIndex(int localCount, int slot) throws IOException {
+            boolean negative = false;
+            if (position < length && buffer.get(position) == '-') {
+                negative = true;
+                position++;
+            }
+
+            final int begin = position;
+            long value = 0;
+
+            while (position < length) {
+                final int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) break;
+
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE) throw malformed("Index out of range");
+                position++;
+            }
+
+            if (position == begin || value == 0) throw malformed("Invalid index");
+
+            if (negative) {
+                relativeCorners.add(slot);
+                return localCount - (int) value;
+            }
+
+            return (int) value - 1;
+        }
+
+        private float parseFloat() throws IOException {
+            skipSpaces();
+
+            final int begin = position;
+            boolean negative = false;
+
+            if (position < length && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                negative = buffer.get(position) == '-';
+                position++;
+            }
+
+            long mantissa = 0;
+            int exponent = 0;
+            int digits = 0;
+            boolean fraction = false;
+
+            while (position < length) {
+                final byte b = buffer.get(position);
+
+                if (b >= '0' && b <= '9') {
+                    if (mantissa < 100_000_000_000_000_000L) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        if (fraction) exponent--;
+                    } else if (!fraction) {
+                        exponent++;
+                    }
+
+                    digits++;
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+
+                position++;
+            }
+
+            if (position < length && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+                position++;
+
+                boolean negativeExponent = false;
+                if (position < length && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                    negativeExponent = buffer.get(position) == '-';
+                    position++;
+                }
+
+                int value = 0;
+                while (position < length && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+                    value = Math.min(1000, value * 10 + (buffer.get(position) - '0'));
+                    position++;
+                }
+
+                exponent += negativeExponent ? -value : value;
+            }
+
+            if (digits == 0) {
+                // Not a plain decimal number, such as "nan" or "inf"; defer to the JDK
+                position = begin;
+                while (position < length && !isSpace(buffer.get(position))) position++;
+
+                try {
+                    return Float.parseFloat(string(begin, position));
+                } catch (final NumberFormatException e) {
+                    throw malformed("Invalid number");
+                }
+            }
+
+            final double value;
+            if (exponent >= 0) {
+                value = exponent < POWERS_OF_TEN.length ? mantissa * POWERS_OF_TEN[exponent] : mantissa * Math.pow(10, exponent);
+            } else {
+                value = -exponent < POWERS_OF_TEN.length ? mantissa / POWERS_OF_TEN[-exponent] : mantissa / Math.pow(10, -exponent);
+            }
+
+            return (float) (negative ? -value : value);
+        }
+
+        /**
+         * Returns whether the current line starts with the given keyword, and moves past it if so.
+         */
+        private boolean matches(@Nonnull String keyword) {
+            final int end = position + keyword.length();
+            if (end >= length || !isSpace(buffer.get(end))) return false;
+
+            for (int i = 0; i < keyword.length(); i++) {
+                if (buffer.get(position + i) != keyword.charAt(i)) return false;
+            }
+
+            position = end;
+            return true;
+        }
+
+        /**
+         * Reads the rest of the current line, excluding comments and surrounding whitespace.
+         */
+        @Nonnull
+        private String readRest() {
+            skipSpaces();
+            final int begin = position;
+
+            while (position < length && buffer.get(position) != '\n' && buffer.get(position) != '#') position++;
+
+            int end = position;
+            while (end > begin && Character.isWhitespace(buffer.get(end - 1))) end--;
+
+            return string(begin, end);
+        }
+
+        @Nonnull
+        private String string(int begin, int end) {
+            final byte[] bytes = new byte[end - begin];
+            buffer.get(begin, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void skipSpaces() {
+            while (position < length && isSpace(buffer.get(position))) position++;
+        }
+
+        private void skipLine() {
+            while (position < length && buffer.get(position) != '\n') position++;
+            position++;
+        }
+
+        private boolean atEndOfLine() {
+            if (position >= length) return true;
+            final byte b = buffer.get(position);
+            return b == '\n' || b == '\r' || b == '#';
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t';
+        }
+
+        @Nonnull
+        private IOException malformed(@Nonnull String message) {
+            return new IOException(message + " in line " + lineNumber + " of the chunk at byte " + start + ".");
+        }
+
+        //
+        // Resolution
+        //
+
+        /**
+         * Adds the chunk offsets to every relative index, making every index global.
+         */
+        private void resolveRelativeIndices() {
+            for (int i = 0; i < relativeCorners.size; i++) {
+                final int slot = relativeCorners.data[i];
+
+                corners.data[slot] += switch (slot % 3) {
+                    case 0 -> positionOffset;
+                    case 1 -> uvOffset;
+                    default -> normalOffset;
+                };
+            }
+        }
+
+        /**
+         * Triangulates the polygons of this chunk into the given index buffer.
+         */
+        private void triangulate(@Nonnull float[] positions, @Nonnull int[] indices, @Nullable int[] faceMaterials) {
+            final Triangulator triangulator = new Triangulator();
+
+            int corner = 0;
+            int triangle = triangleOffset;
+            int material = initialMaterial;
+            int nextSwitch = 0;
+
+            for (int p = 0; p < polygonSizes.size; p++) {
+                while (nextSwitch < materialPolygons.size && materialPolygons.data[nextSwitch] == p) {
+                    material = materialIndices.data[nextSwitch++];
+                }
+
+                final int size = polygonSizes.data[p];
+                final int count = triangulator.triangulate(cornerVertices, corner, size, positions, indices, triangle * 3);
+
+                if (faceMaterials != null) Arrays.fill(faceMaterials, triangle, triangle + count, material);
+
+                corner += size;
+                triangle += count;
+            }
+        }
+    }
+
+    //
+    // Vertices
+    //
+
+    /**
+     * Assigns a vertex to every distinct position, UV coordinate and normal index triple.
+     */
+    private static final class VertexTable {
+        private VertexTable(@Nonnull float[] positions, @Nonnull float[] uvs, @Nonnull float[] normals, double scale) {
+            this.sourcePositions = positions;
+            this.sourceUVs = uvs;
+            this.sourceNormals = normals;
+            this.scale = scale;
+            this.direct = uvs.length == 0 && normals.length == 0;
+
+            this.values = new int[1 << 10];
+            this.keys = new int[values.length * 3];
+            Arrays.fill(keys, -1);
+        }
+
+        private final float[] sourcePositions, sourceUVs, sourceNormals;
+        private final double scale;
+
+        /**
+         * Whether the file only has positions, in which case every position is used as a vertex directly.
+         */
+        private final boolean direct;
+
+        private final FloatList positions = new FloatList();
+        private final FloatList uvs = new FloatList();
+        private final FloatList normals = new FloatList();
+
+        // Open addressing hash table of index triples
+        private int[] keys;
+        private int[] values;
+        private int size = 0;
+
+        private void resolve(@Nonnull Chunk chunk, @Nonnull Path path) throws IOException {
+            final int[] corners = chunk.corners.data;
+            final int count = chunk.corners.size / 3;
+            final int[] result = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                final int p = corners[i * 3];
+                final int t = corners[i * 3 + 1];
+                final int n = corners[i * 3 + 2];
+
+                if (p < 0 || p * 3 >= sourcePositions.length
+                        || (t != NONE && (t < 0 || t * 2 >= sourceUVs.length))
+                        || (n != NONE && (n < 0 || n * 3 >= sourceNormals.length))) {
+                    throw new IOException("Face references an undefined element in " + path + ".");
+                }
+
+                result[i] = direct ? p : get(p, t, n);
+            }
+
+            chunk.cornerVertices = result;
+        }
+
+        private int get(int p, int t, int n) {
+            int slot = (hash(p, t, n) & (values.length - 1));
+
+            while (keys[slot * 3] != -1) {
+                if (keys[slot * 3] == p && keys[slot * 3 + 1] == t && keys[slot * 3 + 2] == n) return values[slot];
+                slot = (slot + 1) & (values.length - 1);
+            }
+
+            final int vertex = size++;
+            keys[slot * 3] = p;
+            keys[slot * 3 + 1] = t;
+            keys[slot * 3 + 2] = n;
+            values[slot] = vertex;
+
+            // Swap the X and Z axes to match the other loaders
+            positions.add((float) (sourcePositions[p * 3 + 2] * scale));
+            positions.add((float) (sourcePositions[p * 3 + 1] * scale));
+            positions.add((float) (sourcePositions[p * 3] * scale));
+
+            if (t != NONE) {
+                uvs.add(sourceUVs[t * 2]);
+                uvs.add(sourceUVs[t * 2 + 1]);
+            } else {
+                uvs.add(0);
+                uvs.add(0);
+            }
+
+            if (n != NONE) {
+                final float x = sourceNormals[n * 3 + 2], y = sourceNormals[n * 3 + 1], z = sourceNormals[n * 3];
+                final double length = Math.sqrt(x * x + y * y + z * z);
+                final double inverse = length == 0 ? 0 : 1 / length;
+
+                normals.add((float) (x * inverse));
+                normals.add((float) (y * inverse));
+                normals.add((float) (z * inverse));
+            } else {
+                normals.add(0);
+                normals.add(0);
+                normals.add(0);
+            }
+
+            if (size * 2 > values.length) grow();
+            return vertex;
+        }
+
+        private void grow() {
+            final int[] oldKeys = keys;
+            final int[] oldValues = values;
+
+            keys = new int[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            values = new int[oldValues.length * 2];
+
+            for (int i = 0; i < oldValues.length; i++) {
+                final int p = oldKeys[i * 3];
+                if (p == -1) continue;
+
+                int slot = hash(p, oldKeys[i * 3 + 1], oldKeys[i * 3 + 2]) & (values.length - 1);
+                while (keys[slot * 3] != -1) slot = (slot + 1) & (values.length - 1);
+
+                System.arraycopy(oldKeys, i * 3, keys, slot * 3, 3);
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private static int hash(int p, int t, int n) {
+            final int h = (p * 0x9E3779B1) ^ (t * 0x85EBCA77) ^ (n * 0xC2B2AE3D);
+            return h ^ (h >>> 16);
+        }
+
+        @Nonnull
+        private float[] getPositions() {
+            if (!direct) return positions.toArray();
+
+            // Swap the X and Z axes to match the other loaders
+            final float[] result = new float[sourcePositions.length];
+            for (int i = 0; i < result.length; i += 3) {
+                result[i] = (float) (sourcePositions[i + 2] * scale);
+                result[i + 1] = (float) (sourcePositions[i + 1] * scale);
+                result[i + 2] = (float) (sourcePositions[i] * scale);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the normal of every vertex, or an empty buffer if the file has no normals.
+         */
+        @Nonnull
+        private float[] getNormals() {
+            return sourceNormals.length == 0 ? new float[0] : normals.toArray();
+        }
+
+        /**
+         * Returns the UV coordinate of every vertex, or an empty buffer if the file has no UV coordinates.
+         */
+        @Nonnull
+        private float[] getUVs() {
+            return sourceUVs.length == 0 ? new float[0] : uvs.toArray();
+        }
+    }
+
+    //
+    // Triangulation
+    //
+
+    /**
+     * Triangulates polygons by ear clipping in the plane they are most aligned with.
+     */
+    private static final class Triangulator {
+        private double[] xs = new double[16];
+        private double[] ys = new double[16];
+        private int[] remaining = new int[16];
+
+        /**
+         * Triangulates one polygon, writing its triangles with reversed winding.
+         *
+         * @return The number of triangles written, which is always the number of corners minus two
+         */
+        private int triangulate(@Nonnull int[] vertices, int first, int size, @Nonnull float[] positions, @Nonnull int[] out, int o) {
+            if (size == 3) {
+                emit(vertices[first], vertices[first + 1], vertices[first + 2], out, o);
+                return 1;
+            }
+
+            if (xs.length < size) {
+                xs = new double[size * 2];
+                ys = new double[size * 2];
+                remaining = new int[size * 2];
+            }
+
+            // Newell's method gives a robust normal for any simple polygon
+            double nx = 0, ny = 0, nz = 0;
+            for (int i = 0; i < size; i++) {
+                final int a = vertices[first + i] * 3;
+                final int b = vertices[first + (i + 1) % size] * 3;
+
+                nx += (positions[a + 1] - positions[b + 1]) * (positions[a + 2] + positions[b + 2]);
+                ny += (positions[a + 2] - positions[b + 2]) * (positions[a] + positions[b]);
+                nz += (positions[a] - positions[b]) * (positions[a + 1] + positions[b + 1]);
+            }
+
+            // Project onto the plane of the dominant axis, keeping the polygon counter-clockwise
+            final double ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+            final int u, v;
+            final boolean flip;
+
+            if (ax >= ay && ax >= az) {
+                u = 1;
+                v = 2;
+                flip = nx < 0;
+            } else if (ay >= az) {
+                u = 2;
+                v = 0;
+                flip = ny < 0;
+            } else {
+                u = 0;
+                v = 1;
+                flip = nz < 0;
+            }
+
+            for (int i = 0; i < size; i++) {
+                final int p = vertices[first + i] * 3;
+                xs[i] = positions[p + u];
+                ys[i] = flip ? -positions[p + v] : positions[p + v];
+                remaining[i] = i;
+            }
+
+            int count = size;
+            int written = 0;
+            int i = 0;
+            int attempts = 0;
+
+            while (count > 3) {
+                final int prev = remaining[(i + count - 1) % count];
+                final int curr = remaining[i % count];
+                final int next = remaining[(i + 1) % count];
+
+                if (isEar(prev, curr, next, count)) {
+                    emit(vertices[first + prev], vertices[first + curr], vertices[first + next], out, o + written * 3);
+                    written++;
+
+                    System.arraycopy(remaining, i % count + 1, remaining, i % count, count - i % count - 1);
+                    count--;
+                    attempts = 0;
+                } else if (++attempts > count) {
+                    // Degenerate or self-intersecting; fall back to a fan over the remaining corners
+                    break;
+                } else {
+                    i++;
+                }
+
+                i %= count;
+            }
+
+            for (int k = 1; k < count - 1; k++) {
+                emit(vertices[first + remaining[0]], vertices[first + remaining[k]], vertices[first + remaining[k + 1]],
+                        out, o + written * 3);
+                written++;
+            }
+
+            return written;
+        }
+
+        private boolean isEar(int prev, int curr, int next, int count) {
+            final double area = cross(prev, curr, next);
+            if (area <= 0) return false;
+
+            for (int k = 0; k < count; k++) {
+                final int p = remaining[k];
+                if (p == prev || p == curr || p == next) continue;
+
+                if (cross(prev, curr, p) >= 0 && cross(curr, next, p) >= 0 && cross(next, prev, p) >= 0) return false;
+            }
+
+            return true;
+        }
+
+        private double cross(int a, int b, int c) {
+            return (xs[b] - xs[a]) * (ys[c] - ys[a]) - (ys[b] - ys[a]) * (xs[c] - xs[a]);
+        }
+
+        private static void emit(int a, int b, int c, @Nonnull int[] out, int o) {
+            // Swapping the X and Z axes mirrors the model; reverse the winding so normals keep facing outwards
+            out[o] = a;
+            out[o + 1] = c;
+            out[o + 2] = b;
+        }
+    }
+
+    //
+    // Buffers
+    //
+
+    private static final class FloatList {
+        private float[] data = new float[64];
+        private int size = 0;
+
+        private void add(float value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        @Nonnull
+        private float[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    private static final class IntList {
+        private int[] data = new int[64];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Rasterizer;
+import civitas.celestis.graphics.render.TriangleBuffer;
+import jakarta.annotation.Nonnull;
+
+import java.util.Arrays;
+
+/**
+ * Culls whole meshes which are hidden behind other meshes, using a hierarchical depth buffer.
+ * <p>
+ * Every mesh of a frame is first {@link #add(double, double, double, double) added} as its {@link BoundingSphere} in view space.
+ * The meshes which appear largest on screen are then selected as occluders. Occluders are drawn first,
+ * and their triangles are rasterized into a depth buffer at a fraction of the screen's resolution.
+ * The depth buffer is reduced into a pyramid, where each level holds the farthest depth of every two by two
+ * block of the level below it. Every remaining mesh is tested against the level of the pyramid at which its
+ * screen bounds span only a few texels, and is culled if every occluder within its bounds is closer than
+ * the nearest point of its bounding sphere. A mesh is therefore only culled if it is entirely hidden,
+ * apart from details smaller than a texel of the depth buffer at the silhouettes of occluders.
+ * Meshes which lie entirely outside the screen, or entirely behind the near plane, are culled as well.
+ * </p>
+ * <p>
+ * Depth is the reciprocal of view-space depth, as used by the {@link Rasterizer}.
+ * This class is not thread-safe. It is meant to be used by the thread which renders frames.
+ * </p>
+ */
+public class OcclusionCuller {
+    /**
+     * The factor by which the resolution of the occlusion depth buffer is reduced from the screen.
+     */
+    public static final int SCALE = 4;
+
+    /**
+     * Creates a new occlusion culler.
+     */
+    public OcclusionCuller() {
+    }
+
+    //
+    // Frame
+    //
+
+    /**
+     * Starts a new frame, removing every mesh of the previous frame.
+     *
+     * @param focalLength The focal length of the camera in pixels
+     * @param width       The width of the screen in pixels
+     * @param height      The height of the screen in pixels
+     * @param nearPlane   The distance from the eye to the near plane
+     */
+    public void begin(double focalLength, int width, int height, double nearPlane) {
+        this.focalLength = focalLength;
+        this.width = width;
+        this.height = height;
+        this.nearPlane = nearPlane;
+        this.count = 0;
+        this.occluderCount = 0;
+
+        depth.resize((width + SCALE - 1) / SCALE, (height + SCALE - 1) / SCALE);
+        depth.clear(0);
+    }
+
+    /**
+     * Adds the bounding sphere of the next mesh. Meshes are identified by the order they were added in.
+     *
+     * @param x      The X coordinate of the center in view space
+     * @param y      The Y coordinate of the center in view space
+     * @param z      The Z coordinate of the center in view space
+     * @param radius The radius of the sphere
+     * @return The index of the mesh
+     */
+    public int add(double x, double y, double z, double radius) {
+        if (count == bounds.length / STRIDE) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            occluders = Arrays.copyOf(occluders, occluders.length * 2);
+        }
+
+        final int i = count++;
+        final int o = i * STRIDE;
+        final double f = focalLength;
+        final double near = f + z - radius;
+
+        // The rectangle is computed around the sphere's bounding box, taking the nearer or farther face as appropriate
+        final double far = near + 2 * radius;
+        final double minX = f * (x - radius) / (x - radius < 0 ? near : far) + width / 2d;
+        final double maxX = f * (x + radius) / (x + radius > 0 ? near : far) + width / 2d;
+        final double minY = height / 2d - f * (y + radius) / (y + radius > 0 ? near : far);
+        final double maxY = height / 2d - f * (y - radius) / (y - radius < 0 ? near : far);
+
+        bounds[o] = minX;
+        bounds[o + 1] = minY;
+        bounds[o + 2] = maxX;
+        bounds[o + 3] = maxY;
+        bounds[o + 4] = 1 / near;
+        bounds[o + 5] = f * radius / (f + z);
+        bounds[o + 6] = near > nearPlane ? 1 : far <= nearPlane ? -1 : 0;
+        occluders[i] = false;
+
+        return i;
+    }
+
+    /**
+     * Selects the meshes which appear largest on screen as occluders.
+     * Meshes which cross the near plane are never selected.
+     *
+     * @param maxOccluders The maximum number of occluders
+     * @param minRadius    The radius on screen in pixels a mesh must at least appear to have to be selected
+     * @return The number of occluders selected
+     */
+    public int selectOccluders(int maxOccluders, double minRadius) {
+        occluderCount = 0;
+
+        while (occluderCount < maxOccluders) {
+            int best = -1;
+            double bestRadius = minRadius;
+
+            for (int i = 0; i < count; i++) {
+                final int o = i * STRIDE;
+
+                if (!occluders[i] && bounds[o + 6] > 0 && bounds[o + 5] >= bestRadius && isOnScreen(o)) {
+                    best = i;
+                    bestRadius = bounds[o + 5];
+                }
+            }
+
+            if (best < 0) break;
+
+            occluders[best] = true;
+            occluderCount++;
+        }
+
+        return occluderCount;
+    }
+
+    /**
+     * Checks whether a mesh has been selected as an occluder.
+     *
+     * @param mesh The index of the mesh
+     * @return {@code true} if the mesh is an occluder
+     */
+    public boolean isOccluder(int mesh) {
+        return occluders[mesh];
+    }
+
+    /**
+     * Rasterizes the triangles of an occluder into the occlusion depth buffer.
+     *
+     * @param triangles The buffer containing the triangles of the occluder, projected into screen space
+     * @param start     The index of the first triangle of the occluder
+     * @param end       The index after the last triangle of the occluder
+     */
+    public void rasterize(@Nonnull TriangleBuffer triangles, int start, int end) {
+        final float[] v = triangles.getVertices();
+        final float s = 1f / SCALE;
+
+        for (int i = start; i < end; i++) {
+            final int o = i * TriangleBuffer.STRIDE;
+
+            depth.fillTriangle(
+                    v[o] * s, v[o + 1] * s, v[o + 2],
+                    v[o + 3] * s, v[o + 4] * s, v[o + 5],
+                    v[o + 6] * s, v[o + 7] * s, v[o + 8],
+                    0
+            );
+        }
+    }
+
+    /**
+     * Builds the depth pyramid from the occluders rasterized so far.
+     * This must be called after every occluder has been rasterized, and before any mesh is tested.
+     */
+    public void buildPyramid() {
+        int levelWidth = depth.getWidth(), levelHeight = depth.getHeight();
+        int levels = 1;
+
+        while (levelWidth > 1 || levelHeight > 1) {
+            levelWidth = (levelWidth + 1) / 2;
+            levelHeight = (levelHeight + 1) / 2;
+            levels++;
+        }
+
+        if (pyramid.length < levels) {
+            pyramid = Arrays.copyOf(pyramid, levels);
+            pyramidWidths = new int[levels];
+            pyramidHeights = new int[levels];
+        }
+
+        pyramid[0] = depth.getDepth();
+        pyramidWidths[0] = depth.getWidth();
+        pyramidHeights[0] = depth.getHeight();
+        pyramidLevels = levels;
+
+        for (int l = 1; l < levels; l++) {
+            final float[] source = pyramid[l - 1];
+            final int sourceWidth = pyramidWidths[l - 1], sourceHeight = pyramidHeights[l - 1];
+            final int w = (sourceWidth + 1) / 2, h = (sourceHeight + 1) / 2;
+
+            if (pyramid[l] == null || pyramid[l].length < w * h) pyramid[l] = new float[w * h];
+            pyramidWidths[l] = w;
+            pyramidHeights[l] = h;
+
+            final float[] target = pyramid[l];
+
+            for (int y = 0; y < h; y++) {
+                final int y0 = y * 2, y1 = Math.min(y0 + 1, sourceHeight - 1);
+
+                for (int x = 0; x < w; x++) {
+                    final int x0 = x * 2, x1 = Math.min(x0 + 1, sourceWidth - 1);
+
+                    // Keep the farthest depth, which has the smallest reciprocal
+                    target[y * w + x] = Math.min(
+                            Math.min(source[y0 * sourceWidth + x0], source[y0 * sourceWidth + x1]),
+                            Math.min(source[y1 * sourceWidth + x0], source[y1 * sourceWidth + x1])
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a mesh is certainly invisible. Occluders are never culled.
+     *
+     * @param mesh The index of the mesh
+     * @return {@code true} if the mesh is hidden behind the occluders, outside the screen, or behind the near plane
+     */
+    public boolean isCulled(int mesh) {
+        if (occluders[mesh]) return false;
+
+        final int o = mesh * STRIDE;
+        if (bounds[o + 6] < 0) return true;
+        if (bounds[o + 6] == 0) return false;
+        if (!isOnScreen(o)) return true;
+        if (occluderCount == 0) return false;
+
+        // The bounds in texels of the depth buffer, grown by one texel to stay conservative at silhouettes
+        final int levelWidth = pyramidWidths[0], levelHeight = pyramidHeights[0];
+        int minX = Math.max(0, (int) Math.floor(bounds[o] / SCALE) - 1);
+        int minY = Math.max(0, (int) Math.floor(bounds[o + 1] / SCALE) - 1);
+        int maxX = Math.min(levelWidth - 1, (int) Math.floor(bounds[o + 2] / SCALE) + 1);
+        int maxY = Math.min(levelHeight - 1, (int) Math.floor(bounds[o + 3] / SCALE) + 1);
+
+        // Descend to the level at which the bounds span at most two texels in each direction
+        int level = 0;
+        while (level < pyramidLevels - 1 && (maxX - minX > 1 || maxY - minY > 1)) {
+            minX >>= 1;
+            minY >>= 1;
+            maxX >>= 1;
+            maxY >>= 1;
+            level++;
+        }
+
+        final float[] texels = pyramid[level];
+        final int w = pyramidWidths[level];
+        final double nearest = bounds[o + 4];
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (texels[y * w + x] <= nearest) return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isOnScreen(int o) {
+        return bounds[o + 2] >= 0 && bounds[o] < width && bounds[o + 3] >= 0 && bounds[o + 1] < height;
+    }
+
+    //
+    // Variables
+    //
+
+    /**
+     * The number of doubles stored per mesh: the screen bounds, the nearest reciprocal depth, the projected radius,
+     * and whether the sphere lies in front of ({@code 1}), across ({@code 0}), or behind ({@code -1}) the near plane.
+     */
+    private static final int STRIDE = 7;
+
+    private double[] bounds = new double[64 * STRIDE];
+    private boolean[] occluders = new boolean[64];
+    private int count = 0;
+    private int occluderCount = 0;
+
+    private double focalLength, nearPlane;
+    private int width, height;
+
+    private final Rasterizer depth = new Rasterizer(1, 1);
+    private float[][] pyramid = new float[0][];
+    private int[] pyramidWidths = new int[0], pyramidHeights = new int[0];
+    private int pyramidLevels = 0;
+}
@@ -0,0 +1,301 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Texture;
+import civitas.celestis.math.vector.Vector2;
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.util.array.FastArray;
+import civitas.celestis.util.array.SafeArray;
+import civitas.celestis.util.tuple.Tuple;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A model which stores its geometry in flat primitive arrays.
+ * Positions and normals are stored as three consecutive floats per element,
+ * UV coordinates as two, and faces as three consecutive vertex indices.
+ * <p>
+ * {@link Vector3}, {@link Vector2} and {@link Face} instances are only created when requested,
+ * and are detached copies of the underlying data. Changes made to them, such as
+ * {@link Face#setColor(java.awt.Color) setting the color of a face}, are not retained by this model.
+ * Faces are colored with the diffuse color of their {@link Material}, if they have one.
+ * </p>
+ */
+public class PackedModel implements Model {
+    /**
+     * Creates a new packed model from existing buffers. The buffers are not copied.
+     *
+     * @param positions     The vertex positions, three floats per vertex
+     * @param normals       The normals, three floats per normal
+     * @param uvCoordinates The UV coordinates, two floats per coordinate
+     * @param indices       The vertex indices of each face, three indices per face
+     * @throws IllegalArgumentException When the length of a buffer is not a multiple of its stride
+     */
+    public PackedModel(@Nonnull float[] positions, @Nonnull float[] normals, @Nonnull float[] uvCoordinates, @Nonnull int[] indices)
+            throws IllegalArgumentException {
+        this(positions, normals, uvCoordinates, indices, List.of(), null);
+    }
+
+    /**
+     * Creates a new packed model from existing buffers and a material table. The buffers are not copied.
+     *
+     * @param positions     The vertex positions, three floats per vertex
+     * @param normals       The normals, three floats per normal
+     * @param uvCoordinates The UV coordinates, two floats per coordinate
+     * @param indices       The vertex indices of each face, three indices per face
+     * @param materials     The materials of this model
+     * @param faceMaterials The index of the material of each face, or {@code -1} for none,
+     *                      or {@code null} if no face has a material
+     * @throws IllegalArgumentException When the length of a buffer is not a multiple of its stride,
+     *                                  or there is not one material index per face
+     */
+    public PackedModel(
+            @Nonnull float[] positions,
+            @Nonnull float[] normals,
+            @Nonnull float[] uvCoordinates,
+            @Nonnull int[] indices,
+            @Nonnull List<Material> materials,
+            @Nullable int[] faceMaterials
+    ) throws IllegalArgumentException {
+        if (positions.length % 3 != 0 || normals.length % 3 != 0 || uvCoordinates.length % 2 != 0 || indices.length % 3 != 0) {
+            throw new IllegalArgumentException("Buffer lengths must be multiples of their stride.");
+        }
+
+        if (faceMaterials != null && faceMaterials.length != indices.length / 3) {
+            throw new IllegalArgumentException("There must be exactly one material index per face.");
+        }
+
+        this.positions = positions;
+        this.normals = normals;
+        this.uvCoordinates = uvCoordinates;
+        this.indices = indices;
+        this.materials = List.copyOf(materials);
+        this.faceMaterials = faceMaterials;
+    }
+
+    protected final float[] positions, normals, uvCoordinates;
+    protected final int[] indices;
+    @Nonnull
+    protected final List<Material> materials;
+    @Nullable
+    protected final int[] faceMaterials;
+
+    //
+    // Buffers
+    //
+
+    /**
+     * Returns the position buffer of this model. This is not a copy.
+     *
+     * @return The vertex positions, three floats per vertex
+     */
+    @Nonnull
+    public float[] getPositionBuffer() {
+        return positions;
+    }
+
+    /**
+     * Returns the normal buffer of this model. This is not a copy.
+     *
+     * @return The normals, three floats per normal
+     */
+    @Nonnull
+    public float[] getNormalBuffer() {
+        return normals;
+    }
+
+    /**
+     * Returns the UV coordinate buffer of this model. This is not a copy.
+     *
+     * @return The UV coordinates, two floats per coordinate
+     */
+    @Nonnull
+    public float[] getUVBuffer() {
+        return uvCoordinates;
+    }
+
+    /**
+     * Returns the index buffer of this model. This is not a copy.
+     *
+     * @return The vertex indices of each face, three indices per face
+     */
+    @Nonnull
+    public int[] getIndexBuffer() {
+        return indices;
+    }
+
+    /**
+     * Returns the material index buffer of this model. This is not a copy.
+     *
+     * @return The index of the material of each face, or {@code -1} for none,
+     * or {@code null} if no face has a material
+     */
+    @Nullable
+    public int[] getMaterialIndexBuffer() {
+        return faceMaterials;
+    }
+
+    //
+    // Materials
+    //
+
+    /**
+     * Returns the materials of this model.
+     *
+     * @return An unmodifiable list of materials
+     */
+    @Nonnull
+    public List<Material> getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Returns the material of a face.
+     *
+     * @param i The index of the face
+     * @return The material of the face, or {@code null} if the face has no material
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    @Nullable
+    public Material getMaterial(int i) throws IndexOutOfBoundsException {
+        if (faceMaterials == null) {
+            Objects.checkIndex(i, getFaceCount());
+            return null;
+        }
+
+        final int material = faceMaterials[i];
+        return material < 0 ? null : materials.get(material);
+    }
+
+    //
+    // Model
+    //
+
+    @Nonnull
+    @Override
+    public Tuple<Vector3> getVertices() {
+        final SafeArray<Vector3> vertices = new FastArray<>(getVertexCount());
+        for (int i = 0; i < vertices.size(); i++) vertices.set(i, getVertex(i));
+        return vertices.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getVertex(int i) throws IndexOutOfBoundsException {
+        return new Vector3(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
+    }
+
+    @Override
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Vector3> getNormals() {
+        final SafeArray<Vector3> result = new FastArray<>(normals.length / 3);
+        for (int i = 0; i < result.size(); i++) result.set(i, getNormal(i));
+        return result.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getNormal(int i) throws IndexOutOfBoundsException {
+        return new Vector3(normals[i * 3], normals[i * 3 + 1], normals[i * 3 + 2]);
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Vector2> getUVCoordinates() {
+        final SafeArray<Vector2> result = new FastArray<>(getUVCoordinateCount());
+        for (int i = 0; i < result.size(); i++) result.set(i, getUVCoordinate(i));
+        return result.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector2 getUVCoordinate(int i) throws IndexOutOfBoundsException {
+        return new Vector2(uvCoordinates[i * 2], uvCoordinates[i * 2 + 1]);
+    }
+
+    @Override
+    public int getUVCoordinateCount() {
+        return uvCoordinates.length / 2;
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Face> getFaces() {
+        final SafeArray<Face> faces = new FastArray<>(getFaceCount());
+        for (int i = 0; i < faces.size(); i++) faces.set(i, getFace(i));
+        return faces.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Face getFace(int i) throws IndexOutOfBoundsException {
+        final Face face = new Face(getVertex(indices[i * 3]), getVertex(indices[i * 3 + 1]), getVertex(indices[i * 3 + 2]));
+
+        final Material material = getMaterial(i);
+        if (material != null) face.setColor(material.getDiffuse());
+
+        return face;
+    }
+
+    @Override
+    public int getFaceCount() {
+        return indices.length / 3;
+    }
+
+    @Override
+    public int getFaceVertexIndex(int face, int corner) throws IndexOutOfBoundsException {
+        Objects.checkIndex(corner, 3);
+        return indices[face * 3 + corner];
+    }
+
+    @Override
+    public void getVertex(int i, @Nonnull double[] dest, int offset) throws IndexOutOfBoundsException {
+        dest[offset] = positions[i * 3 + 0];
+        dest[offset + 1] = positions[i * 3 + 1];
+        dest[offset + 2] = positions[i * 3 + 2];
+    }
+
+    @Nonnull
+    @Override
+    public Color getFaceColor(int i) throws IndexOutOfBoundsException {
+        final Material material = getMaterial(i);
+        return material != null ? material.getDiffuse() : Colors.DARK_GOLDEN_ROD;
+    }
+
+    @Nullable
+    @Override
+    public Texture getFaceTexture(int i) throws IndexOutOfBoundsException {
+        final Material material = getMaterial(i);
+        return material != null ? material.getDiffuseTexture() : null;
+    }
+
+    @Override
+    public void getFaceUV(int face, int corner, @Nonnull float[] dest, int offset) throws IndexOutOfBoundsException {
+        final int vertex = getFaceVertexIndex(face, corner);
+
+        // UV coordinates share the indices of positions, unless the model has none
+        final boolean present = vertex * 2 + 1 < uvCoordinates.length;
+        dest[offset] = present ? uvCoordinates[vertex * 2] : 0;
+        dest[offset + 1] = present ? uvCoordinates[vertex * 2 + 1] : 0;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "PackedModel{" +
+                "vertices=" + getVertexCount() +
+                ", normals=" + normals.length / 3 +
+                ", uvCoordinates=" + getUVCoordinateCount() +
+                ", faces=" + getFaceCount() +
+                ", materials=" + materials.size() +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Intersects packets of rays against batches of triangles.
+ * When the {@code jdk.incubator.vector} module is available, the rays of a packet are processed
+ * several at a time in SIMD lanes. Otherwise, a scalar implementation with identical results is used.
+ */
+public abstract class PacketIntersector {
+    /**
+     * The name of the module providing the Java Vector API.
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final PacketIntersector INSTANCE = create();
+
+    /**
+     * Returns the fastest intersector available to the running virtual machine.
+     *
+     * @return The shared intersector instance
+     */
+    @Nonnull
+    public static PacketIntersector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether the shared instance uses SIMD lanes.
+     *
+     * @return {@code true} if the Java Vector API is in use
+     */
+    public static boolean isVectorized() {
+        return !(INSTANCE instanceof ScalarPacketIntersector);
+    }
+
+    @Nonnull
+    private static PacketIntersector create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return new VectorPacketIntersector();
+            } catch (final LinkageError e) {
+                // Fall through to the scalar implementation
+            }
+        }
+
+        return new ScalarPacketIntersector();
+    }
+
+    /**
+     * Intersects every ray of the packet with every triangle of the batch,
+     * keeping the closest hit of each ray. Hits further away than a ray's current result are discarded,
+     * so a packet may be intersected with several batches in succession.
+     * Both sides of a triangle are considered, and only hits in front of the ray's origin are reported.
+     *
+     * @param packet    The packet of rays
+     * @param triangles The batch of triangles
+     */
+    public abstract void intersect(@Nonnull RayPacket packet, @Nonnull TriangleBatch triangles);
+}
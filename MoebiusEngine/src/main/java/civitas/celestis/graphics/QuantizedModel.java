@@ -0,0 +1,439 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Texture;
+import civitas.celestis.math.vector.Vector2;
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.util.array.FastArray;
+import civitas.celestis.util.array.SafeArray;
+import civitas.celestis.util.tuple.Tuple;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable model which stores its geometry in compact, quantized arrays.
+ * <p>
+ * Positions are stored as three unsigned 16-bit integers per vertex, relative to the bounding box of the model,
+ * so the error of each component is at most 1/131070 of the size of the box along its axis.
+ * Normals are octahedron-encoded into two signed 16-bit integers, with an angular error below 0.01 degrees.
+ * UV coordinates are stored as two half-precision floats, whose precision falls with their magnitude,
+ * and which suit coordinates within a few repetitions of the texture. Face indices are stored as 16-bit integers
+ * when the model has at most 65536 vertices. Together, this takes about half the memory of a {@link PackedModel},
+ * and a small fraction of that of a {@link SimpleModel}, which stores every vertex as a {@link Vector3}.
+ * </p>
+ * <p>
+ * Positions are decoded by {@link #getVertex(int, double[], int)}, which the renderer calls while transforming
+ * each vertex, so the full-precision positions never exist in memory. The color and texture of each face
+ * are kept in a palette, since models typically have few distinct materials.
+ * </p>
+ */
+public class QuantizedModel implements Model {
+    /**
+     * Creates a new quantized model from the geometry of another model.
+     * The colors and textures of the faces are copied, and UV coordinates are taken from the corners of the faces.
+     * Since UV coordinates share the indices of positions, a vertex whose corners have different UV coordinates,
+     * such as a vertex on a texture seam, is split into one vertex per UV coordinate, as {@link ObjParser} does.
+     * Normals are carried along with their vertices if the source has one normal per vertex, and copied otherwise.
+     *
+     * @param source The model to quantize
+     */
+    public QuantizedModel(@Nonnull Model source) {
+        final int sourceCount = source.getVertexCount();
+        final int faceCount = source.getFaceCount();
+        final double[] vertex = new double[3];
+
+        // Bounding box
+        final double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        final double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        for (int i = 0; i < sourceCount; i++) {
+            source.getVertex(i, vertex, 0);
+
+            for (int axis = 0; axis < 3; axis++) {
+                min[axis] = Math.min(min[axis], vertex[axis]);
+                max[axis] = Math.max(max[axis], vertex[axis]);
+            }
+        }
+
+        this.origin = new double[3];
+        this.step = new double[3];
+
+        for (int axis = 0; axis < 3; axis++) {
+            origin[axis] = sourceCount == 0 ? 0 : min[axis];
+            step[axis] = sourceCount == 0 ? 0 : (max[axis] - min[axis]) / 65535;
+        }
+
+        // Faces, with a vertex for every distinct pair of a source vertex and a UV coordinate
+        final boolean textured = source.getUVCoordinateCount() > 0;
+        final int[] indices = new int[faceCount * 3];
+        final float[] uv = new float[2];
+
+        // The source vertex and the half-precision UV coordinate of every vertex
+        int[] sources = new int[textured ? sourceCount : 0];
+        int[] uvBits = new int[textured ? sourceCount : 0];
+        int vertexCount = textured ? 0 : sourceCount;
+
+        // The first vertex split off each source vertex, and every further split keyed by source vertex and UV coordinate
+        final int[] first = new int[textured ? sourceCount : 0];
+        final Map<Long, Integer> splits = new HashMap<>();
+        Arrays.fill(first, -1);
+
+        this.faceStyles = new int[faceCount];
+
+        final Map<List<Object>, Integer> styles = new HashMap<>();
+        final List<Color> colors = new ArrayList<>();
+        final List<Texture> textures = new ArrayList<>();
+
+        for (int f = 0; f < faceCount; f++) {
+            for (int corner = 0; corner < 3; corner++) {
+                final int index = source.getFaceVertexIndex(f, corner);
+
+                if (!textured) {
+                    indices[f * 3 + corner] = index;
+                    continue;
+                }
+
+                source.getFaceUV(f, corner, uv, 0);
+                final int bits = (toHalf(uv[0]) & 0xFFFF) << 16 | toHalf(uv[1]) & 0xFFFF;
+
+                int target = first[index];
+
+                if (target == -1 || uvBits[target] != bits) {
+                    final long key = (long) index << 32 | bits & 0xFFFFFFFFL;
+                    final Integer split = target == -1 ? null : splits.get(key);
+
+                    if (split != null) {
+                        target = split;
+                    } else {
+                        if (vertexCount == sources.length) {
+                            sources = Arrays.copyOf(sources, Math.max(16, vertexCount * 2));
+                            uvBits = Arrays.copyOf(uvBits, sources.length);
+                        }
+
+                        target = vertexCount++;
+                        sources[target] = index;
+                        uvBits[target] = bits;
+
+                        if (first[index] == -1) first[index] = target;
+                        else splits.put(key, target);
+                    }
+                }
+
+                indices[f * 3 + corner] = target;
+            }
+
+            final Color color = source.getFaceColor(f);
+            final Texture texture = source.getFaceTexture(f);
+
+            faceStyles[f] = styles.computeIfAbsent(Arrays.asList(color, texture), key -> {
+                colors.add(color);
+                textures.add(texture);
+                return colors.size() - 1;
+            });
+        }
+
+        this.colors = colors.toArray(new Color[0]);
+        this.textures = textures.toArray(new Texture[0]);
+
+        // Positions
+        this.positions = new short[vertexCount * 3];
+
+        for (int i = 0; i < vertexCount; i++) {
+            source.getVertex(textured ? sources[i] : i, vertex, 0);
+
+            for (int axis = 0; axis < 3; axis++) {
+                final double q = step[axis] == 0 ? 0 : Math.rint((vertex[axis] - origin[axis]) / step[axis]);
+                positions[i * 3 + axis] = (short) Math.max(0, Math.min(65535, q));
+            }
+        }
+
+        // Normals, which are only indexed like the vertices if there is one per source vertex
+        final int normalCount = source.getNormals().size();
+        final boolean perVertex = textured && normalCount == sourceCount;
+        this.normals = new short[(perVertex ? vertexCount : normalCount) * 2];
+
+        for (int i = 0; i < normals.length / 2; i++) {
+            final Vector3 n = source.getNormal(perVertex ? sources[i] : i);
+            encodeNormal(n.x(), n.y(), n.z(), normals, i * 2);
+        }
+
+        // UV coordinates, which share the indices of positions, as in PackedModel
+        this.uvCoordinates = new short[textured ? vertexCount * 2 : 0];
+
+        for (int i = 0; i < uvCoordinates.length / 2; i++) {
+            uvCoordinates[i * 2] = (short) (uvBits[i] >>> 16);
+            uvCoordinates[i * 2 + 1] = (short) uvBits[i];
+        }
+
+        if (vertexCount <= 65536) {
+            this.narrowIndices = new char[indices.length];
+            for (int i = 0; i < indices.length; i++) narrowIndices[i] = (char) indices[i];
+            this.indices = null;
+        } else {
+            this.narrowIndices = null;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * The position of the minimum corner of the bounding box, and the size of one quantization step along each axis.
+     */
+    private final double[] origin, step;
+
+    private final short[] positions, normals, uvCoordinates;
+
+    /**
+     * The vertex indices of each face. Exactly one of these is set.
+     */
+    @Nullable
+    private final char[] narrowIndices;
+    @Nullable
+    private final int[] indices;
+
+    /**
+     * The index into the palette of each face.
+     */
+    private final int[] faceStyles;
+    private final Color[] colors;
+    private final Texture[] textures;
+
+    //
+    // Memory
+    //
+
+    /**
+     * Returns the number of bytes used by the arrays of this model, excluding its textures.
+     *
+     * @return The size of the geometry in bytes
+     */
+    public long getByteSize() {
+        final long indexBytes = narrowIndices != null ? narrowIndices.length * 2L : Objects.requireNonNull(indices).length * 4L;
+        return (positions.length + normals.length + uvCoordinates.length) * 2L
+                + indexBytes
+                + faceStyles.length * 4L
+                + colors.length * 8L
+                + textures.length * 8L;
+    }
+
+    //
+    // Model
+    //
+
+    @Nonnull
+    @Override
+    public Tuple<Vector3> getVertices() {
+        final SafeArray<Vector3> vertices = new FastArray<>(getVertexCount());
+        for (int i = 0; i < vertices.size(); i++) vertices.set(i, getVertex(i));
+        return vertices.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getVertex(int i) throws IndexOutOfBoundsException {
+        final double[] vertex = new double[3];
+        getVertex(i, vertex, 0);
+        return new Vector3(vertex[0], vertex[1], vertex[2]);
+    }
+
+    @Override
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Vector3> getNormals() {
+        final SafeArray<Vector3> result = new FastArray<>(normals.length / 2);
+        for (int i = 0; i < result.size(); i++) result.set(i, getNormal(i));
+        return result.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getNormal(int i) throws IndexOutOfBoundsException {
+        double x = normals[i * 2] / 32767d;
+        double y = normals[i * 2 + 1] / 32767d;
+        final double z = 1 - Math.abs(x) - Math.abs(y);
+
+        // Unfold the lower half of the octahedron
+        if (z < 0) {
+            final double t = -z;
+            x += x >= 0 ? -t : t;
+            y += y >= 0 ? -t : t;
+        }
+
+        final double inverse = 1 / Math.sqrt(x * x + y * y + z * z);
+        return new Vector3(x * inverse, y * inverse, z * inverse);
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Vector2> getUVCoordinates() {
+        final SafeArray<Vector2> result = new FastArray<>(getUVCoordinateCount());
+        for (int i = 0; i < result.size(); i++) result.set(i, getUVCoordinate(i));
+        return result.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Vector2 getUVCoordinate(int i) throws IndexOutOfBoundsException {
+        return new Vector2(fromHalf(uvCoordinates[i * 2]), fromHalf(uvCoordinates[i * 2 + 1]));
+    }
+
+    @Override
+    public int getUVCoordinateCount() {
+        return uvCoordinates.length / 2;
+    }
+
+    @Nonnull
+    @Override
+    public Tuple<Face> getFaces() {
+        final SafeArray<Face> faces = new FastArray<>(getFaceCount());
+        for (int i = 0; i < faces.size(); i++) faces.set(i, getFace(i));
+        return faces.tuple();
+    }
+
+    @Nonnull
+    @Override
+    public Face getFace(int i) throws IndexOutOfBoundsException {
+        final Face face = new Face(
+                getVertex(getFaceVertexIndex(i, 0)),
+                getVertex(getFaceVertexIndex(i, 1)),
+                getVertex(getFaceVertexIndex(i, 2))
+        );
+
+        face.setColor(getFaceColor(i));
+        return face;
+    }
+
+    @Override
+    public int getFaceCount() {
+        return faceStyles.length;
+    }
+
+    @Override
+    public int getFaceVertexIndex(int face, int corner) throws IndexOutOfBoundsException {
+        Objects.checkIndex(corner, 3);
+        return narrowIndices != null ? narrowIndices[face * 3 + corner] : Objects.requireNonNull(indices)[face * 3 + corner];
+    }
+
+    @Override
+    public void getVertex(int i, @Nonnull double[] dest, int offset) throws IndexOutOfBoundsException {
+        dest[offset] = origin[0] + (positions[i * 3] & 0xFFFF) * step[0];
+        dest[offset + 1] = origin[1] + (positions[i * 3 + 1] & 0xFFFF) * step[1];
+        dest[offset + 2] = origin[2] + (positions[i * 3 + 2] & 0xFFFF) * step[2];
+    }
+
+    @Nonnull
+    @Override
+    public Color getFaceColor(int i) throws IndexOutOfBoundsException {
+        return colors[faceStyles[i]];
+    }
+
+    @Nullable
+    @Override
+    public Texture getFaceTexture(int i) throws IndexOutOfBoundsException {
+        return textures[faceStyles[i]];
+    }
+
+    @Override
+    public void getFaceUV(int face, int corner, @Nonnull float[] dest, int offset) throws IndexOutOfBoundsException {
+        final int vertex = getFaceVertexIndex(face, corner);
+
+        final boolean present = vertex * 2 + 1 < uvCoordinates.length;
+        dest[offset] = present ? fromHalf(uvCoordinates[vertex * 2]) : 0;
+        dest[offset + 1] = present ? fromHalf(uvCoordinates[vertex * 2 + 1]) : 0;
+    }
+
+    //
+    // Encoding
+    //
+
+    /**
+     * Projects a direction onto the octahedron, folds its lower half over the upper half,
+     * and writes the result as two signed 16-bit integers. Zero vectors are encoded as {@code +Z}.
+     */
+    private static void encodeNormal(double x, double y, double z, @Nonnull short[] dest, int offset) {
+        final double sum = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        double u = sum == 0 ? 0 : x / sum;
+        double v = sum == 0 ? 0 : y / sum;
+
+        if (z < 0) {
+            final double foldedU = (1 - Math.abs(v)) * (u >= 0 ? 1 : -1);
+            final double foldedV = (1 - Math.abs(u)) * (v >= 0 ? 1 : -1);
+            u = foldedU;
+            v = foldedV;
+        }
+
+        dest[offset] = (short) Math.rint(Math.max(-1, Math.min(1, u)) * 32767);
+        dest[offset + 1] = (short) Math.rint(Math.max(-1, Math.min(1, v)) * 32767);
+    }
+
+    /**
+     * Converts a float to the bits of the nearest half-precision float, rounding ties to even.
+     */
+    static short toHalf(float value) {
+        final int bits = Float.floatToIntBits(value);
+        final int sign = bits >>> 16 & 0x8000;
+        final int exponent = (bits >>> 23 & 0xFF) - 127 + 15;
+        final int mantissa = bits & 0x7FFFFF;
+
+        // Infinity and NaN
+        if ((bits & 0x7FFFFFFF) >= 0x7F800000) return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+
+        // Too large, which rounds to infinity
+        if (exponent >= 31) return (short) (sign | 0x7C00);
+
+        // Subnormal or zero
+        if (exponent <= 0) {
+            if (exponent < -10) return (short) sign;
+
+            final int significand = mantissa | 0x800000;
+            final int shift = 14 - exponent;
+            final int half = significand >> shift;
+            final int remainder = significand & ((1 << shift) - 1);
+            final int halfway = 1 << (shift - 1);
+
+            return (short) (sign | (remainder > halfway || (remainder == halfway && (half & 1) != 0) ? half + 1 : half));
+        }
+
+        // A carry out of the mantissa correctly increments the exponent
+        final int half = exponent << 10 | mantissa >> 13;
+        final int remainder = mantissa & 0x1FFF;
+
+        return (short) (sign | (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0) ? half + 1 : half));
+    }
+
+    /**
+     * Converts the bits of a half-precision float to a float. This is exact.
+     */
+    static float fromHalf(short half) {
+        final int sign = (half & 0x8000) << 16;
+        final int exponent = half >>> 10 & 0x1F;
+        final int mantissa = half & 0x3FF;
+
+        if (exponent == 0) return Float.intBitsToFloat(sign | Float.floatToIntBits(mantissa * 0x1p-24f));
+        if (exponent == 31) return Float.intBitsToFloat(sign | 0x7F800000 | mantissa << 13);
+
+        return Float.intBitsToFloat(sign | (exponent + 112) << 23 | mantissa << 13);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "QuantizedModel{" +
+                "vertices=" + getVertexCount() +
+                ", normals=" + normals.length / 2 +
+                ", uvCoordinates=" + getUVCoordinateCount() +
+                ", faces=" + getFaceCount() +
+                ", bytes=" + getByteSize() +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * The result of a successful ray query against a mesh.
+ * The barycentric coordinates are given with respect to the
+ * {@link Face#getA() A}, {@link Face#getB() B} and {@link Face#getC() C} vertices of the face,
+ * where {@code u} is the weight of B and {@code v} is the weight of C.
+ */
+public class RayHit {
+    /**
+     * Creates a new ray hit.
+     *
+     * @param faceIndex The index of the face which was hit
+     * @param distance  The distance from the ray's origin to the point of intersection
+     * @param u         The barycentric weight of the face's second vertex
+     * @param v         The barycentric weight of the face's third vertex
+     */
+    public RayHit(int faceIndex, double distance, double u, double v) {
+        this.faceIndex = faceIndex;
+        this.distance = distance;
+        this.u = u;
+        this.v = v;
+    }
+
+    protected final int faceIndex;
+    protected final double distance;
+    protected final double u, v;
+
+    /**
+     * Returns the index of the face which was hit.
+     *
+     * @return The index of the face within its model
+     */
+    public int getFaceIndex() {
+        return faceIndex;
+    }
+
+    /**
+     * Returns the distance from the ray's origin to the point of intersection.
+     *
+     * @return The distance to the point of intersection
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the barycentric weight of the face's second vertex.
+     *
+     * @return The U coordinate
+     */
+    public double getU() {
+        return u;
+    }
+
+    /**
+     * Returns the barycentric weight of the face's third vertex.
+     *
+     * @return The V coordinate
+     */
+    public double getV() {
+        return v;
+    }
+
+    /**
+     * Returns the barycentric weight of the face's first vertex.
+     *
+     * @return The W coordinate
+     */
+    public double getW() {
+        return 1 - u - v;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "RayHit{" +
+                "faceIndex=" + faceIndex +
+                ", distance=" + distance +
+                ", u=" + u +
+                ", v=" + v +
+                '}';
+    }
+}
@@ -0,0 +1,176 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A packet of rays stored as a structure of arrays, along with the closest hit found for each ray.
+ * Packets are meant to be reused; call {@link #reset()} before tracing the same rays against a new scene,
+ * or {@link #setRay(int, Ray)} to replace individual rays.
+ *
+ * @see Geometry#intersect(RayPacket, TriangleBatch)
+ */
+public class RayPacket {
+    /**
+     * Creates a new ray packet.
+     *
+     * @param size The number of rays in this packet
+     */
+    public RayPacket(int size) {
+        this.size = size;
+
+        this.ox = new double[size];
+        this.oy = new double[size];
+        this.oz = new double[size];
+        this.dx = new double[size];
+        this.dy = new double[size];
+        this.dz = new double[size];
+
+        this.t = new double[size];
+        this.u = new double[size];
+        this.v = new double[size];
+        this.faces = new double[size];
+
+        reset();
+    }
+
+    protected final int size;
+    protected final double[] ox, oy, oz;
+    protected final double[] dx, dy, dz;
+
+    /**
+     * The results of this packet. Face indices are stored as doubles so that
+     * they can share a lane layout with the other results.
+     */
+    protected final double[] t, u, v, faces;
+
+    //
+    // Rays
+    //
+
+    /**
+     * Returns the number of rays in this packet.
+     *
+     * @return The number of rays
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the ray at the given index, and clears its result.
+     *
+     * @param i   The index of the ray
+     * @param ray The ray to set
+     */
+    public void setRay(int i, @Nonnull Ray ray) {
+        final Vector3 origin = ray.getOrigin();
+        final Vector3 direction = ray.getDirection();
+
+        setRay(i, origin.x(), origin.y(), origin.z(), direction.x(), direction.y(), direction.z());
+    }
+
+    /**
+     * Sets the ray at the given index, and clears its result.
+     *
+     * @param i  The index of the ray
+     * @param ox The X component of the ray's origin
+     * @param oy The Y component of the ray's origin
+     * @param oz The Z component of the ray's origin
+     * @param dx The X component of the ray's direction
+     * @param dy The Y component of the ray's direction
+     * @param dz The Z component of the ray's direction
+     */
+    public void setRay(int i, double ox, double oy, double oz, double dx, double dy, double dz) {
+        this.ox[i] = ox;
+        this.oy[i] = oy;
+        this.oz[i] = oz;
+        this.dx[i] = dx;
+        this.dy[i] = dy;
+        this.dz[i] = dz;
+
+        t[i] = Double.POSITIVE_INFINITY;
+        u[i] = 0;
+        v[i] = 0;
+        faces[i] = -1;
+    }
+
+    /**
+     * Clears the results of every ray in this packet.
+     */
+    public void reset() {
+        Arrays.fill(t, Double.POSITIVE_INFINITY);
+        Arrays.fill(u, 0);
+        Arrays.fill(v, 0);
+        Arrays.fill(faces, -1);
+    }
+
+    //
+    // Results
+    //
+
+    /**
+     * Checks if the ray at the given index has hit a face.
+     *
+     * @param i The index of the ray
+     * @return {@code true} if the ray has hit a face
+     */
+    public boolean isHit(int i) {
+        return faces[i] >= 0;
+    }
+
+    /**
+     * Returns the index of the closest face the ray at the given index has hit.
+     *
+     * @param i The index of the ray
+     * @return The index of the face, or {@code -1} if the ray has not hit a face
+     */
+    public int getFaceIndex(int i) {
+        return (int) faces[i];
+    }
+
+    /**
+     * Returns the ray parameter of the closest hit, in the same units as {@link Ray#getDestination(double)}.
+     *
+     * @param i The index of the ray
+     * @return The ray parameter of the closest hit, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    public double getT(int i) {
+        return t[i];
+    }
+
+    /**
+     * Returns the barycentric weight of the second vertex of the face which was hit.
+     *
+     * @param i The index of the ray
+     * @return The U coordinate of the closest hit
+     */
+    public double getU(int i) {
+        return u[i];
+    }
+
+    /**
+     * Returns the barycentric weight of the third vertex of the face which was hit.
+     *
+     * @param i The index of the ray
+     * @return The V coordinate of the closest hit
+     */
+    public double getV(int i) {
+        return v[i];
+    }
+
+    /**
+     * Returns the point of intersection of the closest hit.
+     *
+     * @param i The index of the ray
+     * @return The point of intersection if found, {@code null} if not
+     */
+    @Nullable
+    public Vector3 getIntersection(int i) {
+        if (!isHit(i)) return null;
+        return new Vector3(ox[i] + dx[i] * t[i], oy[i] + dy[i] * t[i], oz[i] + dz[i] * t[i]);
+    }
+}
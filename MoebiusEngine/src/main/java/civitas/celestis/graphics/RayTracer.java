@@ -0,0 +1,703 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.render.Rasterizer;
+import civitas.celestis.math.complex.Quaternion;
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.util.tuple.Tuple;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Draws a {@link Scene} by tracing rays through every pixel on multiple threads.
+ * <p>
+ * Faces are lit by a single directional light, with shadows cast towards it,
+ * and every surface reflects a fraction of the light arriving from its mirror direction.
+ * Faces are two-sided, and are traced at full detail.
+ * Rays are traced against the {@link BoundingVolumeHierarchy#getCached(Model) cached hierarchy} of each model,
+ * and the rays of mesh instances are taken into the space of their model, so instances share one hierarchy.
+ * </p>
+ * <p>
+ * Each call to {@link #render(Rasterizer, Scene, Vector3, Quaternion, double, double, int) render}
+ * traces one sample per pixel at a jittered position within the pixel, and adds it to an accumulation buffer.
+ * The frame shows the average of every sample so far, so the image is antialiased and refines for as long as
+ * the scene and camera stay still. Samples are discarded whenever the contents of the scene, the camera, the size of the frame
+ * or the settings of the tracer change, and while the hierarchy of any model is still being built.
+ * Scenes are compared by their models, the models, locations and rotations of their instances, and their loose faces,
+ * so publishing an equal scene every tick does not restart the refinement.
+ * </p>
+ * <p>
+ * The screen is split into square tiles which are traced in parallel, by one strand per thread of the pool,
+ * each with scratch state owned by this ray tracer. Rays are traced with the primitive kernels of
+ * {@link BoundingVolumeHierarchy}, so tracing does not allocate. A ray tracer accumulates into
+ * its own buffer, and must therefore not be used by multiple threads at once.
+ * </p>
+ */
+public class RayTracer {
+    /**
+     * The width and height of a tile in pixels.
+     */
+    public static final int TILE_SIZE = 32;
+
+    /**
+     * The distance rays are moved off a surface before tracing shadows and reflections from it.
+     */
+    private static final double SURFACE_OFFSET = 1e-6;
+
+    /**
+     * Creates a new ray tracer which uses the common fork-join pool.
+     */
+    public RayTracer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new ray tracer.
+     *
+     * @param pool The pool to trace tiles on
+     */
+    public RayTracer(@Nonnull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * The direction from the scene towards the light. It does not need to be normalized.
+     */
+    public volatile Vector3 lightDirection = new Vector3(-0.5, 1, -0.3);
+
+    /**
+     * The fraction of a face's color which is lit regardless of the light, from {@code 0} to {@code 1}.
+     */
+    public volatile double ambient = 0.25;
+
+    /**
+     * The fraction of light every surface reflects, from {@code 0} to {@code 1}.
+     */
+    public volatile double reflectivity = 0.2;
+
+    /**
+     * The maximum number of reflections traced for each sample.
+     */
+    public volatile int maxBounces = 2;
+
+    /**
+     * Whether faces cast shadows.
+     */
+    public volatile boolean shadows = true;
+
+    /**
+     * Copies every setting from another ray tracer. Accumulated samples are not copied.
+     *
+     * @param other The ray tracer to copy the settings of
+     */
+    public void copySettings(@Nonnull RayTracer other) {
+        this.lightDirection = other.lightDirection;
+        this.ambient = other.ambient;
+        this.reflectivity = other.reflectivity;
+        this.maxBounces = other.maxBounces;
+        this.shadows = other.shadows;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the number of samples per pixel which have been accumulated since the last reset.
+     *
+     * @return The number of samples
+     */
+    public int getSampleCount() {
+        return samples;
+    }
+
+    //
+    // Rendering
+    //
+
+    /**
+     * Discards every accumulated sample, so that the next frame starts refining from scratch.
+     */
+    public void reset() {
+        samples = 0;
+        Arrays.fill(accumulation, 0);
+    }
+
+    /**
+     * Traces one more sample of every pixel, and writes the average of all samples into the frame.
+     * This blocks until every tile has been traced.
+     *
+     * @param frame       The frame to draw into
+     * @param scene       The scene to draw
+     * @param origin      The location of the camera
+     * @param angle       The rotation of the camera
+     * @param focalLength The focal length of the camera in pixels
+     * @param nearPlane   The distance from the eye to the near plane, before which nothing is drawn
+     * @param background  The packed RGB color of rays which hit nothing
+     */
+    public void render(
+            @Nonnull Rasterizer frame,
+            @Nonnull Scene scene,
+            @Nonnull Vector3 origin,
+            @Nonnull Quaternion angle,
+            double focalLength,
+            double nearPlane,
+            int background
+    ) {
+        final int width = frame.getWidth();
+        final int height = frame.getHeight();
+
+        final Vector3 light = lightDirection.normalize();
+        final double ambient = this.ambient;
+        final double reflectivity = this.reflectivity;
+        final int maxBounces = this.maxBounces;
+        final boolean shadows = this.shadows;
+
+        // Scenes are usually published anew every tick, so they are compared by what they contain
+        final boolean facesChanged = setTargets(scene);
+        setView(origin, angle, focalLength, nearPlane, light);
+
+        final boolean changed = !complete || facesChanged || !isSameTargets() || width != lastWidth || height != lastHeight
+                || !Arrays.equals(lastView, view)
+                || ambient != this.frameAmbient || reflectivity != this.frameReflectivity
+                || maxBounces != this.frameBounces || shadows != this.frameShadows || background != this.background;
+
+        if (changed) {
+            System.arraycopy(view, 0, lastView, 0, view.length);
+            saveTargets();
+            lastWidth = width;
+            lastHeight = height;
+            samples = 0;
+
+            if (accumulation.length < width * height * 3) accumulation = new float[width * height * 3];
+            Arrays.fill(accumulation, 0, width * height * 3, 0);
+        }
+
+        this.frameAmbient = ambient;
+        this.frameReflectivity = reflectivity;
+        this.frameBounces = maxBounces;
+        this.frameShadows = shadows;
+        this.background = background;
+
+        this.width = width;
+        this.height = height;
+        this.pixels = frame.getPixels();
+        this.columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        // Every strand of tiles has its own tracer, so that tracing never shares scratch state
+        final int strands = Math.min(columns * rows, pool.getParallelism() + 1);
+        if (tracers.length < strands) {
+            final int start = tracers.length;
+            tracers = Arrays.copyOf(tracers, strands);
+            for (int i = start; i < strands; i++) tracers[i] = new Tracer();
+        }
+
+        nextTile.set(0);
+        pool.invoke(new TileTask(0, strands));
+        samples++;
+
+        // Do not hold on to the hierarchies between frames; the models are kept to compare the next scene with
+        Arrays.fill(bvhs, 0, targetCount, null);
+        Arrays.fill(targetModels, 0, targetCount, null);
+        this.faces = null;
+        this.pixels = null;
+    }
+
+    //
+    // Setup
+    //
+
+    /**
+     * Captures the camera and the light of the next frame into {@link #view}.
+     */
+    private void setView(@Nonnull Vector3 origin, @Nonnull Quaternion angle, double focalLength, double nearPlane, @Nonnull Vector3 light) {
+        final Vector3 x = new Vector3(1, 0, 0).rotate(angle);
+        final Vector3 y = new Vector3(0, 1, 0).rotate(angle);
+        final Vector3 z = new Vector3(0, 0, 1).rotate(angle);
+
+        // The viewport takes points into view space with the matrix whose columns are the rotated basis vectors,
+        // so the axes of the camera in the world are the rows of that matrix
+        view[3] = x.x();
+        view[4] = y.x();
+        view[5] = z.x();
+        view[6] = x.y();
+        view[7] = y.y();
+        view[8] = z.y();
+        view[9] = x.z();
+        view[10] = y.z();
+        view[11] = z.z();
+
+        // The eye is the focal length behind the origin, looking through the screen at the origin
+        view[0] = origin.x() - view[9] * focalLength;
+        view[1] = origin.y() - view[10] * focalLength;
+        view[2] = origin.z() - view[11] * focalLength;
+        view[12] = focalLength;
+        view[13] = nearPlane;
+        put(view, 14, light);
+    }
+
+    /**
+     * Gathers the geometry of the next frame into {@link #bvhs}, {@link #targetModels} and {@link #transforms},
+     * and records in {@link #complete} whether the hierarchy of every model was available.
+     *
+     * @return {@code true} if the loose faces of the scene differ from those of the previous frame
+     */
+    private boolean setTargets(@Nonnull Scene scene) {
+        final int capacity = scene.getModels().size() + scene.getInstances().size() + 1;
+
+        if (bvhs.length < capacity) {
+            bvhs = new BoundingVolumeHierarchy[capacity];
+            targetModels = new Model[capacity];
+            transforms = new double[capacity * 12];
+            identities = new boolean[capacity];
+        }
+
+        boolean complete = true;
+        targetCount = 0;
+
+        for (final Model model : scene.getModels()) {
+            final BoundingVolumeHierarchy bvh = BoundingVolumeHierarchy.getCached(model);
+            if (bvh == null) {
+                complete = false;
+                continue;
+            }
+
+            addTarget(bvh, model, null);
+        }
+
+        for (final MeshInstance instance : scene.getInstances()) {
+            final BoundingVolumeHierarchy bvh = BoundingVolumeHierarchy.getCached(instance.getModel());
+            if (bvh == null) {
+                complete = false;
+                continue;
+            }
+
+            addTarget(bvh, instance.getModel(), instance);
+        }
+
+        // Loose faces are rebuilt into a hierarchy whenever different faces are given
+        final List<Face> faces = scene.getFaces();
+        final boolean facesChanged = !isSameFaces(faces);
+
+        if (facesChanged) {
+            lastFaces = faces;
+            faceHierarchy = faces.isEmpty() ? null : new BoundingVolumeHierarchy(Tuple.of(faces.toArray(new Face[0])));
+        }
+
+        this.faces = faces;
+        if (faceHierarchy != null) addTarget(faceHierarchy, null, null);
+
+        this.complete = complete;
+        return facesChanged;
+    }
+
+    /**
+     * Checks if a list holds the same face instances as the loose faces of the previous frame, in the same order.
+     */
+    private boolean isSameFaces(@Nonnull List<Face> faces) {
+        if (faces == lastFaces) return true;
+        if (lastFaces == null || faces.size() != lastFaces.size()) return false;
+
+        for (int i = 0; i < faces.size(); i++) {
+            if (faces.get(i) != lastFaces.get(i)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if the targets of the next frame are the same models, at the same locations and rotations,
+     * as the targets the accumulated samples were traced with.
+     */
+    private boolean isSameTargets() {
+        if (targetCount != lastTargetCount) return false;
+
+        for (int k = 0; k < targetCount; k++) {
+            if (targetModels[k] != lastModels[k] || identities[k] != lastIdentities[k]) return false;
+            if (!identities[k] && !Arrays.equals(transforms, k * 12, k * 12 + 12, lastTransforms, k * 12, k * 12 + 12)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Remembers the targets of the next frame as the targets the accumulated samples are traced with.
+     */
+    private void saveTargets() {
+        if (lastModels.length < targetCount) {
+            lastModels = new Model[bvhs.length];
+            lastTransforms = new double[bvhs.length * 12];
+            lastIdentities = new boolean[bvhs.length];
+        }
+
+        Arrays.fill(lastModels, null);
+        System.arraycopy(targetModels, 0, lastModels, 0, targetCount);
+        System.arraycopy(transforms, 0, lastTransforms, 0, targetCount * 12);
+        System.arraycopy(identities, 0, lastIdentities, 0, targetCount);
+        lastTargetCount = targetCount;
+    }
+
+    private void addTarget(@Nonnull BoundingVolumeHierarchy bvh, @Nullable Model model, @Nullable MeshInstance instance) {
+        final int k = targetCount++;
+        final int o = k * 12;
+
+        bvhs[k] = bvh;
+        targetModels[k] = model;
+        identities[k] = instance == null;
+
+        if (instance == null) return;
+
+        // The columns of the rotation are the basis vectors of the model in world space
+        put(transforms, o, new Vector3(1, 0, 0).rotate(instance.getRotation()));
+        put(transforms, o + 3, new Vector3(0, 1, 0).rotate(instance.getRotation()));
+        put(transforms, o + 6, new Vector3(0, 0, 1).rotate(instance.getRotation()));
+        put(transforms, o + 9, instance.getLocation());
+    }
+
+    private static void put(@Nonnull double[] dest, int offset, @Nonnull Vector3 vector) {
+        dest[offset] = vector.x();
+        dest[offset + 1] = vector.y();
+        dest[offset + 2] = vector.z();
+    }
+
+    //
+    // Tracing
+    //
+
+    /**
+     * Traces one sample of every pixel in a tile, and writes the averages into the frame.
+     */
+    private void traceTile(@Nonnull Tracer tracer, int tile) {
+        final double[] v = view;
+        final double f = v[12];
+        final double near = v[13] / f;
+        final double cx = width / 2d, cy = height / 2d;
+        final int sample = samples;
+        final float scale = 1f / (sample + 1);
+
+        final int minX = (tile % columns) * TILE_SIZE;
+        final int minY = (tile / columns) * TILE_SIZE;
+        final int maxX = Math.min(width, minX + TILE_SIZE);
+        final int maxY = Math.min(height, minY + TILE_SIZE);
+
+        for (int y = minY; y < maxY; y++) {
+            for (int x = minX; x < maxX; x++) {
+                final int pixel = y * width + x;
+
+                // The first sample goes through the center of the pixel, and every following sample is jittered
+                final int h = hash(pixel ^ hash(sample));
+                final double jx = sample == 0 ? 0.5 : (h & 0xFFFF) / 65536d;
+                final double jy = sample == 0 ? 0.5 : (h >>> 16) / 65536d;
+
+                final double sx = x + jx - cx;
+                final double sy = cy - (y + jy);
+
+                // The direction towards the pixel, with a forward component of the focal length
+                final double dx = sx * v[3] + sy * v[6] + f * v[9];
+                final double dy = sx * v[4] + sy * v[7] + f * v[10];
+                final double dz = sx * v[5] + sy * v[8] + f * v[11];
+
+                // Start at the near plane, then normalize so that distances along rays are in world units
+                final double ox = v[0] + dx * near, oy = v[1] + dy * near, oz = v[2] + dz * near;
+                final double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+                tracer.trace(ox, oy, oz, dx / length, dy / length, dz / length);
+
+                final int o = pixel * 3;
+                final float r = accumulation[o] += (float) tracer.red;
+                final float g = accumulation[o + 1] += (float) tracer.green;
+                final float b = accumulation[o + 2] += (float) tracer.blue;
+
+                pixels[pixel] = channel(r * scale) << 16 | channel(g * scale) << 8 | channel(b * scale);
+            }
+        }
+    }
+
+    private static int channel(float value) {
+        return Math.min(255, Math.max(0, (int) (value * 255 + 0.5f)));
+    }
+
+    /**
+     * Scrambles the bits of an integer, to derive well-distributed jitter from pixel and sample indices.
+     */
+    private static int hash(int x) {
+        x ^= x >>> 16;
+        x *= 0x7feb352d;
+        x ^= x >>> 15;
+        x *= 0x846ca68b;
+        x ^= x >>> 16;
+        return x;
+    }
+
+    /**
+     * The scratch state of a thread which traces rays, reused between pixels and frames.
+     */
+    private final class Tracer {
+        private final HitRecord hit = new HitRecord();
+        private final double[] vertices = new double[9];
+
+        // The color of the last traced ray
+        private double red, green, blue;
+
+        // The surface of the last closest hit, in world space
+        private int target;
+        private double nx, ny, nz;
+
+        /**
+         * Traces a ray and its reflections, and stores the color it sees.
+         */
+        private void trace(double ox, double oy, double oz, double dx, double dy, double dz) {
+            final double[] v = view;
+            final double lx = v[14], ly = v[15], lz = v[16];
+            final double ambient = frameAmbient;
+            final double reflectivity = frameReflectivity;
+
+            red = green = blue = 0;
+            double weight = 1;
+
+            for (int bounce = 0; ; bounce++) {
+                if (!closestHit(ox, oy, oz, dx, dy, dz)) {
+                    red += weight * (background >> 16 & 0xFF) / 255d;
+                    green += weight * (background >> 8 & 0xFF) / 255d;
+                    blue += weight * (background & 0xFF) / 255d;
+                    return;
+                }
+
+                final double t = hit.getT();
+                final int color = color(target, hit.getFaceIndex());
+                normal(target, hit.getFaceIndex());
+
+                // Faces are two-sided, so the normal always faces the ray
+                double nDotD = nx * dx + ny * dy + nz * dz;
+                if (nDotD > 0) {
+                    nx = -nx;
+                    ny = -ny;
+                    nz = -nz;
+                    nDotD = -nDotD;
+                }
+
+                final double px = ox + dx * t + nx * SURFACE_OFFSET;
+                final double py = oy + dy * t + ny * SURFACE_OFFSET;
+                final double pz = oz + dz * t + nz * SURFACE_OFFSET;
+
+                double diffuse = Math.max(0, nx * lx + ny * ly + nz * lz);
+                if (diffuse > 0 && frameShadows && anyHit(px, py, pz, lx, ly, lz)) diffuse = 0;
+
+                final boolean reflects = bounce < frameBounces && reflectivity > 0;
+                final double lit = weight * (reflects ? 1 - reflectivity : 1) * (ambient + (1 - ambient) * diffuse) / 255d;
+
+                red += lit * (color >> 16 & 0xFF);
+                green += lit * (color >> 8 & 0xFF);
+                blue += lit * (color & 0xFF);
+
+                if (!reflects) return;
+
+                // Continue along the mirror direction
+                weight *= reflectivity;
+                dx -= 2 * nDotD * nx;
+                dy -= 2 * nDotD * ny;
+                dz -= 2 * nDotD * nz;
+                ox = px;
+                oy = py;
+                oz = pz;
+            }
+        }
+
+        /**
+         * Finds the closest face hit by a ray among every target, and records its target in {@link #target}.
+         */
+        private boolean closestHit(double ox, double oy, double oz, double dx, double dy, double dz) {
+            hit.reset();
+            target = -1;
+
+            for (int k = 0; k < targetCount; k++) {
+                final boolean found;
+
+                if (identities[k]) {
+                    found = bvhs[k].closestHit(ox, oy, oz, dx, dy, dz, hit);
+                } else {
+                    final double[] m = transforms;
+                    final int o = k * 12;
+
+                    // Rotations preserve the length of the direction, and thereby distances along the ray
+                    final double rx = ox - m[o + 9], ry = oy - m[o + 10], rz = oz - m[o + 11];
+
+                    found = bvhs[k].closestHit(
+                            m[o] * rx + m[o + 1] * ry + m[o + 2] * rz,
+                            m[o + 3] * rx + m[o + 4] * ry + m[o + 5] * rz,
+                            m[o + 6] * rx + m[o + 7] * ry + m[o + 8] * rz,
+                            m[o] * dx + m[o + 1] * dy + m[o + 2] * dz,
+                            m[o + 3] * dx + m[o + 4] * dy + m[o + 5] * dz,
+                            m[o + 6] * dx + m[o + 7] * dy + m[o + 8] * dz,
+                            hit
+                    );
+                }
+
+                if (found) target = k;
+            }
+
+            return target >= 0;
+        }
+
+        /**
+         * Checks if a ray hits any face of any target.
+         */
+        private boolean anyHit(double ox, double oy, double oz, double dx, double dy, double dz) {
+            for (int k = 0; k < targetCount; k++) {
+                hit.reset();
+
+                if (identities[k]) {
+                    if (bvhs[k].anyHit(ox, oy, oz, dx, dy, dz, hit)) return true;
+                    continue;
+                }
+
+                final double[] m = transforms;
+                final int o = k * 12;
+                final double rx = ox - m[o + 9], ry = oy - m[o + 10], rz = oz - m[o + 11];
+
+                if (bvhs[k].anyHit(
+                        m[o] * rx + m[o + 1] * ry + m[o + 2] * rz,
+                        m[o + 3] * rx + m[o + 4] * ry + m[o + 5] * rz,
+                        m[o + 6] * rx + m[o + 7] * ry + m[o + 8] * rz,
+                        m[o] * dx + m[o + 1] * dy + m[o + 2] * dz,
+                        m[o + 3] * dx + m[o + 4] * dy + m[o + 5] * dz,
+                        m[o + 6] * dx + m[o + 7] * dy + m[o + 8] * dz,
+                        hit
+                )) return true;
+            }
+
+            return false;
+        }
+
+        private int color(int target, int face) {
+            final Model model = targetModels[target];
+            return (model != null ? model.getFaceColor(face) : faces.get(face).getColor()).getRGB();
+        }
+
+        /**
+         * Computes the unit geometric normal of a face in world space into {@link #nx}, {@link #ny} and {@link #nz}.
+         */
+        private void normal(int target, int face) {
+            final double[] p = vertices;
+            final Model model = targetModels[target];
+
+            if (model != null) {
+                model.getVertex(model.getFaceVertexIndex(face, 0), p, 0);
+                model.getVertex(model.getFaceVertexIndex(face, 1), p, 3);
+                model.getVertex(model.getFaceVertexIndex(face, 2), p, 6);
+            } else {
+                final Face f = faces.get(face);
+                put(p, 0, f.getA());
+                put(p, 3, f.getB());
+                put(p, 6, f.getC());
+            }
+
+            final double e1x = p[3] - p[0], e1y = p[4] - p[1], e1z = p[5] - p[2];
+            final double e2x = p[6] - p[0], e2y = p[7] - p[1], e2z = p[8] - p[2];
+
+            double x = e1y * e2z - e1z * e2y;
+            double y = e1z * e2x - e1x * e2z;
+            double z = e1x * e2y - e1y * e2x;
+
+            if (!identities[target]) {
+                // Rotate the normal from model space into the world
+                final double[] m = transforms;
+                final int o = target * 12;
+                final double lx = x, ly = y, lz = z;
+
+                x = m[o] * lx + m[o + 3] * ly + m[o + 6] * lz;
+                y = m[o + 1] * lx + m[o + 4] * ly + m[o + 7] * lz;
+                z = m[o + 2] * lx + m[o + 5] * ly + m[o + 8] * lz;
+            }
+
+            final double length = Math.sqrt(x * x + y * y + z * z);
+            nx = length > 0 ? x / length : 0;
+            ny = length > 0 ? y / length : 0;
+            nz = length > 0 ? z / length : 0;
+        }
+    }
+
+    /**
+     * Runs a range of strands, splitting the range in half until a single strand remains.
+     * A strand traces tiles with its own tracer, taking the next untraced tile until every tile has been taken.
+     */
+    private final class TileTask extends RecursiveAction {
+        private TileTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private final int start, end;
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                final int mid = (start + end) >>> 1;
+                invokeAll(new TileTask(start, mid), new TileTask(mid, end));
+                return;
+            }
+
+            if (start >= end) return;
+
+            final Tracer tracer = tracers[start];
+            final int tiles = columns * rows;
+
+            for (int tile = nextTile.getAndIncrement(); tile < tiles; tile = nextTile.getAndIncrement()) {
+                traceTile(tracer, tile);
+            }
+        }
+    }
+
+    //
+    // Variables
+    //
+
+    private final ForkJoinPool pool;
+
+    // The tracer of each strand, and the next tile to be taken by a strand
+    private Tracer[] tracers = new Tracer[0];
+    private final AtomicInteger nextTile = new AtomicInteger();
+
+    // The accumulated samples, and what they were traced with
+    private float[] accumulation = new float[0];
+    private int samples = 0;
+    private boolean complete = false;
+    private int lastWidth, lastHeight;
+    private final double[] lastView = new double[17];
+    private Model[] lastModels = new Model[0];
+    private double[] lastTransforms = new double[0];
+    private boolean[] lastIdentities = new boolean[0];
+    private int lastTargetCount = -1;
+
+    /**
+     * The camera and light of the frame being traced: the eye, the right, up and forward axes of the camera,
+     * the focal length, the near plane, and the unit direction towards the light.
+     */
+    private final double[] view = new double[17];
+    private double frameAmbient, frameReflectivity;
+    private int frameBounces;
+    private boolean frameShadows;
+    private int background;
+
+    // The geometry of the frame being traced, and the rotation and location of each target
+    private BoundingVolumeHierarchy[] bvhs = new BoundingVolumeHierarchy[0];
+    private Model[] targetModels = new Model[0];
+    private double[] transforms = new double[0];
+    private boolean[] identities = new boolean[0];
+    private int targetCount = 0;
+    private List<Face> faces = null;
+    private List<Face> lastFaces = null;
+    private BoundingVolumeHierarchy faceHierarchy = null;
+
+    // The frame being traced
+    private int[] pixels;
+    private int width, height, columns, rows;
+}
@@ -0,0 +1,98 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.complex.Quaternion;
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+
+/**
+ * A frame to be rendered by a {@link BatchRenderer}: a scene, the camera to view it from, and the size of the frame.
+ * <p>
+ * Jobs are immutable. To render a single model, such as for a thumbnail, place it in a scene of its own.
+ * </p>
+ */
+public class RenderJob {
+    /**
+     * Creates a new render job.
+     *
+     * @param scene       The scene to render
+     * @param origin      The position of the camera
+     * @param angle       The rotation of the camera
+     * @param focalLength The focal length of the camera in pixels
+     * @param width       The width of the frame in pixels
+     * @param height      The height of the frame in pixels
+     * @throws IllegalArgumentException When the width or height is not positive
+     */
+    public RenderJob(
+            @Nonnull Scene scene,
+            @Nonnull Vector3 origin,
+            @Nonnull Quaternion angle,
+            double focalLength,
+            int width,
+            int height
+    ) throws IllegalArgumentException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("The size of a frame must be positive, but was " + width + "x" + height + ".");
+        }
+
+        this.scene = scene;
+        this.origin = origin;
+        this.angle = angle;
+        this.focalLength = focalLength;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Nonnull
+    protected final Scene scene;
+    @Nonnull
+    protected final Vector3 origin;
+    @Nonnull
+    protected final Quaternion angle;
+    protected final double focalLength;
+    protected final int width;
+    protected final int height;
+
+    //
+    // Getters
+    //
+
+    @Nonnull
+    public Scene getScene() {
+        return scene;
+    }
+
+    @Nonnull
+    public Vector3 getOrigin() {
+        return origin;
+    }
+
+    @Nonnull
+    public Quaternion getAngle() {
+        return angle;
+    }
+
+    public double getFocalLength() {
+        return focalLength;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "RenderJob{" +
+                "scene=" + scene +
+                ", origin=" + origin +
+                ", angle=" + angle +
+                ", focalLength=" + focalLength +
+                ", width=" + width +
+                ", height=" + height +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package civitas.celestis.graphics;
+
+/**
+ * The methods a {@link Renderer} can use to draw its faces.
+ */
+public enum RenderMode {
+    /**
+     * Draws each face as an AWT polygon in scene order, without depth testing.
+     */
+    POLYGON,
+
+    /**
+     * Draws each face as an antialiased AWT polygon, from back to front by the depth of its centroid.
+     * Faces are ordered by a {@link civitas.celestis.graphics.render.DepthSorter DepthSorter}, which reuses the order of the previous frame.
+     * Textured faces are drawn in their flat color.
+     */
+    PAINTER,
+
+    /**
+     * Draws faces with a depth-tested software rasterizer.
+     * Textured faces are drawn with their textures.
+     */
+    RASTER,
+
+    /**
+     * Draws faces with the depth-tested software rasterizer, splitting the screen
+     * into tiles which are rasterized in parallel on the common fork-join pool.
+     */
+    TILED,
+
+    /**
+     * Traces rays through every pixel in parallel with a {@link RayTracer}, with shadows and reflections.
+     * Samples are accumulated while the scene and camera stay still, so the image refines over several frames.
+     */
+    RAY_TRACED
+}
@@ -0,0 +1,754 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.graphics.profile.FrameProfiler;
+import civitas.celestis.graphics.profile.FrameStage;
+import civitas.celestis.graphics.render.DepthSorter;
+import civitas.celestis.graphics.render.FaceCuller;
+import civitas.celestis.graphics.render.Rasterizer;
+import civitas.celestis.graphics.render.Texture;
+import civitas.celestis.graphics.render.TiledRasterizer;
+import civitas.celestis.graphics.render.TriangleBuffer;
+import civitas.celestis.math.complex.Quaternion;
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Renders a {@link Scene} into an offscreen frame, from the point of view of its own camera.
+ * <p>
+ * A renderer does not depend on Swing or a display, so it can be used on headless machines.
+ * Frames are {@link Rasterizer rasterizers}, whose pixels can be read as a {@link BufferedImage}
+ * or as an array of packed RGB colors. The {@link Viewport} draws its frames with a renderer,
+ * and a {@link BatchRenderer} renders many frames concurrently with a pool of renderers.
+ * </p>
+ * <p>
+ * The camera and settings are read once at the start of each frame, so they can be changed from any thread.
+ * Rendering itself reuses the renderer's buffers, and must only be done by one thread at a time.
+ * </p>
+ */
+public class Renderer {
+    /**
+     * Creates a new renderer.
+     */
+    public Renderer() {
+    }
+
+    //
+    // Camera
+    //
+
+    public volatile Vector3 origin = Vector3.ZERO;
+    public volatile Quaternion angle = Quaternion.IDENTITY;
+
+    public volatile double focalLength = 350;
+
+    /**
+     * The distance from the eye to the near plane. Faces crossing it are clipped, and faces behind it are culled.
+     */
+    public volatile double nearPlane = 1;
+
+    //
+    // Settings
+    //
+
+    /**
+     * Whether models are drawn with fewer faces when they appear small on screen.
+     * The {@link LodChain} of a model is built in the background the first time it is drawn,
+     * and the model is drawn at full detail until it is ready.
+     */
+    public volatile boolean levelOfDetail = true;
+
+    /**
+     * The radius on screen in pixels at and above which models are drawn at full detail.
+     * Below it, the number of faces drawn falls in proportion to the area the model covers.
+     */
+    public volatile double detailRadius = 300;
+
+    /**
+     * Whether whole meshes hidden behind other meshes are skipped before any of their faces are transformed.
+     * The meshes which appear largest on screen are drawn first as occluders, and every other mesh is tested
+     * against a depth pyramid built from them by an {@link OcclusionCuller}. This has no effect in
+     * {@link RenderMode#POLYGON}, which draws faces in scene order without depth testing.
+     */
+    public volatile boolean occlusionCulling = true;
+
+    /**
+     * The maximum number of meshes drawn as occluders in each frame.
+     */
+    public volatile int maxOccluders = 8;
+
+    /**
+     * The radius on screen in pixels a mesh must at least appear to have to be drawn as an occluder.
+     */
+    public volatile double occluderRadius = 32;
+
+    /**
+     * The packed RGB color the frame is cleared to before drawing.
+     */
+    public volatile int background = 0x0F0F0F;
+
+    public volatile RenderMode renderMode = RenderMode.RASTER;
+    public volatile FaceCuller.CullMode cullMode = FaceCuller.CullMode.BACK;
+
+    /**
+     * Copies every setting, but not the camera, from another renderer.
+     * This includes the settings of its {@link #getRayTracer() ray tracer}.
+     *
+     * @param other The renderer to copy the settings of
+     */
+    public void copySettings(@Nonnull Renderer other) {
+        this.levelOfDetail = other.levelOfDetail;
+        this.detailRadius = other.detailRadius;
+        this.occlusionCulling = other.occlusionCulling;
+        this.maxOccluders = other.maxOccluders;
+        this.occluderRadius = other.occluderRadius;
+        this.background = other.background;
+        this.renderMode = other.renderMode;
+        this.cullMode = other.cullMode;
+        this.rayTracer.copySettings(other.rayTracer);
+    }
+
+    //
+    // Statistics
+    //
+
+    /**
+     * Returns the number of faces culled while rendering the last frame.
+     *
+     * @return The number of culled faces
+     */
+    public int getCulledFaceCount() {
+        return culledFaces;
+    }
+
+    /**
+     * Returns the number of triangles drawn in the last frame, including those produced by near-plane clipping.
+     *
+     * @return The number of drawn triangles
+     */
+    public int getDrawnFaceCount() {
+        return drawnFaces;
+    }
+
+    /**
+     * Returns the number of meshes skipped by occlusion culling while rendering the last frame.
+     *
+     * @return The number of occluded meshes
+     */
+    public int getOccludedMeshCount() {
+        return occludedMeshes;
+    }
+
+    /**
+     * Returns the ray tracer used by {@link RenderMode#RAY_TRACED}, whose lighting can be configured.
+     *
+     * @return The ray tracer of this renderer
+     */
+    @Nonnull
+    public RayTracer getRayTracer() {
+        return rayTracer;
+    }
+
+    /**
+     * Returns the profiler which times the stages of rendering. It is disabled by default.
+     *
+     * @return The profiler of this renderer
+     */
+    @Nonnull
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    //
+    // Rendering
+    //
+
+    /**
+     * Renders a scene into a new frame of the given size.
+     * Frames are allocated on every call, so {@link #render(Scene, Rasterizer)} should be preferred
+     * when rendering more than a few frames.
+     *
+     * @param scene  The scene to render
+     * @param width  The width of the frame in pixels
+     * @param height The height of the frame in pixels
+     * @return The rendered image
+     */
+    @Nonnull
+    public BufferedImage render(@Nonnull Scene scene, int width, int height) {
+        final Rasterizer frame = new Rasterizer(width, height);
+        render(scene, frame);
+        return frame.getImage();
+    }
+
+    /**
+     * Renders a scene into a frame, at the frame's current size.
+     * This must only ever be called from one thread at a time.
+     *
+     * @param scene The scene to render
+     * @param frame The frame to render into
+     */
+    public void render(@Nonnull Scene scene, @Nonnull Rasterizer frame) {
+        profiling = profiler.isEnabled();
+        final long frameStart = profiling ? System.nanoTime() : 0;
+
+        // Take a consistent snapshot of the camera and settings
+        final Vector3 origin = this.origin;
+        final Quaternion angle = this.angle;
+        final double focalLength = this.focalLength;
+        final double nearPlane = this.nearPlane;
+        final RenderMode mode = this.renderMode;
+        final int background = this.background;
+        final int width = frame.getWidth();
+        final int height = frame.getHeight();
+
+        if (mode == RenderMode.RAY_TRACED) {
+            long time = profiling ? profiler.record(FrameStage.SNAPSHOT, frameStart) : 0;
+            rayTracer.render(frame, scene, origin, angle, focalLength, nearPlane, background);
+
+            drawnFaces = 0;
+            culledFaces = 0;
+            occludedMeshes = 0;
+
+            if (profiling) {
+                time = profiler.record(FrameStage.RASTERIZE, time);
+                profiler.recordFrame(time - frameStart, 0, 0);
+            }
+
+            return;
+        }
+
+        culler.setCullMode(cullMode);
+        culler.setView(focalLength, width, height, nearPlane);
+        culler.resetStatistics();
+
+        setView(origin, angle, focalLength, width / 2f, height / 2f);
+
+        long time = profiling ? profiler.record(FrameStage.SNAPSHOT, frameStart) : 0;
+
+        // Cull and project every face into screen space
+        triangles.clear();
+        transformNanos = 0;
+        cullNanos = 0;
+
+        final boolean levelOfDetail = this.levelOfDetail;
+        final double detailRadius = this.detailRadius;
+
+        final List<Model> models = scene.getModels();
+        final List<MeshInstance> instances = scene.getInstances();
+        final int meshCount = models.size() + instances.size();
+
+        if (occlusionCulling && mode != RenderMode.POLYGON) {
+            final long occlusionStart = profiling ? System.nanoTime() : 0;
+            occlusionCuller.begin(focalLength, width, height, nearPlane);
+
+            for (int i = 0; i < meshCount; i++) {
+                final MeshInstance instance = i < models.size() ? null : instances.get(i - models.size());
+                final BoundingSphere bounds = BoundingSphere.of(instance == null ? models.get(i) : instance.getModel());
+                final Vector3 center = bounds.getCenter();
+
+                setModelView(instance);
+                occlusionCenter[0] = center.x();
+                occlusionCenter[1] = center.y();
+                occlusionCenter[2] = center.z();
+                transform(occlusionCenter, 0);
+                occlusionCuller.add(occlusionCenter[0], occlusionCenter[1], occlusionCenter[2], bounds.getRadius());
+            }
+
+            occlusionCuller.selectOccluders(maxOccluders, occluderRadius);
+            cullNanos += profiling ? System.nanoTime() - occlusionStart : 0;
+
+            // Draw the occluders first, so that their depth can be used to cull every other mesh
+            for (int i = 0; i < meshCount; i++) {
+                if (!occlusionCuller.isOccluder(i)) continue;
+
+                final int start = triangles.size();
+                addMesh(models, instances, i, levelOfDetail, detailRadius);
+
+                final long rasterizeStart = profiling ? System.nanoTime() : 0;
+                occlusionCuller.rasterize(triangles, start, triangles.size());
+                cullNanos += profiling ? System.nanoTime() - rasterizeStart : 0;
+            }
+
+            final long pyramidStart = profiling ? System.nanoTime() : 0;
+            occlusionCuller.buildPyramid();
+            cullNanos += profiling ? System.nanoTime() - pyramidStart : 0;
+
+            int occluded = 0;
+            for (int i = 0; i < meshCount; i++) {
+                if (occlusionCuller.isOccluder(i)) continue;
+
+                final long testStart = profiling ? System.nanoTime() : 0;
+                final boolean culled = occlusionCuller.isCulled(i);
+                cullNanos += profiling ? System.nanoTime() - testStart : 0;
+
+                if (culled) {
+                    occluded++;
+                    continue;
+                }
+
+                addMesh(models, instances, i, levelOfDetail, detailRadius);
+            }
+
+            occludedMeshes = occluded;
+        } else {
+            for (int i = 0; i < meshCount; i++) addMesh(models, instances, i, levelOfDetail, detailRadius);
+            occludedMeshes = 0;
+        }
+
+        setModelView(null);
+        final long facesStart = profiling ? System.nanoTime() : 0;
+        for (final Face face : scene.getFaces()) addFace(face);
+
+        drawnFaces = triangles.size();
+        culledFaces = culler.getCulledCount();
+
+        if (profiling) {
+            time = System.nanoTime();
+            profiler.recordDuration(FrameStage.TRANSFORM, transformNanos);
+            profiler.recordDuration(FrameStage.CULL, cullNanos + time - facesStart);
+        }
+
+        // Render faces
+        switch (mode) {
+            case POLYGON -> drawPolygons(frame, background);
+            case PAINTER -> drawSorted(frame, background);
+            case RASTER -> {
+                frame.clear(background);
+
+                for (int i = 0; i < triangles.size(); i++) {
+                    triangles.draw(i, frame, 0, 0, width, height);
+                }
+            }
+            case TILED -> tiledRasterizer.draw(frame, triangles, background);
+        }
+
+        if (profiling) {
+            final long end = profiler.record(FrameStage.RASTERIZE, time);
+            profiler.recordFrame(end - frameStart, drawnFaces, culledFaces);
+        }
+    }
+
+    private void drawPolygons(@Nonnull Rasterizer frame, int background) {
+        final Graphics2D g = frame.getImage().createGraphics();
+
+        // Clear screen
+        g.setColor(new Color(background));
+        g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+
+        final float[] vertices = triangles.getVertices();
+        final int[] colors = triangles.getColors();
+
+        for (int i = 0; i < triangles.size(); i++) {
+            final int o = i * TriangleBuffer.STRIDE;
+
+            if (i == 0 || colors[i] != colors[i - 1]) g.setColor(new Color(colors[i]));
+
+            for (int v = 0; v < 3; v++) {
+                polygonX[v] = (int) vertices[o + v * 3];
+                polygonY[v] = (int) vertices[o + v * 3 + 1];
+            }
+
+            g.fillPolygon(polygonX, polygonY, 3);
+        }
+
+        g.dispose();
+    }
+
+    private void drawSorted(@Nonnull Rasterizer frame, int background) {
+        final Graphics2D g = frame.getImage().createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Clear screen
+        g.setColor(new Color(background));
+        g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+
+        depthSorter.sort(triangles);
+
+        final float[] vertices = triangles.getVertices();
+        final int[] colors = triangles.getColors();
+        final Path2D.Float path = polygonPath;
+        int color = -1;
+
+        for (int i = 0; i < depthSorter.size(); i++) {
+            final int triangle = depthSorter.get(i);
+            final int o = triangle * TriangleBuffer.STRIDE;
+
+            if (i == 0 || colors[triangle] != color) {
+                color = colors[triangle];
+                g.setColor(new Color(color));
+            }
+
+            path.reset();
+            path.moveTo(vertices[o], vertices[o + 1]);
+            path.lineTo(vertices[o + 3], vertices[o + 4]);
+            path.lineTo(vertices[o + 6], vertices[o + 7]);
+            path.closePath();
+
+            g.fill(path);
+        }
+
+        g.dispose();
+    }
+
+    //
+    // Geometry
+    //
+
+    /**
+     * Sets up the view transform for the next frame.
+     * The rotation is captured as a matrix by rotating the basis vectors,
+     * so that every vertex can be transformed without creating objects.
+     */
+    private void setView(@Nonnull Vector3 origin, @Nonnull Quaternion angle, double focalLength, float centerX, float centerY) {
+        putRotation(angle, viewRotation);
+
+        viewOrigin[0] = origin.x();
+        viewOrigin[1] = origin.y();
+        viewOrigin[2] = origin.z();
+
+        this.viewFocalLength = focalLength;
+        this.viewCenterX = centerX;
+        this.viewCenterY = centerY;
+    }
+
+    /**
+     * Combines the transform of a mesh instance with the view transform, so that vertices of its model
+     * are taken into view space with a single matrix multiplication.
+     *
+     * @param instance The instance to draw next, or {@code null} to draw world-space geometry
+     */
+    private void setModelView(@Nullable MeshInstance instance) {
+        final double[] v = viewRotation;
+
+        // Translation of the model's origin in view space
+        double tx = -viewOrigin[0], ty = -viewOrigin[1], tz = -viewOrigin[2];
+
+        if (instance == null) {
+            System.arraycopy(v, 0, modelView, 0, 9);
+        } else {
+            final double[] m = instanceRotation;
+            putRotation(instance.getRotation(), m);
+
+            for (int r = 0; r < 3; r++) {
+                for (int c = 0; c < 3; c++) {
+                    modelView[r * 3 + c] = v[r * 3] * m[c] + v[r * 3 + 1] * m[3 + c] + v[r * 3 + 2] * m[6 + c];
+                }
+            }
+
+            final Vector3 location = instance.getLocation();
+            tx += location.x();
+            ty += location.y();
+            tz += location.z();
+        }
+
+        modelViewOffset[0] = v[0] * tx + v[1] * ty + v[2] * tz;
+        modelViewOffset[1] = v[3] * tx + v[4] * ty + v[5] * tz;
+        modelViewOffset[2] = v[6] * tx + v[7] * ty + v[8] * tz;
+    }
+
+    /**
+     * Writes the rotation matrix of a quaternion in row-major order.
+     * The columns are the basis vectors rotated by the quaternion.
+     */
+    private static void putRotation(@Nonnull Quaternion rotation, @Nonnull double[] matrix) {
+        final Vector3 x = new Vector3(1, 0, 0).rotate(rotation);
+        final Vector3 y = new Vector3(0, 1, 0).rotate(rotation);
+        final Vector3 z = new Vector3(0, 0, 1).rotate(rotation);
+
+        matrix[0] = x.x();
+        matrix[1] = y.x();
+        matrix[2] = z.x();
+        matrix[3] = x.y();
+        matrix[4] = y.y();
+        matrix[5] = z.y();
+        matrix[6] = x.z();
+        matrix[7] = y.z();
+        matrix[8] = z.z();
+    }
+
+    /**
+     * Draws a mesh of the scene, where meshes are numbered through the loose models followed by the instances.
+     */
+    private void addMesh(
+            @Nonnull List<Model> models,
+            @Nonnull List<MeshInstance> instances,
+            int mesh,
+            boolean levelOfDetail,
+            double detailRadius
+    ) {
+        final MeshInstance instance = mesh < models.size() ? null : instances.get(mesh - models.size());
+        final Model model = instance == null ? models.get(mesh) : instance.getModel();
+
+        setModelView(instance);
+        addModel(levelOfDetail ? selectLevel(model, detailRadius) : model);
+    }
+
+    /**
+     * Selects the level of detail to draw a model at, based on the projected radius of its bounding sphere
+     * under the current model-view transform.
+     */
+    @Nonnull
+    private Model selectLevel(@Nonnull Model model, double detailRadius) {
+        final LodChain chain = LodChain.getCached(model);
+        if (chain == null) return model;
+
+        final Vector3 center = chain.getCenter();
+        lodCenter[0] = center.x();
+        lodCenter[1] = center.y();
+        lodCenter[2] = center.z();
+        transform(lodCenter, 0);
+
+        // Draw models which surround the eye at full detail
+        final double depth = viewFocalLength + lodCenter[2];
+        if (depth <= chain.getRadius()) return model;
+
+        final double projectedRadius = viewFocalLength * chain.getRadius() / depth;
+        return chain.getLevel(model, chain.selectLevel(projectedRadius, detailRadius));
+    }
+
+    /**
+     * Transforms and projects every vertex of a model once, then culls and projects its faces by index.
+     */
+    private void addModel(@Nonnull Model model) {
+        final long start = profiling ? System.nanoTime() : 0;
+        final int vertexCount = model.getVertexCount();
+
+        if (viewVertices.length < vertexCount * 3) {
+            viewVertices = new double[vertexCount * 3];
+            screenVertices = new float[vertexCount * 3];
+        }
+
+        final double[] view = viewVertices;
+        final float[] screen = screenVertices;
+
+        for (int i = 0; i < vertexCount; i++) {
+            model.getVertex(i, view, i * 3);
+            transform(view, i * 3);
+
+            final double w = 1 / (viewFocalLength + view[i * 3 + 2]);
+            screen[i * 3] = (float) (viewFocalLength * w * view[i * 3]) + viewCenterX;
+            screen[i * 3 + 1] = (float) (viewFocalLength * w * -view[i * 3 + 1]) + viewCenterY;
+            screen[i * 3 + 2] = (float) w;
+        }
+
+        final long transformed = profiling ? System.nanoTime() : 0;
+        final int faceCount = model.getFaceCount();
+
+        for (int f = 0; f < faceCount; f++) {
+            final int a = model.getFaceVertexIndex(f, 0) * 3;
+            final int b = model.getFaceVertexIndex(f, 1) * 3;
+            final int c = model.getFaceVertexIndex(f, 2) * 3;
+
+            System.arraycopy(view, a, relative, 0, 3);
+            System.arraycopy(view, b, relative, 3, 3);
+            System.arraycopy(view, c, relative, 6, 3);
+
+            final int clippedBefore = culler.getClippedCount();
+            final int count = cull();
+            if (count == 0) continue;
+
+            final int rgb = model.getFaceColor(f).getRGB();
+            final Texture texture = model.getFaceTexture(f);
+
+            if (texture != null) {
+                model.getFaceUV(f, 0, faceUVs, 0);
+                model.getFaceUV(f, 1, faceUVs, 2);
+                model.getFaceUV(f, 2, faceUVs, 4);
+            }
+
+            if (culler.getClippedCount() != clippedBefore) {
+                addClipped(count, rgb, texture);
+            } else if (texture == null) {
+                // Not clipped; the projected vertices can be reused
+                triangles.add(
+                        screen[a], screen[a + 1], screen[a + 2],
+                        screen[b], screen[b + 1], screen[b + 2],
+                        screen[c], screen[c + 1], screen[c + 2],
+                        rgb
+                );
+            } else {
+                final float[] uv = faceUVs;
+                triangles.add(
+                        screen[a], screen[a + 1], screen[a + 2],
+                        screen[b], screen[b + 1], screen[b + 2],
+                        screen[c], screen[c + 1], screen[c + 2],
+                        uv[0], uv[1], uv[2], uv[3], uv[4], uv[5],
+                        texture,
+                        rgb
+                );
+            }
+        }
+
+        if (profiling) {
+            transformNanos += transformed - start;
+            cullNanos += System.nanoTime() - transformed;
+        }
+    }
+
+    /**
+     * Transforms, culls and projects a loose face.
+     */
+    private void addFace(@Nonnull Face face) {
+        putRelative(face.getA(), 0);
+        putRelative(face.getB(), 3);
+        putRelative(face.getC(), 6);
+
+        final int count = cull();
+        if (count > 0) addClipped(count, face.getColor().getRGB(), null);
+    }
+
+    /**
+     * Culls and clips the view-space triangle in {@link #relative}, writing the result into {@link #clipped}.
+     *
+     * @return The number of triangles produced
+     */
+    private int cull() {
+        final double[] r = relative;
+
+        // The view-space normal; rotation preserves the cross product of the edges
+        final double e1x = r[3] - r[0], e1y = r[4] - r[1], e1z = r[5] - r[2];
+        final double e2x = r[6] - r[0], e2y = r[7] - r[1], e2z = r[8] - r[2];
+
+        return culler.cull(r, e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x, clipped);
+    }
+
+    /**
+     * Projects the triangles in {@link #clipped} and adds them to the triangle buffer.
+     * The texture coordinates of textured triangles are interpolated from {@link #faceUVs}.
+     */
+    private void addClipped(int count, int rgb, @Nullable Texture texture) {
+        final double f = viewFocalLength;
+
+        for (int t = 0; t < count; t++) {
+            final int o = t * 9;
+
+            final double w0 = 1 / (f + clipped[o + 2]);
+            final double w1 = 1 / (f + clipped[o + 5]);
+            final double w2 = 1 / (f + clipped[o + 8]);
+
+            final float x0 = (float) (f * w0 * clipped[o]) + viewCenterX;
+            final float y0 = (float) (f * w0 * -clipped[o + 1]) + viewCenterY;
+            final float x1 = (float) (f * w1 * clipped[o + 3]) + viewCenterX;
+            final float y1 = (float) (f * w1 * -clipped[o + 4]) + viewCenterY;
+            final float x2 = (float) (f * w2 * clipped[o + 6]) + viewCenterX;
+            final float y2 = (float) (f * w2 * -clipped[o + 7]) + viewCenterY;
+
+            if (texture == null) {
+                triangles.add(x0, y0, (float) w0, x1, y1, (float) w1, x2, y2, (float) w2, rgb);
+                continue;
+            }
+
+            interpolateUV(o, clippedUVs, 0);
+            interpolateUV(o + 3, clippedUVs, 2);
+            interpolateUV(o + 6, clippedUVs, 4);
+
+            final float[] uv = clippedUVs;
+            triangles.add(
+                    x0, y0, (float) w0, x1, y1, (float) w1, x2, y2, (float) w2,
+                    uv[0], uv[1], uv[2], uv[3], uv[4], uv[5],
+                    texture,
+                    rgb
+            );
+        }
+    }
+
+    /**
+     * Interpolates the texture coordinates of a clipped vertex from the corners of the face it was clipped from,
+     * using its barycentric coordinates within the view-space triangle in {@link #relative}.
+     */
+    private void interpolateUV(int offset, @Nonnull float[] dest, int destOffset) {
+        final double[] r = relative;
+
+        final double e1x = r[3] - r[0], e1y = r[4] - r[1], e1z = r[5] - r[2];
+        final double e2x = r[6] - r[0], e2y = r[7] - r[1], e2z = r[8] - r[2];
+        final double px = clipped[offset] - r[0], py = clipped[offset + 1] - r[1], pz = clipped[offset + 2] - r[2];
+
+        final double d11 = e1x * e1x + e1y * e1y + e1z * e1z;
+        final double d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+        final double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+        final double p1 = px * e1x + py * e1y + pz * e1z;
+        final double p2 = px * e2x + py * e2y + pz * e2z;
+
+        final double denominator = d11 * d22 - d12 * d12;
+        final double u = denominator == 0 ? 0 : (d22 * p1 - d12 * p2) / denominator;
+        final double v = denominator == 0 ? 0 : (d11 * p2 - d12 * p1) / denominator;
+        final double w = 1 - u - v;
+
+        final float[] uv = faceUVs;
+        dest[destOffset] = (float) (w * uv[0] + u * uv[2] + v * uv[4]);
+        dest[destOffset + 1] = (float) (w * uv[1] + u * uv[3] + v * uv[5]);
+    }
+
+    private void putRelative(@Nonnull Vector3 vertex, int offset) {
+        relative[offset] = vertex.x();
+        relative[offset + 1] = vertex.y();
+        relative[offset + 2] = vertex.z();
+        transform(relative, offset);
+    }
+
+    /**
+     * Transforms a point into view space in place, using the current model-view transform.
+     */
+    private void transform(@Nonnull double[] point, int offset) {
+        final double[] m = modelView;
+
+        final double x = point[offset];
+        final double y = point[offset + 1];
+        final double z = point[offset + 2];
+
+        point[offset] = m[0] * x + m[1] * y + m[2] * z + modelViewOffset[0];
+        point[offset + 1] = m[3] * x + m[4] * y + m[5] * z + modelViewOffset[1];
+        point[offset + 2] = m[6] * x + m[7] * y + m[8] * z + modelViewOffset[2];
+    }
+
+
+    //
+    // Variables
+    //
+
+    private final FrameProfiler profiler = new FrameProfiler();
+
+    // Only accessed by the thread which renders frames
+    private final TiledRasterizer tiledRasterizer = new TiledRasterizer();
+    private final RayTracer rayTracer = new RayTracer();
+    private final TriangleBuffer triangles = new TriangleBuffer();
+    private final FaceCuller culler = new FaceCuller();
+    private final OcclusionCuller occlusionCuller = new OcclusionCuller();
+    private final double[] occlusionCenter = new double[3];
+    private final double[] relative = new double[9];
+    private final double[] clipped = new double[18];
+    private final float[] faceUVs = new float[6], clippedUVs = new float[6];
+    private final int[] polygonX = new int[3], polygonY = new int[3];
+    private final DepthSorter depthSorter = new DepthSorter();
+    private final Path2D.Float polygonPath = new Path2D.Float(Path2D.WIND_NON_ZERO, 4);
+
+    // Whether the frame being rendered is profiled, and the time spent in each stage so far
+    private boolean profiling = false;
+    private long transformNanos, cullNanos;
+
+    // The view transform of the frame being rendered, and the transform of the geometry being drawn into view space
+    private final double[] viewRotation = new double[9];
+    private final double[] viewOrigin = new double[3];
+    private final double[] instanceRotation = new double[9];
+    private final double[] modelView = new double[9];
+    private final double[] modelViewOffset = new double[3];
+    private final double[] lodCenter = new double[3];
+    private double viewFocalLength;
+    private float viewCenterX, viewCenterY;
+
+    /**
+     * The view-space position of every vertex of the model being rendered, and its screen-space
+     * position and reciprocal depth. These grow to fit the largest model, and are reused between frames.
+     */
+    private double[] viewVertices = new double[0];
+    private float[] screenVertices = new float[0];
+
+    private volatile int culledFaces = 0;
+    private volatile int drawnFaces = 0;
+    private volatile int occludedMeshes = 0;
+}
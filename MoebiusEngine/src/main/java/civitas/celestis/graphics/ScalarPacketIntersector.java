@@ -0,0 +1,47 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * The portable implementation of {@link PacketIntersector}, processing one ray at a time
+ * with the same triangle intersection kernel as {@link Geometry}.
+ */
+final class ScalarPacketIntersector extends PacketIntersector {
+    @Override
+    public void intersect(@Nonnull RayPacket packet, @Nonnull TriangleBatch triangles) {
+        intersect(packet, triangles, 0);
+    }
+
+    /**
+     * Intersects the rays of the packet starting at the given index.
+     * This is also used by the vectorized implementation to process the remaining rays of a packet.
+     */
+    static void intersect(@Nonnull RayPacket packet, @Nonnull TriangleBatch triangles, int start) {
+        final HitRecord hit = new HitRecord();
+
+        for (int i = start; i < packet.size; i++) {
+            final double ox = packet.ox[i], oy = packet.oy[i], oz = packet.oz[i];
+            final double dx = packet.dx[i], dy = packet.dy[i], dz = packet.dz[i];
+
+            // Only hits closer than the ray's current result are recorded
+            hit.reset(packet.t[i]);
+
+            for (int j = 0; j < triangles.size; j++) {
+                Geometry.intersectEdges(
+                        ox, oy, oz, dx, dy, dz,
+                        triangles.ax[j], triangles.ay[j], triangles.az[j],
+                        triangles.e1x[j], triangles.e1y[j], triangles.e1z[j],
+                        triangles.e2x[j], triangles.e2y[j], triangles.e2z[j],
+                        j, hit
+                );
+            }
+
+            if (!hit.isHit()) continue;
+
+            packet.t[i] = hit.getT();
+            packet.u[i] = hit.getU();
+            packet.v[i] = hit.getV();
+            packet.faces[i] = hit.getFaceIndex();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable snapshot of everything a {@link Viewport} should draw.
+ * Scenes are built by the simulation and handed to the viewport through {@link Viewport#publish(Scene)}.
+ * Since a scene never changes after it is created, the render thread can read it without synchronization,
+ * and any number of {@link Renderer renderers} can draw the same scene concurrently.
+ * <p>
+ * Models are drawn by index, which transforms each of their vertices once per frame,
+ * whereas loose faces transform their three vertices individually. Prefer models for large meshes,
+ * and {@link MeshInstance mesh instances} to place the same model more than once.
+ * </p>
+ */
+public class Scene {
+    /**
+     * A scene which contains nothing.
+     */
+    public static final Scene EMPTY = new Scene(List.of());
+
+    /**
+     * Creates a new scene of loose faces. The collection is copied.
+     *
+     * @param faces The faces of this scene
+     */
+    public Scene(@Nonnull Collection<? extends Face> faces) {
+        this(faces, List.of());
+    }
+
+    /**
+     * Creates a new scene. The collections are copied, but the models are not.
+     * Models must not be modified while they are part of a published scene.
+     *
+     * @param faces  The loose faces of this scene
+     * @param models The models of this scene
+     */
+    public Scene(@Nonnull Collection<? extends Face> faces, @Nonnull Collection<? extends Model> models) {
+        this(faces, models, List.of());
+    }
+
+    /**
+     * Creates a new scene. The collections are copied, but the models are not.
+     * Models must not be modified while they are part of a published scene.
+     *
+     * @param faces     The loose faces of this scene
+     * @param models    The models of this scene, which are placed as they are
+     * @param instances The mesh instances of this scene, which place shared models in the world
+     */
+    public Scene(
+            @Nonnull Collection<? extends Face> faces,
+            @Nonnull Collection<? extends Model> models,
+            @Nonnull Collection<? extends MeshInstance> instances
+    ) {
+        this.faces = List.copyOf(faces);
+        this.models = List.copyOf(models);
+        this.instances = List.copyOf(instances);
+    }
+
+    @Nonnull
+    protected final List<Face> faces;
+    @Nonnull
+    protected final List<Model> models;
+    @Nonnull
+    protected final List<MeshInstance> instances;
+
+    /**
+     * Returns the faces of this scene.
+     *
+     * @return An unmodifiable list of faces
+     */
+    @Nonnull
+    public List<Face> getFaces() {
+        return faces;
+    }
+
+    /**
+     * Returns the models of this scene.
+     *
+     * @return An unmodifiable list of models
+     */
+    @Nonnull
+    public List<Model> getModels() {
+        return models;
+    }
+
+    /**
+     * Returns the mesh instances of this scene.
+     *
+     * @return An unmodifiable list of mesh instances
+     */
+    @Nonnull
+    public List<MeshInstance> getInstances() {
+        return instances;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "Scene{" +
+                "faces=" + faces.size() +
+                ", models=" + models.size() +
+                ", instances=" + instances.size() +
+                '}';
+    }
+}
@@ -10,6 +10,8 @@ import de.javagl.obj.Obj;
 import de.javagl.obj.ObjFace;
 import jakarta.annotation.Nonnull;
 
+import java.util.Objects;
+
 public class SimpleModel implements Model {
 
     public SimpleModel(@Nonnull Obj obj, double scale) {
@@ -38,24 +40,41 @@ public class SimpleModel implements Model {
 
         this.uvCoordinates = uvs.tuple();
 
-        final SafeArray<Face> faces = new FastArray<>(obj.getNumFaces());
+        int faceCount = 0;
+        for (int i = 0; i < obj.getNumFaces(); i++) {
+            faceCount += Math.max(0, obj.getFace(i).getNumVertices() - 2);
+        }
+
+        final SafeArray<Face> faces = new FastArray<>(faceCount);
+        final int[] indices = new int[faceCount * 3];
+        int index = 0;
 
         for (int i = 0; i < obj.getNumFaces(); i++) {
             final ObjFace face = obj.getFace(i);
 
-            final Vector3 v1 = vertices.get(face.getVertexIndex(0));
-            final Vector3 v2 = vertices.get(face.getVertexIndex(1));
-            final Vector3 v3 = vertices.get(face.getVertexIndex(2));
+            // Fan polygons into triangles; use ObjParser for concave polygons
+            for (int k = 1; k < face.getNumVertices() - 1; k++) {
+                // Swapping the X and Z axes mirrors the model; reverse the winding so normals keep facing outwards
+                indices[index * 3] = face.getVertexIndex(0);
+                indices[index * 3 + 1] = face.getVertexIndex(k + 1);
+                indices[index * 3 + 2] = face.getVertexIndex(k);
 
-            faces.set(i, new Face(v1, v2, v3));
+                final Vector3 v1 = this.vertices.get(indices[index * 3]);
+                final Vector3 v2 = this.vertices.get(indices[index * 3 + 1]);
+                final Vector3 v3 = this.vertices.get(indices[index * 3 + 2]);
+
+                faces.set(index++, new Face(v1, v2, v3));
+            }
         }
 
         this.faces = faces.tuple();
+        this.indices = indices;
     }
 
     protected final Tuple<Vector3> vertices, normals;
     protected final Tuple<Vector2> uvCoordinates;
     protected final Tuple<Face> faces;
+    protected final int[] indices;
 
     @Nonnull
     @Override
@@ -120,6 +139,13 @@ public class SimpleModel implements Model {
         return faces.size();
     }
 
+    @Override
+    public int getFaceVertexIndex(int face, int corner) throws IndexOutOfBoundsException {
+        Objects.checkIndex(face, faces.size());
+        Objects.checkIndex(corner, 3);
+        return indices[face * 3 + corner];
+    }
+
     @Nonnull
     @Override
     public String toString() {
@@ -0,0 +1,77 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.util.tuple.Tuple;
+import jakarta.annotation.Nonnull;
+
+/**
+ * A batch of triangles stored as a structure of arrays, ready for bulk intersection tests.
+ * Each triangle is stored as its first vertex and the two edges leading to its second and third vertices.
+ * <p>
+ * The batch copies the vertices of the faces it was created from.
+ * Changes made to the faces afterwards are not reflected in the batch.
+ * </p>
+ *
+ * @see Geometry#intersect(RayPacket, TriangleBatch)
+ */
+public class TriangleBatch {
+    /**
+     * Creates a new triangle batch from the faces of a model.
+     *
+     * @param model The model to copy the faces of
+     */
+    public TriangleBatch(@Nonnull Model model) {
+        this(model.getFaces());
+    }
+
+    /**
+     * Creates a new triangle batch from the given faces.
+     * The face indices reported by intersection tests refer to indices within the provided tuple.
+     *
+     * @param faces The faces to copy
+     */
+    public TriangleBatch(@Nonnull Tuple<? extends Face> faces) {
+        this.size = faces.size();
+
+        this.ax = new double[size];
+        this.ay = new double[size];
+        this.az = new double[size];
+        this.e1x = new double[size];
+        this.e1y = new double[size];
+        this.e1z = new double[size];
+        this.e2x = new double[size];
+        this.e2y = new double[size];
+        this.e2z = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            final Face face = faces.get(i);
+            final Vector3 a = face.getA();
+            final Vector3 b = face.getB();
+            final Vector3 c = face.getC();
+
+            ax[i] = a.x();
+            ay[i] = a.y();
+            az[i] = a.z();
+            e1x[i] = b.x() - a.x();
+            e1y[i] = b.y() - a.y();
+            e1z[i] = b.z() - a.z();
+            e2x[i] = c.x() - a.x();
+            e2y[i] = c.y() - a.y();
+            e2z[i] = c.z() - a.z();
+        }
+    }
+
+    protected final int size;
+    protected final double[] ax, ay, az;
+    protected final double[] e1x, e1y, e1z;
+    protected final double[] e2x, e2y, e2z;
+
+    /**
+     * Returns the number of triangles in this batch.
+     *
+     * @return The number of triangles
+     */
+    public int size() {
+        return size;
+    }
+}
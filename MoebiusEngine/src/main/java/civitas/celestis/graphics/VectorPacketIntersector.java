@@ -0,0 +1,91 @@
+package civitas.celestis.graphics;
+
+import jakarta.annotation.Nonnull;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD implementation of {@link PacketIntersector}.
+ * Each lane holds one ray of the packet, and every triangle is broadcast across all lanes.
+ * Rays which do not fill a whole vector are processed by the scalar implementation.
+ * <p>
+ * This class must only be loaded when the {@code jdk.incubator.vector} module is present.
+ * </p>
+ */
+final class VectorPacketIntersector extends PacketIntersector {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void intersect(@Nonnull RayPacket packet, @Nonnull TriangleBatch triangles) {
+        final int bound = SPECIES.loopBound(packet.size);
+
+        final DoubleVector epsilon = DoubleVector.broadcast(SPECIES, Geometry.HIT_EPSILON);
+        final DoubleVector parallel = DoubleVector.broadcast(SPECIES, Geometry.PARALLEL_EPSILON);
+        final DoubleVector zero = DoubleVector.zero(SPECIES);
+        final DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            final DoubleVector ox = DoubleVector.fromArray(SPECIES, packet.ox, i);
+            final DoubleVector oy = DoubleVector.fromArray(SPECIES, packet.oy, i);
+            final DoubleVector oz = DoubleVector.fromArray(SPECIES, packet.oz, i);
+            final DoubleVector dx = DoubleVector.fromArray(SPECIES, packet.dx, i);
+            final DoubleVector dy = DoubleVector.fromArray(SPECIES, packet.dy, i);
+            final DoubleVector dz = DoubleVector.fromArray(SPECIES, packet.dz, i);
+
+            DoubleVector best = DoubleVector.fromArray(SPECIES, packet.t, i);
+            DoubleVector bestU = DoubleVector.fromArray(SPECIES, packet.u, i);
+            DoubleVector bestV = DoubleVector.fromArray(SPECIES, packet.v, i);
+            DoubleVector bestFace = DoubleVector.fromArray(SPECIES, packet.faces, i);
+
+            for (int j = 0; j < triangles.size; j++) {
+                final double e1x = triangles.e1x[j], e1y = triangles.e1y[j], e1z = triangles.e1z[j];
+                final double e2x = triangles.e2x[j], e2y = triangles.e2y[j], e2z = triangles.e2z[j];
+
+                // P = D x E2
+                final DoubleVector px = dy.mul(e2z).sub(dz.mul(e2y));
+                final DoubleVector py = dz.mul(e2x).sub(dx.mul(e2z));
+                final DoubleVector pz = dx.mul(e2y).sub(dy.mul(e2x));
+
+                final DoubleVector determinant = px.mul(e1x).add(py.mul(e1y)).add(pz.mul(e1z));
+                VectorMask<Double> mask = determinant.abs().compare(VectorOperators.GE, parallel);
+                if (!mask.anyTrue()) continue;
+
+                final DoubleVector inverse = one.div(determinant);
+                final DoubleVector sx = ox.sub(triangles.ax[j]);
+                final DoubleVector sy = oy.sub(triangles.ay[j]);
+                final DoubleVector sz = oz.sub(triangles.az[j]);
+
+                final DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(inverse);
+                mask = mask.and(u.compare(VectorOperators.GE, zero)).and(u.compare(VectorOperators.LE, one));
+                if (!mask.anyTrue()) continue;
+
+                // Q = S x E1
+                final DoubleVector qx = sy.mul(e1z).sub(sz.mul(e1y));
+                final DoubleVector qy = sz.mul(e1x).sub(sx.mul(e1z));
+                final DoubleVector qz = sx.mul(e1y).sub(sy.mul(e1x));
+
+                final DoubleVector v = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(inverse);
+                mask = mask.and(v.compare(VectorOperators.GE, zero)).and(u.add(v).compare(VectorOperators.LE, one));
+                if (!mask.anyTrue()) continue;
+
+                final DoubleVector t = qx.mul(e2x).add(qy.mul(e2y)).add(qz.mul(e2z)).mul(inverse);
+                mask = mask.and(t.compare(VectorOperators.GT, epsilon)).and(t.compare(VectorOperators.LT, best));
+                if (!mask.anyTrue()) continue;
+
+                best = best.blend(t, mask);
+                bestU = bestU.blend(u, mask);
+                bestV = bestV.blend(v, mask);
+                bestFace = bestFace.blend(j, mask);
+            }
+
+            best.intoArray(packet.t, i);
+            bestU.intoArray(packet.u, i);
+            bestV.intoArray(packet.v, i);
+            bestFace.intoArray(packet.faces, i);
+        }
+
+        ScalarPacketIntersector.intersect(packet, triangles, bound);
+    }
+}
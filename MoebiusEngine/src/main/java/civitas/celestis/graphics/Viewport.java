@@ -1,56 +1,358 @@
 package civitas.celestis.graphics;
 
+import civitas.celestis.graphics.profile.FrameProfiler;
+import civitas.celestis.graphics.profile.FrameStage;
+import civitas.celestis.graphics.profile.LatencyHistogram;
+import civitas.celestis.graphics.render.FaceCuller;
+import civitas.celestis.graphics.render.Rasterizer;
+import civitas.celestis.graphics.render.TripleBuffer;
 import civitas.celestis.math.complex.Quaternion;
-import civitas.celestis.math.vector.Vector2;
 import civitas.celestis.math.vector.Vector3;
 import jakarta.annotation.Nonnull;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * A component which renders a {@link Scene}.
+ * <p>
+ * Scenes are handed to the viewport with {@link #publish(Scene)}, which never blocks.
+ * Once {@link #start()} has been called, frames are rendered on a dedicated render thread
+ * and handed to Swing through a triple buffer, so that {@link #paint(Graphics)} only presents finished frames.
+ * If the render thread is not running, frames are rendered on the painting thread instead.
+ * Frames are drawn by a {@link Renderer}, to which the camera and settings of the viewport are copied every frame.
+ * </p>
+ * <p>
+ * Each stage of rendering can be timed by enabling the viewport's {@link #getProfiler() profiler},
+ * and its statistics can be drawn over every frame with {@link #profilerOverlay}.
+ * </p>
+ */
 public class Viewport extends JComponent {
     public Viewport() {
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(@Nonnull ComponentEvent e) {
+                recordSize();
+            }
+        });
+    }
+
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    public volatile Vector3 origin = Vector3.ZERO;
+    public volatile Quaternion angle = Quaternion.IDENTITY;
+
+    public volatile double focalLength = 350;
+
+    /**
+     * The distance from the eye to the near plane. Faces crossing it are clipped, and faces behind it are culled.
+     */
+    public volatile double nearPlane = 1;
+
+    /**
+     * The maximum number of frames the render thread produces per second, or {@code 0} for no limit.
+     */
+    public volatile int maxFrameRate = 144;
+
+    /**
+     * Whether models are drawn with fewer faces when they appear small on screen.
+     * The {@link LodChain} of a model is built in the background the first time it is drawn,
+     * and the model is drawn at full detail until it is ready.
+     */
+    public volatile boolean levelOfDetail = true;
+
+    /**
+     * The radius on screen in pixels at and above which models are drawn at full detail.
+     * Below it, the number of faces drawn falls in proportion to the area the model covers.
+     */
+    public volatile double detailRadius = 300;
+
+    /**
+     * Whether the statistics of the {@link #getProfiler() profiler} are drawn over each frame.
+     * The profiler has to be enabled separately.
+     */
+    public volatile boolean profilerOverlay = false;
+
+    /**
+     * Whether whole meshes hidden behind other meshes are skipped before any of their faces are transformed.
+     * The meshes which appear largest on screen are drawn first as occluders, and every other mesh is tested
+     * against a depth pyramid built from them by an {@link OcclusionCuller}. This has no effect in
+     * {@link RenderMode#POLYGON}, which draws faces in scene order without depth testing.
+     */
+    public volatile boolean occlusionCulling = true;
+
+    /**
+     * The maximum number of meshes drawn as occluders in each frame.
+     */
+    public volatile int maxOccluders = 8;
+
+    /**
+     * The radius on screen in pixels a mesh must at least appear to have to be drawn as an occluder.
+     */
+    public volatile double occluderRadius = 32;
+
+    public volatile RenderMode renderMode = RenderMode.POLYGON;
+    public volatile FaceCuller.CullMode cullMode = FaceCuller.CullMode.BACK;
+
+    //
+    // Scene
+    //
+
+    /**
+     * Publishes a scene to be drawn from the next frame onwards.
+     * This never blocks, and must only be called from one thread at a time.
+     *
+     * @param scene The scene to draw
+     */
+    public void publish(@Nonnull Scene scene) {
+        scenes.publish(scene);
+    }
+
+    //
+    // Statistics
+    //
+
+    /**
+     * Returns the number of faces culled while rendering the last frame.
+     *
+     * @return The number of culled faces
+     */
+    public int getCulledFaceCount() {
+        return renderer.getCulledFaceCount();
+    }
+
+    /**
+     * Returns the number of triangles drawn in the last frame, including those produced by near-plane clipping.
+     *
+     * @return The number of drawn triangles
+     */
+    public int getDrawnFaceCount() {
+        return renderer.getDrawnFaceCount();
+    }
+
+    /**
+     * Returns the number of meshes skipped by occlusion culling while rendering the last frame.
+     *
+     * @return The number of occluded meshes
+     */
+    public int getOccludedMeshCount() {
+        return renderer.getOccludedMeshCount();
+    }
+
+    /**
+     * Returns the ray tracer used by {@link RenderMode#RAY_TRACED}, whose lighting can be configured.
+     *
+     * @return The ray tracer of this viewport
+     */
+    @Nonnull
+    public RayTracer getRayTracer() {
+        return renderer.getRayTracer();
+    }
+
+    /**
+     * Returns the profiler which times the stages of rendering. It is disabled by default.
+     *
+     * @return The profiler of this viewport
+     */
+    @Nonnull
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    //
+    // Render thread
+    //
+
+    /**
+     * Starts rendering frames on a dedicated thread. This does nothing if the thread is already running.
+     */
+    public synchronized void start() {
+        if (renderThread != null) return;
+
+        renderThread = new Thread(this::renderLoop, "Viewport-Render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    /**
+     * Stops the render thread, and waits for the frame in progress to finish.
+     */
+    public synchronized void stop() {
+        final Thread thread = renderThread;
+        if (thread == null) return;
+
+        thread.interrupt();
+
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    public Vector3 origin = Vector3.ZERO;
-    public Quaternion angle = Quaternion.IDENTITY;
+    private void renderLoop() {
+        try {
+            long lastFrame = System.nanoTime();
+
+            while (!Thread.currentThread().isInterrupted()) {
+                // Swing state must not be read off the event dispatch thread, which records the size for this thread
+                final int width = recordedWidth;
+                final int height = recordedHeight;
+
+                if (width > 0 && height > 0) {
+                    synchronized (renderLock) {
+                        render(frames.getWriteSlot(), width, height);
+                        frames.publish();
+                    }
+
+                    repaint();
+                }
+
+                // Limit the frame rate
+                final int limit = maxFrameRate;
+                final long interval = limit > 0 ? TimeUnit.SECONDS.toNanos(1) / limit : 0;
+                final long wait = lastFrame + interval - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
 
-    public final List<Face> faces = new ArrayList<>();
+                lastFrame = System.nanoTime();
+            }
+        } finally {
+            // Painting renders on its own once this is cleared, so this only happens once the last frame is published
+            synchronized (renderLock) {
+                if (renderThread == Thread.currentThread()) renderThread = null;
+            }
+        }
+    }
 
-    public double focalLength = 350;
+    //
+    // Painting
+    //
 
     @Override
     public void paint(@Nonnull Graphics g) {
+        recordSize();
 
-        if (painting) return;
+        synchronized (renderLock) {
+            if (renderThread == null) {
+                // Render synchronously when there is no render thread
+                render(frames.getWriteSlot(), getWidth(), getHeight());
+                frames.publish();
+            }
+        }
 
-        painting = true;
-        // Clear screen
-        g.setColor(new Color(15, 15, 15));
-        g.fillRect(0, 0, getWidth(), getHeight());
+        final boolean profiling = profiler.isEnabled();
+        final long start = profiling ? System.nanoTime() : 0;
 
-        g.translate(getWidth() / 2, getHeight() / 2);
+        final Rasterizer frame = frames.acquire();
+        if (frame != null) g.drawImage(frame.getImage(), 0, 0, null);
 
-        // Render faces
-        for (final Face face : List.copyOf(faces)) {
-            final Polygon polygon = new Polygon();
+        if (profiling) profiler.record(FrameStage.PRESENT, start);
+        if (profilerOverlay) drawOverlay(g);
+    }
 
-            for (final Vector3 vertex : face.getVertices()) {
-                final Vector3 relative = vertex.subtract(origin).rotate(angle);
-                final Vector2 mapped = Geometry.translate3Dto2D(relative, focalLength);
-                polygon.addPoint((int) mapped.x(), (int) mapped.y());
-            }
+    /**
+     * Draws the statistics of the profiler in the top left corner.
+     */
+    private void drawOverlay(@Nonnull Graphics g) {
+        final String[] lines = new String[FrameStage.values().length + 2];
+        lines[0] = String.format("%-10s %8s %8s %8s", "ms", "p50", "p99", "max");
 
-            g.setColor(face.getColor());
-            g.fillPolygon(polygon);
+        for (final FrameStage stage : FrameStage.values()) {
+            lines[stage.ordinal() + 1] = formatOverlayLine(stage.name().toLowerCase(), profiler.getHistogram(stage));
         }
 
+        lines[lines.length - 1] = formatOverlayLine("frame", profiler.getFrameHistogram()) + String.format(
+                "   %d drawn, %d culled", profiler.getDrawnFaceCount(), profiler.getCulledFaceCount()
+        );
 
-        g.dispose();
-        painting = false;
+        g.setFont(OVERLAY_FONT);
+        final FontMetrics metrics = g.getFontMetrics();
+        final int lineHeight = metrics.getHeight();
+
+        int width = 0;
+        for (final String line : lines) width = Math.max(width, metrics.stringWidth(line));
+
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(0, 0, width + 16, lines.length * lineHeight + 12);
+
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 8, 6 + metrics.getAscent() + i * lineHeight);
+        }
+    }
+
+    @Nonnull
+    private static String formatOverlayLine(@Nonnull String name, @Nonnull LatencyHistogram histogram) {
+        return String.format(
+                "%-10s %8.2f %8.2f %8.2f",
+                name,
+                histogram.getPercentile(0.5) / 1e6,
+                histogram.getPercentile(0.99) / 1e6,
+                histogram.getMax() / 1e6
+        );
+    }
+
+    /**
+     * Renders the latest scene into the given frame, with the camera and settings of this viewport.
+     * This must only ever be called from one thread at a time.
+     *
+     * @param frame  The frame to render into
+     * @param width  The width of the frame in pixels
+     * @param height The height of the frame in pixels
+     */
+    private void render(@Nonnull Rasterizer frame, int width, int height) {
+        final Scene scene = Objects.requireNonNullElse(scenes.acquire(), Scene.EMPTY);
+
+        renderer.origin = origin;
+        renderer.angle = angle;
+        renderer.focalLength = focalLength;
+        renderer.nearPlane = nearPlane;
+        renderer.levelOfDetail = levelOfDetail;
+        renderer.detailRadius = detailRadius;
+        renderer.occlusionCulling = occlusionCulling;
+        renderer.maxOccluders = maxOccluders;
+        renderer.occluderRadius = occluderRadius;
+        renderer.renderMode = renderMode;
+        renderer.cullMode = cullMode;
+
+        frame.resize(width, height);
+        renderer.render(scene, frame);
+    }
+
+    /**
+     * Records the size of this component for the render thread. This must be called by the thread painting this component.
+     */
+    private void recordSize() {
+        recordedWidth = getWidth();
+        recordedHeight = getHeight();
     }
 
-    private boolean painting = false;
+    //
+    // Variables
+    //
+
+    private final TripleBuffer<Scene> scenes = new TripleBuffer<>();
+    private final TripleBuffer<Rasterizer> frames = new TripleBuffer<>(() -> new Rasterizer(1, 1));
+    private volatile Thread renderThread = null;
+
+    /**
+     * The size of this component, as last recorded by the thread painting it.
+     */
+    private volatile int recordedWidth = 0, recordedHeight = 0;
+
+    /**
+     * Held while a frame is rendered and published, so that painting and the render thread never render at once.
+     * The renderer and the write slot of the frame buffer are only used by one thread at a time.
+     */
+    private final Object renderLock = new Object();
+
+    // Only used while holding the render lock
+    private final Renderer renderer = new Renderer();
+    private final FrameProfiler profiler = renderer.getProfiler();
 }
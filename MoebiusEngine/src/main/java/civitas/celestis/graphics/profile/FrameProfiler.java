@@ -0,0 +1,228 @@
+package civitas.celestis.graphics.profile;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Records how long each {@link FrameStage stage} of rendering takes, and how many faces each frame draws and culls.
+ * <p>
+ * Profilers start disabled. While disabled, a renderer should only check {@link #isEnabled()} once per frame,
+ * and skip every other call, so that profiling costs nothing when it is not in use.
+ * Durations are recorded into {@link LatencyHistogram}s, so stages can be recorded from
+ * the render thread and the painting thread while statistics are read from any other thread.
+ * </p>
+ * <p>
+ * Statistics can be published over JMX with {@link #register(String)}.
+ * </p>
+ */
+public class FrameProfiler implements FrameProfilerMXBean {
+    /**
+     * Creates a new disabled frame profiler.
+     */
+    public FrameProfiler() {
+        final FrameStage[] values = FrameStage.values();
+        this.stages = new LatencyHistogram[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    private volatile boolean enabled = false;
+
+    private final LatencyHistogram[] stages;
+    private final LatencyHistogram frames = new LatencyHistogram();
+    private volatile int drawnFaces = 0;
+    private volatile int culledFaces = 0;
+
+    @Nullable
+    private ObjectName objectName = null;
+
+    //
+    // State
+    //
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    //
+    // Recording
+    //
+
+    /**
+     * Records the duration of a stage which started at the given time, and ended now.
+     * Since the end of one stage is the start of the next, the result can be passed to the next call.
+     *
+     * @param stage The stage which ended
+     * @param start The value of {@link System#nanoTime()} when the stage started
+     * @return The value of {@link System#nanoTime()} when the stage ended
+     */
+    public long record(@Nonnull FrameStage stage, long start) {
+        final long now = System.nanoTime();
+        stages[stage.ordinal()].record(now - start);
+        return now;
+    }
+
+    /**
+     * Records the duration of a stage.
+     *
+     * @param stage The stage
+     * @param nanos The duration of the stage in nanoseconds
+     */
+    public void recordDuration(@Nonnull FrameStage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records a finished frame.
+     *
+     * @param nanos       The time taken to render the frame in nanoseconds, excluding presentation
+     * @param drawnFaces  The number of triangles drawn
+     * @param culledFaces The number of faces culled
+     */
+    public void recordFrame(long nanos, int drawnFaces, int culledFaces) {
+        frames.record(nanos);
+        this.drawnFaces = drawnFaces;
+        this.culledFaces = culledFaces;
+    }
+
+    @Override
+    public void reset() {
+        for (final LatencyHistogram stage : stages) stage.reset();
+        frames.reset();
+    }
+
+    //
+    // Statistics
+    //
+
+    /**
+     * Returns the histogram of durations of a stage.
+     *
+     * @param stage The stage
+     * @return The histogram of the stage
+     */
+    @Nonnull
+    public LatencyHistogram getHistogram(@Nonnull FrameStage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    /**
+     * Returns the histogram of the durations of whole frames, excluding presentation.
+     *
+     * @return The histogram of frames
+     */
+    @Nonnull
+    public LatencyHistogram getFrameHistogram() {
+        return frames;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frames.getCount();
+    }
+
+    @Override
+    public int getDrawnFaceCount() {
+        return drawnFaces;
+    }
+
+    @Override
+    public int getCulledFaceCount() {
+        return culledFaces;
+    }
+
+    @Override
+    public StageStatistics getFrame() {
+        return StageStatistics.of(frames);
+    }
+
+    @Override
+    public StageStatistics getSnapshot() {
+        return StageStatistics.of(getHistogram(FrameStage.SNAPSHOT));
+    }
+
+    @Override
+    public StageStatistics getTransform() {
+        return StageStatistics.of(getHistogram(FrameStage.TRANSFORM));
+    }
+
+    @Override
+    public StageStatistics getCull() {
+        return StageStatistics.of(getHistogram(FrameStage.CULL));
+    }
+
+    @Override
+    public StageStatistics getRasterize() {
+        return StageStatistics.of(getHistogram(FrameStage.RASTERIZE));
+    }
+
+    @Override
+    public StageStatistics getPresent() {
+        return StageStatistics.of(getHistogram(FrameStage.PRESENT));
+    }
+
+    //
+    // JMX
+    //
+
+    /**
+     * Publishes this profiler to the platform MBean server under
+     * {@code civitas.celestis:type=FrameProfiler,name=<name>}. This does nothing if it is already published.
+     *
+     * @param name The name to publish this profiler under
+     * @throws IllegalStateException When the profiler could not be registered, such as when the name is taken
+     */
+    public synchronized void register(@Nonnull String name) throws IllegalStateException {
+        if (objectName != null) return;
+
+        try {
+            final ObjectName objectName = new ObjectName("civitas.celestis:type=FrameProfiler,name=" + ObjectName.quote(name));
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (final JMException e) {
+            throw new IllegalStateException("The frame profiler could not be registered.", e);
+        }
+    }
+
+    /**
+     * Removes this profiler from the platform MBean server. This does nothing if it is not published.
+     *
+     * @throws IllegalStateException When the profiler could not be unregistered
+     */
+    public synchronized void unregister() throws IllegalStateException {
+        if (objectName == null) return;
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        } catch (final JMException e) {
+            throw new IllegalStateException("The frame profiler could not be unregistered.", e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "FrameProfiler{" +
+                "enabled=" + enabled +
+                ", frames=" + frames +
+                '}';
+    }
+}
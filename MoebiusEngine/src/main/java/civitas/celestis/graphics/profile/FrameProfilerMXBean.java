@@ -0,0 +1,33 @@
+package civitas.celestis.graphics.profile;
+
+/**
+ * The management interface of a {@link FrameProfiler}, as published over JMX.
+ */
+public interface FrameProfilerMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getFrameCount();
+
+    int getDrawnFaceCount();
+
+    int getCulledFaceCount();
+
+    StageStatistics getFrame();
+
+    StageStatistics getSnapshot();
+
+    StageStatistics getTransform();
+
+    StageStatistics getCull();
+
+    StageStatistics getRasterize();
+
+    StageStatistics getPresent();
+
+    /**
+     * Removes every recorded duration.
+     */
+    void reset();
+}
@@ -0,0 +1,32 @@
+package civitas.celestis.graphics.profile;
+
+/**
+ * The stages of rendering a frame, which a {@link FrameProfiler} times separately.
+ */
+public enum FrameStage {
+    /**
+     * Acquiring the latest scene and camera, and setting up the view transform.
+     */
+    SNAPSHOT,
+
+    /**
+     * Transforming and projecting the vertices of models.
+     */
+    TRANSFORM,
+
+    /**
+     * Culling, clipping and projecting faces into the triangle buffer.
+     * Loose faces are transformed in this stage, since they are transformed one face at a time.
+     */
+    CULL,
+
+    /**
+     * Drawing the triangle buffer into the frame.
+     */
+    RASTERIZE,
+
+    /**
+     * Copying a finished frame onto the screen.
+     */
+    PRESENT
+}
@@ -0,0 +1,161 @@
+package civitas.celestis.graphics.profile;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Durations are counted in log-linear buckets: every power of two is split into
+ * {@value #SUB_BUCKETS} equally sized buckets, so percentiles are accurate to within about 6%
+ * at any magnitude, while the histogram stays a fixed size. Recording is a single atomic increment,
+ * so any number of threads can record and read at the same time without blocking.
+ * Readers see a histogram which may be a few samples behind the writers.
+ * </p>
+ */
+public class LatencyHistogram {
+    /**
+     * Creates a new empty histogram.
+     */
+    public LatencyHistogram() {
+    }
+
+    //
+    // Constants
+    //
+
+    /**
+     * The number of bits of each value which select the bucket within its power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of buckets each power of two is split into.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The total number of buckets, which covers every non-negative {@code long}.
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    //
+    // Variables
+    //
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    //
+    // Recording
+    //
+
+    /**
+     * Records a duration. Negative durations are recorded as zero.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) current = max.get();
+    }
+
+    /**
+     * Removes every recorded duration. Durations recorded concurrently may or may not be removed.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        max.set(0);
+    }
+
+    //
+    // Statistics
+    //
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return The number of durations
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the longest recorded duration.
+     *
+     * @return The longest duration in nanoseconds, or {@code 0} if nothing has been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration which the given fraction of recorded durations are shorter than or equal to.
+     * The result is the upper bound of the bucket the percentile falls into, but never more than the maximum.
+     *
+     * @param fraction The fraction of durations, between {@code 0} and {@code 1}
+     * @return The percentile in nanoseconds, or {@code 0} if nothing has been recorded
+     */
+    public long getPercentile(double fraction) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        if (total == 0) return 0;
+
+        final long target = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, fraction)) * total));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(upperBound(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    //
+    // Buckets
+    //
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long base = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        final long upper = base + (1L << shift) - 1;
+
+        // The top bucket would overflow
+        return upper < base ? Long.MAX_VALUE : upper;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "count=" + getCount() +
+                ", p50=" + TimeUnit.NANOSECONDS.toMicros(getPercentile(0.5)) + "us" +
+                ", p99=" + TimeUnit.NANOSECONDS.toMicros(getPercentile(0.99)) + "us" +
+                ", max=" + TimeUnit.NANOSECONDS.toMicros(getMax()) + "us" +
+                '}';
+    }
+}
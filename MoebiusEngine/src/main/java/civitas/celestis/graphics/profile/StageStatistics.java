@@ -0,0 +1,74 @@
+package civitas.celestis.graphics.profile;
+
+import jakarta.annotation.Nonnull;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable summary of a {@link LatencyHistogram}, as published over JMX by a {@link FrameProfilerMXBean}.
+ */
+public class StageStatistics {
+    /**
+     * Creates a new summary.
+     *
+     * @param count     The number of recorded durations
+     * @param p50Millis The median duration in milliseconds
+     * @param p99Millis The 99th percentile duration in milliseconds
+     * @param maxMillis The longest duration in milliseconds
+     */
+    @ConstructorProperties({"count", "p50Millis", "p99Millis", "maxMillis"})
+    public StageStatistics(long count, double p50Millis, double p99Millis, double maxMillis) {
+        this.count = count;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Summarizes a histogram.
+     *
+     * @param histogram The histogram to summarize
+     * @return The summary
+     */
+    @Nonnull
+    public static StageStatistics of(@Nonnull LatencyHistogram histogram) {
+        return new StageStatistics(
+                histogram.getCount(),
+                histogram.getPercentile(0.5) / 1e6,
+                histogram.getPercentile(0.99) / 1e6,
+                histogram.getMax() / 1e6
+        );
+    }
+
+    private final long count;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "StageStatistics{" +
+                "count=" + count +
+                ", p50Millis=" + p50Millis +
+                ", p99Millis=" + p99Millis +
+                ", maxMillis=" + maxMillis +
+                '}';
+    }
+}
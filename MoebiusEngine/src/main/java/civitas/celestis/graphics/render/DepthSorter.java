@@ -0,0 +1,229 @@
+package civitas.celestis.graphics.render;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Arrays;
+
+/**
+ * Sorts the triangles of a {@link TriangleBuffer} from back to front, for drawing with the painter's algorithm.
+ * <p>
+ * Triangles are keyed by the depth of their centroid in view space, which is packed together with
+ * the index of the triangle into a single {@code long}, so that sorting never allocates or boxes.
+ * Keys are sorted with an in-place most significant digit radix sort, which hands small buckets over
+ * to an insertion sort.
+ * </p>
+ * <p>
+ * Between frames of a still or slowly moving scene, the order of the triangles barely changes.
+ * When a buffer holds as many triangles as the one sorted before it, the previous order is therefore
+ * tried first, and repaired with an insertion sort. This takes linear time when only a few triangles
+ * have swapped places. If the repair moves more than {@value #REPAIR_BUDGET} keys per triangle,
+ * the keys are radix sorted instead.
+ * </p>
+ * <p>
+ * This class is not thread-safe. It is meant to be used by the thread which renders frames.
+ * </p>
+ */
+public class DepthSorter {
+    /**
+     * The number of keys per triangle the insertion sort may move when repairing the previous order.
+     */
+    public static final int REPAIR_BUDGET = 4;
+
+    /**
+     * The size of the buckets at and below which the radix sort falls back to an insertion sort.
+     */
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /**
+     * Creates a new depth sorter.
+     */
+    public DepthSorter() {
+    }
+
+    //
+    // Variables
+    //
+
+    /**
+     * The sort keys, with the key in the upper and the index of the triangle in the lower 32 bits.
+     * These are kept between calls, since their order is the starting point of the next sort.
+     */
+    private long[] keys = new long[1024];
+    private int size = 0;
+
+    /**
+     * The size and the next free slot of each bucket, for each byte of the key.
+     */
+    private final int[][] counts = new int[4][256];
+    private final int[][] next = new int[4][256];
+
+    private boolean repaired = false;
+
+    //
+    // Sorting
+    //
+
+    /**
+     * Sorts the triangles of a buffer from back to front.
+     *
+     * @param triangles The triangles to sort
+     */
+    public void sort(@Nonnull TriangleBuffer triangles) {
+        final int count = triangles.size();
+        final float[] vertices = triangles.getVertices();
+
+        if (keys.length < count) keys = Arrays.copyOf(keys, Math.max(count, keys.length * 2));
+        final long[] a = keys;
+
+        // Start from the previous order if it contains the same triangles
+        final boolean coherent = count == size;
+        for (int i = 0; i < count; i++) {
+            final int triangle = coherent ? (int) a[i] : i;
+            a[i] = (long) key(vertices, triangle) << 32 | triangle;
+        }
+
+        size = count;
+        repaired = coherent && repair(a, count);
+        if (!repaired) radixSort(a, 0, count, 0);
+    }
+
+    /**
+     * Returns the number of triangles sorted by the last call to {@link #sort(TriangleBuffer)}.
+     *
+     * @return The number of triangles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of a triangle by its position in the sorted order.
+     *
+     * @param i The position in the sorted order, where {@code 0} is the farthest triangle
+     * @return The index of the triangle in the sorted buffer
+     * @throws IndexOutOfBoundsException When the position is out of bounds
+     */
+    public int get(int i) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("The index " + i + " is out of bounds.");
+        return (int) keys[i];
+    }
+
+    /**
+     * Checks whether the last sort repaired the order of the sort before it, instead of sorting from scratch.
+     *
+     * @return {@code true} if the previous order was reused
+     */
+    public boolean isRepaired() {
+        return repaired;
+    }
+
+    //
+    // Internals
+    //
+
+    /**
+     * Returns the sort key of a triangle. Farther triangles have smaller keys, and keys are never negative.
+     */
+    private static int key(@Nonnull float[] vertices, int triangle) {
+        final int o = triangle * TriangleBuffer.STRIDE;
+
+        // The depth of the eye to each vertex is the reciprocal of its stored depth, so this is three times the centroid's
+        final float depth = 1 / vertices[o + 2] + 1 / vertices[o + 5] + 1 / vertices[o + 8];
+
+        // The bits of a non-negative float sort in the same order as its value
+        return Integer.MAX_VALUE - Math.max(0, Float.floatToIntBits(depth));
+    }
+
+    /**
+     * Repairs a nearly sorted range with an insertion sort.
+     *
+     * @return {@code false} if the budget of moves was exceeded, leaving the keys permuted but unsorted
+     */
+    private static boolean repair(@Nonnull long[] a, int count) {
+        long budget = (long) count * REPAIR_BUDGET;
+
+        for (int i = 1; i < count; i++) {
+            final long value = a[i];
+            int j = i - 1;
+
+            while (j >= 0 && a[j] > value) {
+                a[j + 1] = a[j];
+                j--;
+
+                if (--budget < 0) {
+                    a[j + 1] = value;
+                    return false;
+                }
+            }
+
+            a[j + 1] = value;
+        }
+
+        return true;
+    }
+
+    private static void insertionSort(@Nonnull long[] a, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final long value = a[i];
+            int j = i - 1;
+
+            while (j >= from && a[j] > value) {
+                a[j + 1] = a[j];
+                j--;
+            }
+
+            a[j + 1] = value;
+        }
+    }
+
+    /**
+     * Sorts a range in place by one byte of the key, then recursively sorts each bucket by the following bytes.
+     *
+     * @param digit The byte of the key to sort by, from {@code 0} for the most significant
+     */
+    private void radixSort(@Nonnull long[] a, int from, int to, int digit) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            insertionSort(a, from, to);
+            return;
+        }
+
+        final int shift = 56 - digit * 8;
+        final int[] count = counts[digit];
+        final int[] free = next[digit];
+
+        Arrays.fill(count, 0);
+        for (int i = from; i < to; i++) count[(int) (a[i] >>> shift) & 0xFF]++;
+
+        for (int b = 0, start = from; b < 256; b++) {
+            free[b] = start;
+            start += count[b];
+        }
+
+        // Swap every key into its bucket, filling the buckets from the front
+        for (int b = 0, end = from; b < 256; b++) {
+            end += count[b];
+
+            while (free[b] < end) {
+                long value = a[free[b]];
+                int bucket = (int) (value >>> shift) & 0xFF;
+
+                while (bucket != b) {
+                    final long displaced = a[free[bucket]];
+                    a[free[bucket]++] = value;
+                    value = displaced;
+                    bucket = (int) (value >>> shift) & 0xFF;
+                }
+
+                a[free[b]++] = value;
+            }
+        }
+
+        if (digit == 3) return;
+
+        for (int b = 0, start = from; b < 256; b++) {
+            final int end = start + count[b];
+            if (count[b] > 1) radixSort(a, start, end, digit + 1);
+            start = end;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package civitas.celestis.graphics.render;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Rejects and clips view-space triangles before they are projected onto the screen.
+ * <p>
+ * View space places the eye at {@code (0, 0, -focalLength)}, looking towards positive Z,
+ * which matches {@link civitas.celestis.graphics.Geometry#translate3Dto2D(civitas.celestis.math.vector.Vector3, double)
+ * Geometry.translate3Dto2D}. A triangle is culled when its normal faces away from the eye,
+ * or when all of its vertices lie outside the same plane of the view frustum.
+ * Triangles which cross the near plane are clipped against it, which produces up to two triangles.
+ * </p>
+ * <p>
+ * The number of culled and clipped triangles is counted until {@link #resetStatistics()} is called.
+ * </p>
+ */
+public class FaceCuller {
+    /**
+     * Creates a new face culler.
+     */
+    public FaceCuller() {
+    }
+
+    //
+    // Variables
+    //
+
+    private CullMode cullMode = CullMode.BACK;
+    private double focalLength = 350;
+    private double nearPlane = 1;
+    private double slopeX = 1, slopeY = 1;
+
+    private int culled = 0;
+    private int clipped = 0;
+
+    /**
+     * Temporary storage for the polygon produced by clipping against the near plane.
+     */
+    private final double[] polygon = new double[12];
+
+    //
+    // Configuration
+    //
+
+    @Nonnull
+    public CullMode getCullMode() {
+        return cullMode;
+    }
+
+    public void setCullMode(@Nonnull CullMode cullMode) {
+        this.cullMode = cullMode;
+    }
+
+    /**
+     * Sets up the view frustum for the next frame.
+     *
+     * @param focalLength The focal length of the projection
+     * @param width       The width of the screen in pixels
+     * @param height      The height of the screen in pixels
+     * @param nearPlane   The distance from the eye to the near plane
+     */
+    public void setView(double focalLength, int width, int height, double nearPlane) {
+        this.focalLength = focalLength;
+        this.nearPlane = nearPlane;
+
+        // A point is on screen when |x| <= (focalLength + z) * slopeX, and likewise for Y
+        this.slopeX = (width / 2d) / focalLength;
+        this.slopeY = (height / 2d) / focalLength;
+    }
+
+    //
+    // Statistics
+    //
+
+    /**
+     * Returns the number of triangles culled since the statistics were last reset.
+     *
+     * @return The number of culled triangles
+     */
+    public int getCulledCount() {
+        return culled;
+    }
+
+    /**
+     * Returns the number of triangles clipped against the near plane since the statistics were last reset.
+     *
+     * @return The number of clipped triangles
+     */
+    public int getClippedCount() {
+        return clipped;
+    }
+
+    /**
+     * Resets the culled and clipped counters.
+     */
+    public void resetStatistics() {
+        culled = 0;
+        clipped = 0;
+    }
+
+    //
+    // Culling
+    //
+
+    /**
+     * Culls and clips a view-space triangle.
+     *
+     * @param in  The triangle to process, as the X, Y and Z of each of its three vertices
+     * @param nx  The X component of the triangle's view-space normal
+     * @param ny  The Y component of the triangle's view-space normal
+     * @param nz  The Z component of the triangle's view-space normal
+     * @param out The array to write the resulting triangles into, which must hold at least 18 elements
+     * @return The number of triangles written, between {@code 0} and {@code 2}
+     */
+    public int cull(@Nonnull double[] in, double nx, double ny, double nz, @Nonnull double[] out) {
+        if (cullMode != CullMode.NONE) {
+            // The vector from the first vertex towards the eye
+            final double ex = -in[0], ey = -in[1], ez = -focalLength - in[2];
+            final double facing = nx * ex + ny * ey + nz * ez;
+
+            if (cullMode == CullMode.BACK ? facing <= 0 : facing >= 0) {
+                culled++;
+                return 0;
+            }
+        }
+
+        // Classify the vertices against each plane of the frustum
+        int near = 0, left = 0, right = 0, bottom = 0, top = 0;
+
+        for (int i = 0; i < 9; i += 3) {
+            final double depth = focalLength + in[i + 2];
+            final double limitX = depth * slopeX;
+            final double limitY = depth * slopeY;
+
+            if (depth < nearPlane) near++;
+            if (in[i] < -limitX) left++;
+            if (in[i] > limitX) right++;
+            if (in[i + 1] < -limitY) bottom++;
+            if (in[i + 1] > limitY) top++;
+        }
+
+        if (near == 3 || left == 3 || right == 3 || bottom == 3 || top == 3) {
+            culled++;
+            return 0;
+        }
+
+        if (near == 0) {
+            System.arraycopy(in, 0, out, 0, 9);
+            return 1;
+        }
+
+        clipped++;
+        return clipNear(in, out);
+    }
+
+    /**
+     * Clips a triangle against the near plane, then fans the resulting polygon into triangles.
+     */
+    private int clipNear(@Nonnull double[] in, @Nonnull double[] out) {
+        final double plane = nearPlane - focalLength;
+        int count = 0;
+
+        for (int i = 0; i < 3; i++) {
+            final int a = i * 3;
+            final int b = ((i + 1) % 3) * 3;
+
+            final boolean aInside = in[a + 2] >= plane;
+            final boolean bInside = in[b + 2] >= plane;
+
+            if (aInside) {
+                polygon[count++] = in[a];
+                polygon[count++] = in[a + 1];
+                polygon[count++] = in[a + 2];
+            }
+
+            if (aInside != bInside) {
+                final double t = (plane - in[a + 2]) / (in[b + 2] - in[a + 2]);
+
+                polygon[count++] = in[a] + (in[b] - in[a]) * t;
+                polygon[count++] = in[a + 1] + (in[b + 1] - in[a + 1]) * t;
+                polygon[count++] = plane;
+            }
+        }
+
+        final int vertices = count / 3;
+        if (vertices < 3) return 0;
+
+        System.arraycopy(polygon, 0, out, 0, 9);
+        if (vertices == 3) return 1;
+
+        // Quadrilateral; emit the second half of the fan
+        System.arraycopy(polygon, 0, out, 9, 3);
+        System.arraycopy(polygon, 6, out, 12, 6);
+        return 2;
+    }
+
+    /**
+     * Selects which triangles are culled based on the direction their normal faces.
+     */
+    public enum CullMode {
+        /**
+         * No triangles are culled based on their normal.
+         */
+        NONE,
+
+        /**
+         * Triangles whose normal faces away from the eye are culled.
+         */
+        BACK,
+
+        /**
+         * Triangles whose normal faces towards the eye are culled.
+         */
+        FRONT
+    }
+}
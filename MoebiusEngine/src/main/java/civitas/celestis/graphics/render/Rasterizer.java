@@ -0,0 +1,491 @@
+package civitas.celestis.graphics.render;
+
+import jakarta.annotation.Nonnull;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A software rasterizer which draws depth-tested triangles into an {@code int[]} framebuffer.
+ * The framebuffer backs a {@link BufferedImage}, so a finished frame can be presented with a single blit.
+ * <p>
+ * Triangles are scanned with edge functions in 28.4 fixed point, and follow the top-left fill rule,
+ * so that triangles which share an edge never draw the same pixel twice or leave gaps between them.
+ * Depth is given as the reciprocal of view-space depth, which interpolates linearly in screen space.
+ * Larger values are closer to the camera, and a cleared depth buffer holds {@code 0}.
+ * </p>
+ * <p>
+ * Triangles can either be filled with a single color, or with a mipmapped {@link Texture}.
+ * </p>
+ */
+public class Rasterizer {
+    //
+    // Constants
+    //
+
+    /**
+     * The number of fractional bits used for sub-pixel precision.
+     */
+    private static final int SUB_PIXEL_BITS = 4;
+
+    /**
+     * The size of one pixel in fixed point units.
+     */
+    private static final int SUB_PIXEL_STEP = 1 << SUB_PIXEL_BITS;
+
+    /**
+     * Triangles with any vertex further than this many pixels from the origin are not drawn.
+     * This keeps every edge function within the range of a {@code long}.
+     */
+    private static final float GUARD_BAND = 1 << 20;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new rasterizer.
+     *
+     * @param width  The width of the framebuffer in pixels
+     * @param height The height of the framebuffer in pixels
+     */
+    public Rasterizer(int width, int height) {
+        resize(width, height);
+    }
+
+    //
+    // Variables
+    //
+
+    private BufferedImage image;
+    private int[] pixels;
+    private float[] depth;
+    private int width, height;
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the image this rasterizer draws into.
+     * The image is replaced when the rasterizer is resized.
+     *
+     * @return The image backed by the framebuffer
+     */
+    @Nonnull
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the framebuffer of this rasterizer, one packed RGB pixel per element in row-major order.
+     * This is not a copy.
+     *
+     * @return The framebuffer
+     */
+    @Nonnull
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Returns the depth buffer of this rasterizer. This is not a copy.
+     *
+     * @return The depth buffer
+     */
+    @Nonnull
+    public float[] getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Resizes the framebuffer. This does nothing if the size has not changed.
+     *
+     * @param width  The new width in pixels
+     * @param height The new height in pixels
+     */
+    public void resize(int width, int height) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        if (image != null && this.width == width && this.height == height) return;
+
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.depth = new float[width * height];
+    }
+
+    /**
+     * Fills the framebuffer with the given color and clears the depth buffer.
+     *
+     * @param rgb The packed RGB color to fill the framebuffer with
+     */
+    public void clear(int rgb) {
+        Arrays.fill(pixels, rgb);
+        Arrays.fill(depth, 0);
+    }
+
+    /**
+     * Fills a rectangle of the framebuffer with the given color and clears the depth buffer within it.
+     *
+     * @param rgb  The packed RGB color to fill the rectangle with
+     * @param minX The minimum X coordinate of the rectangle (inclusive)
+     * @param minY The minimum Y coordinate of the rectangle (inclusive)
+     * @param maxX The maximum X coordinate of the rectangle (exclusive)
+     * @param maxY The maximum Y coordinate of the rectangle (exclusive)
+     */
+    public void clear(int rgb, int minX, int minY, int maxX, int maxY) {
+        for (int y = minY; y < maxY; y++) {
+            final int offset = y * width;
+            Arrays.fill(pixels, offset + minX, offset + maxX, rgb);
+            Arrays.fill(depth, offset + minX, offset + maxX, 0);
+        }
+    }
+
+    /**
+     * Draws a triangle into the framebuffer.
+     *
+     * @param x0  The X coordinate of the first vertex in pixels
+     * @param y0  The Y coordinate of the first vertex in pixels
+     * @param w0  The reciprocal depth of the first vertex
+     * @param x1  The X coordinate of the second vertex in pixels
+     * @param y1  The Y coordinate of the second vertex in pixels
+     * @param w1  The reciprocal depth of the second vertex
+     * @param x2  The X coordinate of the third vertex in pixels
+     * @param y2  The Y coordinate of the third vertex in pixels
+     * @param w2  The reciprocal depth of the third vertex
+     * @param rgb The packed RGB color of the triangle
+     */
+    public void fillTriangle(
+            float x0, float y0, float w0,
+            float x1, float y1, float w1,
+            float x2, float y2, float w2,
+            int rgb
+    ) {
+        fillTriangle(x0, y0, w0, x1, y1, w1, x2, y2, w2, rgb, 0, 0, width, height);
+    }
+
+    /**
+     * Draws the part of a triangle which lies within the given rectangle into the framebuffer.
+     * Pixels outside the rectangle are never read or written, which allows disjoint regions
+     * of the same framebuffer to be drawn concurrently.
+     *
+     * @param x0   The X coordinate of the first vertex in pixels
+     * @param y0   The Y coordinate of the first vertex in pixels
+     * @param w0   The reciprocal depth of the first vertex
+     * @param x1   The X coordinate of the second vertex in pixels
+     * @param y1   The Y coordinate of the second vertex in pixels
+     * @param w1   The reciprocal depth of the second vertex
+     * @param x2   The X coordinate of the third vertex in pixels
+     * @param y2   The Y coordinate of the third vertex in pixels
+     * @param w2   The reciprocal depth of the third vertex
+     * @param rgb  The packed RGB color of the triangle
+     * @param minX The minimum X coordinate of the rectangle (inclusive)
+     * @param minY The minimum Y coordinate of the rectangle (inclusive)
+     * @param maxX The maximum X coordinate of the rectangle (exclusive)
+     * @param maxY The maximum Y coordinate of the rectangle (exclusive)
+     */
+    public void fillTriangle(
+            float x0, float y0, float w0,
+            float x1, float y1, float w1,
+            float x2, float y2, float w2,
+            int rgb,
+            int minX, int minY, int maxX, int maxY
+    ) {
+        if (!(Math.abs(x0) < GUARD_BAND && Math.abs(y0) < GUARD_BAND
+                && Math.abs(x1) < GUARD_BAND && Math.abs(y1) < GUARD_BAND
+                && Math.abs(x2) < GUARD_BAND && Math.abs(y2) < GUARD_BAND)) return;
+
+        // Snap the vertices to the sub-pixel grid
+        long fx0 = Math.round(x0 * SUB_PIXEL_STEP), fy0 = Math.round(y0 * SUB_PIXEL_STEP);
+        long fx1 = Math.round(x1 * SUB_PIXEL_STEP), fy1 = Math.round(y1 * SUB_PIXEL_STEP);
+        long fx2 = Math.round(x2 * SUB_PIXEL_STEP), fy2 = Math.round(y2 * SUB_PIXEL_STEP);
+
+        long area = (fx1 - fx0) * (fy2 - fy0) - (fy1 - fy0) * (fx2 - fx0);
+        if (area == 0) return;
+
+        // Both windings are drawn; normalize to a positive area
+        if (area < 0) {
+            long swap = fx1;
+            fx1 = fx2;
+            fx2 = swap;
+            swap = fy1;
+            fy1 = fy2;
+            fy2 = swap;
+
+            final float sw = w1;
+            w1 = w2;
+            w2 = sw;
+
+            final float sx = x1;
+            x1 = x2;
+            x2 = sx;
+            final float sy = y1;
+            y1 = y2;
+            y2 = sy;
+
+            area = -area;
+        }
+
+        // Bounding box of the triangle, clipped to the rectangle
+        final int left = Math.max(minX, (int) ((Math.min(fx0, Math.min(fx1, fx2)) >> SUB_PIXEL_BITS)));
+        final int top = Math.max(minY, (int) ((Math.min(fy0, Math.min(fy1, fy2)) >> SUB_PIXEL_BITS)));
+        final int right = Math.min(maxX - 1, (int) ((Math.max(fx0, Math.max(fx1, fx2)) >> SUB_PIXEL_BITS)));
+        final int bottom = Math.min(maxY - 1, (int) ((Math.max(fy0, Math.max(fy1, fy2)) >> SUB_PIXEL_BITS)));
+        if (left > right || top > bottom) return;
+
+        // Edge function steps per pixel
+        final long a01 = (fy0 - fy1) * SUB_PIXEL_STEP, b01 = (fx1 - fx0) * SUB_PIXEL_STEP;
+        final long a12 = (fy1 - fy2) * SUB_PIXEL_STEP, b12 = (fx2 - fx1) * SUB_PIXEL_STEP;
+        final long a20 = (fy2 - fy0) * SUB_PIXEL_STEP, b20 = (fx0 - fx2) * SUB_PIXEL_STEP;
+
+        // Edge functions at the center of the first pixel, biased by the top-left rule
+        final long px = ((long) left << SUB_PIXEL_BITS) + SUB_PIXEL_STEP / 2;
+        final long py = ((long) top << SUB_PIXEL_BITS) + SUB_PIXEL_STEP / 2;
+
+        long row01 = edge(fx0, fy0, fx1, fy1, px, py) + bias(fx0, fy0, fx1, fy1);
+        long row12 = edge(fx1, fy1, fx2, fy2, px, py) + bias(fx1, fy1, fx2, fy2);
+        long row20 = edge(fx2, fy2, fx0, fy0, px, py) + bias(fx2, fy2, fx0, fy0);
+
+        // Plane equation of the reciprocal depth in screen space
+        final double inverseArea = (double) (SUB_PIXEL_STEP * SUB_PIXEL_STEP) / area;
+        final double dx1 = x1 - x0, dy1 = y1 - y0, dx2 = x2 - x0, dy2 = y2 - y0;
+        final double dw1 = w1 - w0, dw2 = w2 - w0;
+
+        final float dwdx = (float) ((dw1 * dy2 - dw2 * dy1) * inverseArea);
+        final float dwdy = (float) ((dw2 * dx1 - dw1 * dx2) * inverseArea);
+        float rowW = (float) (w0 + dwdx * (left + 0.5 - x0) + dwdy * (top + 0.5 - y0));
+
+        final int[] pixels = this.pixels;
+        final float[] depth = this.depth;
+
+        for (int y = top; y <= bottom; y++) {
+            long e01 = row01, e12 = row12, e20 = row20;
+            float w = rowW;
+            int index = y * width + left;
+
+            for (int x = left; x <= right; x++, index++) {
+                if ((e01 | e12 | e20) >= 0 && w > depth[index]) {
+                    depth[index] = w;
+                    pixels[index] = rgb;
+                }
+
+                e01 += a01;
+                e12 += a12;
+                e20 += a20;
+                w += dwdx;
+            }
+
+            row01 += b01;
+            row12 += b12;
+            row20 += b20;
+            rowW += dwdy;
+        }
+    }
+
+    /**
+     * Draws the part of a textured triangle which lies within the given rectangle into the framebuffer.
+     * Texture coordinates are interpolated with perspective correction, and the mip level of each pixel
+     * is selected from the screen-space derivatives of its texture coordinates.
+     * The texture is multiplied by the color of the triangle.
+     *
+     * @param x0      The X coordinate of the first vertex in pixels
+     * @param y0      The Y coordinate of the first vertex in pixels
+     * @param w0      The reciprocal depth of the first vertex
+     * @param x1      The X coordinate of the second vertex in pixels
+     * @param y1      The Y coordinate of the second vertex in pixels
+     * @param w1      The reciprocal depth of the second vertex
+     * @param x2      The X coordinate of the third vertex in pixels
+     * @param y2      The Y coordinate of the third vertex in pixels
+     * @param w2      The reciprocal depth of the third vertex
+     * @param u0      The U coordinate of the first vertex
+     * @param v0      The V coordinate of the first vertex
+     * @param u1      The U coordinate of the second vertex
+     * @param v1      The V coordinate of the second vertex
+     * @param u2      The U coordinate of the third vertex
+     * @param v2      The V coordinate of the third vertex
+     * @param texture The texture of the triangle
+     * @param rgb     The packed RGB color of the triangle
+     * @param minX    The minimum X coordinate of the rectangle (inclusive)
+     * @param minY    The minimum Y coordinate of the rectangle (inclusive)
+     * @param maxX    The maximum X coordinate of the rectangle (exclusive)
+     * @param maxY    The maximum Y coordinate of the rectangle (exclusive)
+     */
+    public void fillTriangle(
+            float x0, float y0, float w0,
+            float x1, float y1, float w1,
+            float x2, float y2, float w2,
+            float u0, float v0,
+            float u1, float v1,
+            float u2, float v2,
+            @Nonnull Texture texture,
+            int rgb,
+            int minX, int minY, int maxX, int maxY
+    ) {
+        if (!(Math.abs(x0) < GUARD_BAND && Math.abs(y0) < GUARD_BAND
+                && Math.abs(x1) < GUARD_BAND && Math.abs(y1) < GUARD_BAND
+                && Math.abs(x2) < GUARD_BAND && Math.abs(y2) < GUARD_BAND)) return;
+
+        // Snap the vertices to the sub-pixel grid
+        long fx0 = Math.round(x0 * SUB_PIXEL_STEP), fy0 = Math.round(y0 * SUB_PIXEL_STEP);
+        long fx1 = Math.round(x1 * SUB_PIXEL_STEP), fy1 = Math.round(y1 * SUB_PIXEL_STEP);
+        long fx2 = Math.round(x2 * SUB_PIXEL_STEP), fy2 = Math.round(y2 * SUB_PIXEL_STEP);
+
+        long area = (fx1 - fx0) * (fy2 - fy0) - (fy1 - fy0) * (fx2 - fx0);
+        if (area == 0) return;
+
+        // Both windings are drawn; normalize to a positive area
+        if (area < 0) {
+            long swap = fx1;
+            fx1 = fx2;
+            fx2 = swap;
+            swap = fy1;
+            fy1 = fy2;
+            fy2 = swap;
+
+            float sf = w1;
+            w1 = w2;
+            w2 = sf;
+            sf = x1;
+            x1 = x2;
+            x2 = sf;
+            sf = y1;
+            y1 = y2;
+            y2 = sf;
+            sf = u1;
+            u1 = u2;
+            u2 = sf;
+            sf = v1;
+            v1 = v2;
+            v2 = sf;
+
+            area = -area;
+        }
+
+        // Bounding box of the triangle, clipped to the rectangle
+        final int left = Math.max(minX, (int) ((Math.min(fx0, Math.min(fx1, fx2)) >> SUB_PIXEL_BITS)));
+        final int top = Math.max(minY, (int) ((Math.min(fy0, Math.min(fy1, fy2)) >> SUB_PIXEL_BITS)));
+        final int right = Math.min(maxX - 1, (int) ((Math.max(fx0, Math.max(fx1, fx2)) >> SUB_PIXEL_BITS)));
+        final int bottom = Math.min(maxY - 1, (int) ((Math.max(fy0, Math.max(fy1, fy2)) >> SUB_PIXEL_BITS)));
+        if (left > right || top > bottom) return;
+
+        // Edge function steps per pixel
+        final long a01 = (fy0 - fy1) * SUB_PIXEL_STEP, b01 = (fx1 - fx0) * SUB_PIXEL_STEP;
+        final long a12 = (fy1 - fy2) * SUB_PIXEL_STEP, b12 = (fx2 - fx1) * SUB_PIXEL_STEP;
+        final long a20 = (fy2 - fy0) * SUB_PIXEL_STEP, b20 = (fx0 - fx2) * SUB_PIXEL_STEP;
+
+        // Edge functions at the center of the first pixel, biased by the top-left rule
+        final long px = ((long) left << SUB_PIXEL_BITS) + SUB_PIXEL_STEP / 2;
+        final long py = ((long) top << SUB_PIXEL_BITS) + SUB_PIXEL_STEP / 2;
+
+        long row01 = edge(fx0, fy0, fx1, fy1, px, py) + bias(fx0, fy0, fx1, fy1);
+        long row12 = edge(fx1, fy1, fx2, fy2, px, py) + bias(fx1, fy1, fx2, fy2);
+        long row20 = edge(fx2, fy2, fx0, fy0, px, py) + bias(fx2, fy2, fx0, fy0);
+
+        // Plane equations of the reciprocal depth, and of the texture coordinates divided by depth
+        final double inverseArea = (double) (SUB_PIXEL_STEP * SUB_PIXEL_STEP) / area;
+        final double dx1 = x1 - x0, dy1 = y1 - y0, dx2 = x2 - x0, dy2 = y2 - y0;
+        final double cx = left + 0.5 - x0, cy = top + 0.5 - y0;
+
+        final double dw1 = w1 - w0, dw2 = w2 - w0;
+        final float dwdx = (float) ((dw1 * dy2 - dw2 * dy1) * inverseArea);
+        final float dwdy = (float) ((dw2 * dx1 - dw1 * dx2) * inverseArea);
+        float rowW = (float) (w0 + dwdx * cx + dwdy * cy);
+
+        final double du1 = u1 * w1 - u0 * w0, du2 = u2 * w2 - u0 * w0;
+        final float dudx = (float) ((du1 * dy2 - du2 * dy1) * inverseArea);
+        final float dudy = (float) ((du2 * dx1 - du1 * dx2) * inverseArea);
+        float rowU = (float) (u0 * w0 + dudx * cx + dudy * cy);
+
+        final double dv1 = v1 * w1 - v0 * w0, dv2 = v2 * w2 - v0 * w0;
+        final float dvdx = (float) ((dv1 * dy2 - dv2 * dy1) * inverseArea);
+        final float dvdy = (float) ((dv2 * dx1 - dv1 * dx2) * inverseArea);
+        float rowV = (float) (v0 * w0 + dvdx * cx + dvdy * cy);
+
+        final float textureWidth = texture.getWidth(), textureHeight = texture.getHeight();
+        final int red = rgb >> 16 & 0xFF, green = rgb >> 8 & 0xFF, blue = rgb & 0xFF;
+
+        final int[] pixels = this.pixels;
+        final float[] depth = this.depth;
+
+        for (int y = top; y <= bottom; y++) {
+            long e01 = row01, e12 = row12, e20 = row20;
+            float w = rowW, uw = rowU, vw = rowV;
+            int index = y * width + left;
+
+            for (int x = left; x <= right; x++, index++) {
+                if ((e01 | e12 | e20) >= 0 && w > depth[index]) {
+                    final float z = 1 / w;
+                    final float u = uw * z, v = vw * z;
+
+                    // The derivatives of the texture coordinates, in texels of the full-resolution level
+                    final float uX = (dudx - u * dwdx) * z * textureWidth, vX = (dvdx - v * dwdx) * z * textureHeight;
+                    final float uY = (dudy - u * dwdy) * z * textureWidth, vY = (dvdy - v * dwdy) * z * textureHeight;
+                    final int level = texture.selectLevel(Math.max(uX * uX + vX * vX, uY * uY + vY * vY));
+
+                    final int texel = texture.sample(u, v, level);
+
+                    depth[index] = w;
+                    pixels[index] = modulate(texel >> 16 & 0xFF, red) << 16
+                            | modulate(texel >> 8 & 0xFF, green) << 8
+                            | modulate(texel & 0xFF, blue);
+                }
+
+                e01 += a01;
+                e12 += a12;
+                e20 += a20;
+                w += dwdx;
+                uw += dudx;
+                vw += dvdx;
+            }
+
+            row01 += b01;
+            row12 += b12;
+            row20 += b20;
+            rowW += dwdy;
+            rowU += dudy;
+            rowV += dvdy;
+        }
+    }
+
+    /**
+     * Multiplies two color channels, where {@code 255} is one.
+     */
+    private static int modulate(int a, int b) {
+        return (a * b + 255) >> 8;
+    }
+
+    /**
+     * Evaluates the edge function of the edge from A to B at point P.
+     * This is positive for points to the inside of a triangle with positive area.
+     */
+    private static long edge(long ax, long ay, long bx, long by, long px, long py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+
+    /**
+     * Returns the bias which excludes pixel centers lying exactly on an edge,
+     * unless the edge is a top edge or a left edge.
+     */
+    private static long bias(long ax, long ay, long bx, long by) {
+        final long dx = bx - ax;
+        final long dy = by - ay;
+
+        final boolean topLeft = (dy == 0 && dx > 0) || dy < 0;
+        return topLeft ? 0 : -1;
+    }
+}
@@ -0,0 +1,294 @@
+package civitas.celestis.graphics.render;
+
+import jakarta.annotation.Nonnull;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An immutable mipmapped texture, sampled by the {@link Rasterizer}.
+ * <p>
+ * The full chain of mip levels is built when the texture is created, each level being a box-filtered
+ * half of the one before it, down to a single texel. Texels are stored in square tiles of
+ * {@value #TILE_SIZE} by {@value #TILE_SIZE} texels, which are laid out row by row. Within a tile,
+ * texels are laid out in Morton order. Texels which are close to each other in both directions
+ * therefore mostly share a tile, so that sampling along any direction across the screen touches few cache lines.
+ * </p>
+ * <p>
+ * Texture coordinates wrap around in both directions. Following the OBJ convention,
+ * {@code v = 0} is the bottom row of the image.
+ * </p>
+ */
+public class Texture {
+    /**
+     * The width and height of a tile in texels.
+     */
+    public static final int TILE_SIZE = 8;
+
+    /**
+     * The number of bits of a texel coordinate which select the texel within its tile.
+     */
+    private static final int TILE_BITS = 3;
+
+    /**
+     * The interleaved bits of every coordinate within a tile, for the X axis. Shift left by one for the Y axis.
+     */
+    private static final int[] MORTON = {0, 1, 4, 5, 16, 17, 20, 21};
+
+    /**
+     * Creates a new texture from an image, and builds its mip chain.
+     *
+     * @param image The image of the texture
+     */
+    public Texture(@Nonnull BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+
+        int levels = 1;
+        while ((width >> levels) > 0 || (height >> levels) > 0) levels++;
+
+        this.widths = new int[levels];
+        this.heights = new int[levels];
+        this.tileColumns = new int[levels];
+        this.offsets = new int[levels];
+
+        int size = 0;
+        for (int l = 0; l < levels; l++) {
+            widths[l] = Math.max(1, width >> l);
+            heights[l] = Math.max(1, height >> l);
+            tileColumns[l] = (widths[l] + TILE_SIZE - 1) >> TILE_BITS;
+
+            offsets[l] = size;
+            size += tileColumns[l] * ((heights[l] + TILE_SIZE - 1) >> TILE_BITS) * TILE_SIZE * TILE_SIZE;
+        }
+
+        this.texels = new int[size];
+
+        final int[] row = image.getRGB(0, 0, width, height, null, 0, width);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                texels[index(0, x, y)] = row[y * width + x];
+            }
+        }
+
+        for (int l = 1; l < levels; l++) downsample(l);
+    }
+
+    /**
+     * Reads an image file into a new texture.
+     *
+     * @param path The path of the image file
+     * @return The loaded texture
+     * @throws IOException When the file cannot be read, or is not an image in a supported format
+     */
+    @Nonnull
+    public static Texture load(@Nonnull Path path) throws IOException {
+        final BufferedImage image;
+
+        try (final var in = Files.newInputStream(path)) {
+            image = ImageIO.read(in);
+        }
+
+        if (image == null) throw new IOException("The file " + path + " is not an image in a supported format.");
+        return new Texture(image);
+    }
+
+    private final int[] texels;
+    private final int[] widths, heights, tileColumns, offsets;
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the width of the full-resolution level.
+     *
+     * @return The width in texels
+     */
+    public int getWidth() {
+        return widths[0];
+    }
+
+    /**
+     * Returns the height of the full-resolution level.
+     *
+     * @return The height in texels
+     */
+    public int getHeight() {
+        return heights[0];
+    }
+
+    /**
+     * Returns the number of mip levels, including the full-resolution level.
+     *
+     * @return The number of levels
+     */
+    public int getLevelCount() {
+        return widths.length;
+    }
+
+    /**
+     * Returns the width of a mip level.
+     *
+     * @param level The level
+     * @return The width in texels
+     * @throws IndexOutOfBoundsException When the level is out of bounds
+     */
+    public int getWidth(int level) throws IndexOutOfBoundsException {
+        return widths[level];
+    }
+
+    /**
+     * Returns the height of a mip level.
+     *
+     * @param level The level
+     * @return The height in texels
+     * @throws IndexOutOfBoundsException When the level is out of bounds
+     */
+    public int getHeight(int level) throws IndexOutOfBoundsException {
+        return heights[level];
+    }
+
+    /**
+     * Returns a single texel of a mip level.
+     *
+     * @param level The level
+     * @param x     The X coordinate of the texel, from the left
+     * @param y     The Y coordinate of the texel, from the top
+     * @return The packed ARGB color of the texel
+     * @throws IndexOutOfBoundsException When any argument is out of bounds
+     */
+    public int getTexel(int level, int x, int y) throws IndexOutOfBoundsException {
+        if (x < 0 || y < 0 || x >= widths[level] || y >= heights[level]) {
+            throw new IndexOutOfBoundsException("The texel (" + x + ", " + y + ") is outside level " + level + ".");
+        }
+
+        return texels[index(level, x, y)];
+    }
+
+    //
+    // Sampling
+    //
+
+    /**
+     * Selects the mip level whose texels are closest to the size of a pixel.
+     *
+     * @param footprint The squared length of the larger of the two screen-space derivatives
+     *                  of the texture coordinates, in texels of the full-resolution level
+     * @return The index of the level
+     */
+    public int selectLevel(float footprint) {
+        if (!(footprint > 1)) return 0;
+
+        // Half the exponent of the squared footprint is the base-two logarithm of its length
+        return Math.min(widths.length - 1, Math.getExponent(footprint) >> 1);
+    }
+
+    /**
+     * Samples a mip level with bilinear filtering.
+     *
+     * @param u     The U coordinate, where {@code 0} and {@code 1} are the left and right edges
+     * @param v     The V coordinate, where {@code 0} and {@code 1} are the bottom and top edges
+     * @param level The level to sample
+     * @return The packed RGB color of the sample
+     */
+    public int sample(float u, float v, int level) {
+        if (!(Math.abs(u) < 1 << 24 && Math.abs(v) < 1 << 24)) return 0;
+
+        final int width = widths[level];
+        final int height = heights[level];
+
+        // Wrap into the texture, then offset so that texel centers lie half a texel inside the edges
+        final float fx = (u - floor(u)) * width - 0.5f;
+        final float fy = (1 - (v - floor(v))) * height - 0.5f;
+
+        final int ix = (int) (fx + 1) - 1;
+        final int iy = (int) (fy + 1) - 1;
+        final int wx = (int) ((fx - ix) * 256);
+        final int wy = (int) ((fy - iy) * 256);
+
+        // The tiled address splits into a part which depends only on X, and one which depends only on Y
+        final int x0 = column(ix < 0 ? width - 1 : ix), x1 = column(ix + 1 >= width ? 0 : ix + 1);
+        final int y0 = row(level, iy < 0 ? height - 1 : iy), y1 = row(level, iy + 1 >= height ? 0 : iy + 1);
+
+        final int top = lerp(texels[y0 + x0], texels[y0 + x1], wx);
+        final int bottom = lerp(texels[y1 + x0], texels[y1 + x1], wx);
+
+        return lerp(top, bottom, wy);
+    }
+
+    //
+    // Internals
+    //
+
+    /**
+     * Returns the index of a texel within the tiled storage.
+     */
+    private int index(int level, int x, int y) {
+        return row(level, y) + column(x);
+    }
+
+    /**
+     * Returns the part of a texel's index which depends on its Y coordinate.
+     */
+    private int row(int level, int y) {
+        return offsets[level] + ((y >> TILE_BITS) * tileColumns[level] << (TILE_BITS * 2)) + (MORTON[y & (TILE_SIZE - 1)] << 1);
+    }
+
+    /**
+     * Returns the part of a texel's index which depends on its X coordinate.
+     */
+    private static int column(int x) {
+        return ((x >> TILE_BITS) << (TILE_BITS * 2)) + MORTON[x & (TILE_SIZE - 1)];
+    }
+
+    /**
+     * Builds a level by averaging each block of two by two texels of the level before it.
+     */
+    private void downsample(int level) {
+        final int sourceWidth = widths[level - 1];
+        final int sourceHeight = heights[level - 1];
+
+        for (int y = 0; y < heights[level]; y++) {
+            final int y0 = Math.min(y * 2, sourceHeight - 1), y1 = Math.min(y * 2 + 1, sourceHeight - 1);
+
+            for (int x = 0; x < widths[level]; x++) {
+                final int x0 = Math.min(x * 2, sourceWidth - 1), x1 = Math.min(x * 2 + 1, sourceWidth - 1);
+
+                final int a = texels[index(level - 1, x0, y0)];
+                final int b = texels[index(level - 1, x1, y0)];
+                final int c = texels[index(level - 1, x0, y1)];
+                final int d = texels[index(level - 1, x1, y1)];
+
+                int result = 0;
+                for (int shift = 0; shift < 32; shift += 8) {
+                    final int sum = (a >>> shift & 0xFF) + (b >>> shift & 0xFF) + (c >>> shift & 0xFF) + (d >>> shift & 0xFF);
+                    result |= ((sum + 2) >> 2) << shift;
+                }
+
+                texels[index(level, x, y)] = result;
+            }
+        }
+    }
+
+    /**
+     * Rounds a float of a magnitude below {@code 2^31} down, which is cheaper than {@link Math#floor(double)}.
+     */
+    private static float floor(float value) {
+        final int truncated = (int) value;
+        return value < truncated ? truncated - 1 : truncated;
+    }
+
+    /**
+     * Interpolates the RGB channels of two colors, with a weight out of {@code 256} towards the second.
+     */
+    private static int lerp(int from, int to, int weight) {
+        final int rb = from & 0xFF00FF, g = from & 0xFF00;
+        final int rbTo = to & 0xFF00FF, gTo = to & 0xFF00;
+
+        return ((rb + (((rbTo - rb) * weight) >> 8)) & 0xFF00FF) | ((g + (((gTo - g) * weight) >> 8)) & 0xFF00);
+    }
+}
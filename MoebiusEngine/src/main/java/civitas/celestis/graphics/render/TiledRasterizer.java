@@ -0,0 +1,162 @@
+package civitas.celestis.graphics.render;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draws a {@link TriangleBuffer} into a {@link Rasterizer} on multiple threads.
+ * The screen is split into square tiles, and each triangle is binned into every tile its screen bounds overlap.
+ * Tiles are then cleared and rasterized in parallel. Every tile only writes to its own region of the framebuffer,
+ * so no synchronization is required between tiles.
+ * <p>
+ * Triangles are drawn in submission order within each tile, so the output is identical
+ * to drawing the buffer sequentially with the same rasterizer.
+ * </p>
+ */
+public class TiledRasterizer {
+    /**
+     * The width and height of a tile in pixels.
+     */
+    public static final int TILE_SIZE = 64;
+
+    /**
+     * Creates a new tiled rasterizer which uses the common fork-join pool.
+     */
+    public TiledRasterizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new tiled rasterizer.
+     *
+     * @param pool The pool to rasterize tiles on
+     */
+    public TiledRasterizer(@Nonnull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    private final ForkJoinPool pool;
+
+    private int columns, rows;
+    private int[][] bins = new int[0][];
+    private int[] binSizes = new int[0];
+
+    /**
+     * Clears the framebuffer and draws every triangle of the given buffer.
+     * This blocks until every tile has been drawn. A tiled rasterizer reuses its bins between calls,
+     * and must therefore not be used by multiple threads at once.
+     *
+     * @param rasterizer The rasterizer to draw into
+     * @param triangles  The triangles to draw
+     * @param rgb        The packed RGB color to clear the framebuffer to
+     */
+    public void draw(@Nonnull Rasterizer rasterizer, @Nonnull TriangleBuffer triangles, int rgb) {
+        bin(rasterizer, triangles);
+        pool.invoke(new TileTask(rasterizer, triangles, rgb, 0, columns * rows));
+    }
+
+    /**
+     * Sorts the triangles of the buffer into the tiles their screen bounds overlap.
+     */
+    private void bin(@Nonnull Rasterizer rasterizer, @Nonnull TriangleBuffer triangles) {
+        final int width = rasterizer.getWidth();
+        final int height = rasterizer.getHeight();
+
+        columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        final int tiles = columns * rows;
+        if (bins.length < tiles) {
+            bins = Arrays.copyOf(bins, tiles);
+            binSizes = new int[tiles];
+        }
+
+        for (int i = 0; i < tiles; i++) {
+            if (bins[i] == null) bins[i] = new int[64];
+            binSizes[i] = 0;
+        }
+
+        final float[] v = triangles.getVertices();
+
+        for (int i = 0; i < triangles.size(); i++) {
+            final int o = i * TriangleBuffer.STRIDE;
+
+            final float minX = Math.min(v[o], Math.min(v[o + 3], v[o + 6]));
+            final float maxX = Math.max(v[o], Math.max(v[o + 3], v[o + 6]));
+            final float minY = Math.min(v[o + 1], Math.min(v[o + 4], v[o + 7]));
+            final float maxY = Math.max(v[o + 1], Math.max(v[o + 4], v[o + 7]));
+
+            // Discards triangles which are entirely off screen, as well as NaN coordinates
+            if (!(maxX >= 0 && minX < width && maxY >= 0 && minY < height)) continue;
+
+            final int firstColumn = Math.max(0, (int) minX / TILE_SIZE);
+            final int lastColumn = Math.min(columns - 1, (int) maxX / TILE_SIZE);
+            final int firstRow = Math.max(0, (int) minY / TILE_SIZE);
+            final int lastRow = Math.min(rows - 1, (int) maxY / TILE_SIZE);
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    final int tile = row * columns + column;
+
+                    if (binSizes[tile] == bins[tile].length) {
+                        bins[tile] = Arrays.copyOf(bins[tile], bins[tile].length * 2);
+                    }
+
+                    bins[tile][binSizes[tile]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws a range of tiles, splitting the range in half until a single tile remains.
+     */
+    private final class TileTask extends RecursiveAction {
+        private TileTask(@Nonnull Rasterizer rasterizer, @Nonnull TriangleBuffer triangles, int rgb, int start, int end) {
+            this.rasterizer = rasterizer;
+            this.triangles = triangles;
+            this.rgb = rgb;
+            this.start = start;
+            this.end = end;
+        }
+
+        private final Rasterizer rasterizer;
+        private final TriangleBuffer triangles;
+        private final int rgb;
+        private final int start, end;
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                final int mid = (start + end) >>> 1;
+                invokeAll(
+                        new TileTask(rasterizer, triangles, rgb, start, mid),
+                        new TileTask(rasterizer, triangles, rgb, mid, end)
+                );
+                return;
+            }
+
+            if (start >= end) return;
+
+            final int column = start % columns;
+            final int row = start / columns;
+
+            final int minX = column * TILE_SIZE;
+            final int minY = row * TILE_SIZE;
+            final int maxX = Math.min(rasterizer.getWidth(), minX + TILE_SIZE);
+            final int maxY = Math.min(rasterizer.getHeight(), minY + TILE_SIZE);
+
+            rasterizer.clear(rgb, minX, minY, maxX, maxY);
+
+            final int[] bin = bins[start];
+            final int size = binSizes[start];
+
+            for (int i = 0; i < size; i++) {
+                triangles.draw(bin[i], rasterizer, minX, minY, maxX, maxY);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package civitas.celestis.graphics.render;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of projected triangles, ready to be rasterized.
+ * Each triangle is stored as nine floats, the screen-space X, Y and reciprocal depth of each vertex,
+ * followed by its packed RGB color. Textured triangles additionally store the U and V coordinate
+ * of each vertex, and their {@link Texture}. Buffers are meant to be cleared and refilled every frame,
+ * so that steady-state rendering does not allocate.
+ *
+ * @see Rasterizer
+ */
+public class TriangleBuffer {
+    /**
+     * The number of floats used to store one triangle.
+     */
+    public static final int STRIDE = 9;
+
+    /**
+     * The number of floats used to store the texture coordinates of one triangle.
+     */
+    public static final int UV_STRIDE = 6;
+
+    /**
+     * Creates a new triangle buffer.
+     */
+    public TriangleBuffer() {
+        this(1024);
+    }
+
+    /**
+     * Creates a new triangle buffer.
+     *
+     * @param capacity The initial number of triangles this buffer can hold
+     */
+    public TriangleBuffer(int capacity) {
+        capacity = Math.max(1, capacity);
+
+        this.vertices = new float[capacity * STRIDE];
+        this.colors = new int[capacity];
+        this.uvs = new float[capacity * UV_STRIDE];
+        this.textures = new Texture[capacity];
+    }
+
+    private float[] vertices;
+    private int[] colors;
+    private float[] uvs;
+    private Texture[] textures;
+    private int size = 0;
+
+    /**
+     * Returns the number of triangles in this buffer.
+     *
+     * @return The number of triangles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the vertex data of this buffer. This is not a copy, and may be longer than required.
+     *
+     * @return The vertex data, {@link #STRIDE} floats per triangle
+     */
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Returns the colors of this buffer. This is not a copy, and may be longer than required.
+     *
+     * @return The packed RGB color of each triangle
+     */
+    public int[] getColors() {
+        return colors;
+    }
+
+    /**
+     * Returns the texture of a triangle.
+     *
+     * @param i The index of the triangle
+     * @return The texture of the triangle, or {@code null} if it is filled with its color
+     */
+    @Nullable
+    public Texture getTexture(int i) {
+        return textures[i];
+    }
+
+    /**
+     * Removes every triangle from this buffer without releasing its memory.
+     * Textures stay referenced until their slots are overwritten.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a triangle to this buffer.
+     *
+     * @param x0  The X coordinate of the first vertex in pixels
+     * @param y0  The Y coordinate of the first vertex in pixels
+     * @param w0  The reciprocal depth of the first vertex
+     * @param x1  The X coordinate of the second vertex in pixels
+     * @param y1  The Y coordinate of the second vertex in pixels
+     * @param w1  The reciprocal depth of the second vertex
+     * @param x2  The X coordinate of the third vertex in pixels
+     * @param y2  The Y coordinate of the third vertex in pixels
+     * @param w2  The reciprocal depth of the third vertex
+     * @param rgb The packed RGB color of the triangle
+     */
+    public void add(
+            float x0, float y0, float w0,
+            float x1, float y1, float w1,
+            float x2, float y2, float w2,
+            int rgb
+    ) {
+        if (size == colors.length) grow();
+
+        textures[size] = null;
+
+        final int offset = size * STRIDE;
+        vertices[offset] = x0;
+        vertices[offset + 1] = y0;
+        vertices[offset + 2] = w0;
+        vertices[offset + 3] = x1;
+        vertices[offset + 4] = y1;
+        vertices[offset + 5] = w1;
+        vertices[offset + 6] = x2;
+        vertices[offset + 7] = y2;
+        vertices[offset + 8] = w2;
+        colors[size++] = rgb;
+    }
+
+    /**
+     * Adds a textured triangle to this buffer.
+     *
+     * @param x0      The X coordinate of the first vertex in pixels
+     * @param y0      The Y coordinate of the first vertex in pixels
+     * @param w0      The reciprocal depth of the first vertex
+     * @param x1      The X coordinate of the second vertex in pixels
+     * @param y1      The Y coordinate of the second vertex in pixels
+     * @param w1      The reciprocal depth of the second vertex
+     * @param x2      The X coordinate of the third vertex in pixels
+     * @param y2      The Y coordinate of the third vertex in pixels
+     * @param w2      The reciprocal depth of the third vertex
+     * @param u0      The U coordinate of the first vertex
+     * @param v0      The V coordinate of the first vertex
+     * @param u1      The U coordinate of the second vertex
+     * @param v1      The V coordinate of the second vertex
+     * @param u2      The U coordinate of the third vertex
+     * @param v2      The V coordinate of the third vertex
+     * @param texture The texture of the triangle
+     * @param rgb     The packed RGB color the texture is multiplied by
+     */
+    public void add(
+            float x0, float y0, float w0,
+            float x1, float y1, float w1,
+            float x2, float y2, float w2,
+            float u0, float v0,
+            float u1, float v1,
+            float u2, float v2,
+            @Nonnull Texture texture,
+            int rgb
+    ) {
+        final int offset = size * UV_STRIDE;
+        add(x0, y0, w0, x1, y1, w1, x2, y2, w2, rgb);
+
+        textures[size - 1] = texture;
+        uvs[offset] = u0;
+        uvs[offset + 1] = v0;
+        uvs[offset + 2] = u1;
+        uvs[offset + 3] = v1;
+        uvs[offset + 4] = u2;
+        uvs[offset + 5] = v2;
+    }
+
+    private void grow() {
+        vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        colors = Arrays.copyOf(colors, colors.length * 2);
+        uvs = Arrays.copyOf(uvs, uvs.length * 2);
+        textures = Arrays.copyOf(textures, textures.length * 2);
+    }
+
+    /**
+     * Draws the triangle at the given index, clipped to the given rectangle.
+     *
+     * @param i          The index of the triangle
+     * @param rasterizer The rasterizer to draw with
+     * @param minX       The minimum X coordinate of the rectangle (inclusive)
+     * @param minY       The minimum Y coordinate of the rectangle (inclusive)
+     * @param maxX       The maximum X coordinate of the rectangle (exclusive)
+     * @param maxY       The maximum Y coordinate of the rectangle (exclusive)
+     */
+    public void draw(int i, Rasterizer rasterizer, int minX, int minY, int maxX, int maxY) {
+        final int o = i * STRIDE;
+        final Texture texture = textures[i];
+
+        if (texture != null) {
+            final int t = i * UV_STRIDE;
+            rasterizer.fillTriangle(
+                    vertices[o], vertices[o + 1], vertices[o + 2],
+                    vertices[o + 3], vertices[o + 4], vertices[o + 5],
+                    vertices[o + 6], vertices[o + 7], vertices[o + 8],
+                    uvs[t], uvs[t + 1], uvs[t + 2], uvs[t + 3], uvs[t + 4], uvs[t + 5],
+                    texture,
+                    colors[i],
+                    minX, minY, maxX, maxY
+            );
+            return;
+        }
+
+        rasterizer.fillTriangle(
+                vertices[o], vertices[o + 1], vertices[o + 2],
+                vertices[o + 3], vertices[o + 4], vertices[o + 5],
+                vertices[o + 6], vertices[o + 7], vertices[o + 8],
+                colors[i],
+                minX, minY, maxX, maxY
+        );
+    }
+}
@@ -0,0 +1,117 @@
+package civitas.celestis.graphics.render;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free triple buffer which hands values from one producer thread to one consumer thread.
+ * The producer always owns one slot, the consumer owns another, and the third holds the most recently
+ * published value. Publishing and acquiring only swap slot indices, so neither side ever blocks,
+ * and the consumer always sees the latest complete value. Values which are superseded
+ * before the consumer acquires them are skipped.
+ * <p>
+ * Slots may either hold immutable values passed to {@link #publish(Object)}, or mutable values
+ * created up front and reused, which the producer fills through {@link #getWriteSlot()}
+ * before calling {@link #publish()}.
+ * </p>
+ *
+ * @param <T> The type of value held in each slot
+ */
+public class TripleBuffer<T> {
+    /**
+     * Marks the shared slot as holding a value the consumer has not yet acquired.
+     */
+    private static final int DIRTY = 1 << 2;
+
+    /**
+     * Extracts the slot index from the shared state.
+     */
+    private static final int INDEX = DIRTY - 1;
+
+    /**
+     * Creates a new triple buffer whose slots are initially empty.
+     */
+    public TripleBuffer() {
+        this.slots = new Object[3];
+    }
+
+    /**
+     * Creates a new triple buffer whose slots are filled by the given supplier.
+     *
+     * @param supplier The supplier to create the value of each slot with
+     */
+    public TripleBuffer(@Nonnull Supplier<? extends T> supplier) {
+        this.slots = new Object[]{supplier.get(), supplier.get(), supplier.get()};
+    }
+
+    private final Object[] slots;
+    private final AtomicInteger shared = new AtomicInteger(1);
+    private int write = 0;
+    private int read = 2;
+
+    //
+    // Producer
+    //
+
+    /**
+     * Returns the slot currently owned by the producer. This must only be called by the producer thread.
+     *
+     * @return The value of the producer's slot
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T getWriteSlot() {
+        return (T) slots[write];
+    }
+
+    /**
+     * Publishes the producer's slot, and takes ownership of the previously shared slot.
+     * This must only be called by the producer thread.
+     */
+    public void publish() {
+        write = shared.getAndSet(write | DIRTY) & INDEX;
+    }
+
+    /**
+     * Stores the given value in the producer's slot, then publishes it.
+     * This must only be called by the producer thread.
+     *
+     * @param value The value to publish
+     */
+    public void publish(@Nullable T value) {
+        slots[write] = value;
+        publish();
+    }
+
+    //
+    // Consumer
+    //
+
+    /**
+     * Checks if a value has been published since the consumer last acquired one.
+     *
+     * @return {@code true} if a newer value is available
+     */
+    public boolean hasUpdate() {
+        return (shared.get() & DIRTY) != 0;
+    }
+
+    /**
+     * Takes ownership of the most recently published value, if one has been published since the last call.
+     * Otherwise, this returns the value the consumer already owns. This must only be called by the consumer thread.
+     *
+     * @return The latest value, or {@code null} if nothing has been published yet
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (hasUpdate()) {
+            read = shared.getAndSet(read) & INDEX;
+        }
+
+        return (T) slots[read];
+    }
+}
@@ -0,0 +1,269 @@
+package civitas.celestis.object;
+
+import civitas.celestis.math.complex.Quaternion;
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+
+import java.util.UUID;
+
+/**
+ * A rigid body whose state is stored in a {@link BodyStorage}.
+ * <p>
+ * Bodies are views; reading a property builds a new vector or quaternion from the storage,
+ * and writing a property writes straight into the storage. Integrating a body therefore never allocates,
+ * and only code which uses the {@link BaseObject} interface pays for the conversion.
+ * </p>
+ * <p>
+ * The rate of rotation of a body is the rotation it completes every second. It is stored as an angular velocity,
+ * which has no upper limit, but since a quaternion describes at most half a revolution,
+ * {@link #setRotationRate(Quaternion)} cannot set rates of more than half a revolution per second.
+ * Use {@link #setAngularVelocity(Vector3)} for faster rotation.
+ * Once a body has been removed from its storage, reading or writing its state throws an {@link IllegalStateException}.
+ * </p>
+ */
+public class Body implements BaseObject {
+    /**
+     * Creates a new body. Bodies are created by {@link BodyStorage#add(UUID)}.
+     *
+     * @param uniqueId The unique identifier of this body
+     * @param storage  The storage of this body
+     * @param index    The index of this body in the storage
+     */
+    Body(@Nonnull UUID uniqueId, @Nonnull BodyStorage storage, int index) {
+        this.uniqueId = uniqueId;
+        this.storage = storage;
+        this.index = index;
+    }
+
+    @Nonnull
+    private final UUID uniqueId;
+    @Nonnull
+    final BodyStorage storage;
+
+    /**
+     * The index of this body in its storage, or {@code -1} if this body has been removed.
+     */
+    int index;
+
+    //
+    // Getters
+    //
+
+    @Nonnull
+    @Override
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    @Nonnull
+    public BodyStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the index of this body in its storage. This changes when another body is removed.
+     *
+     * @return The index of this body
+     * @throws IllegalStateException When this body has been removed
+     */
+    public int getIndex() throws IllegalStateException {
+        return checkAttached();
+    }
+
+    /**
+     * Checks whether this body is still part of its storage.
+     *
+     * @return {@code true} if this body has not been removed
+     */
+    public boolean isAttached() {
+        return index >= 0;
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getLocation() {
+        return read(storage.getPositions(), checkAttached());
+    }
+
+    /**
+     * Returns the current velocity of this body.
+     *
+     * @return The velocity of this body in units per second
+     */
+    @Nonnull
+    public Vector3 getVelocity() {
+        return read(storage.getVelocities(), checkAttached());
+    }
+
+    @Nonnull
+    @Override
+    public Vector3 getAcceleration() {
+        return read(storage.getAccelerations(), checkAttached());
+    }
+
+    @Nonnull
+    @Override
+    public Quaternion getRotation() {
+        final double[] q = storage.getRotations();
+        final int i = checkAttached() * 4;
+        return new Quaternion(q[i], q[i + 1], q[i + 2], q[i + 3]);
+    }
+
+    /**
+     * Returns the current angular velocity of this body.
+     *
+     * @return The axis of rotation, scaled by the rate of rotation in radians per second
+     */
+    @Nonnull
+    public Vector3 getAngularVelocity() {
+        return read(storage.getAngularVelocities(), checkAttached());
+    }
+
+    @Nonnull
+    @Override
+    public Quaternion getRotationRate() {
+        final double[] w = storage.getAngularVelocities();
+        final int i = checkAttached() * 3;
+
+        final double x = w[i], y = w[i + 1], z = w[i + 2];
+        final double angle = Math.sqrt(x * x + y * y + z * z);
+        if (angle == 0) return Quaternion.IDENTITY;
+
+        final double s = Math.sin(angle / 2) / angle;
+        return new Quaternion(Math.cos(angle / 2), x * s, y * s, z * s);
+    }
+
+    //
+    // Setters
+    //
+
+    @Override
+    public void setLocation(@Nonnull Vector3 location) {
+        write(storage.getPositions(), checkAttached(), location);
+    }
+
+    /**
+     * Sets the velocity of this body.
+     *
+     * @param velocity The velocity of this body in units per second
+     */
+    public void setVelocity(@Nonnull Vector3 velocity) {
+        write(storage.getVelocities(), checkAttached(), velocity);
+    }
+
+    @Override
+    public void setAcceleration(@Nonnull Vector3 acceleration) {
+        write(storage.getAccelerations(), checkAttached(), acceleration);
+    }
+
+    /**
+     * Sets the rotation of this body. The rotation is normalized before it is stored.
+     *
+     * @param rotation The rotation of this body
+     * @throws IllegalArgumentException When the rotation is zero
+     */
+    @Override
+    public void setRotation(@Nonnull Quaternion rotation) throws IllegalArgumentException {
+        final double[] q = storage.getRotations();
+        final int i = checkAttached() * 4;
+
+        final double w = rotation.w(), x = rotation.x(), y = rotation.y(), z = rotation.z();
+        final double norm = Math.sqrt(w * w + x * x + y * y + z * z);
+        if (norm == 0) throw new IllegalArgumentException("The rotation must not be zero.");
+
+        q[i] = w / norm;
+        q[i + 1] = x / norm;
+        q[i + 2] = y / norm;
+        q[i + 3] = z / norm;
+    }
+
+    /**
+     * Sets the angular velocity of this body.
+     *
+     * @param angularVelocity The axis of rotation, scaled by the rate of rotation in radians per second
+     */
+    public void setAngularVelocity(@Nonnull Vector3 angularVelocity) {
+        write(storage.getAngularVelocities(), checkAttached(), angularVelocity);
+    }
+
+    @Override
+    public void setRotationRate(@Nonnull Quaternion rotationRate) {
+        final double[] w = storage.getAngularVelocities();
+        final int i = checkAttached() * 3;
+
+        // Take the shorter of the two rotations the quaternion represents
+        final double sign = rotationRate.w() < 0 ? -1 : 1;
+        final double x = rotationRate.x() * sign, y = rotationRate.y() * sign, z = rotationRate.z() * sign;
+        final double sine = Math.sqrt(x * x + y * y + z * z);
+
+        if (sine == 0) {
+            w[i] = w[i + 1] = w[i + 2] = 0;
+            return;
+        }
+
+        final double scale = 2 * Math.atan2(sine, rotationRate.w() * sign) / sine;
+        w[i] = x * scale;
+        w[i + 1] = y * scale;
+        w[i + 2] = z * scale;
+    }
+
+    //
+    // Movement
+    //
+
+    @Override
+    public void move(@Nonnull Vector3 amount) {
+        add(storage.getPositions(), checkAttached(), amount);
+    }
+
+    @Override
+    public void accelerate(@Nonnull Vector3 amount) {
+        add(storage.getAccelerations(), checkAttached(), amount);
+    }
+
+    @Override
+    public void rotate(@Nonnull Quaternion amount) {
+        setRotation(amount.multiply(getRotation()));
+    }
+
+    @Override
+    public void rotateRate(@Nonnull Quaternion amount) {
+        setRotationRate(amount.multiply(getRotationRate()));
+    }
+
+    //
+    // Internals
+    //
+
+    private int checkAttached() throws IllegalStateException {
+        final int i = index;
+        if (i < 0) throw new IllegalStateException("This body has been removed from its storage.");
+        return i;
+    }
+
+    @Nonnull
+    private static Vector3 read(@Nonnull double[] array, int index) {
+        return new Vector3(array[index * 3], array[index * 3 + 1], array[index * 3 + 2]);
+    }
+
+    private static void write(@Nonnull double[] array, int index, @Nonnull Vector3 value) {
+        array[index * 3] = value.x();
+        array[index * 3 + 1] = value.y();
+        array[index * 3 + 2] = value.z();
+    }
+
+    private static void add(@Nonnull double[] array, int index, @Nonnull Vector3 value) {
+        array[index * 3] += value.x();
+        array[index * 3 + 1] += value.y();
+        array[index * 3 + 2] += value.z();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "Body{" +
+                "uniqueId=" + uniqueId +
+                ", index=" + index +
+                '}';
+    }
+}
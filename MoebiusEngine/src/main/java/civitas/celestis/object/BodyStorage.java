@@ -0,0 +1,243 @@
+package civitas.celestis.object;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Stores the state of many rigid bodies as primitive arrays, so that an {@link Integrator}
+ * can advance every body in one pass without allocating.
+ * <p>
+ * Each attribute is stored in its own array, with the components of each body next to each other:
+ * positions, velocities and accelerations use three doubles per body, rotations use four
+ * ({@code w, x, y, z}), and angular velocities use three (the rotation axis scaled by the rate in radians per second).
+ * Bodies occupy indices {@code 0} to {@link #size()} without gaps. When a body is removed,
+ * the last body is moved into its place, so indices are only stable while no bodies are removed.
+ * </p>
+ * <p>
+ * Every body is also accessible as a {@link Body}, which implements {@link BaseObject} as a view over this storage.
+ * This class is not thread-safe.
+ * </p>
+ */
+public class BodyStorage {
+    /**
+     * Creates a new body storage.
+     */
+    public BodyStorage() {
+        this(64);
+    }
+
+    /**
+     * Creates a new body storage.
+     *
+     * @param capacity The initial number of bodies to allocate space for
+     * @throws IllegalArgumentException When the capacity is negative
+     */
+    public BodyStorage(int capacity) throws IllegalArgumentException {
+        if (capacity < 0) throw new IllegalArgumentException("The capacity must not be negative.");
+
+        this.bodies = new Body[capacity];
+        this.positions = new double[capacity * 3];
+        this.velocities = new double[capacity * 3];
+        this.accelerations = new double[capacity * 3];
+        this.rotations = new double[capacity * 4];
+        this.angularVelocities = new double[capacity * 3];
+    }
+
+    private Body[] bodies;
+    private double[] positions;
+    private double[] velocities;
+    private double[] accelerations;
+    private double[] rotations;
+    private double[] angularVelocities;
+    private int size = 0;
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the number of bodies in this storage.
+     *
+     * @return The number of bodies
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the body at the given index.
+     *
+     * @param index The index of the body
+     * @return The body
+     * @throws IndexOutOfBoundsException When the index is out of bounds
+     */
+    @Nonnull
+    public Body get(int index) throws IndexOutOfBoundsException {
+        return bodies[checkIndex(index)];
+    }
+
+    /**
+     * Returns the positions of every body. This is not a copy, may be longer than required,
+     * and is replaced when the storage grows.
+     *
+     * @return The positions, three doubles per body
+     */
+    @Nonnull
+    public double[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Returns the velocities of every body. This is not a copy, may be longer than required,
+     * and is replaced when the storage grows.
+     *
+     * @return The velocities, three doubles per body
+     */
+    @Nonnull
+    public double[] getVelocities() {
+        return velocities;
+    }
+
+    /**
+     * Returns the accelerations of every body. This is not a copy, may be longer than required,
+     * and is replaced when the storage grows.
+     *
+     * @return The accelerations, three doubles per body
+     */
+    @Nonnull
+    public double[] getAccelerations() {
+        return accelerations;
+    }
+
+    /**
+     * Returns the rotations of every body. This is not a copy, may be longer than required,
+     * and is replaced when the storage grows.
+     *
+     * @return The rotation quaternions, four doubles per body in {@code w, x, y, z} order
+     */
+    @Nonnull
+    public double[] getRotations() {
+        return rotations;
+    }
+
+    /**
+     * Returns the angular velocities of every body. This is not a copy, may be longer than required,
+     * and is replaced when the storage grows.
+     *
+     * @return The angular velocities in radians per second, three doubles per body
+     */
+    @Nonnull
+    public double[] getAngularVelocities() {
+        return angularVelocities;
+    }
+
+    //
+    // Modification
+    //
+
+    /**
+     * Adds a body at the origin with no velocity, acceleration or rotation.
+     *
+     * @return The new body
+     */
+    @Nonnull
+    public Body add() {
+        return add(UUID.randomUUID());
+    }
+
+    /**
+     * Adds a body at the origin with no velocity, acceleration or rotation.
+     *
+     * @param uniqueId The unique identifier of the body
+     * @return The new body
+     */
+    @Nonnull
+    public Body add(@Nonnull UUID uniqueId) {
+        if (size == bodies.length) grow();
+
+        final int index = size++;
+        final Body body = new Body(uniqueId, this, index);
+        bodies[index] = body;
+
+        Arrays.fill(positions, index * 3, index * 3 + 3, 0);
+        Arrays.fill(velocities, index * 3, index * 3 + 3, 0);
+        Arrays.fill(accelerations, index * 3, index * 3 + 3, 0);
+        Arrays.fill(angularVelocities, index * 3, index * 3 + 3, 0);
+        rotations[index * 4] = 1;
+        rotations[index * 4 + 1] = 0;
+        rotations[index * 4 + 2] = 0;
+        rotations[index * 4 + 3] = 0;
+
+        return body;
+    }
+
+    /**
+     * Removes a body from this storage. The last body is moved into the index of the removed body.
+     * The removed body is detached, and can no longer be read or written.
+     *
+     * @param body The body to remove
+     * @return {@code true} if the body was part of this storage
+     */
+    public boolean remove(@Nonnull Body body) {
+        if (body.storage != this || body.index < 0) return false;
+
+        final int index = body.index;
+        final int last = --size;
+
+        if (index != last) {
+            System.arraycopy(positions, last * 3, positions, index * 3, 3);
+            System.arraycopy(velocities, last * 3, velocities, index * 3, 3);
+            System.arraycopy(accelerations, last * 3, accelerations, index * 3, 3);
+            System.arraycopy(rotations, last * 4, rotations, index * 4, 4);
+            System.arraycopy(angularVelocities, last * 3, angularVelocities, index * 3, 3);
+
+            bodies[index] = bodies[last];
+            bodies[index].index = index;
+        }
+
+        bodies[last] = null;
+        body.index = -1;
+        return true;
+    }
+
+    /**
+     * Removes every body from this storage. Every body is detached.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            bodies[i].index = -1;
+            bodies[i] = null;
+        }
+
+        size = 0;
+    }
+
+    private void grow() {
+        final int capacity = Math.max(16, bodies.length * 2);
+
+        bodies = Arrays.copyOf(bodies, capacity);
+        positions = Arrays.copyOf(positions, capacity * 3);
+        velocities = Arrays.copyOf(velocities, capacity * 3);
+        accelerations = Arrays.copyOf(accelerations, capacity * 3);
+        rotations = Arrays.copyOf(rotations, capacity * 4);
+        angularVelocities = Arrays.copyOf(angularVelocities, capacity * 3);
+    }
+
+    private int checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size + ".");
+        }
+
+        return index;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "BodyStorage{" +
+                "size=" + size +
+                '}';
+    }
+}
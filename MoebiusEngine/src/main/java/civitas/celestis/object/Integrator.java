@@ -0,0 +1,307 @@
+package civitas.celestis.object;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Advances every body of a {@link BodyStorage} through time.
+ * <p>
+ * Integration works directly on the primitive arrays of the storage, so stepping a world never allocates.
+ * Linear motion is integrated over the flattened component arrays, which lets the JIT vectorize it.
+ * Rotations are integrated by applying the rotation of each body's angular velocity over the time step,
+ * then renormalizing the result, so rotations never drift away from unit length.
+ * </p>
+ * <p>
+ * The acceleration of each body is kept between steps. An optional {@link AccelerationField} can
+ * recompute accelerations from the positions of the bodies during each step, such as for gravity or drag.
+ * </p>
+ * <p>
+ * When a fork-join pool is given, the bodies are split into chunks which are integrated in parallel.
+ * Every chunk only writes to its own bodies, so no synchronization is required between chunks.
+ * </p>
+ */
+public class Integrator {
+    /**
+     * Creates a new integrator which runs on the calling thread.
+     *
+     * @param method The integration method to use
+     */
+    public Integrator(@Nonnull Method method) {
+        this(method, null, null);
+    }
+
+    /**
+     * Creates a new integrator.
+     *
+     * @param method The integration method to use
+     * @param field  The field to recompute accelerations with, or {@code null} to keep accelerations as they are
+     * @param pool   The pool to integrate chunks of bodies on, or {@code null} to integrate on the calling thread
+     */
+    public Integrator(@Nonnull Method method, @Nullable AccelerationField field, @Nullable ForkJoinPool pool) {
+        this.method = method;
+        this.field = field;
+        this.pool = pool;
+    }
+
+    //
+    // Constants
+    //
+
+    /**
+     * The number of bodies integrated by each parallel task.
+     */
+    public static final int CHUNK_SIZE = 8192;
+
+    //
+    // Variables
+    //
+
+    @Nonnull
+    private final Method method;
+    @Nullable
+    private final AccelerationField field;
+    @Nullable
+    private final ForkJoinPool pool;
+
+    //
+    // Getters
+    //
+
+    @Nonnull
+    public Method getMethod() {
+        return method;
+    }
+
+    @Nullable
+    public AccelerationField getField() {
+        return field;
+    }
+
+    @Nullable
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    //
+    // Integration
+    //
+
+    /**
+     * Advances every body of a storage by one time step.
+     * This blocks until every body has been integrated.
+     *
+     * @param bodies  The bodies to integrate
+     * @param seconds The length of the time step in seconds
+     */
+    public void step(@Nonnull BodyStorage bodies, double seconds) {
+        switch (method) {
+            case SEMI_IMPLICIT_EULER -> {
+                if (field != null) run(bodies, Pass.FIELD, seconds);
+                run(bodies, Pass.EULER, seconds);
+            }
+
+            case VERLET -> {
+                if (field == null) {
+                    run(bodies, Pass.CONSTANT, seconds);
+                    return;
+                }
+
+                run(bodies, Pass.DRIFT, seconds);
+                run(bodies, Pass.FIELD, seconds);
+                run(bodies, Pass.KICK, seconds);
+            }
+        }
+    }
+
+    /**
+     * Runs one pass over every body. Passes are separated, so that the field sees the positions of every body.
+     */
+    private void run(@Nonnull BodyStorage bodies, @Nonnull Pass pass, double seconds) {
+        final int size = bodies.size();
+
+        if (pool == null || size <= CHUNK_SIZE) {
+            run(bodies, pass, seconds, 0, size);
+            return;
+        }
+
+        pool.invoke(new PassTask(bodies, pass, seconds, 0, size));
+    }
+
+    private void run(@Nonnull BodyStorage bodies, @Nonnull Pass pass, double dt, int start, int end) {
+        final double[] p = bodies.getPositions();
+        final double[] v = bodies.getVelocities();
+        final double[] a = bodies.getAccelerations();
+        final int from = start * 3, to = end * 3;
+
+        switch (pass) {
+            case FIELD -> {
+                assert field != null;
+                field.apply(bodies, start, end);
+            }
+
+            case EULER -> {
+                for (int i = from; i < to; i++) {
+                    v[i] += a[i] * dt;
+                    p[i] += v[i] * dt;
+                }
+
+                rotate(bodies, dt, start, end);
+            }
+
+            case CONSTANT -> {
+                // With constant acceleration, velocity Verlet is exact
+                final double half = dt * dt / 2;
+
+                for (int i = from; i < to; i++) {
+                    p[i] += v[i] * dt + a[i] * half;
+                    v[i] += a[i] * dt;
+                }
+
+                rotate(bodies, dt, start, end);
+            }
+
+            case DRIFT -> {
+                final double half = dt / 2;
+
+                for (int i = from; i < to; i++) {
+                    v[i] += a[i] * half;
+                    p[i] += v[i] * dt;
+                }
+
+                rotate(bodies, dt, start, end);
+            }
+
+            case KICK -> {
+                final double half = dt / 2;
+
+                for (int i = from; i < to; i++) {
+                    v[i] += a[i] * half;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rotates each body by the rotation of its angular velocity over the time step.
+     */
+    private static void rotate(@Nonnull BodyStorage bodies, double dt, int start, int end) {
+        final double[] q = bodies.getRotations();
+        final double[] w = bodies.getAngularVelocities();
+
+        for (int i = start; i < end; i++) {
+            final double wx = w[i * 3], wy = w[i * 3 + 1], wz = w[i * 3 + 2];
+            final double rate = Math.sqrt(wx * wx + wy * wy + wz * wz);
+            if (rate == 0) continue;
+
+            final double half = rate * dt / 2;
+            final double s = Math.sin(half) / rate;
+            final double dw = Math.cos(half), dx = wx * s, dy = wy * s, dz = wz * s;
+
+            final int j = i * 4;
+            final double qw = q[j], qx = q[j + 1], qy = q[j + 2], qz = q[j + 3];
+
+            final double rw = dw * qw - dx * qx - dy * qy - dz * qz;
+            final double rx = dw * qx + dx * qw + dy * qz - dz * qy;
+            final double ry = dw * qy - dx * qz + dy * qw + dz * qx;
+            final double rz = dw * qz + dx * qy - dy * qx + dz * qw;
+            final double norm = 1 / Math.sqrt(rw * rw + rx * rx + ry * ry + rz * rz);
+
+            q[j] = rw * norm;
+            q[j + 1] = rx * norm;
+            q[j + 2] = ry * norm;
+            q[j + 3] = rz * norm;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "Integrator{" +
+                "method=" + method +
+                ", field=" + field +
+                ", pool=" + pool +
+                '}';
+    }
+
+    //
+    // Nested types
+    //
+
+    /**
+     * A method of numerical integration.
+     */
+    public enum Method {
+        /**
+         * Updates the velocity of each body first, then moves it by its new velocity.
+         * This is the cheapest method, and is stable for most game physics.
+         */
+        SEMI_IMPLICIT_EULER,
+
+        /**
+         * Velocity Verlet, which evaluates accelerations at the new positions of the bodies.
+         * This is second-order accurate and conserves energy well, such as for orbits.
+         * With an acceleration field, the field is evaluated once per step.
+         */
+        VERLET
+    }
+
+    /**
+     * Computes the accelerations of bodies from the state of the storage.
+     */
+    @FunctionalInterface
+    public interface AccelerationField {
+        /**
+         * Computes and writes the accelerations of a range of bodies into {@link BodyStorage#getAccelerations()}.
+         * The field may read the state of any body, but must only write the accelerations of its range.
+         * When the integrator runs in parallel, this is called for several disjoint ranges at once.
+         *
+         * @param bodies The storage of the bodies
+         * @param start  The index of the first body to compute
+         * @param end    The index after the last body to compute
+         */
+        void apply(@Nonnull BodyStorage bodies, int start, int end);
+    }
+
+    private enum Pass {
+        FIELD,
+        EULER,
+        CONSTANT,
+        DRIFT,
+        KICK
+    }
+
+    /**
+     * Runs a pass over a range of bodies, splitting the range in half until it fits into a chunk.
+     */
+    private final class PassTask extends RecursiveAction {
+        private PassTask(@Nonnull BodyStorage bodies, @Nonnull Pass pass, double seconds, int start, int end) {
+            this.bodies = bodies;
+            this.pass = pass;
+            this.seconds = seconds;
+            this.start = start;
+            this.end = end;
+        }
+
+        private final BodyStorage bodies;
+        private final Pass pass;
+        private final double seconds;
+        private final int start, end;
+
+        @Override
+        protected void compute() {
+            if (end - start > CHUNK_SIZE) {
+                final int mid = (start + end) >>> 1;
+                invokeAll(
+                        new PassTask(bodies, pass, seconds, start, mid),
+                        new PassTask(bodies, pass, seconds, mid, end)
+                );
+                return;
+            }
+
+            run(bodies, pass, seconds, start, end);
+        }
+    }
+}
@@ -0,0 +1,746 @@
+package civitas.celestis.object;
+
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A dynamic broad-phase spatial index of {@link BaseObject}s, backed by a hashed uniform grid.
+ * <p>
+ * Every object is indexed by its {@link BaseObject#getLocation() location} and a bounding radius,
+ * and is stored in every cell its bounding box overlaps. Only the occupied cells are stored.
+ * Queries are limited to the bounds of the occupied cells, and scan the occupied cells directly
+ * when that is cheaper than looking up every cell in range, so their cost does not grow with empty space.
+ * {@link #update(BaseObject)} and {@link #updateAll()} re-read the locations of objects,
+ * and only move an object between cells when the range of cells it overlaps has changed,
+ * so that moving objects can be tracked every tick without rebuilding the index.
+ * </p>
+ * <p>
+ * The cell size should be around the diameter of a typical object. Objects much larger than a cell
+ * are stored in many cells, and cells much larger than an object hold many objects which do not overlap.
+ * </p>
+ * <p>
+ * This class is not thread-safe. Queries use internal scratch state, so they must not run concurrently
+ * with each other or with updates.
+ * </p>
+ *
+ * @param <T> The type of object to index
+ */
+public class SpatialHash<T extends BaseObject> {
+    /**
+     * Creates a new spatial hash.
+     *
+     * @param cellSize The edge length of each cell
+     * @throws IllegalArgumentException When the cell size is not positive and finite
+     */
+    public SpatialHash(double cellSize) throws IllegalArgumentException {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("The cell size must be positive and finite.");
+        }
+
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1 / cellSize;
+    }
+
+    //
+    // Constants
+    //
+
+    /**
+     * Cell coordinates are clamped to this magnitude, so that three of them fit into one key.
+     */
+    private static final int MAX_CELL = (1 << 20) - 1;
+
+    //
+    // Variables
+    //
+
+    private final double cellSize;
+    private final double inverseCellSize;
+
+    private final Map<T, Integer> entries = new HashMap<>();
+    private final CellMap cells = new CellMap();
+
+    // Entries, stored as parallel arrays indexed by entry
+    private Object[] objects = new Object[64];
+    private double[] bounds = new double[64 * 4];
+    private int[] ranges = new int[64 * 6];
+    private int[] stamps = new int[64];
+    private int entryCount = 0;
+    private final Deque<Integer> freeEntries = new ArrayDeque<>();
+
+    /**
+     * Incremented for every query, so that objects stored in several cells are only reported once.
+     */
+    private int stamp = 0;
+
+    //
+    // Getters
+    //
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the number of objects in this index.
+     *
+     * @return The number of objects
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of occupied cells.
+     *
+     * @return The number of occupied cells
+     */
+    public int getCellCount() {
+        return cells.size;
+    }
+
+    public boolean contains(@Nonnull T object) {
+        return entries.containsKey(object);
+    }
+
+    //
+    // Modification
+    //
+
+    /**
+     * Adds an object to this index, or updates its bounding radius and location if it is already indexed.
+     *
+     * @param object The object to add
+     * @param radius The radius of the bounding sphere of the object, centered on its location
+     * @throws IllegalArgumentException When the radius is negative or not finite
+     */
+    public void insert(@Nonnull T object, double radius) throws IllegalArgumentException {
+        if (!(radius >= 0) || Double.isInfinite(radius)) {
+            throw new IllegalArgumentException("The radius must be non-negative and finite.");
+        }
+
+        final Integer existing = entries.get(object);
+        if (existing != null) {
+            bounds[existing * 4 + 3] = radius;
+            update(existing);
+            return;
+        }
+
+        final int entry = allocate();
+        entries.put(object, entry);
+        objects[entry] = object;
+        bounds[entry * 4 + 3] = radius;
+
+        readLocation(entry);
+        computeRange(entry, ranges, entry * 6);
+        addToCells(entry);
+    }
+
+    /**
+     * Removes an object from this index.
+     *
+     * @param object The object to remove
+     * @return {@code true} if the object was indexed
+     */
+    public boolean remove(@Nonnull T object) {
+        final Integer entry = entries.remove(object);
+        if (entry == null) return false;
+
+        removeFromCells(entry, ranges, entry * 6);
+        objects[entry] = null;
+        freeEntries.push(entry);
+        return true;
+    }
+
+    /**
+     * Removes every object from this index.
+     */
+    public void clear() {
+        entries.clear();
+        cells.clear();
+        freeEntries.clear();
+        Arrays.fill(objects, null);
+        entryCount = 0;
+    }
+
+    /**
+     * Re-reads the location of an object, moving it between cells if required.
+     *
+     * @param object The object to update
+     * @return {@code true} if the object is indexed
+     */
+    public boolean update(@Nonnull T object) {
+        final Integer entry = entries.get(object);
+        if (entry == null) return false;
+
+        update(entry);
+        return true;
+    }
+
+    /**
+     * Re-reads the location of every object, moving objects between cells where required.
+     */
+    public void updateAll() {
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (objects[entry] != null) update(entry);
+        }
+    }
+
+    private void update(int entry) {
+        readLocation(entry);
+        computeRange(entry, scratchRange, 0);
+
+        final int o = entry * 6;
+        if (Arrays.equals(ranges, o, o + 6, scratchRange, 0, 6)) return;
+
+        removeFromCells(entry, ranges, o);
+        System.arraycopy(scratchRange, 0, ranges, o, 6);
+        addToCells(entry);
+    }
+
+    private final int[] scratchRange = new int[6];
+
+    //
+    // Queries
+    //
+
+    /**
+     * Finds every object whose bounding sphere overlaps a sphere.
+     *
+     * @param center The center of the sphere
+     * @param radius The radius of the sphere
+     * @param action The action to perform for each object found
+     */
+    public void forEachInRange(@Nonnull Vector3 center, double radius, @Nonnull Consumer<? super T> action) {
+        final double x = center.x(), y = center.y(), z = center.z();
+        final int query = ++stamp;
+
+        cells.forEachIn(
+                cell(x - radius), cell(y - radius), cell(z - radius),
+                cell(x + radius), cell(y + radius), cell(z + radius),
+                (cell, cx, cy, cz) -> {
+                    for (int i = 0; i < cell.size; i++) {
+                        final int entry = cell.entries[i];
+                        if (stamps[entry] == query) continue;
+                        stamps[entry] = query;
+
+                        final double dx = bounds[entry * 4] - x;
+                        final double dy = bounds[entry * 4 + 1] - y;
+                        final double dz = bounds[entry * 4 + 2] - z;
+                        final double reach = radius + bounds[entry * 4 + 3];
+
+                        if (dx * dx + dy * dy + dz * dz <= reach * reach) action.accept(object(entry));
+                    }
+                }
+        );
+    }
+
+    /**
+     * Returns every object whose bounding sphere overlaps a sphere.
+     *
+     * @param center The center of the sphere
+     * @param radius The radius of the sphere
+     * @return The objects found, in no particular order
+     */
+    @Nonnull
+    public List<T> queryRange(@Nonnull Vector3 center, double radius) {
+        final List<T> result = new ArrayList<>();
+        forEachInRange(center, radius, result::add);
+        return result;
+    }
+
+    /**
+     * Returns every object whose bounding sphere overlaps an axis-aligned box.
+     *
+     * @param min The minimum corner of the box
+     * @param max The maximum corner of the box
+     * @return The objects found, in no particular order
+     */
+    @Nonnull
+    public List<T> queryBox(@Nonnull Vector3 min, @Nonnull Vector3 max) {
+        final List<T> result = new ArrayList<>();
+        final int query = ++stamp;
+
+        cells.forEachIn(
+                cell(min.x()), cell(min.y()), cell(min.z()),
+                cell(max.x()), cell(max.y()), cell(max.z()),
+                (cell, cx, cy, cz) -> {
+                    for (int i = 0; i < cell.size; i++) {
+                        final int entry = cell.entries[i];
+                        if (stamps[entry] == query) continue;
+                        stamps[entry] = query;
+
+                        // Distance from the center of the sphere to the closest point of the box
+                        final double x = bounds[entry * 4], y = bounds[entry * 4 + 1], z = bounds[entry * 4 + 2];
+                        final double dx = x - Math.max(min.x(), Math.min(max.x(), x));
+                        final double dy = y - Math.max(min.y(), Math.min(max.y(), y));
+                        final double dz = z - Math.max(min.z(), Math.min(max.z(), z));
+                        final double r = bounds[entry * 4 + 3];
+
+                        if (dx * dx + dy * dy + dz * dz <= r * r) result.add(object(entry));
+                    }
+                }
+        );
+
+        return result;
+    }
+
+    /**
+     * Returns the objects whose locations are closest to a point.
+     *
+     * @param point The point to search around
+     * @param k     The maximum number of objects to return
+     * @return Up to {@code k} objects, ordered from closest to furthest
+     */
+    @Nonnull
+    public List<T> queryNearest(@Nonnull Vector3 point, int k) {
+        if (k <= 0 || entries.isEmpty()) return new ArrayList<>();
+
+        final double x = point.x(), y = point.y(), z = point.z();
+        final int px = cell(x), py = cell(y), pz = cell(z);
+        final int query = ++stamp;
+
+        // The furthest of the best candidates so far is at the head
+        final PriorityQueue<Neighbor> best = new PriorityQueue<>(k, Comparator.comparingDouble((Neighbor n) -> n.distance2).reversed());
+        final CellAction visit = (cell, cx, cy, cz) -> {
+            for (int i = 0; i < cell.size; i++) {
+                final int entry = cell.entries[i];
+                if (stamps[entry] == query) continue;
+                stamps[entry] = query;
+
+                final double dx = bounds[entry * 4] - x;
+                final double dy = bounds[entry * 4 + 1] - y;
+                final double dz = bounds[entry * 4 + 2] - z;
+                final double distance2 = dx * dx + dy * dy + dz * dz;
+
+                if (best.size() < k) {
+                    best.add(new Neighbor(entry, distance2));
+                } else if (distance2 < best.peek().distance2) {
+                    best.poll();
+                    best.add(new Neighbor(entry, distance2));
+                }
+            }
+        };
+
+        // Shells closer than the occupied bounds are empty, and shells beyond their furthest corner are too
+        final int first = cells.minExtent(px, py, pz);
+        final int limit = cells.maxExtent(px, py, pz);
+        long visited = 0;
+
+        for (int r = first; r <= limit; r++) {
+            final long shell = cells.volumeWithin(px, py, pz, r) - cells.volumeWithin(px, py, pz, r - 1);
+
+            // Once walking the shells costs more than scanning every cell, scan the remaining cells instead
+            if (visited + shell > cells.capacity()) {
+                final int from = r;
+                cells.forEach((cell, cx, cy, cz) -> {
+                    final int distance = Math.max(Math.abs(cx - px), Math.max(Math.abs(cy - py), Math.abs(cz - pz)));
+                    if (distance >= from) visit.accept(cell, cx, cy, cz);
+                });
+
+                break;
+            }
+
+            visited += shell;
+            cells.forEachInShell(px, py, pz, r, visit);
+
+            // Every object has been visited
+            if (best.size() == entries.size()) break;
+
+            // Every location within r cells of the point has been visited
+            if (best.size() == k) {
+                final double covered = r * cellSize;
+                if (best.peek().distance2 <= covered * covered) break;
+            }
+        }
+
+        final List<T> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) result.add(object(best.poll().entry));
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Finds every pair of objects whose bounding spheres overlap. Each pair is reported exactly once.
+     *
+     * @param action The action to perform for each overlapping pair
+     */
+    public void forEachOverlap(@Nonnull BiConsumer<? super T, ? super T> action) {
+        cells.forEach((cell, cx, cy, cz) -> {
+            for (int i = 0; i < cell.size; i++) {
+                final int a = cell.entries[i];
+
+                for (int j = i + 1; j < cell.size; j++) {
+                    final int b = cell.entries[j];
+
+                    // Report the pair only in the first cell both objects share
+                    final int ra = a * 6, rb = b * 6;
+                    if (cx != Math.max(ranges[ra], ranges[rb])
+                            || cy != Math.max(ranges[ra + 1], ranges[rb + 1])
+                            || cz != Math.max(ranges[ra + 2], ranges[rb + 2])) continue;
+
+                    final double dx = bounds[a * 4] - bounds[b * 4];
+                    final double dy = bounds[a * 4 + 1] - bounds[b * 4 + 1];
+                    final double dz = bounds[a * 4 + 2] - bounds[b * 4 + 2];
+                    final double reach = bounds[a * 4 + 3] + bounds[b * 4 + 3];
+
+                    if (dx * dx + dy * dy + dz * dz <= reach * reach) action.accept(object(a), object(b));
+                }
+            }
+        });
+    }
+
+    //
+    // Internals
+    //
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    private T object(int entry) {
+        return (T) objects[entry];
+    }
+
+    private int allocate() {
+        if (!freeEntries.isEmpty()) return freeEntries.pop();
+
+        if (entryCount == objects.length) {
+            final int capacity = objects.length * 2;
+            objects = Arrays.copyOf(objects, capacity);
+            bounds = Arrays.copyOf(bounds, capacity * 4);
+            ranges = Arrays.copyOf(ranges, capacity * 6);
+            stamps = Arrays.copyOf(stamps, capacity);
+        }
+
+        return entryCount++;
+    }
+
+    private void readLocation(int entry) {
+        final Vector3 location = object(entry).getLocation();
+
+        bounds[entry * 4] = location.x();
+        bounds[entry * 4 + 1] = location.y();
+        bounds[entry * 4 + 2] = location.z();
+    }
+
+    private void computeRange(int entry, @Nonnull int[] dest, int offset) {
+        final double x = bounds[entry * 4], y = bounds[entry * 4 + 1], z = bounds[entry * 4 + 2];
+        final double r = bounds[entry * 4 + 3];
+
+        dest[offset] = cell(x - r);
+        dest[offset + 1] = cell(y - r);
+        dest[offset + 2] = cell(z - r);
+        dest[offset + 3] = cell(x + r);
+        dest[offset + 4] = cell(y + r);
+        dest[offset + 5] = cell(z + r);
+    }
+
+    private void addToCells(int entry) {
+        final int o = entry * 6;
+
+        for (int cx = ranges[o]; cx <= ranges[o + 3]; cx++) {
+            for (int cy = ranges[o + 1]; cy <= ranges[o + 4]; cy++) {
+                for (int cz = ranges[o + 2]; cz <= ranges[o + 5]; cz++) {
+                    cells.getOrCreate(key(cx, cy, cz), cx, cy, cz).add(entry);
+                }
+            }
+        }
+    }
+
+    private void removeFromCells(int entry, @Nonnull int[] range, int o) {
+        for (int cx = range[o]; cx <= range[o + 3]; cx++) {
+            for (int cy = range[o + 1]; cy <= range[o + 4]; cy++) {
+                for (int cz = range[o + 2]; cz <= range[o + 5]; cz++) {
+                    final long key = key(cx, cy, cz);
+                    final Cell cell = cells.get(key);
+                    if (cell == null) continue;
+
+                    cell.remove(entry);
+                    if (cell.size == 0) cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private int cell(double coordinate) {
+        final double c = Math.floor(coordinate * inverseCellSize);
+        return (int) Math.max(-MAX_CELL, Math.min(MAX_CELL, c));
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "SpatialHash{" +
+                "cellSize=" + cellSize +
+                ", objects=" + size() +
+                ", cells=" + getCellCount() +
+                '}';
+    }
+
+    private record Neighbor(int entry, double distance2) {}
+
+    //
+    // Cells
+    //
+
+    /**
+     * The entries stored in one cell.
+     */
+    private static final class Cell {
+        private Cell(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private final int x, y, z;
+        private int[] entries = new int[4];
+        private int size = 0;
+
+        private void add(int entry) {
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            entries[size++] = entry;
+        }
+
+        private void remove(int entry) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] != entry) continue;
+
+                entries[i] = entries[--size];
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface CellAction {
+        void accept(@Nonnull Cell cell, int x, int y, int z);
+    }
+
+    /**
+     * An open-addressing hash map from packed cell coordinates to cells,
+     * which avoids boxing keys on every lookup.
+     */
+    private static final class CellMap {
+        private long[] keys = new long[256];
+        private Cell[] values = new Cell[256];
+        private int size = 0;
+
+        // Bounds of every cell occupied since the map was last empty, used to limit queries
+        private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        private Cell get(long key) {
+            final int mask = keys.length - 1;
+
+            for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+
+            return null;
+        }
+
+        @Nonnull
+        private Cell getOrCreate(long key, int x, int y, int z) {
+            final int mask = keys.length - 1;
+            int slot = slot(key, mask);
+
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+
+            final Cell cell = new Cell(x, y, z);
+            keys[slot] = key;
+            values[slot] = cell;
+            size++;
+
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+
+            if (size * 2 > keys.length) grow();
+            return cell;
+        }
+
+        private void remove(long key) {
+            final int mask = keys.length - 1;
+            int slot = slot(key, mask);
+
+            while (values[slot] != null && keys[slot] != key) slot = (slot + 1) & mask;
+            if (values[slot] == null) return;
+
+            values[slot] = null;
+            size--;
+
+            if (size == 0) clearBounds();
+
+            // Shift the following entries of the cluster back, so that lookups need no tombstones
+            int next = (slot + 1) & mask;
+            while (values[next] != null) {
+                final int home = slot(keys[next], mask);
+
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    values[next] = null;
+                    slot = next;
+                }
+
+                next = (next + 1) & mask;
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+            clearBounds();
+        }
+
+        private void clearBounds() {
+            minX = minY = minZ = Integer.MAX_VALUE;
+            maxX = maxY = maxZ = Integer.MIN_VALUE;
+        }
+
+        /**
+         * Returns the number of slots, which is the cost of visiting every cell.
+         */
+        private int capacity() {
+            return values.length;
+        }
+
+        private void forEach(@Nonnull CellAction action) {
+            for (final Cell cell : values) {
+                if (cell != null) action.accept(cell, cell.x, cell.y, cell.z);
+            }
+        }
+
+        /**
+         * Visits every occupied cell within a range of cell coordinates. The range is clamped to the occupied bounds,
+         * and if it still spans more coordinates than there are slots, the slots are scanned instead of the coordinates.
+         */
+        private void forEachIn(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, @Nonnull CellAction action) {
+            final int x0 = Math.max(minX, this.minX), y0 = Math.max(minY, this.minY), z0 = Math.max(minZ, this.minZ);
+            final int x1 = Math.min(maxX, this.maxX), y1 = Math.min(maxY, this.maxY), z1 = Math.min(maxZ, this.maxZ);
+            if (x0 > x1 || y0 > y1 || z0 > z1) return;
+
+            final long volume = (long) (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+
+            if (volume > values.length) {
+                for (final Cell cell : values) {
+                    if (cell == null) continue;
+                    if (cell.x < x0 || cell.x > x1 || cell.y < y0 || cell.y > y1 || cell.z < z0 || cell.z > z1) continue;
+
+                    action.accept(cell, cell.x, cell.y, cell.z);
+                }
+
+                return;
+            }
+
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int cy = y0; cy <= y1; cy++) {
+                    for (int cz = z0; cz <= z1; cz++) {
+                        final Cell cell = get(key(cx, cy, cz));
+                        if (cell != null) action.accept(cell, cx, cy, cz);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Visits every occupied cell at exactly the given Chebyshev distance from a cell, within the occupied bounds.
+         */
+        private void forEachInShell(int x, int y, int z, int r, @Nonnull CellAction action) {
+            final int x0 = Math.max(x - r, minX), y0 = Math.max(y - r, minY), z0 = Math.max(z - r, minZ);
+            final int x1 = Math.min(x + r, maxX), y1 = Math.min(y + r, maxY), z1 = Math.min(z + r, maxZ);
+
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int cy = y0; cy <= y1; cy++) {
+                    final boolean edge = Math.abs(cx - x) == r || Math.abs(cy - y) == r;
+
+                    if (edge) {
+                        for (int cz = z0; cz <= z1; cz++) visit(cx, cy, cz, action);
+                    } else {
+                        // Only the two faces of the shell along the Z axis
+                        if (z - r >= z0 && z - r <= z1) visit(cx, cy, z - r, action);
+                        if (r > 0 && z + r >= z0 && z + r <= z1) visit(cx, cy, z + r, action);
+                    }
+                }
+            }
+        }
+
+        private void visit(int x, int y, int z, @Nonnull CellAction action) {
+            final Cell cell = get(key(x, y, z));
+            if (cell != null) action.accept(cell, x, y, z);
+        }
+
+        /**
+         * Returns the number of cell coordinates within the given Chebyshev distance of a cell which lie in the occupied bounds.
+         */
+        private long volumeWithin(int x, int y, int z, int r) {
+            if (r < 0) return 0;
+
+            final long dx = Math.min(x + r, maxX) - Math.max(x - r, minX) + 1L;
+            final long dy = Math.min(y + r, maxY) - Math.max(y - r, minY) + 1L;
+            final long dz = Math.min(z + r, maxZ) - Math.max(z - r, minZ) + 1L;
+            return dx > 0 && dy > 0 && dz > 0 ? dx * dy * dz : 0;
+        }
+
+        /**
+         * Returns the Chebyshev distance in cells from the given cell to the closest cell of the occupied bounds.
+         */
+        private int minExtent(int x, int y, int z) {
+            if (size == 0) return 0;
+
+            final int dx = Math.max(0, Math.max(minX - x, x - maxX));
+            final int dy = Math.max(0, Math.max(minY - y, y - maxY));
+            final int dz = Math.max(0, Math.max(minZ - z, z - maxZ));
+            return Math.max(dx, Math.max(dy, dz));
+        }
+
+        /**
+         * Returns the Chebyshev distance in cells from the given cell to the furthest corner of the occupied bounds.
+         */
+        private int maxExtent(int x, int y, int z) {
+            if (size == 0) return 0;
+
+            final int dx = Math.max(Math.abs(x - minX), Math.abs(x - maxX));
+            final int dy = Math.max(Math.abs(y - minY), Math.abs(y - maxY));
+            final int dz = Math.max(Math.abs(z - minZ), Math.abs(z - maxZ));
+            return Math.max(dx, Math.max(dy, dz));
+        }
+
+        private void grow() {
+            final long[] oldKeys = keys;
+            final Cell[] oldValues = values;
+
+            keys = new long[oldKeys.length * 2];
+            values = new Cell[oldValues.length * 2];
+            final int mask = keys.length - 1;
+
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] == null) continue;
+
+                int slot = slot(oldKeys[i], mask);
+                while (values[slot] != null) slot = (slot + 1) & mask;
+
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            final long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
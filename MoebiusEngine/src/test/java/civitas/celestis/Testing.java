@@ -1,28 +1,35 @@
 package civitas.celestis;
 
+import civitas.celestis.engine.EngineLoop;
+import civitas.celestis.engine.TransformInterpolator;
 import civitas.celestis.graphics.Colors;
-import civitas.celestis.graphics.Face;
+import civitas.celestis.graphics.MeshInstance;
 import civitas.celestis.graphics.Model;
+import civitas.celestis.graphics.Scene;
 import civitas.celestis.graphics.Viewport;
 import civitas.celestis.math.Scalars;
-import civitas.celestis.math.complex.Quaternion;
 import civitas.celestis.math.vector.Vector3;
 import civitas.celestis.math.vector.Vectors;
-import civitas.celestis.task.Task;
-import civitas.celestis.task.lifecycle.Scheduler;
-import civitas.celestis.task.lifecycle.SyncScheduler;
+import civitas.celestis.object.Body;
+import civitas.celestis.object.BodyStorage;
+import civitas.celestis.object.Integrator;
 
 import javax.swing.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
+import java.util.List;
 
 public class Testing {
 
     static final Model model;
     static final JFrame frame = new JFrame();
     static final Viewport viewport = new Viewport();
-    static final Scheduler scheduler = new SyncScheduler();
+    static final BodyStorage bodies = new BodyStorage();
+    static final Body body = bodies.add();
+    static final Integrator integrator = new Integrator(Integrator.Method.SEMI_IMPLICIT_EULER);
+    static final TransformInterpolator<Body> interpolator = new TransformInterpolator<>();
+    static final EngineLoop loop;
 
     static {
         frame.setSize(1920, 1080);
@@ -31,7 +38,8 @@ public class Testing {
             @Override
             public void windowClosing(WindowEvent e) {
                 frame.dispose();
-                scheduler.terminate();
+                loop.stop();
+                viewport.stop();
 
                 System.exit(Application.EXIT_CODE_NORMAL);
             }
@@ -45,24 +53,21 @@ public class Testing {
 
         model.getFaces().forEach(f -> f.setColor(Colors.bezier(Colors.LIGHT_GRAY, Colors.BLACK, Scalars.random(0, 0.25))));
 
-
-        scheduler.initialize();
-
-        scheduler.register(new Task() {
-            @Override
-            public void execute(long delta) {
-                final double seconds = delta / 1000d;
-                final Quaternion rotation = Vectors.randomQuaternion().scale(seconds * 0.1);
-
-                viewport.angle = rotation.multiply(viewport.angle);
-
-                frame.repaint();
-            }
-
-            @Override
-            public long interval() {
-                return 100;
-            }
+        body.setRotation(Vectors.randomQuaternion());
+        body.setAngularVelocity(new Vector3(0.1, 0.3, 0.05));
+        interpolator.add(body);
+
+        loop = new EngineLoop(20, seconds -> {
+            integrator.step(bodies, seconds);
+            interpolator.capture();
+        }, alpha -> {
+            final MeshInstance instance = new MeshInstance(
+                    model,
+                    interpolator.getLocation(body, alpha),
+                    interpolator.getRotation(body, alpha)
+            );
+
+            viewport.publish(new Scene(List.of(), List.of(), List.of(instance)));
         });
 
         viewport.origin = new Vector3(0, 0, -300);
@@ -70,18 +75,8 @@ public class Testing {
     }
 
     public static void main(String[] args) {
-        final Quaternion random = Vectors.randomQuaternion();
-        viewport.faces.addAll(model.getFaces().safeArray().mapToCollection(f -> {
-            final Face face = new Face(
-                    f.getA().rotate(random),
-                    f.getB().rotate(random),
-                    f.getC().rotate(random));
-            face.setColor(f.getColor());
-
-            return face;
-        }));
         frame.setVisible(true);
-
-        scheduler.start();
+        viewport.start();
+        loop.start();
     }
 }
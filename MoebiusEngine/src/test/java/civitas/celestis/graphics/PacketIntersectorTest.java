@@ -0,0 +1,232 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.util.array.FastArray;
+import civitas.celestis.util.array.SafeArray;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that packet intersection finds the same hits as an independent reference, which intersects
+ * the plane of each face and tests the barycentric coordinates of the intersection, and that the
+ * shared intersector agrees with the scalar one.
+ */
+public class PacketIntersectorTest {
+    /**
+     * The largest difference allowed between the distances found by a packet and by the reference.
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Rays whose closest two faces are closer together than this may legitimately report either face.
+     */
+    private static final double TIE = 1e-6;
+
+    /**
+     * Rays which pass this close to an edge of a face, in barycentric coordinates, or hit a face
+     * this close to their origin, may legitimately hit or miss it, and are not checked.
+     */
+    private static final double AMBIGUOUS = 1e-7;
+
+    @Test
+    void scalarMatchesReference() {
+        for (int seed = 0; seed < 20; seed++) {
+            check(new ScalarPacketIntersector(), new Random(seed));
+        }
+    }
+
+    @Test
+    void sharedInstanceMatchesReference() {
+        for (int seed = 0; seed < 20; seed++) {
+            check(PacketIntersector.getInstance(), new Random(seed));
+        }
+    }
+
+    @Test
+    void sharedInstanceMatchesScalar() {
+        for (int seed = 0; seed < 20; seed++) {
+            final Random random = new Random(seed);
+            final TriangleBatch batch = batch(randomFaces(random, 1 + random.nextInt(96)));
+            final Ray[] rays = randomRays(random, 1 + random.nextInt(67));
+
+            final RayPacket scalar = packet(rays);
+            final RayPacket shared = packet(rays);
+            new ScalarPacketIntersector().intersect(scalar, batch);
+            PacketIntersector.getInstance().intersect(shared, batch);
+
+            for (int i = 0; i < rays.length; i++) {
+                assertEquals(scalar.isHit(i), shared.isHit(i), "ray " + i);
+                if (scalar.isHit(i)) assertEquals(scalar.getT(i), shared.getT(i), TOLERANCE, "ray " + i);
+            }
+        }
+    }
+
+    @Test
+    void successiveBatchesKeepClosestHit() {
+        final Random random = new Random(42);
+        final Face[] faces = randomFaces(random, 64);
+        final Ray[] rays = randomRays(random, 29);
+
+        final RayPacket whole = packet(rays);
+        final RayPacket split = packet(rays);
+
+        Geometry.intersect(whole, batch(faces));
+        Geometry.intersect(split, batch(Arrays.copyOfRange(faces, 0, 32)));
+        Geometry.intersect(split, batch(Arrays.copyOfRange(faces, 32, 64)));
+
+        for (int i = 0; i < rays.length; i++) {
+            assertEquals(whole.isHit(i), split.isHit(i), "ray " + i);
+            if (whole.isHit(i)) assertEquals(whole.getT(i), split.getT(i), TOLERANCE, "ray " + i);
+        }
+    }
+
+    //
+    // Helpers
+    //
+
+    private static void check(@Nonnull PacketIntersector intersector, @Nonnull Random random) {
+        final Face[] faces = randomFaces(random, 1 + random.nextInt(96));
+
+        // Sizes which are not a multiple of the vector length also exercise the scalar remainder
+        final Ray[] rays = randomRays(random, 1 + random.nextInt(67));
+
+        final RayPacket packet = packet(rays);
+        intersector.intersect(packet, batch(faces));
+
+        int checked = 0;
+
+        rays:
+        for (int i = 0; i < rays.length; i++) {
+            final Ray ray = rays[i];
+
+            double closest = Double.POSITIVE_INFINITY;
+            double second = Double.POSITIVE_INFINITY;
+
+            for (final Face face : faces) {
+                final double t = reference(ray, face);
+                if (Double.isNaN(t)) continue rays;
+
+                if (t < closest) {
+                    second = closest;
+                    closest = t;
+                } else if (t < second) {
+                    second = t;
+                }
+            }
+
+            checked++;
+
+            if (closest == Double.POSITIVE_INFINITY) {
+                assertFalse(packet.isHit(i), "ray " + i + " should miss");
+                continue;
+            }
+
+            assertTrue(packet.isHit(i), "ray " + i + " should hit");
+            assertEquals(closest, packet.getT(i), TOLERANCE, "distance of ray " + i);
+
+            // The reported face must actually be hit at the reported distance
+            final Face face = faces[packet.getFaceIndex(i)];
+            assertEquals(packet.getT(i), reference(ray, face), TOLERANCE, "face of ray " + i);
+
+            if (second - closest > TIE) {
+                final Vector3 expected = ray.getOrigin().add(ray.getDirection().multiply(closest));
+                final Vector3 actual = packet.getIntersection(i);
+
+                // Directions are tens of units long, so points are further apart than their distances
+                assertNotNull(actual);
+                assertEquals(0, expected.distance(actual), TOLERANCE * 100, "intersection of ray " + i);
+            }
+        }
+
+        // Ambiguous rays are rare, so almost every ray must have been checked
+        assertTrue(checked > rays.length * 9 / 10, "only " + checked + " of " + rays.length + " rays were checked");
+    }
+
+    /**
+     * Returns the distance along a ray to a face, in multiples of the ray's direction, or positive infinity
+     * if the face is missed or behind the ray's origin. Faces are two-sided. This intersects the plane of
+     * the face, then tests whether the intersection lies on the inner side of every edge, and shares no code
+     * with the intersectors. Returns {@code NaN} if the ray is too close to an edge or its origin to decide.
+     */
+    private static double reference(@Nonnull Ray ray, @Nonnull Face face) {
+        final Vector3 o = ray.getOrigin();
+        final Vector3 d = ray.getDirection();
+        final Vector3 a = face.getA(), b = face.getB(), c = face.getC();
+
+        final Vector3 normal = b.subtract(a).cross(c.subtract(a));
+        final double area2 = normal.dot(normal);
+        final double cos = normal.dot(d);
+
+        // Rays parallel to the plane miss, since the faces have no thickness
+        if (cos * cos <= 1e-18 * area2 * d.dot(d)) return Double.POSITIVE_INFINITY;
+
+        final double t = normal.dot(a.subtract(o)) / cos;
+        final Vector3 p = o.add(d.multiply(t));
+
+        // The barycentric coordinates of the intersection, from the signed areas of the sub-triangles
+        final double u = b.subtract(p).cross(c.subtract(p)).dot(normal) / area2;
+        final double v = c.subtract(p).cross(a.subtract(p)).dot(normal) / area2;
+        final double w = 1 - u - v;
+
+        final double margin = Math.min(u, Math.min(v, w));
+        if (Math.abs(margin) < AMBIGUOUS || Math.abs(t) < AMBIGUOUS) return Double.NaN;
+
+        return margin > 0 && t > 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    @Nonnull
+    private static TriangleBatch batch(@Nonnull Face[] faces) {
+        final SafeArray<Face> array = new FastArray<>(faces.length);
+        for (int i = 0; i < faces.length; i++) array.set(i, faces[i]);
+        return new TriangleBatch(array.tuple());
+    }
+
+    @Nonnull
+    private static Face[] randomFaces(@Nonnull Random random, int count) {
+        final Face[] faces = new Face[count];
+
+        for (int i = 0; i < count; i++) {
+            final Vector3 a = randomPoint(random, 10);
+
+            // Small triangles scattered through the volume, so that rays both hit and miss
+            faces[i] = new Face(a, a.add(randomPoint(random, 3)), a.add(randomPoint(random, 3)));
+        }
+
+        return faces;
+    }
+
+    @Nonnull
+    private static Ray[] randomRays(@Nonnull Random random, int count) {
+        final Ray[] rays = new Ray[count];
+
+        for (int i = 0; i < count; i++) {
+            final Vector3 origin = randomPoint(random, 15);
+            final Vector3 target = randomPoint(random, 8);
+
+            rays[i] = new Ray(origin, target.subtract(origin));
+        }
+
+        return rays;
+    }
+
+    @Nonnull
+    private static Vector3 randomPoint(@Nonnull Random random, double extent) {
+        return new Vector3(
+                (random.nextDouble() * 2 - 1) * extent,
+                (random.nextDouble() * 2 - 1) * extent,
+                (random.nextDouble() * 2 - 1) * extent
+        );
+    }
+
+    @Nonnull
+    private static RayPacket packet(@Nonnull Ray[] rays) {
+        final RayPacket packet = new RayPacket(rays.length);
+        for (int i = 0; i < rays.length; i++) packet.setRay(i, rays[i]);
+        return packet;
+    }
+}
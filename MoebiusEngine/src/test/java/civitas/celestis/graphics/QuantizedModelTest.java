@@ -0,0 +1,198 @@
+package civitas.celestis.graphics;
+
+import civitas.celestis.math.vector.Vector3;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that quantizing a model stays within the documented error bounds of each attribute.
+ */
+public class QuantizedModelTest {
+    /**
+     * The largest angle between a normal and its decoded counterpart, in degrees.
+     */
+    private static final double NORMAL_ANGLE = 0.01;
+
+    /**
+     * The largest relative error of rounding a normal float to half precision, which keeps 11 significant bits.
+     */
+    private static final double HALF_RELATIVE_ERROR = 0x1p-11;
+
+    @Test
+    void positionsRoundTripWithinHalfAStep() {
+        final Random random = new Random(1);
+        final PackedModel source = randomModel(random, 500, true);
+        final QuantizedModel model = new QuantizedModel(source);
+
+        final double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        final double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        final double[] expected = new double[3];
+        final double[] actual = new double[3];
+
+        for (int i = 0; i < source.getVertexCount(); i++) {
+            source.getVertex(i, expected, 0);
+
+            for (int axis = 0; axis < 3; axis++) {
+                min[axis] = Math.min(min[axis], expected[axis]);
+                max[axis] = Math.max(max[axis], expected[axis]);
+            }
+        }
+
+        for (int f = 0; f < source.getFaceCount(); f++) {
+            for (int corner = 0; corner < 3; corner++) {
+                source.getVertex(source.getFaceVertexIndex(f, corner), expected, 0);
+                model.getVertex(model.getFaceVertexIndex(f, corner), actual, 0);
+
+                for (int axis = 0; axis < 3; axis++) {
+                    final double halfStep = (max[axis] - min[axis]) / 65535 / 2;
+                    assertEquals(expected[axis], actual[axis], halfStep * (1 + 1e-9), "face " + f + ", corner " + corner);
+                }
+            }
+        }
+    }
+
+    @Test
+    void normalsRoundTripWithinAngle() {
+        final Random random = new Random(2);
+        final PackedModel source = randomModel(random, 2000, false);
+        final QuantizedModel model = new QuantizedModel(source);
+
+        assertEquals(source.getNormals().size(), model.getNormals().size());
+
+        for (int i = 0; i < source.getNormals().size(); i++) {
+            final Vector3 expected = source.getNormal(i);
+            final Vector3 actual = model.getNormal(i);
+
+            assertEquals(1, actual.dot(actual), 1e-12, "normal " + i + " is not normalized");
+
+            final double cos = Math.min(1, expected.dot(actual) / Math.sqrt(expected.dot(expected)));
+            assertTrue(Math.toDegrees(Math.acos(cos)) < NORMAL_ANGLE, "normal " + i);
+        }
+    }
+
+    @Test
+    void uvCoordinatesRoundTripWithinHalfPrecision() {
+        final Random random = new Random(3);
+        final PackedModel source = randomModel(random, 500, true);
+        final QuantizedModel model = new QuantizedModel(source);
+
+        final float[] expected = new float[2];
+        final float[] actual = new float[2];
+
+        for (int f = 0; f < source.getFaceCount(); f++) {
+            for (int corner = 0; corner < 3; corner++) {
+                source.getFaceUV(f, corner, expected, 0);
+                model.getFaceUV(f, corner, actual, 0);
+
+                for (int k = 0; k < 2; k++) {
+                    assertEquals(expected[k], actual[k], Math.abs(expected[k]) * HALF_RELATIVE_ERROR, "face " + f + ", corner " + corner);
+                }
+            }
+        }
+    }
+
+    @Test
+    void halfPrecisionRoundsToNearest() {
+        final Random random = new Random(4);
+
+        for (int i = 0; i < 100000; i++) {
+            // Values within a few repetitions of a texture, where half precision is normal
+            final float value = (random.nextFloat() * 2 - 1) * 16;
+            if (Math.abs(value) < 0x1p-14f) continue;
+
+            final float rounded = QuantizedModel.fromHalf(QuantizedModel.toHalf(value));
+            assertEquals(value, rounded, Math.abs(value) * HALF_RELATIVE_ERROR, "value " + value);
+        }
+
+        assertEquals(65504f, QuantizedModel.fromHalf(QuantizedModel.toHalf(65504f)));
+        assertEquals(Float.POSITIVE_INFINITY, QuantizedModel.fromHalf(QuantizedModel.toHalf(1e6f)));
+        assertEquals(0x1p-24f, QuantizedModel.fromHalf(QuantizedModel.toHalf(0x1p-24f)));
+        assertEquals(0f, QuantizedModel.fromHalf(QuantizedModel.toHalf(0x1p-26f)));
+    }
+
+    @Test
+    void halfPrecisionValuesConvertExactly() {
+        for (int bits = 0; bits <= 0xFFFF; bits++) {
+            final short half = (short) bits;
+            final float value = QuantizedModel.fromHalf(half);
+            if (Float.isNaN(value)) continue;
+
+            assertEquals(half, QuantizedModel.toHalf(value), "half " + Integer.toHexString(bits));
+        }
+    }
+
+    @Test
+    void textureSeamsAreSplit() {
+        final float[] positions = {0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0};
+        final int[] indices = {0, 1, 2, 0, 2, 3};
+
+        // The two faces share vertices 0 and 2, but give them different UV coordinates
+        final float[][] corners = {{0, 0}, {1, 0}, {1, 1}, {0.25f, 0.5f}, {0.75f, 0.5f}, {0, 1}};
+
+        final Model source = new PackedModel(positions, new float[0], new float[8], indices) {
+            @Override
+            public void getFaceUV(int face, int corner, @Nonnull float[] dest, int offset) {
+                dest[offset] = corners[face * 3 + corner][0];
+                dest[offset + 1] = corners[face * 3 + corner][1];
+            }
+        };
+
+        final QuantizedModel model = new QuantizedModel(source);
+        assertEquals(6, model.getVertexCount());
+
+        final float[] uv = new float[2];
+        final double[] expected = new double[3];
+        final double[] actual = new double[3];
+
+        for (int f = 0; f < 2; f++) {
+            for (int corner = 0; corner < 3; corner++) {
+                model.getFaceUV(f, corner, uv, 0);
+                assertArrayEquals(corners[f * 3 + corner], uv, "face " + f + ", corner " + corner);
+
+                source.getVertex(source.getFaceVertexIndex(f, corner), expected, 0);
+                model.getVertex(model.getFaceVertexIndex(f, corner), actual, 0);
+                assertArrayEquals(expected, actual, 1e-4, "face " + f + ", corner " + corner);
+            }
+        }
+    }
+
+    //
+    // Helpers
+    //
+
+    /**
+     * Creates a model of random faces between random vertices, with one unit normal
+     * and one UV coordinate of up to a few repetitions of a texture per vertex.
+     */
+    @Nonnull
+    private static PackedModel randomModel(@Nonnull Random random, int vertexCount, boolean uvs) {
+        final float[] positions = new float[vertexCount * 3];
+        final float[] normals = new float[vertexCount * 3];
+        final float[] uvCoordinates = new float[uvs ? vertexCount * 2 : 0];
+
+        for (int i = 0; i < vertexCount; i++) {
+            positions[i * 3] = (random.nextFloat() * 2 - 1) * 250;
+            positions[i * 3 + 1] = (random.nextFloat() * 2 - 1) * 40;
+            positions[i * 3 + 2] = random.nextFloat() * 3;
+
+            final Vector3 normal = new Vector3(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).normalize();
+            normals[i * 3] = (float) normal.x();
+            normals[i * 3 + 1] = (float) normal.y();
+            normals[i * 3 + 2] = (float) normal.z();
+
+            if (uvs) {
+                uvCoordinates[i * 2] = (random.nextFloat() * 2 - 1) * 4;
+                uvCoordinates[i * 2 + 1] = random.nextFloat();
+            }
+        }
+
+        final int[] indices = new int[vertexCount * 6];
+        for (int i = 0; i < indices.length; i++) indices[i] = random.nextInt(vertexCount);
+
+        return new PackedModel(positions, normals, uvCoordinates, indices);
+    }
+}